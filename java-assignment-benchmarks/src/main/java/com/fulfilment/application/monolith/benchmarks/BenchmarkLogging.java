@@ -0,0 +1,17 @@
+package com.fulfilment.application.monolith.benchmarks;
+
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/** Keeps the application's INFO logging out of the measurements. */
+final class BenchmarkLogging {
+
+  // Held so the configured level is not lost when the logger is garbage collected
+  private static final Logger APPLICATION = Logger.getLogger("com.fulfilment");
+
+  private BenchmarkLogging() {}
+
+  static void quiet() {
+    APPLICATION.setLevel(Level.WARNING);
+  }
+}
@@ -0,0 +1,66 @@
+package com.fulfilment.application.monolith.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Entry point of {@code benchmarks.jar}.
+ *
+ * <p>Accepts the usual JMH command line and, unless {@code -rf}/{@code -rff} are given, writes the
+ * results as JSON to {@code results/jmh-<version>-<timestamp>.json} so runs of different releases
+ * can be compared, e.g. with jmh.morethan.io.
+ */
+public final class BenchmarkMain {
+
+  private static final DateTimeFormatter TIMESTAMP =
+      DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+  private BenchmarkMain() {}
+
+  public static void main(String[] args)
+      throws CommandLineOptionException, IOException, RunnerException {
+    CommandLineOptions commandLine = new CommandLineOptions(args);
+    if (isInformational(commandLine)) {
+      org.openjdk.jmh.Main.main(args);
+      return;
+    }
+
+    ChainedOptionsBuilder options = new OptionsBuilder().parent(commandLine);
+    if (commandLine.getResultFormat().hasValue() || commandLine.getResult().hasValue()) {
+      new Runner(options.build()).run();
+      return;
+    }
+
+    File resultsDirectory = new File("results");
+    resultsDirectory.mkdirs();
+    String version = BenchmarkMain.class.getPackage().getImplementationVersion();
+    File results =
+        new File(
+            resultsDirectory,
+            "jmh-"
+                + (version != null ? version : "dev")
+                + "-"
+                + TIMESTAMP.format(LocalDateTime.now())
+                + ".json");
+    options.resultFormat(ResultFormatType.JSON).result(results.getPath());
+    new Runner(options.build()).run();
+    System.out.println("JMH results written to " + results.getPath());
+  }
+
+  private static boolean isInformational(CommandLineOptions commandLine) {
+    return commandLine.shouldHelp()
+        || commandLine.shouldList()
+        || commandLine.shouldListWithParams()
+        || commandLine.shouldListProfilers()
+        || commandLine.shouldListResultFormats();
+  }
+}
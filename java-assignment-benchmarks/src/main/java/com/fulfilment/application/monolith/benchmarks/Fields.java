@@ -0,0 +1,26 @@
+package com.fulfilment.application.monolith.benchmarks;
+
+import java.lang.reflect.Field;
+
+/** Sets injected fields of application beans, which have no setters outside CDI. */
+final class Fields {
+
+  private Fields() {}
+
+  static void set(Object target, String name, Object value) {
+    // Walk up, as the field may be declared by a class the target extends
+    for (Class<?> type = target.getClass(); type != null; type = type.getSuperclass()) {
+      try {
+        Field field = type.getDeclaredField(name);
+        field.setAccessible(true);
+        field.set(target, value);
+        return;
+      } catch (NoSuchFieldException e) {
+        // Try the superclass
+      } catch (ReflectiveOperationException e) {
+        throw new IllegalStateException("Cannot set " + name + " on " + target.getClass(), e);
+      }
+    }
+    throw new IllegalStateException("No field " + name + " on " + target.getClass());
+  }
+}
@@ -0,0 +1,59 @@
+package com.fulfilment.application.monolith.benchmarks;
+
+import com.fulfilment.application.monolith.fulfillment.FulfillmentResponse;
+import com.fulfilment.application.monolith.fulfillment.ProductWarehouseFulfillment;
+import com.fulfilment.application.monolith.products.Product;
+import com.fulfilment.application.monolith.stores.Store;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost of {@link FulfillmentResponse#from} on an entity with loaded associations, compared with
+ * the constructor used by the projection queries.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FulfillmentResponseBenchmark {
+
+  private ProductWarehouseFulfillment fulfillment;
+
+  @Setup
+  public void setUp() {
+    Product product = new Product("TONSTAD");
+    product.id = 1L;
+    Store store = new Store("AMSTERDAM");
+    store.id = 2L;
+    fulfillment = new ProductWarehouseFulfillment(1L, "MWH.001", 2L);
+    fulfillment.setProduct(product);
+    fulfillment.setStore(store);
+  }
+
+  @Benchmark
+  public FulfillmentResponse fromEntity() {
+    return FulfillmentResponse.from(fulfillment);
+  }
+
+  @Benchmark
+  public FulfillmentResponse projection() {
+    return new FulfillmentResponse(
+        fulfillment.getProductId(),
+        "TONSTAD",
+        fulfillment.getWarehouseBusinessUnit(),
+        fulfillment.getStoreId(),
+        "AMSTERDAM",
+        fulfillment.getCreatedAt());
+  }
+}
@@ -0,0 +1,79 @@
+package com.fulfilment.application.monolith.benchmarks;
+
+import com.fulfilment.application.monolith.fulfillment.FulfillmentRoutingTable;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost of a routing lookup in {@link FulfillmentRoutingTable}.
+ *
+ * <p>The table is filled with {@code pairs} (product, store) pairs of two warehouses each. Every
+ * invocation looks up the next pair of a precomputed sequence, mixing hits and misses. Run with
+ * {@code -prof gc} to confirm that lookups do not allocate.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FulfillmentRoutingBenchmark {
+
+  private static final int LOOKUPS = 1 << 16;
+
+  @Param({"1000", "100000"})
+  int pairs;
+
+  private FulfillmentRoutingTable table;
+  private long[] productIds;
+  private long[] storeIds;
+
+  @State(Scope.Thread)
+  public static class Cursor {
+    int next;
+  }
+
+  @Setup
+  public void setUp() {
+    table = new FulfillmentRoutingTable();
+    int stores = Math.max(1, pairs / 100);
+    for (int i = 0; i < pairs; i++) {
+      table.add(i / stores, i % stores, "WH-" + (i % 50));
+      table.add(i / stores, i % stores, "WH-" + (i % 50 + 50));
+    }
+    productIds = new long[LOOKUPS];
+    storeIds = new long[LOOKUPS];
+    Random random = new Random(42);
+    for (int i = 0; i < LOOKUPS; i++) {
+      // One in eight lookups misses
+      int pair = random.nextInt(pairs + pairs / 7);
+      productIds[i] = pair / stores;
+      storeIds[i] = pair % stores;
+    }
+  }
+
+  @Benchmark
+  public String[] lookup(Cursor cursor) {
+    int i = cursor.next++ & (LOOKUPS - 1);
+    return table.get(productIds[i], storeIds[i]);
+  }
+
+  @Benchmark
+  @Threads(4)
+  public String[] lookupConcurrent(Cursor cursor) {
+    int i = cursor.next++ & (LOOKUPS - 1);
+    return table.get(productIds[i], storeIds[i]);
+  }
+}
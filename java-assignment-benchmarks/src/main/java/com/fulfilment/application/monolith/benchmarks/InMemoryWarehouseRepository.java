@@ -0,0 +1,128 @@
+package com.fulfilment.application.monolith.benchmarks;
+
+import com.fulfilment.application.monolith.warehouses.adapters.database.DbWarehouse;
+import com.fulfilment.application.monolith.warehouses.adapters.database.StockMovementRepository;
+import com.fulfilment.application.monolith.warehouses.adapters.database.WarehouseRepository;
+import com.fulfilment.application.monolith.warehouses.domain.models.Occupancy;
+import com.fulfilment.application.monolith.warehouses.domain.models.Warehouse;
+import com.fulfilment.application.monolith.warehouses.domain.models.WarehouseFilter;
+import com.fulfilment.application.monolith.warehouses.domain.ports.WarehouseProjection;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@link WarehouseRepository} backed by a map instead of Hibernate.
+ *
+ * <p>Only the Panache calls are replaced, so {@code getAll()} and {@code create()} still run the
+ * repository's real entity mapping. {@link #occupancyAt} doubles as an unreserved {@code
+ * LocationOccupancy} for the use cases and {@link #search} evaluates the filter over the map,
+ * projecting the entities themselves. Writes are recorded but not stored when {@code readOnly} is
+ * set, so that every benchmark invocation validates against the same data. Stock movements are
+ * dropped.
+ */
+class InMemoryWarehouseRepository extends WarehouseRepository {
+
+  private static final LocalDateTime CREATED_AT = LocalDateTime.of(2024, 7, 1, 12, 0);
+
+  private final Map<String, DbWarehouse> warehouses = new LinkedHashMap<>();
+  private final boolean readOnly;
+  private long nextId = 1;
+  int writes;
+
+  InMemoryWarehouseRepository(boolean readOnly) {
+    this.readOnly = readOnly;
+    Fields.set(this, "stockMovements", new DroppedStockMovements());
+  }
+
+  void add(String businessUnitCode, String location, int capacity, int stock) {
+    DbWarehouse warehouse = new DbWarehouse();
+    warehouse.businessUnitCode = businessUnitCode;
+    warehouse.location = location;
+    warehouse.capacity = capacity;
+    warehouse.stock = stock;
+    warehouse.createdAt = CREATED_AT;
+    warehouse.version = 0L;
+    store(warehouse);
+  }
+
+  @Override
+  public List<DbWarehouse> listAll() {
+    return new ArrayList<>(warehouses.values());
+  }
+
+  @Override
+  public <T> List<T> search(WarehouseFilter filter, WarehouseProjection<T> projection) {
+    // Ids are assigned in insertion order, so the map is already in id order
+    List<T> result = new ArrayList<>();
+    for (DbWarehouse warehouse : warehouses.values()) {
+      if (result.size() == filter.limit) {
+        break;
+      }
+      if (matches(filter, warehouse)) {
+        result.add(projection.map(warehouse));
+      }
+    }
+    return result;
+  }
+
+  @Override
+  public void persist(DbWarehouse warehouse) {
+    writes++;
+    if (!readOnly) {
+      store(warehouse);
+    }
+  }
+
+  @Override
+  public void update(Warehouse warehouse) {
+    writes++;
+  }
+
+  @Override
+  public void replace(Warehouse newVersion) {
+    writes++;
+  }
+
+  @Override
+  public Warehouse findByBusinessUnitCode(String buCode) {
+    DbWarehouse warehouse = warehouses.get(buCode);
+    return warehouse != null ? warehouse.toWarehouse() : null;
+  }
+
+  @Override
+  public Occupancy occupancyAt(String locationId) {
+    long count = 0;
+    int capacity = 0;
+    for (DbWarehouse warehouse : warehouses.values()) {
+      if (warehouse.archivedAt == null && locationId.equals(warehouse.location)) {
+        count++;
+        capacity += warehouse.capacity != null ? warehouse.capacity : 0;
+      }
+    }
+    return new Occupancy(count, capacity);
+  }
+
+  private static boolean matches(WarehouseFilter filter, DbWarehouse warehouse) {
+    return (filter.afterId == null || warehouse.id > filter.afterId)
+        && (filter.location == null || filter.location.equals(warehouse.location))
+        && (filter.archived == null || filter.archived == (warehouse.archivedAt != null))
+        && (filter.minCapacity == null || warehouse.capacity >= filter.minCapacity)
+        && (filter.maxCapacity == null || warehouse.capacity <= filter.maxCapacity);
+  }
+
+  private void store(DbWarehouse warehouse) {
+    warehouse.id = nextId++;
+    warehouses.put(warehouse.businessUnitCode, warehouse);
+  }
+
+  private static final class DroppedStockMovements extends StockMovementRepository {
+
+    @Override
+    public void record(String businessUnitCode, int delta, LocalDateTime movedAt) {
+      // Not measured
+    }
+  }
+}
@@ -0,0 +1,85 @@
+package com.fulfilment.application.monolith.benchmarks;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.fulfilment.application.monolith.fulfillment.FulfillmentResource.FulfillmentStats;
+import com.fulfilment.application.monolith.fulfillment.FulfillmentResponse;
+import com.warehouse.api.beans.Warehouse;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost of serialising the response DTOs with Jackson, configured like the Quarkus default mapper
+ * (Java time module, ISO dates).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JacksonSerializationBenchmark {
+
+  @Param({"1", "100"})
+  int rows;
+
+  private ObjectMapper objectMapper;
+  private List<FulfillmentResponse> fulfillments;
+  private List<Warehouse> warehouses;
+  private FulfillmentStats stats;
+
+  @Setup
+  public void setUp() {
+    objectMapper =
+        new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    LocalDateTime createdAt = LocalDateTime.of(2024, 1, 1, 12, 0);
+    fulfillments = new ArrayList<>();
+    warehouses = new ArrayList<>();
+    for (int i = 0; i < rows; i++) {
+      fulfillments.add(
+          new FulfillmentResponse(
+              (long) i, "PRODUCT-" + i, "MWH." + i, (long) i % 10, "STORE-" + i % 10, createdAt));
+      Warehouse warehouse = new Warehouse();
+      warehouse.setId(String.valueOf(i));
+      warehouse.setBusinessUnitCode("MWH." + i);
+      warehouse.setLocation("AMSTERDAM-001");
+      warehouse.setCapacity(100);
+      warehouse.setStock(10);
+      warehouses.add(warehouse);
+    }
+    stats = new FulfillmentStats("Store", "1", 2L, 3L, 4L, true);
+  }
+
+  @Benchmark
+  public byte[] fulfillmentResponses() throws JsonProcessingException {
+    return objectMapper.writeValueAsBytes(fulfillments);
+  }
+
+  @Benchmark
+  public byte[] warehouses() throws JsonProcessingException {
+    return objectMapper.writeValueAsBytes(warehouses);
+  }
+
+  @Benchmark
+  public byte[] stats() throws JsonProcessingException {
+    return objectMapper.writeValueAsBytes(stats);
+  }
+}
@@ -0,0 +1,119 @@
+package com.fulfilment.application.monolith.benchmarks;
+
+import com.fulfilment.application.monolith.stores.LegacyStoreJournal;
+import com.fulfilment.application.monolith.stores.LegacyStoreManagerGateway;
+import com.fulfilment.application.monolith.stores.Store;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.OpenOption;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Comparator;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Legacy store manager calls per millisecond, from four threads as the outbox workers send them.
+ *
+ * <p>{@code tempFiles} creates, writes, reads back and deletes a temporary file per call, as the
+ * gateway did before it journaled calls. Its console output goes nowhere, and none of its files is
+ * forced to disk. {@code tempFilesForced} writes each file through to disk, which is what the same
+ * calls cost once they are durable. {@code journal} calls {@link LegacyStoreManagerGateway}, which
+ * appends each call to a {@link LegacyStoreJournal} and returns once the group commit has forced
+ * it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(4)
+@Fork(1)
+public class LegacyStoreGatewayBenchmark {
+
+  private static final PrintStream NOWHERE = new PrintStream(OutputStream.nullOutputStream());
+
+  private Path directory;
+  private LegacyStoreJournal journal;
+  private LegacyStoreManagerGateway gateway;
+  private Store store;
+  private String idempotencyKey;
+
+  @Setup
+  public void setUp() throws IOException {
+    BenchmarkLogging.quiet();
+    directory = Files.createTempDirectory("legacy-store-journal");
+    journal = new LegacyStoreJournal(directory, 64 * 1024 * 1024, 4, 2);
+    gateway = new LegacyStoreManagerGateway();
+    Fields.set(gateway, "journal", journal);
+
+    store = new Store("Store-Benchmark");
+    store.id = 1L;
+    store.quantityProductsInStock = 42;
+    idempotencyKey = UUID.randomUUID().toString();
+  }
+
+  @TearDown
+  public void tearDown() throws IOException {
+    journal.close();
+    try (Stream<Path> files = Files.walk(directory)) {
+      for (Path path : files.sorted(Comparator.reverseOrder()).toList()) {
+        Files.delete(path);
+      }
+    }
+  }
+
+  @Benchmark
+  public void tempFiles() {
+    writeTempFile();
+  }
+
+  @Benchmark
+  public void tempFilesForced() {
+    writeTempFile(StandardOpenOption.WRITE, StandardOpenOption.DSYNC);
+  }
+
+  @Benchmark
+  public void journal() {
+    gateway.updateStoreOnLegacySystem(store, idempotencyKey);
+  }
+
+  private void writeTempFile(OpenOption... options) {
+    try {
+      Path tempFile = Files.createTempFile(store.name, ".txt");
+      NOWHERE.println("Temporary file created at: " + tempFile.toString());
+      String content =
+          "Store created. [ name ="
+              + store.name
+              + " ] [ items on stock ="
+              + store.quantityProductsInStock
+              + "] [ idempotency key ="
+              + idempotencyKey
+              + " ]";
+      Files.write(tempFile, content.getBytes(), options);
+      NOWHERE.println("Data written to temporary file.");
+      String readContent = new String(Files.readAllBytes(tempFile));
+      NOWHERE.println("Data read from temporary file: " + readContent);
+      Files.delete(tempFile);
+      NOWHERE.println("Temporary file deleted.");
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+}
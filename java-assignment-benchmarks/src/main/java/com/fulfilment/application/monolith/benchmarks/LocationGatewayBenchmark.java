@@ -0,0 +1,45 @@
+package com.fulfilment.application.monolith.benchmarks;
+
+import com.fulfilment.application.monolith.location.LocationGateway;
+import com.fulfilment.application.monolith.location.LocationNotFoundException;
+import com.fulfilment.application.monolith.warehouses.domain.models.Location;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Cost of {@link LocationGateway#resolveByIdentifier} for known and unknown identifiers. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LocationGatewayBenchmark {
+
+  private final LocationGateway gateway = new LocationGateway();
+
+  // Not interned, like identifiers deserialised from a request
+  private final String known = new String("AMSTERDAM-001");
+  private final String unknown = new String("ROTTERDAM-001");
+
+  @Benchmark
+  public Location resolveKnown() {
+    return gateway.resolveByIdentifier(known);
+  }
+
+  @Benchmark
+  public Object resolveUnknown() {
+    try {
+      return gateway.resolveByIdentifier(unknown);
+    } catch (LocationNotFoundException e) {
+      return e;
+    }
+  }
+}
@@ -0,0 +1,86 @@
+package com.fulfilment.application.monolith.benchmarks;
+
+import com.fulfilment.application.monolith.warehouses.adapters.database.LocationReservationRepository;
+import com.fulfilment.application.monolith.warehouses.adapters.restapi.WarehouseResourceImpl;
+import com.fulfilment.application.monolith.warehouses.domain.ports.CreateWarehouseOperation;
+import com.warehouse.api.beans.Warehouse;
+import java.math.BigInteger;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost of the API ↔ domain ↔ DB mapping chain of {@link WarehouseResourceImpl}.
+ *
+ * <p>{@code listAll} projects up to {@code warehouses} rows straight into API beans, as GET
+ * /warehouse does. {@code create} maps an API bean to a domain model and an entity, then the
+ * stored entity back to an API bean, with validation replaced by a pass-through so that only the
+ * mapping is measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WarehouseMappingBenchmark {
+
+  private static final BigInteger PAGE_SIZE = BigInteger.valueOf(1000);
+
+  @Param({"10", "1000"})
+  int warehouses;
+
+  private WarehouseResourceImpl resource;
+  private Warehouse request;
+
+  @Setup
+  public void setUp() {
+    BenchmarkLogging.quiet();
+    InMemoryWarehouseRepository repository = new InMemoryWarehouseRepository(true);
+    for (int i = 0; i < warehouses; i++) {
+      repository.add("MWH." + i, "AMSTERDAM-001", 100, 10);
+    }
+    CreateWarehouseOperation passThrough = repository::create;
+
+    resource = new WarehouseResourceImpl();
+    Fields.set(resource, "warehouseStore", repository);
+    Fields.set(resource, "createWarehouseOperation", passThrough);
+    Fields.set(resource, "locationReservations", new DirectTransactions());
+
+    request = new Warehouse();
+    request.setBusinessUnitCode("MWH.0");
+    request.setLocation("AMSTERDAM-001");
+    request.setCapacity(100);
+    request.setStock(10);
+  }
+
+  @Benchmark
+  public List<Warehouse> listAll() {
+    return resource.listAllWarehousesUnits(null, null, null, null, null, PAGE_SIZE);
+  }
+
+  @Benchmark
+  public Warehouse create() {
+    return resource.createANewWarehouseUnit(request);
+  }
+
+  /** Runs writes directly, as there is no transaction manager outside Quarkus. */
+  static final class DirectTransactions extends LocationReservationRepository {
+
+    @Override
+    public <T> T inTransaction(Supplier<T> work) {
+      return work.get();
+    }
+  }
+}
@@ -0,0 +1,82 @@
+package com.fulfilment.application.monolith.benchmarks;
+
+import com.fulfilment.application.monolith.warehouses.adapters.restapi.WarehouseResourceImpl;
+import com.warehouse.api.beans.Warehouse;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Allocations per listed warehouse of the read path, with {@code -prof gc}: {@code
+ * gc.alloc.rate.norm} is in bytes per warehouse, as each invocation lists {@link #WAREHOUSES}.
+ *
+ * <p>{@code copied} maps every stored warehouse to a domain model and then to an API bean, as
+ * reads did before they were projected. {@code projected} lists through {@link
+ * WarehouseResourceImpl}, which maps each stored warehouse straight into its API bean.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WarehouseProjectionBenchmark {
+
+  private static final int WAREHOUSES = 1000;
+
+  private static final BigInteger PAGE_SIZE = BigInteger.valueOf(WAREHOUSES);
+
+  private InMemoryWarehouseRepository repository;
+  private WarehouseResourceImpl resource;
+
+  @Setup
+  public void setUp() {
+    BenchmarkLogging.quiet();
+    repository = new InMemoryWarehouseRepository(true);
+    for (int i = 0; i < WAREHOUSES; i++) {
+      repository.add("MWH." + i, "AMSTERDAM-001", 100, 10);
+    }
+
+    resource = new WarehouseResourceImpl();
+    Fields.set(resource, "warehouseStore", repository);
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(WAREHOUSES)
+  public List<Warehouse> copied() {
+    List<com.fulfilment.application.monolith.warehouses.domain.models.Warehouse> domain =
+        repository.getAll();
+    List<Warehouse> result = new ArrayList<>(domain.size());
+    for (com.fulfilment.application.monolith.warehouses.domain.models.Warehouse warehouse :
+        domain) {
+      Warehouse apiWarehouse = new Warehouse();
+      apiWarehouse.setId(String.valueOf(warehouse.id));
+      apiWarehouse.setBusinessUnitCode(warehouse.businessUnitCode);
+      apiWarehouse.setLocation(warehouse.location);
+      apiWarehouse.setCapacity(warehouse.capacity);
+      apiWarehouse.setStock(warehouse.stock);
+      apiWarehouse.setCreatedAt(warehouse.createdAt.toString());
+      apiWarehouse.setVersion(warehouse.version);
+      result.add(apiWarehouse);
+    }
+    return result;
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(WAREHOUSES)
+  public List<Warehouse> projected() {
+    return resource.listAllWarehousesUnits(null, null, null, null, null, PAGE_SIZE);
+  }
+}
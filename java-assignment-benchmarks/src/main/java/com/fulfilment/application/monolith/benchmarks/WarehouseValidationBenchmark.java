@@ -0,0 +1,101 @@
+package com.fulfilment.application.monolith.benchmarks;
+
+import com.fulfilment.application.monolith.exceptions.BusinessValidationException;
+import com.fulfilment.application.monolith.location.LocationGateway;
+import com.fulfilment.application.monolith.warehouses.domain.models.Warehouse;
+import com.fulfilment.application.monolith.warehouses.domain.usecases.CreateWarehouseUseCase;
+import com.fulfilment.application.monolith.warehouses.domain.usecases.ReplaceWarehouseUseCase;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost of the validation rules of {@link CreateWarehouseUseCase} and {@link
+ * ReplaceWarehouseUseCase} against an in-memory store.
+ *
+ * <p>The store holds {@code warehouses} warehouses spread over the known locations and discards
+ * writes, so every invocation validates against the same data. The rejected variant measures the
+ * exception path of a failed validation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WarehouseValidationBenchmark {
+
+  private static final String[] LOCATIONS = {
+    "ZWOLLE-002", "AMSTERDAM-002", "TILBURG-001", "HELMOND-001", "EINDHOVEN-001", "VETSBY-001"
+  };
+
+  @Param({"10", "1000"})
+  int warehouses;
+
+  private CreateWarehouseUseCase createUseCase;
+  private ReplaceWarehouseUseCase replaceUseCase;
+  private Warehouse newWarehouse;
+  private Warehouse overCapacityWarehouse;
+  private Warehouse replacement;
+
+  @Setup
+  public void setUp() {
+    BenchmarkLogging.quiet();
+    InMemoryWarehouseRepository repository = new InMemoryWarehouseRepository(true);
+    // AMSTERDAM-001 is kept below its limits so that creating there succeeds
+    repository.add("MWH.AMS", "AMSTERDAM-001", 30, 10);
+    for (int i = 1; i < warehouses; i++) {
+      repository.add("MWH." + i, LOCATIONS[i % LOCATIONS.length], 1, 1);
+    }
+    LocationGateway locationGateway = new LocationGateway();
+    createUseCase =
+        new CreateWarehouseUseCase(repository, locationGateway, repository::occupancyAt);
+    replaceUseCase =
+        new ReplaceWarehouseUseCase(repository, locationGateway, repository::occupancyAt);
+
+    newWarehouse = warehouse("MWH.NEW", "AMSTERDAM-001", 40, 20);
+    overCapacityWarehouse = warehouse("MWH.NEW", "AMSTERDAM-001", 80, 20);
+    replacement = warehouse("MWH.AMS", "AMSTERDAM-001", 50, 10);
+  }
+
+  @Benchmark
+  public Warehouse createAccepted() {
+    createUseCase.create(newWarehouse);
+    return newWarehouse;
+  }
+
+  @Benchmark
+  public Object createRejected() {
+    try {
+      createUseCase.create(overCapacityWarehouse);
+      return overCapacityWarehouse;
+    } catch (BusinessValidationException e) {
+      return e;
+    }
+  }
+
+  @Benchmark
+  public Warehouse replaceAccepted() {
+    replaceUseCase.replace(replacement);
+    return replacement;
+  }
+
+  private static Warehouse warehouse(
+      String businessUnitCode, String location, int capacity, int stock) {
+    Warehouse warehouse = new Warehouse();
+    warehouse.businessUnitCode = businessUnitCode;
+    warehouse.location = location;
+    warehouse.capacity = capacity;
+    warehouse.stock = stock;
+    return warehouse;
+  }
+}
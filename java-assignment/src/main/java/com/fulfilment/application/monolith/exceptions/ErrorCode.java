@@ -18,6 +18,9 @@ public enum ErrorCode {
   CAPACITY_EXCEEDED("CAPACITY_EXCEEDED", "Capacity limit exceeded"),
   STOCK_MISMATCH("STOCK_MISMATCH", "Stock values do not match"),
 
+  // Precondition errors (412)
+  PRECONDITION_FAILED("PRECONDITION_FAILED", "Resource has changed since it was read"),
+
   // Business rule errors (422)
   BUSINESS_RULE_VIOLATION("BUSINESS_RULE_VIOLATION", "Business rule violation"),
   INVALID_OPERATION("INVALID_OPERATION", "Operation not allowed"),
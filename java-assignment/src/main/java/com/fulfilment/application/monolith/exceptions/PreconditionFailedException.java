@@ -0,0 +1,14 @@
+package com.fulfilment.application.monolith.exceptions;
+
+/**
+ * Base exception for requests whose precondition no longer holds, such as an {@code If-Match}
+ * version that a concurrent change has superseded.
+ *
+ * This is handled by a single ExceptionMapper that returns HTTP 412 for all subclasses.
+ */
+public abstract class PreconditionFailedException extends RuntimeException {
+
+  public PreconditionFailedException(String message) {
+    super(message);
+  }
+}
@@ -0,0 +1,23 @@
+package com.fulfilment.application.monolith.exceptions;
+
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.ext.ExceptionMapper;
+import jakarta.ws.rs.ext.Provider;
+
+/**
+ * JAX-RS ExceptionMapper for PreconditionFailedException.
+ * Converts failed preconditions of conditional requests to HTTP 412 Precondition Failed responses.
+ */
+@Provider
+public class PreconditionFailedExceptionMapper
+    implements ExceptionMapper<PreconditionFailedException> {
+
+  @Override
+  public Response toResponse(PreconditionFailedException exception) {
+    return Response.status(Response.Status.PRECONDITION_FAILED)
+        .type(MediaType.APPLICATION_JSON)
+        .entity(new ErrorResponse("PRECONDITION_FAILED", exception.getMessage()))
+        .build();
+  }
+}
@@ -0,0 +1,46 @@
+package com.fulfilment.application.monolith.fulfillment;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Data Transfer Object for the result of a batch fulfillment creation, with one entry per
+ * submitted row in request order.
+ */
+public class FulfillmentBatchResponse {
+
+  public int created;
+  public int rejected;
+  public List<RowResult> results = new ArrayList<>();
+
+  public void addCreated(int index, FulfillmentRequest request) {
+    results.add(new RowResult(index, request, true, null));
+    created++;
+  }
+
+  public void addRejected(int index, FulfillmentRequest request, String error) {
+    results.add(new RowResult(index, request, false, error));
+    rejected++;
+  }
+
+  /** Outcome of a single batch row. */
+  public static class RowResult {
+    public int index;
+    public Long productId;
+    public String warehouseBusinessUnit;
+    public Long storeId;
+    public boolean created;
+    public String error;
+
+    public RowResult() {}
+
+    public RowResult(int index, FulfillmentRequest request, boolean created, String error) {
+      this.index = index;
+      this.productId = request.productId;
+      this.warehouseBusinessUnit = request.warehouseBusinessUnit;
+      this.storeId = request.storeId;
+      this.created = created;
+      this.error = error;
+    }
+  }
+}
@@ -0,0 +1,31 @@
+package com.fulfilment.application.monolith.fulfillment;
+
+/**
+ * Everything needed to validate a new fulfillment association, as seen by the {@link
+ * FulfillmentConstraintIndex} or loaded from the database by {@link
+ * ProductWarehouseFulfillmentRepository#loadConstraintCounts}.
+ */
+public class FulfillmentConstraintCounts {
+
+  public final boolean exists;
+  public final long warehousesForProductInStore;
+  public final long distinctWarehousesForStore;
+  public final boolean warehouseAlreadyServesStore;
+  public final long distinctProductsInWarehouse;
+  public final boolean productAlreadyInWarehouse;
+
+  public FulfillmentConstraintCounts(
+      boolean exists,
+      long warehousesForProductInStore,
+      long distinctWarehousesForStore,
+      boolean warehouseAlreadyServesStore,
+      long distinctProductsInWarehouse,
+      boolean productAlreadyInWarehouse) {
+    this.exists = exists;
+    this.warehousesForProductInStore = warehousesForProductInStore;
+    this.distinctWarehousesForStore = distinctWarehousesForStore;
+    this.warehouseAlreadyServesStore = warehouseAlreadyServesStore;
+    this.distinctProductsInWarehouse = distinctProductsInWarehouse;
+    this.productAlreadyInWarehouse = productAlreadyInWarehouse;
+  }
+}
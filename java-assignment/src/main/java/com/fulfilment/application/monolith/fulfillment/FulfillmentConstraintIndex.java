@@ -0,0 +1,229 @@
+package com.fulfilment.application.monolith.fulfillment;
+
+import io.quarkus.runtime.StartupEvent;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import jakarta.transaction.Status;
+import jakarta.transaction.Synchronization;
+import jakarta.transaction.Transactional;
+import jakarta.transaction.TransactionSynchronizationRegistry;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.jboss.logging.Logger;
+
+/**
+ * In-memory index of the Product x Warehouse x Store fulfillment relation.
+ *
+ * <p>Holds per-store warehouse sets, per-warehouse product sets and per-(product, store) warehouse
+ * sets so that all three business constraints can be checked without touching the database.
+ *
+ * <p>Inserts made through {@link ProductWarehouseFulfillmentRepository} are applied immediately, so
+ * they act as a reservation for concurrent writers, and are undone if the surrounding transaction
+ * does not commit. Deletes only take effect once their transaction has committed. The index
+ * therefore never under-counts the changes of this instance. It is rebuilt from the database at
+ * startup.
+ *
+ * <p>The index does not see changes made by other application instances, so it is only a hint.
+ * Validation confirms a violation it reports against the database before rejecting a row, and the
+ * counters of {@link FulfillmentCounterRepository} and the primary key enforce the constraints for
+ * the rows it lets through.
+ */
+@ApplicationScoped
+public class FulfillmentConstraintIndex {
+
+  private static final Logger LOG = Logger.getLogger(FulfillmentConstraintIndex.class);
+
+  // storeId -> (warehouseBusinessUnit -> number of fulfillment rows)
+  private final Map<Long, Map<String, Integer>> warehousesByStore = new HashMap<>();
+
+  // warehouseBusinessUnit -> (productId -> number of fulfillment rows)
+  private final Map<String, Map<Long, Integer>> productsByWarehouse = new HashMap<>();
+
+  // (productId, storeId) -> warehouse business units
+  private final Map<ProductStoreKey, Set<String>> warehousesByProductAndStore = new HashMap<>();
+
+  @Inject ProductWarehouseFulfillmentRepository fulfillmentRepository;
+
+  @Inject TransactionSynchronizationRegistry syncRegistry;
+
+  @Transactional
+  void onStart(@Observes StartupEvent event) {
+    List<ProductWarehouseFulfillmentId> keys = fulfillmentRepository.findAllIds();
+    rebuild(keys);
+    LOG.infof("Fulfillment constraint index rebuilt with %d associations", keys.size());
+  }
+
+  /** Replaces the index content with the given associations. */
+  synchronized void rebuild(Collection<ProductWarehouseFulfillmentId> keys) {
+    warehousesByStore.clear();
+    productsByWarehouse.clear();
+    warehousesByProductAndStore.clear();
+    for (ProductWarehouseFulfillmentId key : keys) {
+      add(key.getProductId(), key.getWarehouseBusinessUnit(), key.getStoreId());
+    }
+  }
+
+  /**
+   * Records a persisted association. The change is reverted if the current transaction rolls back.
+   */
+  public void recordInsert(Long productId, String warehouseBusinessUnit, Long storeId) {
+    if (add(productId, warehouseBusinessUnit, storeId)) {
+      onRollback(() -> remove(productId, warehouseBusinessUnit, storeId));
+    }
+  }
+
+  /** Records a deleted association. The change is applied once the current transaction commits. */
+  public void recordDelete(Long productId, String warehouseBusinessUnit, Long storeId) {
+    onCommit(() -> remove(productId, warehouseBusinessUnit, storeId));
+  }
+
+  /**
+   * Records the removal of every association. Only the associations known at call time are removed
+   * once the current transaction commits.
+   */
+  public void recordDeleteAll() {
+    List<ProductWarehouseFulfillmentId> removed = snapshot();
+    onCommit(
+        () ->
+            removed.forEach(
+                key ->
+                    remove(key.getProductId(), key.getWarehouseBusinessUnit(), key.getStoreId())));
+  }
+
+  public synchronized boolean contains(
+      Long productId, String warehouseBusinessUnit, Long storeId) {
+    Set<String> warehouses =
+        warehousesByProductAndStore.get(new ProductStoreKey(productId, storeId));
+    return warehouses != null && warehouses.contains(warehouseBusinessUnit);
+  }
+
+  public synchronized int countWarehousesForProductInStore(Long productId, Long storeId) {
+    Set<String> warehouses =
+        warehousesByProductAndStore.get(new ProductStoreKey(productId, storeId));
+    return warehouses != null ? warehouses.size() : 0;
+  }
+
+  public synchronized boolean storeHasWarehouse(Long storeId, String warehouseBusinessUnit) {
+    Map<String, Integer> warehouses = warehousesByStore.get(storeId);
+    return warehouses != null && warehouses.containsKey(warehouseBusinessUnit);
+  }
+
+  public synchronized int countDistinctWarehousesForStore(Long storeId) {
+    Map<String, Integer> warehouses = warehousesByStore.get(storeId);
+    return warehouses != null ? warehouses.size() : 0;
+  }
+
+  public synchronized boolean warehouseHasProduct(String warehouseBusinessUnit, Long productId) {
+    Map<Long, Integer> products = productsByWarehouse.get(warehouseBusinessUnit);
+    return products != null && products.containsKey(productId);
+  }
+
+  public synchronized int countDistinctProductsInWarehouse(String warehouseBusinessUnit) {
+    Map<Long, Integer> products = productsByWarehouse.get(warehouseBusinessUnit);
+    return products != null ? products.size() : 0;
+  }
+
+  /** All constraint counts of a candidate association, read under one lock. */
+  public synchronized FulfillmentConstraintCounts constraintCounts(
+      Long productId, String warehouseBusinessUnit, Long storeId) {
+    return new FulfillmentConstraintCounts(
+        contains(productId, warehouseBusinessUnit, storeId),
+        countWarehousesForProductInStore(productId, storeId),
+        countDistinctWarehousesForStore(storeId),
+        storeHasWarehouse(storeId, warehouseBusinessUnit),
+        countDistinctProductsInWarehouse(warehouseBusinessUnit),
+        warehouseHasProduct(warehouseBusinessUnit, productId));
+  }
+
+  synchronized boolean add(Long productId, String warehouseBusinessUnit, Long storeId) {
+    boolean added =
+        warehousesByProductAndStore
+            .computeIfAbsent(new ProductStoreKey(productId, storeId), k -> new HashSet<>())
+            .add(warehouseBusinessUnit);
+    if (added) {
+      warehousesByStore
+          .computeIfAbsent(storeId, k -> new HashMap<>())
+          .merge(warehouseBusinessUnit, 1, Integer::sum);
+      productsByWarehouse
+          .computeIfAbsent(warehouseBusinessUnit, k -> new HashMap<>())
+          .merge(productId, 1, Integer::sum);
+    }
+    return added;
+  }
+
+  synchronized boolean remove(Long productId, String warehouseBusinessUnit, Long storeId) {
+    ProductStoreKey key = new ProductStoreKey(productId, storeId);
+    Set<String> warehouses = warehousesByProductAndStore.get(key);
+    if (warehouses == null || !warehouses.remove(warehouseBusinessUnit)) {
+      return false;
+    }
+    if (warehouses.isEmpty()) {
+      warehousesByProductAndStore.remove(key);
+    }
+    decrement(warehousesByStore, storeId, warehouseBusinessUnit);
+    decrement(productsByWarehouse, warehouseBusinessUnit, productId);
+    return true;
+  }
+
+  private synchronized List<ProductWarehouseFulfillmentId> snapshot() {
+    List<ProductWarehouseFulfillmentId> keys = new ArrayList<>();
+    warehousesByProductAndStore.forEach(
+        (key, warehouses) ->
+            warehouses.forEach(
+                warehouse ->
+                    keys.add(
+                        new ProductWarehouseFulfillmentId(
+                            key.productId(), warehouse, key.storeId()))));
+    return keys;
+  }
+
+  private static <K, V> void decrement(Map<K, Map<V, Integer>> index, K outer, V inner) {
+    Map<V, Integer> counts = index.get(outer);
+    if (counts == null) {
+      return;
+    }
+    counts.computeIfPresent(inner, (k, count) -> count > 1 ? count - 1 : null);
+    if (counts.isEmpty()) {
+      index.remove(outer);
+    }
+  }
+
+  private void onRollback(Runnable compensation) {
+    if (syncRegistry.getTransactionKey() != null) {
+      afterCompletion(false, compensation);
+    }
+  }
+
+  private void onCommit(Runnable change) {
+    if (syncRegistry.getTransactionKey() == null) {
+      change.run();
+    } else {
+      afterCompletion(true, change);
+    }
+  }
+
+  private void afterCompletion(boolean onCommit, Runnable action) {
+    syncRegistry.registerInterposedSynchronization(
+        new Synchronization() {
+          @Override
+          public void beforeCompletion() {
+            // No action needed before completion
+          }
+
+          @Override
+          public void afterCompletion(int status) {
+            if ((status == Status.STATUS_COMMITTED) == onCommit) {
+              action.run();
+            }
+          }
+        });
+  }
+
+  private record ProductStoreKey(Long productId, Long storeId) {}
+}
@@ -0,0 +1,125 @@
+package com.fulfilment.application.monolith.fulfillment;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.Id;
+import jakarta.persistence.IdClass;
+import jakarta.persistence.Table;
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * Materialized counter backing the fulfillment business constraints and statistics.
+ *
+ * <p>Each row holds one count for a {@link Scope} and key, for example the number of distinct
+ * warehouses of store 12. Counters are maintained by {@link FulfillmentCounterRepository} in the
+ * same transaction as the fulfillment insert or delete. The declaration order of the scopes is the
+ * order in which a writer changes the rows, each pair count before the distinct count it feeds.
+ */
+@Entity
+@IdClass(FulfillmentCounter.Key.class)
+@Table(name = "fulfillment_counter")
+public class FulfillmentCounter {
+
+  public enum Scope {
+    // Warehouses per product and store, keyed by productId:storeId
+    PRODUCT_STORE_WAREHOUSES,
+    // Fulfillment rows per store and warehouse, keyed by storeId:warehouseBusinessUnit
+    STORE_WAREHOUSE_ROWS,
+    // Distinct warehouses per store, keyed by storeId
+    STORE_WAREHOUSES,
+    // Fulfillment rows per warehouse and product, keyed by productId:warehouseBusinessUnit
+    WAREHOUSE_PRODUCT_ROWS,
+    // Distinct products per warehouse, keyed by warehouseBusinessUnit
+    WAREHOUSE_PRODUCTS,
+    // The statistics below change through FulfillmentCounterDelta rows and are never locked
+    // Fulfillment rows per store, keyed by storeId
+    STORE_ROWS,
+    // Fulfillment rows per warehouse, keyed by warehouseBusinessUnit
+    WAREHOUSE_ROWS,
+    // Fulfillment rows per product, keyed by productId
+    PRODUCT_ROWS,
+    // Distinct stores per product, keyed by productId
+    PRODUCT_STORES,
+    // Distinct warehouses per product, keyed by productId
+    PRODUCT_WAREHOUSES
+  }
+
+  @Id
+  @Enumerated(EnumType.STRING)
+  @Column(name = "scope", length = 32)
+  private Scope scope;
+
+  @Id
+  @Column(name = "scopeKey", length = 300)
+  private String scopeKey;
+
+  @Column(name = "currentCount", nullable = false)
+  private int currentCount;
+
+  public FulfillmentCounter() {}
+
+  public FulfillmentCounter(Scope scope, String scopeKey, int currentCount) {
+    this.scope = scope;
+    this.scopeKey = scopeKey;
+    this.currentCount = currentCount;
+  }
+
+  public Scope getScope() {
+    return scope;
+  }
+
+  public String getScopeKey() {
+    return scopeKey;
+  }
+
+  public int getCurrentCount() {
+    return currentCount;
+  }
+
+  void setCurrentCount(int currentCount) {
+    this.currentCount = currentCount;
+  }
+
+  /** Composite primary key of a counter row. */
+  public static class Key implements Serializable {
+
+    private Scope scope;
+    private String scopeKey;
+
+    public Key() {}
+
+    public Key(Scope scope, String scopeKey) {
+      this.scope = scope;
+      this.scopeKey = scopeKey;
+    }
+
+    public Scope getScope() {
+      return scope;
+    }
+
+    public String getScopeKey() {
+      return scopeKey;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) return true;
+      if (o == null || getClass() != o.getClass()) return false;
+      Key that = (Key) o;
+      return scope == that.scope && Objects.equals(scopeKey, that.scopeKey);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(scope, scopeKey);
+    }
+
+    @Override
+    public String toString() {
+      return scope + "/" + scopeKey;
+    }
+  }
+}
@@ -0,0 +1,64 @@
+package com.fulfilment.application.monolith.fulfillment;
+
+import com.fulfilment.application.monolith.scheduling.BackgroundScheduler;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.runtime.StartupEvent;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import java.time.Duration;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+/**
+ * Background task folding {@link FulfillmentCounterDelta}s into their statistics counters.
+ *
+ * <p>Reads are correct whether or not the deltas have been folded; folding only keeps the number
+ * of deltas a read sums small. Each chunk of {@link #FOLD_CHUNK} deltas is folded in its own
+ * transaction. Compaction runs every {@code fulfillment.counters.compaction-interval-seconds}.
+ */
+@ApplicationScoped
+public class FulfillmentCounterCompactor {
+
+  private static final Logger LOG = Logger.getLogger(FulfillmentCounterCompactor.class);
+
+  static final int FOLD_CHUNK = 1000;
+
+  @ConfigProperty(name = "fulfillment.counters.compaction-interval-seconds", defaultValue = "10")
+  long intervalSeconds;
+
+  @Inject FulfillmentCounterRepository counterRepository;
+
+  @Inject BackgroundScheduler scheduler;
+
+  void onStart(@Observes StartupEvent event) {
+    scheduler.scheduleWithFixedDelay(this::compactPending, Duration.ofSeconds(intervalSeconds));
+  }
+
+  private void compactPending() {
+    try {
+      int folded = compact();
+      if (folded > 0) {
+        LOG.debugf("Fulfillment counter compaction folded %d deltas", folded);
+      }
+    } catch (RuntimeException e) {
+      LOG.warn("Fulfillment counter compaction failed, retrying on the next run", e);
+    }
+  }
+
+  /**
+   * Folds every committed delta into its counter.
+   *
+   * @return the number of deltas folded
+   */
+  synchronized int compact() {
+    int total = 0;
+    int folded;
+    do {
+      folded =
+          QuarkusTransaction.requiringNew().call(() -> counterRepository.foldDeltas(FOLD_CHUNK));
+      total += folded;
+    } while (folded == FOLD_CHUNK);
+    return total;
+  }
+}
@@ -0,0 +1,63 @@
+package com.fulfilment.application.monolith.fulfillment;
+
+import com.fulfilment.application.monolith.fulfillment.FulfillmentCounter.Scope;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+
+/**
+ * A pending change to a statistics counter.
+ *
+ * <p>Fulfillment writes append a delta instead of updating the shared per-store, per-warehouse and
+ * per-product totals, so concurrent writers never wait on those rows. A counter is read as its
+ * {@link FulfillmentCounter} row plus the sum of its deltas, and {@link
+ * FulfillmentCounterCompactor} periodically folds the deltas into the rows.
+ */
+@Entity
+@Table(
+    name = "fulfillment_counter_delta",
+    indexes = @Index(name = "ix_fulfillment_counter_delta_key", columnList = "scope, scopeKey"))
+public class FulfillmentCounterDelta {
+
+  // Sequence generated, so that the inserts of a transaction are sent as one JDBC batch
+  @Id @GeneratedValue private Long id;
+
+  @Enumerated(EnumType.STRING)
+  @Column(name = "scope", length = 32, nullable = false)
+  private Scope scope;
+
+  @Column(name = "scopeKey", length = 300, nullable = false)
+  private String scopeKey;
+
+  @Column(name = "delta", nullable = false)
+  private int delta;
+
+  public FulfillmentCounterDelta() {}
+
+  public FulfillmentCounterDelta(Scope scope, String scopeKey, int delta) {
+    this.scope = scope;
+    this.scopeKey = scopeKey;
+    this.delta = delta;
+  }
+
+  public Long getId() {
+    return id;
+  }
+
+  public Scope getScope() {
+    return scope;
+  }
+
+  public String getScopeKey() {
+    return scopeKey;
+  }
+
+  public int getDelta() {
+    return delta;
+  }
+}
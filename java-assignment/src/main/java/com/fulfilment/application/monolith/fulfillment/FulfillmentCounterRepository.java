@@ -0,0 +1,515 @@
+package com.fulfilment.application.monolith.fulfillment;
+
+import static com.fulfilment.application.monolith.fulfillment.FulfillmentValidationService.MAX_PRODUCTS_PER_WAREHOUSE;
+import static com.fulfilment.application.monolith.fulfillment.FulfillmentValidationService.MAX_WAREHOUSES_PER_PRODUCT_PER_STORE;
+import static com.fulfilment.application.monolith.fulfillment.FulfillmentValidationService.MAX_WAREHOUSES_PER_STORE;
+
+import com.fulfilment.application.monolith.exceptions.BusinessValidationException;
+import com.fulfilment.application.monolith.exceptions.ErrorCode;
+import com.fulfilment.application.monolith.fulfillment.FulfillmentCounter.Scope;
+import io.quarkus.hibernate.orm.panache.PanacheRepositoryBase;
+import io.quarkus.runtime.StartupEvent;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.persistence.LockModeType;
+import jakarta.transaction.Transactional;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import org.jboss.logging.Logger;
+
+/**
+ * Repository maintaining the materialized fulfillment counters.
+ *
+ * <p>A write changes each counter of its association with one guarded statement, {@code UPDATE
+ * ... SET currentCount = currentCount + 1 WHERE ... AND currentCount < limit}, in the transaction
+ * of the fulfillment insert or delete, and a statement that matches no row means the limit has
+ * been reached. The row lock the update takes serialises concurrent writers for the same store,
+ * warehouse or (product, store) pair until commit, across application instances. Counters are
+ * always changed in {@link Scope} order, so writers never wait on each other in a cycle.
+ *
+ * <p>A counter that does not exist yet is created at zero before it is changed. Writers creating
+ * counters of a scope take turns on the anchor row of the scope, keyed by the empty string, and
+ * insert only the counters that are still missing then, so an insert never fails on a concurrently
+ * created counter. The anchor is locked right before the counters of its scope, in lock order.
+ *
+ * <p>The per-store, per-warehouse and per-product totals used by the statistics are shared by far
+ * more writers, so they are not locked: a write appends a {@link FulfillmentCounterDelta} instead.
+ * A read adds the pending deltas of a counter to its row in the same statement, and {@link
+ * FulfillmentCounterCompactor} folds them into the rows in the background.
+ *
+ * <p>The counters are rebuilt from the fulfillment table at startup if there are none.
+ */
+@ApplicationScoped
+public class FulfillmentCounterRepository
+    implements PanacheRepositoryBase<FulfillmentCounter, FulfillmentCounter.Key> {
+
+  private static final Logger LOG = Logger.getLogger(FulfillmentCounterRepository.class);
+
+  private static final int IN_CLAUSE_CHUNK_SIZE = 1000;
+
+  private static final String ANCHOR = "";
+
+  private static final Set<Scope> GUARDED_SCOPES =
+      EnumSet.of(
+          Scope.PRODUCT_STORE_WAREHOUSES,
+          Scope.STORE_WAREHOUSE_ROWS,
+          Scope.STORE_WAREHOUSES,
+          Scope.WAREHOUSE_PRODUCT_ROWS,
+          Scope.WAREHOUSE_PRODUCTS);
+
+  @Transactional
+  void onStart(@Observes StartupEvent event) {
+    if (count("scopeKey <> ?1", ANCHOR) == 0) {
+      int created = backfill();
+      if (created > 0) {
+        LOG.infof("Fulfillment counters backfilled with %d rows", created);
+      }
+    }
+    for (Scope scope : GUARDED_SCOPES) {
+      if (findById(new FulfillmentCounter.Key(scope, ANCHOR)) == null) {
+        persist(new FulfillmentCounter(scope, ANCHOR, 0));
+      }
+    }
+  }
+
+  /**
+   * Rebuild every counter from the fulfillment table, with one grouped insert per scope, and drop
+   * the pending deltas. There must be no counters yet.
+   *
+   * @return the number of counter rows created
+   */
+  int backfill() {
+    // Deltas left over from before the counters were lost are already part of the rebuilt counts
+    getEntityManager().createQuery("DELETE FROM FulfillmentCounterDelta").executeUpdate();
+    String store = "str(f.storeId)";
+    String warehouse = "f.warehouseBusinessUnit";
+    String product = "str(f.productId)";
+    String rows = "count(*)";
+    String stores = "count(DISTINCT f.storeId)";
+    String warehouses = "count(DISTINCT f.warehouseBusinessUnit)";
+    String products = "count(DISTINCT f.productId)";
+    int created = 0;
+    created += backfill(Scope.STORE_WAREHOUSES, store, warehouses);
+    created += backfill(Scope.WAREHOUSE_PRODUCTS, warehouse, products);
+    created += backfill(Scope.PRODUCT_STORE_WAREHOUSES, product + "||':'||" + store, rows);
+    created += backfill(Scope.STORE_WAREHOUSE_ROWS, store + "||':'||" + warehouse, rows);
+    created += backfill(Scope.WAREHOUSE_PRODUCT_ROWS, product + "||':'||" + warehouse, rows);
+    created += backfill(Scope.STORE_ROWS, store, rows);
+    created += backfill(Scope.WAREHOUSE_ROWS, warehouse, rows);
+    created += backfill(Scope.PRODUCT_ROWS, product, rows);
+    created += backfill(Scope.PRODUCT_STORES, product, stores);
+    created += backfill(Scope.PRODUCT_WAREHOUSES, product, warehouses);
+    return created;
+  }
+
+  /** Insert the counters of one scope, one per distinct value of the key expression. */
+  private int backfill(Scope scope, String key, String count) {
+    return getEntityManager()
+        .createQuery(
+            "INSERT INTO FulfillmentCounter (scope, scopeKey, currentCount)"
+                + " SELECT :scope, "
+                + key
+                + ", "
+                + count
+                + " FROM ProductWarehouseFulfillment f GROUP BY "
+                + key)
+        .setParameter("scope", scope)
+        .executeUpdate();
+  }
+
+  /**
+   * Reserve the counters for a new association, with one guarded update per counter in lock
+   * order. A counter that does not exist yet is created first.
+   *
+   * @param productId the product ID
+   * @param warehouseBusinessUnit the warehouse business unit code
+   * @param storeId the store ID
+   * @throws BusinessValidationException if a limit would be exceeded; nothing is reserved then
+   */
+  public void reserve(Long productId, String warehouseBusinessUnit, Long storeId) {
+    String productStore = productId + ":" + storeId;
+    String storeWarehouse = storeId + ":" + warehouseBusinessUnit;
+    String productWarehouse = productId + ":" + warehouseBusinessUnit;
+
+    // Every association is a new warehouse for its (product, store) pair
+    Change productStoreChange =
+        add(Scope.PRODUCT_STORE_WAREHOUSES, productStore, MAX_WAREHOUSES_PER_PRODUCT_PER_STORE);
+    if (productStoreChange == Change.NONE) {
+      throw limitExceeded(
+          "Product "
+              + productId
+              + " already has "
+              + MAX_WAREHOUSES_PER_PRODUCT_PER_STORE
+              + " warehouses fulfilling it for Store "
+              + storeId);
+    }
+
+    Change storeChange = add(Scope.STORE_WAREHOUSE_ROWS, storeWarehouse, Integer.MAX_VALUE);
+    if (storeChange == Change.FIRST
+        && !increase(Scope.STORE_WAREHOUSES, storeId.toString(), MAX_WAREHOUSES_PER_STORE)) {
+      subtract(Scope.STORE_WAREHOUSE_ROWS, storeWarehouse);
+      subtract(Scope.PRODUCT_STORE_WAREHOUSES, productStore);
+      throw limitExceeded(
+          "Store "
+              + storeId
+              + " already has "
+              + MAX_WAREHOUSES_PER_STORE
+              + " different warehouses fulfilling it");
+    }
+
+    Change warehouseChange = add(Scope.WAREHOUSE_PRODUCT_ROWS, productWarehouse, Integer.MAX_VALUE);
+    if (warehouseChange == Change.FIRST
+        && !increase(Scope.WAREHOUSE_PRODUCTS, warehouseBusinessUnit, MAX_PRODUCTS_PER_WAREHOUSE)) {
+      subtract(Scope.WAREHOUSE_PRODUCT_ROWS, productWarehouse);
+      if (storeChange == Change.FIRST) {
+        subtract(Scope.STORE_WAREHOUSES, storeId.toString());
+      }
+      subtract(Scope.STORE_WAREHOUSE_ROWS, storeWarehouse);
+      subtract(Scope.PRODUCT_STORE_WAREHOUSES, productStore);
+      throw limitExceeded(
+          "Warehouse "
+              + warehouseBusinessUnit
+              + " already has "
+              + MAX_PRODUCTS_PER_WAREHOUSE
+              + " different products");
+    }
+
+    if (productStoreChange == Change.FIRST) {
+      addDelta(Scope.PRODUCT_STORES, productId.toString(), 1);
+    }
+    if (warehouseChange == Change.FIRST) {
+      addDelta(Scope.PRODUCT_WAREHOUSES, productId.toString(), 1);
+    }
+    addDelta(Scope.STORE_ROWS, storeId.toString(), 1);
+    addDelta(Scope.WAREHOUSE_ROWS, warehouseBusinessUnit, 1);
+    addDelta(Scope.PRODUCT_ROWS, productId.toString(), 1);
+  }
+
+  /**
+   * Release the counters of a deleted association, in lock order.
+   *
+   * @param productId the product ID
+   * @param warehouseBusinessUnit the warehouse business unit code
+   * @param storeId the store ID
+   */
+  public void release(Long productId, String warehouseBusinessUnit, Long storeId) {
+    if (remove(Scope.PRODUCT_STORE_WAREHOUSES, productId + ":" + storeId) == Change.FIRST) {
+      addDelta(Scope.PRODUCT_STORES, productId.toString(), -1);
+    }
+    if (remove(Scope.STORE_WAREHOUSE_ROWS, storeId + ":" + warehouseBusinessUnit)
+        == Change.FIRST) {
+      subtract(Scope.STORE_WAREHOUSES, storeId.toString());
+    }
+    if (remove(Scope.WAREHOUSE_PRODUCT_ROWS, productId + ":" + warehouseBusinessUnit)
+        == Change.FIRST) {
+      subtract(Scope.WAREHOUSE_PRODUCTS, warehouseBusinessUnit);
+      addDelta(Scope.PRODUCT_WAREHOUSES, productId.toString(), -1);
+    }
+    addDelta(Scope.STORE_ROWS, storeId.toString(), -1);
+    addDelta(Scope.WAREHOUSE_ROWS, warehouseBusinessUnit, -1);
+    addDelta(Scope.PRODUCT_ROWS, productId.toString(), -1);
+  }
+
+  /**
+   * Create the missing counters of the given associations and lock all of them. A batch calls
+   * this before reserving its rows, so that it takes its locks in the same order as single writes:
+   * scope by scope in {@link Scope} order, and within a scope in the order the database sorts the
+   * keys in.
+   *
+   * @param associations the associations about to be reserved
+   */
+  public void lockCounters(Collection<ProductWarehouseFulfillmentId> associations) {
+    Map<Scope, Set<String>> keysByScope = new EnumMap<>(Scope.class);
+    for (ProductWarehouseFulfillmentId association : associations) {
+      Long productId = association.getProductId();
+      String warehouse = association.getWarehouseBusinessUnit();
+      Long storeId = association.getStoreId();
+      addKey(keysByScope, Scope.PRODUCT_STORE_WAREHOUSES, productId + ":" + storeId);
+      addKey(keysByScope, Scope.STORE_WAREHOUSE_ROWS, storeId + ":" + warehouse);
+      addKey(keysByScope, Scope.STORE_WAREHOUSES, storeId.toString());
+      addKey(keysByScope, Scope.WAREHOUSE_PRODUCT_ROWS, productId + ":" + warehouse);
+      addKey(keysByScope, Scope.WAREHOUSE_PRODUCTS, warehouse);
+    }
+    if (keysByScope.isEmpty()) {
+      return;
+    }
+
+    // One statement per scope, so that the database orders all keys of a scope
+    keysByScope.forEach(
+        (scope, scopeKeys) -> {
+          create(scope, scopeKeys);
+          find("scope = ?1 AND scopeKey IN ?2 ORDER BY scopeKey", scope, List.copyOf(scopeKeys))
+              .withLock(LockModeType.PESSIMISTIC_WRITE)
+              .list();
+        });
+  }
+
+  /**
+   * Read a counter.
+   *
+   * @param scope the counter scope
+   * @param scopeKey the counter key
+   * @return the current count, 0 if the counter does not exist
+   */
+  public long current(Scope scope, String scopeKey) {
+    Integer current =
+        current(List.of(scope), List.of(scopeKey))
+            .get(new FulfillmentCounter.Key(scope, scopeKey));
+    return current != null ? current : 0;
+  }
+
+  /**
+   * Read several counters of several keys with one query per chunk of keys. The pending deltas of
+   * a counter are added to its row in the same statement, so a concurrent fold is never seen
+   * half-applied.
+   *
+   * @param scopes the counter scopes
+   * @param scopeKeys the counter keys
+   * @return the existing counters by key; missing counters are absent
+   */
+  public Map<FulfillmentCounter.Key, Integer> current(
+      Collection<Scope> scopes, Collection<String> scopeKeys) {
+    Map<FulfillmentCounter.Key, Integer> counts = new HashMap<>();
+    for (List<String> chunk : chunk(scopeKeys)) {
+      List<Object[]> rows =
+          getEntityManager()
+              .createQuery(
+                  "SELECT c.scope, c.scopeKey, c.currentCount FROM FulfillmentCounter c"
+                      + " WHERE c.scope IN ?1 AND c.scopeKey IN ?2"
+                      + " UNION ALL"
+                      + " SELECT d.scope, d.scopeKey, cast(sum(d.delta) as Integer)"
+                      + " FROM FulfillmentCounterDelta d"
+                      + " WHERE d.scope IN ?1 AND d.scopeKey IN ?2"
+                      + " GROUP BY d.scope, d.scopeKey",
+                  Object[].class)
+              .setParameter(1, List.copyOf(scopes))
+              .setParameter(2, chunk)
+              .getResultList();
+      for (Object[] row : rows) {
+        counts.merge(
+            new FulfillmentCounter.Key((Scope) row[0], (String) row[1]),
+            (Integer) row[2],
+            Integer::sum);
+      }
+    }
+    return counts;
+  }
+
+  /**
+   * Fold the oldest pending deltas into their counters and delete them, in the current
+   * transaction. The deltas are locked first, so concurrent folds never apply one twice.
+   *
+   * @param limit the maximum number of deltas to fold
+   * @return the number of deltas folded
+   */
+  int foldDeltas(int limit) {
+    List<FulfillmentCounterDelta> deltas =
+        getEntityManager()
+            .createQuery("FROM FulfillmentCounterDelta ORDER BY id", FulfillmentCounterDelta.class)
+            .setLockMode(LockModeType.PESSIMISTIC_WRITE)
+            .setMaxResults(limit)
+            .getResultList();
+    if (deltas.isEmpty()) {
+      return 0;
+    }
+
+    // Counters are updated in lock order
+    Map<FulfillmentCounter.Key, Integer> sums =
+        new TreeMap<>(
+            Comparator.comparing(FulfillmentCounter.Key::getScope)
+                .thenComparing(FulfillmentCounter.Key::getScopeKey));
+    List<Long> ids = new ArrayList<>(deltas.size());
+    for (FulfillmentCounterDelta delta : deltas) {
+      sums.merge(
+          new FulfillmentCounter.Key(delta.getScope(), delta.getScopeKey()),
+          delta.getDelta(),
+          Integer::sum);
+      ids.add(delta.getId());
+    }
+    sums.forEach(
+        (key, sum) -> {
+          if (sum != 0
+              && update(
+                      "currentCount = currentCount + ?1 WHERE scope = ?2 AND scopeKey = ?3",
+                      sum,
+                      key.getScope(),
+                      key.getScopeKey())
+                  == 0) {
+            persist(new FulfillmentCounter(key.getScope(), key.getScopeKey(), sum));
+          }
+        });
+
+    int deleted = 0;
+    for (int from = 0; from < ids.size(); from += IN_CLAUSE_CHUNK_SIZE) {
+      deleted +=
+          getEntityManager()
+              .createQuery("DELETE FROM FulfillmentCounterDelta WHERE id IN ?1")
+              .setParameter(1, ids.subList(from, Math.min(from + IN_CLAUSE_CHUNK_SIZE, ids.size())))
+              .executeUpdate();
+    }
+    if (deleted != ids.size()) {
+      throw new IllegalStateException("Fulfillment counter deltas were folded concurrently");
+    }
+    return deltas.size();
+  }
+
+  /** Delete every counter and every pending delta. The anchor rows are kept. */
+  @Override
+  public long deleteAll() {
+    getEntityManager().createQuery("DELETE FROM FulfillmentCounterDelta").executeUpdate();
+    return delete("scopeKey <> ?1", ANCHOR);
+  }
+
+  /**
+   * Add one to a counter unless it has reached the limit. The first statement serves a counter
+   * that is already in use, the second one a counter at zero; a missing counter is created and the
+   * second statement tried again.
+   */
+  private Change add(Scope scope, String scopeKey, int limit) {
+    if (increment(scope, scopeKey, limit)) {
+      return Change.MORE;
+    }
+    if (start(scope, scopeKey)) {
+      return Change.FIRST;
+    }
+    create(scope, Set.of(scopeKey));
+    if (start(scope, scopeKey)) {
+      return Change.FIRST;
+    }
+    // Another writer put the counter in use in between
+    return increment(scope, scopeKey, limit) ? Change.MORE : Change.NONE;
+  }
+
+  /** Add one to a counter in use, unless it has reached the limit. */
+  private boolean increment(Scope scope, String scopeKey, int limit) {
+    return update(
+            "currentCount = currentCount + 1 WHERE scope = ?1 AND scopeKey = ?2"
+                + " AND currentCount > 0 AND currentCount < ?3",
+            scope,
+            scopeKey,
+            limit)
+        == 1;
+  }
+
+  /** Set a counter at zero to one. */
+  private boolean start(Scope scope, String scopeKey) {
+    return update(
+            "currentCount = 1 WHERE scope = ?1 AND scopeKey = ?2 AND currentCount = 0",
+            scope,
+            scopeKey)
+        == 1;
+  }
+
+  /** Add one to a counter unless it has reached the limit, creating it if it is missing. */
+  private boolean increase(Scope scope, String scopeKey, int limit) {
+    String guarded =
+        "currentCount = currentCount + 1 WHERE scope = ?1 AND scopeKey = ?2 AND currentCount < ?3";
+    if (update(guarded, scope, scopeKey, limit) == 1) {
+      return true;
+    }
+    create(scope, Set.of(scopeKey));
+    return update(guarded, scope, scopeKey, limit) == 1;
+  }
+
+  /** Create the missing counters of one scope at zero, taking the anchor of the scope first. */
+  private void create(Scope scope, Set<String> scopeKeys) {
+    if (missing(scope, scopeKeys).isEmpty()) {
+      return;
+    }
+    findById(new FulfillmentCounter.Key(scope, ANCHOR), LockModeType.PESSIMISTIC_WRITE);
+    // Another writer may have created some of them while this one waited for the anchor
+    missing(scope, scopeKeys).forEach(key -> persist(new FulfillmentCounter(scope, key, 0)));
+  }
+
+  private Set<String> missing(Scope scope, Set<String> scopeKeys) {
+    Set<String> missing = new HashSet<>(scopeKeys);
+    for (List<String> chunk : chunk(scopeKeys)) {
+      missing.removeAll(
+          getEntityManager()
+              .createQuery(
+                  "SELECT c.scopeKey FROM FulfillmentCounter c"
+                      + " WHERE c.scope = ?1 AND c.scopeKey IN ?2",
+                  String.class)
+              .setParameter(1, scope)
+              .setParameter(2, chunk)
+              .getResultList());
+    }
+    return missing;
+  }
+
+  /**
+   * Subtract one from a counter in use. Returns {@link Change#FIRST} if that took it to zero, and
+   * {@link Change#NONE} if it was not in use.
+   */
+  private Change remove(Scope scope, String scopeKey) {
+    while (true) {
+      if (update(
+              "currentCount = currentCount - 1 WHERE scope = ?1 AND scopeKey = ?2"
+                  + " AND currentCount > 1",
+              scope,
+              scopeKey)
+          == 1) {
+        return Change.MORE;
+      }
+      if (update(
+              "currentCount = 0 WHERE scope = ?1 AND scopeKey = ?2 AND currentCount = 1",
+              scope,
+              scopeKey)
+          == 1) {
+        return Change.FIRST;
+      }
+      // Neither matched because a concurrent writer changed the count in between
+      if (count("scope = ?1 AND scopeKey = ?2 AND currentCount > 0", scope, scopeKey) == 0) {
+        return Change.NONE;
+      }
+    }
+  }
+
+  /** Subtract one from a counter in use. */
+  private void subtract(Scope scope, String scopeKey) {
+    update(
+        "currentCount = currentCount - 1 WHERE scope = ?1 AND scopeKey = ?2 AND currentCount > 0",
+        scope,
+        scopeKey);
+  }
+
+  private static void addKey(Map<Scope, Set<String>> keysByScope, Scope scope, String scopeKey) {
+    keysByScope.computeIfAbsent(scope, s -> new HashSet<>()).add(scopeKey);
+  }
+
+  private void addDelta(Scope scope, String scopeKey, int delta) {
+    getEntityManager().persist(new FulfillmentCounterDelta(scope, scopeKey, delta));
+  }
+
+  private static List<List<String>> chunk(Collection<String> values) {
+    List<String> all = new ArrayList<>(values);
+    List<List<String>> chunks = new ArrayList<>();
+    for (int from = 0; from < all.size(); from += IN_CLAUSE_CHUNK_SIZE) {
+      chunks.add(all.subList(from, Math.min(from + IN_CLAUSE_CHUNK_SIZE, all.size())));
+    }
+    return chunks;
+  }
+
+  private static BusinessValidationException limitExceeded(String message) {
+    return new BusinessValidationException(ErrorCode.CAPACITY_EXCEEDED, message);
+  }
+
+  /** How a guarded change left a counter. */
+  private enum Change {
+    // The counter went from zero to one, or from one to zero
+    FIRST,
+    // The counter changed and stayed in use
+    MORE,
+    // The counter did not change
+    NONE
+  }
+}
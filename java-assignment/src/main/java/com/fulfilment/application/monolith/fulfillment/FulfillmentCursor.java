@@ -0,0 +1,53 @@
+package com.fulfilment.application.monolith.fulfillment;
+
+import jakarta.ws.rs.BadRequestException;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Opaque keyset cursor over the fulfillment composite key.
+ *
+ * <p>A cursor encodes the (productId, warehouseBusinessUnit, storeId) of the last row of a page as
+ * URL-safe Base64. Clients must treat it as an opaque token.
+ */
+public final class FulfillmentCursor {
+
+  private FulfillmentCursor() {}
+
+  /**
+   * Encode the key of the last row of a page.
+   *
+   * @param productId the product ID
+   * @param warehouseBusinessUnit the warehouse business unit code
+   * @param storeId the store ID
+   * @return the opaque cursor
+   */
+  public static String encode(Long productId, String warehouseBusinessUnit, Long storeId) {
+    // The business unit goes last so that it may contain the separator
+    String raw = productId + ":" + storeId + ":" + warehouseBusinessUnit;
+    return Base64.getUrlEncoder()
+        .withoutPadding()
+        .encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+  }
+
+  /**
+   * Decode a cursor produced by {@link #encode}.
+   *
+   * @param cursor the opaque cursor
+   * @return the key to continue after
+   * @throws BadRequestException if the cursor is malformed
+   */
+  public static ProductWarehouseFulfillmentId decode(String cursor) {
+    try {
+      String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+      String[] parts = raw.split(":", 3);
+      if (parts.length != 3 || parts[2].isEmpty()) {
+        throw new BadRequestException("Invalid cursor");
+      }
+      return new ProductWarehouseFulfillmentId(
+          Long.valueOf(parts[0]), parts[2], Long.valueOf(parts[1]));
+    } catch (IllegalArgumentException e) {
+      throw new BadRequestException("Invalid cursor");
+    }
+  }
+}
@@ -1,14 +1,22 @@
 package com.fulfilment.application.monolith.fulfillment;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fulfilment.application.monolith.exceptions.BusinessValidationException;
 import jakarta.inject.Inject;
 import jakarta.transaction.Transactional;
 import jakarta.validation.Valid;
 import jakarta.ws.rs.*;
 import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.StreamingOutput;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.net.URI;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
 import org.jboss.logging.Logger;
 
 /**
@@ -26,10 +34,36 @@ public class FulfillmentResource {
 
   private static final Logger LOG = Logger.getLogger(FulfillmentResource.class);
 
+  private static final int MAX_BATCH_SIZE = 10_000;
+
+  private static final int DEFAULT_PAGE_SIZE = 100;
+
+  private static final int MAX_PAGE_SIZE = 1000;
+
+  private static final int STREAM_FETCH_SIZE = 500;
+
+  private static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+  private static final String NDJSON = "application/x-ndjson";
+
+  private static final int MAX_STATS_IDS = 10_000;
+
+  // Rows written per flush; matches quarkus.hibernate-orm.jdbc.statement-batch-size
+  private static final int BATCH_FLUSH_SIZE = 50;
+
+  private static final String BATCH_DUPLICATE_MESSAGE =
+      "A fulfillment association of the batch was created concurrently; no rows were created";
+
   @Inject ProductWarehouseFulfillmentRepository fulfillmentRepository;
 
   @Inject FulfillmentValidationService validationService;
 
+  @Inject FulfillmentCounterRepository counterRepository;
+
+  @Inject FulfillmentRoutingService routingService;
+
+  @Inject ObjectMapper objectMapper;
+
   /**
    * Create a new fulfillment association.
    *
@@ -55,16 +89,22 @@ public class FulfillmentResource {
         "Creating fulfillment: Product %d, Warehouse %s, Store %d",
         request.productId, request.warehouseBusinessUnit, request.storeId);
 
-    // Validate the request
     validationService.validateFulfillmentCreation(
         request.productId, request.warehouseBusinessUnit, request.storeId);
 
-    // Create the fulfillment
+    // Persisting reserves the counters under their row locks, so concurrent requests cannot
+    // both pass the same constraint
     ProductWarehouseFulfillment fulfillment =
         new ProductWarehouseFulfillment(
             request.productId, request.warehouseBusinessUnit, request.storeId);
-
     fulfillmentRepository.persist(fulfillment);
+    fulfillmentRepository.flushInserts(
+        "Fulfillment association already exists for Product "
+            + request.productId
+            + ", Warehouse "
+            + request.warehouseBusinessUnit
+            + ", and Store "
+            + request.storeId);
 
     LOG.infof(
         "Fulfillment created successfully: Product %d, Warehouse %s, Store %d",
@@ -82,6 +122,100 @@ public class FulfillmentResource {
         .build();
   }
 
+  /**
+   * Create many fulfillment associations in one transaction.
+   *
+   * <p>POST /api/fulfillment/batch
+   *
+   * <p>Rows are validated in request order against the existing associations and the rows of the
+   * same batch accepted before them, so the batch as a whole never exceeds a constraint. Accepted
+   * rows are inserted with JDBC batching; rejected rows are reported and skipped. If an accepted
+   * row collides with an association created concurrently, the whole batch fails with 400.
+   *
+   * @param requests the fulfillment requests
+   * @return 200 OK with the per-row results
+   */
+  @POST
+  @Path("/batch")
+  @Transactional
+  public Response createFulfillmentBatch(List<FulfillmentRequest> requests) {
+    if (requests == null || requests.isEmpty()) {
+      throw new BadRequestException("Batch must contain at least one fulfillment request");
+    }
+    if (requests.size() > MAX_BATCH_SIZE) {
+      throw new BadRequestException(
+          "Batch contains " + requests.size() + " requests. Maximum allowed is " + MAX_BATCH_SIZE);
+    }
+    LOG.infof("Creating fulfillment batch of %d requests", requests.size());
+
+    FulfillmentValidationService.KnownEntities knownEntities =
+        validationService.loadKnownEntities(requests);
+
+    // Lock the counters of every row up front, in the same order as single creates take them
+    List<ProductWarehouseFulfillmentId> associations = new ArrayList<>();
+    for (FulfillmentRequest request : requests) {
+      if (isComplete(request) && knownEntities.contains(request)) {
+        associations.add(
+            new ProductWarehouseFulfillmentId(
+                request.productId, request.warehouseBusinessUnit, request.storeId));
+      }
+    }
+    counterRepository.lockCounters(associations);
+
+    FulfillmentBatchResponse response = new FulfillmentBatchResponse();
+    int pending = 0;
+
+    for (int i = 0; i < requests.size(); i++) {
+      FulfillmentRequest request = requests.get(i);
+      if (!isComplete(request)) {
+        response.addRejected(
+            i,
+            request != null ? request : new FulfillmentRequest(),
+            "Product ID, warehouse business unit and store ID are required");
+        continue;
+      }
+
+      List<String> violations =
+          validationService.findBatchRowViolations(
+              request.productId, request.warehouseBusinessUnit, request.storeId, knownEntities);
+      if (violations.isEmpty()) {
+        try {
+          fulfillmentRepository.persist(
+              new ProductWarehouseFulfillment(
+                  request.productId, request.warehouseBusinessUnit, request.storeId));
+        } catch (BusinessValidationException e) {
+          violations = List.of(e.getMessage());
+        }
+      }
+      if (!violations.isEmpty()) {
+        response.addRejected(i, request, String.join("; ", violations));
+        continue;
+      }
+      response.addCreated(i, request);
+
+      if (++pending == BATCH_FLUSH_SIZE) {
+        fulfillmentRepository.flushInserts(BATCH_DUPLICATE_MESSAGE);
+        fulfillmentRepository.getEntityManager().clear();
+        pending = 0;
+      }
+    }
+    fulfillmentRepository.flushInserts(BATCH_DUPLICATE_MESSAGE);
+
+    LOG.infof(
+        "Fulfillment batch processed: %d created, %d rejected",
+        response.created, response.rejected);
+
+    return Response.ok(response).build();
+  }
+
+  private static boolean isComplete(FulfillmentRequest request) {
+    return request != null
+        && request.productId != null
+        && request.warehouseBusinessUnit != null
+        && !request.warehouseBusinessUnit.isBlank()
+        && request.storeId != null;
+  }
+
   /**
    * Get all fulfillment associations for a specific store.
    *
@@ -95,11 +229,7 @@ public class FulfillmentResource {
   public Response getFulfillmentsByStore(@PathParam("storeId") Long storeId) {
     LOG.infof("Retrieving fulfillments for Store %d", storeId);
 
-    List<ProductWarehouseFulfillment> fulfillments =
-        fulfillmentRepository.findByStoreId(storeId);
-
-    List<FulfillmentResponse> responses =
-        fulfillments.stream().map(FulfillmentResponse::from).collect(Collectors.toList());
+    List<FulfillmentResponse> responses = fulfillmentRepository.findResponsesByStoreId(storeId);
 
     return Response.ok(responses).build();
   }
@@ -117,11 +247,8 @@ public class FulfillmentResource {
   public Response getFulfillmentsByProduct(@PathParam("productId") Long productId) {
     LOG.infof("Retrieving fulfillments for Product %d", productId);
 
-    List<ProductWarehouseFulfillment> fulfillments =
-        fulfillmentRepository.findByProductId(productId);
-
     List<FulfillmentResponse> responses =
-        fulfillments.stream().map(FulfillmentResponse::from).collect(Collectors.toList());
+        fulfillmentRepository.findResponsesByProductId(productId);
 
     return Response.ok(responses).build();
   }
@@ -140,32 +267,114 @@ public class FulfillmentResource {
       @PathParam("warehouseBusinessUnit") String warehouseBusinessUnit) {
     LOG.infof("Retrieving fulfillments for Warehouse %s", warehouseBusinessUnit);
 
-    List<ProductWarehouseFulfillment> fulfillments =
-        fulfillmentRepository.findByWarehouseBusinessUnit(warehouseBusinessUnit);
-
     List<FulfillmentResponse> responses =
-        fulfillments.stream().map(FulfillmentResponse::from).collect(Collectors.toList());
+        fulfillmentRepository.findResponsesByWarehouseBusinessUnit(warehouseBusinessUnit);
 
     return Response.ok(responses).build();
   }
 
   /**
-   * Get all fulfillment associations.
+   * Get the warehouses fulfilling a product for a store.
+   *
+   * <p>GET /api/fulfillment/product/{productId}/store/{storeId}/warehouses
    *
-   * <p>GET /api/fulfillment
+   * <p>Served from the in-memory routing table, without a database query.
    *
-   * @return list of all fulfillment associations
+   * @param productId the product ID
+   * @param storeId the store ID
+   * @return the warehouse business units in ascending order
    */
   @GET
-  public Response getAllFulfillments() {
-    LOG.info("Retrieving all fulfillments");
-
-    List<ProductWarehouseFulfillment> fulfillments = fulfillmentRepository.listAll();
+  @Path("/product/{productId}/store/{storeId}/warehouses")
+  public Response getWarehousesForProductInStore(
+      @PathParam("productId") Long productId, @PathParam("storeId") Long storeId) {
+    String[] warehouses = routingService.warehousesFor(productId, storeId);
+    return Response.ok(new FulfillmentRouteResponse(productId, storeId, List.of(warehouses)))
+        .build();
+  }
 
-    List<FulfillmentResponse> responses =
-        fulfillments.stream().map(FulfillmentResponse::from).collect(Collectors.toList());
+  /**
+   * Get one page of fulfillment associations.
+   *
+   * <p>GET /api/fulfillment?limit=100&amp;cursor=...
+   *
+   * <p>Rows are ordered by (productId, warehouseBusinessUnit, storeId). When more rows follow, the
+   * opaque cursor for the next page is returned in the {@code X-Next-Cursor} header.
+   *
+   * <p>Without a {@code limit}, only the first {@value #DEFAULT_PAGE_SIZE} rows are returned; this
+   * endpoint used to return every association. Clients that need all of them follow the {@code
+   * X-Next-Cursor} header until it is absent, or read {@code /api/fulfillment/stream}.
+   *
+   * @param cursor the cursor returned with the previous page, absent for the first page
+   * @param limit the page size
+   * @return list of fulfillment associations
+   */
+  @GET
+  public Response getAllFulfillments(
+      @QueryParam("cursor") String cursor,
+      @QueryParam("limit") @DefaultValue("" + DEFAULT_PAGE_SIZE) int limit) {
+    if (limit < 1 || limit > MAX_PAGE_SIZE) {
+      throw new BadRequestException("Limit must be between 1 and " + MAX_PAGE_SIZE);
+    }
+    LOG.infof("Retrieving fulfillments page of %d", limit);
+
+    ProductWarehouseFulfillmentId after =
+        cursor == null || cursor.isBlank() ? null : FulfillmentCursor.decode(cursor);
+    // Fetch one extra row to know whether another page follows
+    List<FulfillmentResponse> responses = fulfillmentRepository.findResponsesPage(after, limit + 1);
+
+    Response.ResponseBuilder builder;
+    if (responses.size() > limit) {
+      responses = responses.subList(0, limit);
+      FulfillmentResponse last = responses.get(limit - 1);
+      builder =
+          Response.ok(responses)
+              .header(
+                  NEXT_CURSOR_HEADER,
+                  FulfillmentCursor.encode(
+                      last.productId, last.warehouseBusinessUnit, last.storeId));
+    } else {
+      builder = Response.ok(responses);
+    }
+    return builder.build();
+  }
 
-    return Response.ok(responses).build();
+  /**
+   * Stream all fulfillment associations as newline-delimited JSON.
+   *
+   * <p>GET /api/fulfillment/stream
+   *
+   * <p>Rows are written to the response as they are read from a forward-only database cursor, so
+   * the heap used does not grow with the number of fulfillments.
+   *
+   * @return one JSON object per line
+   */
+  @GET
+  @Path("/stream")
+  @Produces(NDJSON)
+  public Response streamAllFulfillments() {
+    LOG.info("Streaming all fulfillments");
+
+    StreamingOutput body =
+        output -> {
+          OutputStream buffered = new BufferedOutputStream(output);
+          try {
+            fulfillmentRepository.streamResponses(
+                STREAM_FETCH_SIZE,
+                row -> {
+                  try {
+                    buffered.write(objectMapper.writeValueAsBytes(row));
+                    buffered.write('\n');
+                  } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                  }
+                });
+          } catch (UncheckedIOException e) {
+            throw e.getCause();
+          }
+          buffered.flush();
+        };
+    return Response.ok(body, NDJSON).build();
   }
 
   /**
@@ -222,19 +431,7 @@ public class FulfillmentResource {
   public Response getStoreStats(@PathParam("storeId") Long storeId) {
     LOG.infof("Retrieving statistics for Store %d", storeId);
 
-    long distinctWarehouseCount = fulfillmentRepository.countDistinctWarehousesForStore(storeId);
-    long totalFulfillments = fulfillmentRepository.findByStoreId(storeId).size();
-
-    FulfillmentStats stats =
-        new FulfillmentStats(
-            "Store",
-            storeId.toString(),
-            distinctWarehouseCount,
-            3L,
-            totalFulfillments,
-            distinctWarehouseCount < 3);
-
-    return Response.ok(stats).build();
+    return Response.ok(storeStats(List.of(storeId)).get(0)).build();
   }
 
   /**
@@ -250,25 +447,7 @@ public class FulfillmentResource {
   public Response getProductStats(@PathParam("productId") Long productId) {
     LOG.infof("Retrieving statistics for Product %d", productId);
 
-    List<ProductWarehouseFulfillment> fulfillments =
-        fulfillmentRepository.findByProductId(productId);
-
-    long totalFulfillments = fulfillments.size();
-    long storesCount = fulfillments.stream().map(f -> f.getStoreId()).distinct().count();
-    long warehousesCount =
-        fulfillments.stream().map(f -> f.getWarehouseBusinessUnit()).distinct().count();
-
-    FulfillmentStats stats =
-        new FulfillmentStats(
-            "Product",
-            productId.toString(),
-            warehousesCount,
-            null,
-            totalFulfillments,
-            true,
-            storesCount);
-
-    return Response.ok(stats).build();
+    return Response.ok(productStats(List.of(productId)).get(0)).build();
   }
 
   /**
@@ -285,21 +464,126 @@ public class FulfillmentResource {
       @PathParam("warehouseBusinessUnit") String warehouseBusinessUnit) {
     LOG.infof("Retrieving statistics for Warehouse %s", warehouseBusinessUnit);
 
-    long distinctProductCount =
-        fulfillmentRepository.countDistinctProductsInWarehouse(warehouseBusinessUnit);
-    long totalFulfillments =
-        fulfillmentRepository.findByWarehouseBusinessUnit(warehouseBusinessUnit).size();
-
-    FulfillmentStats stats =
-        new FulfillmentStats(
-            "Warehouse",
-            warehouseBusinessUnit,
-            distinctProductCount,
-            5L,
-            totalFulfillments,
-            distinctProductCount < 5);
-
-    return Response.ok(stats).build();
+    return Response.ok(warehouseStats(List.of(warehouseBusinessUnit)).get(0)).build();
+  }
+
+  /**
+   * Get statistics for many stores, products and warehouses in one call.
+   *
+   * <p>POST /api/fulfillment/stats
+   *
+   * <p>Request body example:
+   *
+   * <pre>
+   * {
+   *   "storeIds": [1, 2],
+   *   "productIds": [1],
+   *   "warehouseBusinessUnits": ["WH-001"]
+   * }
+   * </pre>
+   *
+   * @param request the IDs to report on
+   * @return 200 OK with the statistics of each ID
+   */
+  @POST
+  @Path("/stats")
+  public Response getBulkStats(FulfillmentStatsRequest request) {
+    if (request == null) {
+      throw new BadRequestException("Stats request is required");
+    }
+    List<Long> storeIds = request.storeIds != null ? request.storeIds : List.of();
+    List<Long> productIds = request.productIds != null ? request.productIds : List.of();
+    List<String> warehouseBusinessUnits =
+        request.warehouseBusinessUnits != null ? request.warehouseBusinessUnits : List.of();
+    int requested = storeIds.size() + productIds.size() + warehouseBusinessUnits.size();
+    if (requested > MAX_STATS_IDS) {
+      throw new BadRequestException(
+          "Stats request contains " + requested + " IDs. Maximum allowed is " + MAX_STATS_IDS);
+    }
+    if (storeIds.contains(null)
+        || productIds.contains(null)
+        || warehouseBusinessUnits.contains(null)) {
+      throw new BadRequestException("Stats request IDs must not be null");
+    }
+    LOG.infof("Retrieving bulk statistics for %d IDs", requested);
+
+    FulfillmentStatsResponse response =
+        new FulfillmentStatsResponse(
+            storeStats(storeIds), productStats(productIds), warehouseStats(warehouseBusinessUnits));
+    return Response.ok(response).build();
+  }
+
+  private List<FulfillmentStats> storeStats(List<Long> storeIds) {
+    List<String> keys = storeIds.stream().map(String::valueOf).toList();
+    Map<FulfillmentCounter.Key, Integer> counts =
+        counterRepository.current(
+            List.of(FulfillmentCounter.Scope.STORE_WAREHOUSES, FulfillmentCounter.Scope.STORE_ROWS),
+            keys);
+    return keys.stream()
+        .map(
+            key -> {
+              long distinctWarehouseCount =
+                  count(counts, FulfillmentCounter.Scope.STORE_WAREHOUSES, key);
+              return new FulfillmentStats(
+                  "Store",
+                  key,
+                  distinctWarehouseCount,
+                  (long) FulfillmentValidationService.MAX_WAREHOUSES_PER_STORE,
+                  count(counts, FulfillmentCounter.Scope.STORE_ROWS, key),
+                  distinctWarehouseCount < FulfillmentValidationService.MAX_WAREHOUSES_PER_STORE);
+            })
+        .toList();
+  }
+
+  private List<FulfillmentStats> productStats(List<Long> productIds) {
+    List<String> keys = productIds.stream().map(String::valueOf).toList();
+    Map<FulfillmentCounter.Key, Integer> counts =
+        counterRepository.current(
+            List.of(
+                FulfillmentCounter.Scope.PRODUCT_WAREHOUSES,
+                FulfillmentCounter.Scope.PRODUCT_ROWS,
+                FulfillmentCounter.Scope.PRODUCT_STORES),
+            keys);
+    return keys.stream()
+        .map(
+            key ->
+                new FulfillmentStats(
+                    "Product",
+                    key,
+                    count(counts, FulfillmentCounter.Scope.PRODUCT_WAREHOUSES, key),
+                    null,
+                    count(counts, FulfillmentCounter.Scope.PRODUCT_ROWS, key),
+                    true,
+                    count(counts, FulfillmentCounter.Scope.PRODUCT_STORES, key)))
+        .toList();
+  }
+
+  private List<FulfillmentStats> warehouseStats(List<String> warehouseBusinessUnits) {
+    Map<FulfillmentCounter.Key, Integer> counts =
+        counterRepository.current(
+            List.of(
+                FulfillmentCounter.Scope.WAREHOUSE_PRODUCTS,
+                FulfillmentCounter.Scope.WAREHOUSE_ROWS),
+            warehouseBusinessUnits);
+    return warehouseBusinessUnits.stream()
+        .map(
+            key -> {
+              long distinctProductCount =
+                  count(counts, FulfillmentCounter.Scope.WAREHOUSE_PRODUCTS, key);
+              return new FulfillmentStats(
+                  "Warehouse",
+                  key,
+                  distinctProductCount,
+                  (long) FulfillmentValidationService.MAX_PRODUCTS_PER_WAREHOUSE,
+                  count(counts, FulfillmentCounter.Scope.WAREHOUSE_ROWS, key),
+                  distinctProductCount < FulfillmentValidationService.MAX_PRODUCTS_PER_WAREHOUSE);
+            })
+        .toList();
+  }
+
+  private static long count(
+      Map<FulfillmentCounter.Key, Integer> counts, FulfillmentCounter.Scope scope, String key) {
+    return counts.getOrDefault(new FulfillmentCounter.Key(scope, key), 0);
   }
 
   /** Statistics DTO */
@@ -0,0 +1,22 @@
+package com.fulfilment.application.monolith.fulfillment;
+
+import java.util.List;
+
+/**
+ * Data Transfer Object for a routing lookup: the warehouses fulfilling a product for a store.
+ */
+public class FulfillmentRouteResponse {
+
+  public Long productId;
+  public Long storeId;
+  public List<String> warehouseBusinessUnits;
+
+  public FulfillmentRouteResponse() {}
+
+  public FulfillmentRouteResponse(
+      Long productId, Long storeId, List<String> warehouseBusinessUnits) {
+    this.productId = productId;
+    this.storeId = storeId;
+    this.warehouseBusinessUnits = warehouseBusinessUnits;
+  }
+}
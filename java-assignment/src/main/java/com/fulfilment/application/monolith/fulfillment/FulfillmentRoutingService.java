@@ -0,0 +1,124 @@
+package com.fulfilment.application.monolith.fulfillment;
+
+import com.fulfilment.application.monolith.scheduling.BackgroundScheduler;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.runtime.StartupEvent;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import jakarta.transaction.Status;
+import jakarta.transaction.Synchronization;
+import jakarta.transaction.TransactionSynchronizationRegistry;
+import java.time.Duration;
+import java.util.List;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+/**
+ * Answers which warehouses fulfil a product for a store, for order routing.
+ *
+ * <p>Lookups are served from a {@link FulfillmentRoutingTable} of the fulfillments of active
+ * warehouses. It is loaded at startup and kept up to date by {@link
+ * ProductWarehouseFulfillmentRepository}. Changes are applied once their transaction has committed,
+ * so the table only ever reflects committed fulfillments.
+ *
+ * <p>Changes made by other instances, and warehouses archived since, are only seen when the table
+ * is reloaded, every {@code fulfillment.routing.reload-interval-seconds}. The reloaded table
+ * replaces the current one at once, so lookups never see it half built. A change committed while
+ * the table is being reloaded may be missed until the next reload.
+ */
+@ApplicationScoped
+public class FulfillmentRoutingService {
+
+  private static final Logger LOG = Logger.getLogger(FulfillmentRoutingService.class);
+
+  private volatile FulfillmentRoutingTable table = new FulfillmentRoutingTable();
+
+  @ConfigProperty(name = "fulfillment.routing.reload-interval-seconds", defaultValue = "30")
+  long reloadIntervalSeconds;
+
+  @Inject ProductWarehouseFulfillmentRepository fulfillmentRepository;
+
+  @Inject TransactionSynchronizationRegistry syncRegistry;
+
+  @Inject BackgroundScheduler scheduler;
+
+  void onStart(@Observes StartupEvent event) {
+    reload();
+    LOG.infof("Fulfillment routing table loaded with %d product/store pairs", table.size());
+    scheduler.scheduleWithFixedDelay(
+        this::reloadPeriodically, Duration.ofSeconds(reloadIntervalSeconds));
+  }
+
+  private void reloadPeriodically() {
+    try {
+      reload();
+    } catch (RuntimeException e) {
+      LOG.warn("Fulfillment routing table reload failed, retrying on the next run", e);
+    }
+  }
+
+  /** Rebuilds the table from the committed fulfillments of active warehouses. */
+  void reload() {
+    List<ProductWarehouseFulfillmentId> keys =
+        QuarkusTransaction.requiringNew().call(fulfillmentRepository::findRoutableIds);
+    FulfillmentRoutingTable loaded = new FulfillmentRoutingTable();
+    keys.forEach(
+        key -> loaded.add(key.getProductId(), key.getStoreId(), key.getWarehouseBusinessUnit()));
+    table = loaded;
+  }
+
+  /**
+   * Get the warehouses fulfilling a product for a store, without allocating.
+   *
+   * @param productId the product ID
+   * @param storeId the store ID
+   * @return the warehouse business units in ascending order; shared, must not be modified
+   */
+  public String[] warehousesFor(long productId, long storeId) {
+    return table.get(productId, storeId);
+  }
+
+  /** Records a persisted association, applied once the current transaction commits. */
+  public void recordInsert(Long productId, String warehouseBusinessUnit, Long storeId) {
+    onCommit(() -> table.add(productId, storeId, warehouseBusinessUnit));
+  }
+
+  /** Records a deleted association, applied once the current transaction commits. */
+  public void recordDelete(Long productId, String warehouseBusinessUnit, Long storeId) {
+    onCommit(() -> table.remove(productId, storeId, warehouseBusinessUnit));
+  }
+
+  /**
+   * Records the removal of the given associations, applied once the current transaction commits.
+   */
+  public void recordDeleteAll(List<ProductWarehouseFulfillmentId> removed) {
+    onCommit(
+        () ->
+            removed.forEach(
+                key ->
+                    table.remove(
+                        key.getProductId(), key.getStoreId(), key.getWarehouseBusinessUnit())));
+  }
+
+  private void onCommit(Runnable change) {
+    if (syncRegistry.getTransactionKey() == null) {
+      change.run();
+      return;
+    }
+    syncRegistry.registerInterposedSynchronization(
+        new Synchronization() {
+          @Override
+          public void beforeCompletion() {
+            // No action needed before completion
+          }
+
+          @Override
+          public void afterCompletion(int status) {
+            if (status == Status.STATUS_COMMITTED) {
+              change.run();
+            }
+          }
+        });
+  }
+}
@@ -0,0 +1,216 @@
+package com.fulfilment.application.monolith.fulfillment;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Open-addressing map from (productId, storeId) to the warehouses fulfilling that pair.
+ *
+ * <p>Keys are stored in two primitive {@code long} arrays and probed linearly, and each value is an
+ * immutable sorted {@code String[]} that is replaced, never modified. Lookups run under an
+ * optimistic {@link StampedLock} read and fall back to a read lock only when they race with a
+ * writer, so they neither block nor allocate. Writers are serialised by the write lock.
+ */
+public final class FulfillmentRoutingTable {
+
+  private static final String[] NO_WAREHOUSES = new String[0];
+
+  private static final int INITIAL_CAPACITY = 64;
+
+  private final StampedLock lock = new StampedLock();
+
+  private long[] productIds;
+  private long[] storeIds;
+  // null marks a free slot
+  private String[][] warehouses;
+  private int size;
+
+  public FulfillmentRoutingTable() {
+    allocate(INITIAL_CAPACITY);
+  }
+
+  /**
+   * Look up the warehouses fulfilling a product for a store.
+   *
+   * @param productId the product ID
+   * @param storeId the store ID
+   * @return the warehouse business units in ascending order; shared, must not be modified
+   */
+  public String[] get(long productId, long storeId) {
+    long stamp = lock.tryOptimisticRead();
+    String[] result = find(productId, storeId);
+    if (!lock.validate(stamp)) {
+      stamp = lock.readLock();
+      try {
+        result = find(productId, storeId);
+      } finally {
+        lock.unlockRead(stamp);
+      }
+    }
+    return result != null ? result : NO_WAREHOUSES;
+  }
+
+  /** Adds a warehouse to a (product, store) pair. */
+  public void add(long productId, long storeId, String warehouseBusinessUnit) {
+    long stamp = lock.writeLock();
+    try {
+      int slot = slotOf(productId, storeId);
+      String[] current = warehouses[slot];
+      if (current == null) {
+        warehouses[slot] = new String[] {warehouseBusinessUnit};
+        productIds[slot] = productId;
+        storeIds[slot] = storeId;
+        if (++size * 2 > warehouses.length) {
+          resize(warehouses.length * 2);
+        }
+      } else if (Arrays.binarySearch(current, warehouseBusinessUnit) < 0) {
+        String[] updated = Arrays.copyOf(current, current.length + 1);
+        updated[current.length] = warehouseBusinessUnit;
+        Arrays.sort(updated);
+        warehouses[slot] = updated;
+      }
+    } finally {
+      lock.unlockWrite(stamp);
+    }
+  }
+
+  /** Removes a warehouse from a (product, store) pair. */
+  public void remove(long productId, long storeId, String warehouseBusinessUnit) {
+    long stamp = lock.writeLock();
+    try {
+      int slot = slotOf(productId, storeId);
+      String[] current = warehouses[slot];
+      if (current == null) {
+        return;
+      }
+      int index = Arrays.binarySearch(current, warehouseBusinessUnit);
+      if (index < 0) {
+        return;
+      }
+      if (current.length > 1) {
+        String[] updated = new String[current.length - 1];
+        System.arraycopy(current, 0, updated, 0, index);
+        System.arraycopy(current, index + 1, updated, index, current.length - index - 1);
+        warehouses[slot] = updated;
+      } else {
+        delete(slot);
+      }
+    } finally {
+      lock.unlockWrite(stamp);
+    }
+  }
+
+  /** Removes every entry. */
+  public void clear() {
+    long stamp = lock.writeLock();
+    try {
+      allocate(INITIAL_CAPACITY);
+    } finally {
+      lock.unlockWrite(stamp);
+    }
+  }
+
+  /** Number of (product, store) pairs with at least one warehouse. */
+  public int size() {
+    long stamp = lock.readLock();
+    try {
+      return size;
+    } finally {
+      lock.unlockRead(stamp);
+    }
+  }
+
+  private String[] find(long productId, long storeId) {
+    // Read each array once; under an optimistic read they may be replaced concurrently
+    long[] products = productIds;
+    long[] stores = storeIds;
+    String[][] values = warehouses;
+    int mask = values.length - 1;
+    if (products.length != values.length || stores.length != values.length) {
+      return null;
+    }
+    int slot = hash(productId, storeId) & mask;
+    for (int probes = 0; probes < values.length; probes++) {
+      String[] value = values[slot];
+      if (value == null) {
+        return null;
+      }
+      if (products[slot] == productId && stores[slot] == storeId) {
+        return value;
+      }
+      slot = (slot + 1) & mask;
+    }
+    return null;
+  }
+
+  /** Slot holding the key, or the free slot where it belongs. Requires the write lock. */
+  private int slotOf(long productId, long storeId) {
+    int mask = warehouses.length - 1;
+    int slot = hash(productId, storeId) & mask;
+    while (warehouses[slot] != null
+        && (productIds[slot] != productId || storeIds[slot] != storeId)) {
+      slot = (slot + 1) & mask;
+    }
+    return slot;
+  }
+
+  /** Frees a slot, shifting back the entries of its probe chain. Requires the write lock. */
+  private void delete(int slot) {
+    int mask = warehouses.length - 1;
+    int free = slot;
+    int next = (free + 1) & mask;
+    while (warehouses[next] != null) {
+      int home = hash(productIds[next], storeIds[next]) & mask;
+      // Move the entry back unless its home slot lies cyclically in (free, next]
+      boolean reachable = free <= next ? free < home && home <= next : free < home || home <= next;
+      if (!reachable) {
+        productIds[free] = productIds[next];
+        storeIds[free] = storeIds[next];
+        warehouses[free] = warehouses[next];
+        free = next;
+      }
+      next = (next + 1) & mask;
+    }
+    warehouses[free] = null;
+    size--;
+  }
+
+  private void resize(int capacity) {
+    long[] oldProducts = productIds;
+    long[] oldStores = storeIds;
+    String[][] oldWarehouses = warehouses;
+    long[] newProducts = new long[capacity];
+    long[] newStores = new long[capacity];
+    String[][] newWarehouses = new String[capacity][];
+    int mask = capacity - 1;
+    for (int i = 0; i < oldWarehouses.length; i++) {
+      if (oldWarehouses[i] != null) {
+        int slot = hash(oldProducts[i], oldStores[i]) & mask;
+        while (newWarehouses[slot] != null) {
+          slot = (slot + 1) & mask;
+        }
+        newProducts[slot] = oldProducts[i];
+        newStores[slot] = oldStores[i];
+        newWarehouses[slot] = oldWarehouses[i];
+      }
+    }
+    productIds = newProducts;
+    storeIds = newStores;
+    warehouses = newWarehouses;
+  }
+
+  private void allocate(int capacity) {
+    productIds = new long[capacity];
+    storeIds = new long[capacity];
+    warehouses = new String[capacity][];
+    size = 0;
+  }
+
+  private static int hash(long productId, long storeId) {
+    long h = productId * 0x9E3779B97F4A7C15L + storeId;
+    h ^= h >>> 33;
+    h *= 0xFF51AFD7ED558CCDL;
+    h ^= h >>> 33;
+    return (int) h;
+  }
+}
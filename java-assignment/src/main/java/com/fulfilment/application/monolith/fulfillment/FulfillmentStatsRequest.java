@@ -0,0 +1,23 @@
+package com.fulfilment.application.monolith.fulfillment;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Data Transfer Object for a bulk statistics request. Any of the lists may be empty.
+ */
+public class FulfillmentStatsRequest {
+
+  public List<Long> storeIds = new ArrayList<>();
+  public List<Long> productIds = new ArrayList<>();
+  public List<String> warehouseBusinessUnits = new ArrayList<>();
+
+  public FulfillmentStatsRequest() {}
+
+  public FulfillmentStatsRequest(
+      List<Long> storeIds, List<Long> productIds, List<String> warehouseBusinessUnits) {
+    this.storeIds = storeIds;
+    this.productIds = productIds;
+    this.warehouseBusinessUnits = warehouseBusinessUnits;
+  }
+}
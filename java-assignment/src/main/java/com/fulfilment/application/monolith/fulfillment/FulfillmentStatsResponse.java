@@ -0,0 +1,23 @@
+package com.fulfilment.application.monolith.fulfillment;
+
+import com.fulfilment.application.monolith.fulfillment.FulfillmentResource.FulfillmentStats;
+import java.util.List;
+
+/**
+ * Data Transfer Object for a bulk statistics response, in the order of the requested IDs.
+ */
+public class FulfillmentStatsResponse {
+
+  public List<FulfillmentStats> stores;
+  public List<FulfillmentStats> products;
+  public List<FulfillmentStats> warehouses;
+
+  public FulfillmentStatsResponse(
+      List<FulfillmentStats> stores,
+      List<FulfillmentStats> products,
+      List<FulfillmentStats> warehouses) {
+    this.stores = stores;
+    this.products = products;
+    this.warehouses = warehouses;
+  }
+}
@@ -8,7 +8,9 @@ import jakarta.inject.Inject;
 import jakarta.ws.rs.BadRequestException;
 import jakarta.ws.rs.NotFoundException;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 /**
  * Service for validating fulfillment operations against business constraints.
@@ -16,9 +18,10 @@ import java.util.List;
 @ApplicationScoped
 public class FulfillmentValidationService {
 
-  private static final int MAX_WAREHOUSES_PER_PRODUCT_PER_STORE = 2;
-  private static final int MAX_WAREHOUSES_PER_STORE = 3;
-  private static final int MAX_PRODUCTS_PER_WAREHOUSE = 5;
+  static final int MAX_WAREHOUSES_PER_PRODUCT_PER_STORE = 2;
+  static final int MAX_WAREHOUSES_PER_STORE = 3;
+  static final int MAX_PRODUCTS_PER_WAREHOUSE = 5;
+  private static final int IN_CLAUSE_CHUNK_SIZE = 1000;
 
   @Inject ProductRepository productRepository;
 
@@ -26,6 +29,8 @@ public class FulfillmentValidationService {
 
   @Inject ProductWarehouseFulfillmentRepository fulfillmentRepository;
 
+  @Inject FulfillmentConstraintIndex constraintIndex;
+
   /**
    * Validates if a fulfillment association can be created.
    *
@@ -58,73 +63,16 @@ public class FulfillmentValidationService {
       throw new NotFoundException(String.join("; ", violations));
     }
 
-    // Check if fulfillment already exists
-    if (fulfillmentRepository.exists(productId, warehouseBusinessUnit, storeId)) {
-      throw new BadRequestException(
-          "Fulfillment association already exists for Product "
-              + productId
-              + ", Warehouse "
-              + warehouseBusinessUnit
-              + ", and Store "
-              + storeId);
-    }
-
-    // Validate Constraint 1: Each Product can be fulfilled by max 2 different Warehouses per Store
-    long warehouseCountForProduct =
-        fulfillmentRepository.countWarehousesForProductInStore(productId, storeId);
-    if (warehouseCountForProduct >= MAX_WAREHOUSES_PER_PRODUCT_PER_STORE) {
-      violations.add(
-          "Product "
-              + productId
-              + " already has "
-              + MAX_WAREHOUSES_PER_PRODUCT_PER_STORE
-              + " warehouses fulfilling it for Store "
-              + storeId
-              + ". Maximum allowed is "
-              + MAX_WAREHOUSES_PER_PRODUCT_PER_STORE);
-    }
+    FulfillmentConstraintCounts counts =
+        constraintCounts(productId, warehouseBusinessUnit, storeId);
 
-    // Validate Constraint 2: Each Store can be fulfilled by max 3 different Warehouses
-    // Check if this is a new warehouse for the store
-    List<ProductWarehouseFulfillment> storeFullfillments =
-        fulfillmentRepository.findByStoreId(storeId);
-    boolean isNewWarehouseForStore =
-        storeFullfillments.stream()
-            .noneMatch(f -> f.getWarehouseBusinessUnit().equals(warehouseBusinessUnit));
-
-    if (isNewWarehouseForStore) {
-      long distinctWarehouseCount = fulfillmentRepository.countDistinctWarehousesForStore(storeId);
-      if (distinctWarehouseCount >= MAX_WAREHOUSES_PER_STORE) {
-        violations.add(
-            "Store "
-                + storeId
-                + " already has "
-                + MAX_WAREHOUSES_PER_STORE
-                + " different warehouses fulfilling it. Maximum allowed is "
-                + MAX_WAREHOUSES_PER_STORE);
-      }
+    // Check if fulfillment already exists
+    String duplicate = findDuplicateViolation(productId, warehouseBusinessUnit, storeId, counts);
+    if (duplicate != null) {
+      throw new BadRequestException(duplicate);
     }
 
-    // Validate Constraint 3: Each Warehouse can store max 5 types of Products
-    // Check if this is a new product for the warehouse
-    List<ProductWarehouseFulfillment> warehouseFullfillments =
-        fulfillmentRepository.findByWarehouseBusinessUnit(warehouseBusinessUnit);
-    boolean isNewProductForWarehouse =
-        warehouseFullfillments.stream().noneMatch(f -> f.getProductId().equals(productId));
-
-    if (isNewProductForWarehouse) {
-      long distinctProductCount =
-          fulfillmentRepository.countDistinctProductsInWarehouse(warehouseBusinessUnit);
-      if (distinctProductCount >= MAX_PRODUCTS_PER_WAREHOUSE) {
-        violations.add(
-            "Warehouse "
-                + warehouseBusinessUnit
-                + " already has "
-                + MAX_PRODUCTS_PER_WAREHOUSE
-                + " different products. Maximum allowed is "
-                + MAX_PRODUCTS_PER_WAREHOUSE);
-      }
-    }
+    collectConstraintViolations(productId, warehouseBusinessUnit, storeId, counts, violations);
 
     // If there are any constraint violations, throw exception
     if (!violations.isEmpty()) {
@@ -153,13 +101,182 @@ public class FulfillmentValidationService {
     }
   }
 
+  /**
+   * Validates one row of a batch against the given known entities and the current constraint
+   * state, which already includes rows of the same batch that were created before it.
+   *
+   * @param productId the product ID
+   * @param warehouseBusinessUnit the warehouse business unit code
+   * @param storeId the store ID
+   * @param knownEntities entities loaded up front for the whole batch
+   * @return the violations for this row, empty if it can be created
+   */
+  public List<String> findBatchRowViolations(
+      Long productId, String warehouseBusinessUnit, Long storeId, KnownEntities knownEntities) {
+    List<String> violations = new ArrayList<>();
+
+    if (!knownEntities.productIds.contains(productId)) {
+      violations.add("Product with ID " + productId + " does not exist");
+    }
+
+    if (!knownEntities.warehouseBusinessUnits.contains(warehouseBusinessUnit)) {
+      violations.add("Warehouse with business unit " + warehouseBusinessUnit + " does not exist");
+    }
+
+    if (!knownEntities.storeIds.contains(storeId)) {
+      violations.add("Store with ID " + storeId + " does not exist");
+    }
+
+    if (!violations.isEmpty()) {
+      return violations;
+    }
+
+    FulfillmentConstraintCounts counts =
+        constraintCounts(productId, warehouseBusinessUnit, storeId);
+    String duplicate = findDuplicateViolation(productId, warehouseBusinessUnit, storeId, counts);
+    if (duplicate != null) {
+      violations.add(duplicate);
+      return violations;
+    }
+
+    collectConstraintViolations(productId, warehouseBusinessUnit, storeId, counts, violations);
+    return violations;
+  }
+
+  /**
+   * Loads which of the products, active warehouses and stores referenced by a batch exist, using
+   * one query per entity type and chunk instead of one per row. Null rows are skipped.
+   *
+   * @param requests the batch rows
+   * @return the existing entity identifiers
+   */
+  public KnownEntities loadKnownEntities(List<FulfillmentRequest> requests) {
+    Set<Long> productIds = new HashSet<>();
+    Set<String> warehouseBusinessUnits = new HashSet<>();
+    Set<Long> storeIds = new HashSet<>();
+    for (FulfillmentRequest request : requests) {
+      if (request == null) {
+        continue;
+      }
+      if (request.productId != null) {
+        productIds.add(request.productId);
+      }
+      if (request.warehouseBusinessUnit != null) {
+        warehouseBusinessUnits.add(request.warehouseBusinessUnit);
+      }
+      if (request.storeId != null) {
+        storeIds.add(request.storeId);
+      }
+    }
+
+    KnownEntities knownEntities = new KnownEntities();
+    for (List<Long> chunk : chunk(productIds)) {
+      knownEntities.productIds.addAll(
+          productRepository
+              .find("SELECT id FROM Product WHERE id IN ?1", chunk)
+              .project(Long.class)
+              .list());
+    }
+    for (List<String> chunk : chunk(warehouseBusinessUnits)) {
+      knownEntities.warehouseBusinessUnits.addAll(
+          warehouseRepository.findActiveBusinessUnitCodes(chunk));
+    }
+    for (List<Long> chunk : chunk(storeIds)) {
+      knownEntities.storeIds.addAll(
+          Store.find("SELECT id FROM Store WHERE id IN ?1", chunk).project(Long.class).list());
+    }
+    return knownEntities;
+  }
+
+  /**
+   * The counts to validate a new association against. The index is checked first; only if it
+   * reports a duplicate or a limit already reached are the counts loaded from the database and
+   * used instead, so a row is never rejected on the index alone.
+   */
+  private FulfillmentConstraintCounts constraintCounts(
+      Long productId, String warehouseBusinessUnit, Long storeId) {
+    FulfillmentConstraintCounts hinted =
+        constraintIndex.constraintCounts(productId, warehouseBusinessUnit, storeId);
+    List<String> hintedViolations = new ArrayList<>();
+    collectConstraintViolations(
+        productId, warehouseBusinessUnit, storeId, hinted, hintedViolations);
+    if (!hinted.exists && hintedViolations.isEmpty()) {
+      return hinted;
+    }
+    return fulfillmentRepository.loadConstraintCounts(productId, warehouseBusinessUnit, storeId);
+  }
+
+  private String findDuplicateViolation(
+      Long productId,
+      String warehouseBusinessUnit,
+      Long storeId,
+      FulfillmentConstraintCounts counts) {
+    if (counts.exists) {
+      return "Fulfillment association already exists for Product "
+          + productId
+          + ", Warehouse "
+          + warehouseBusinessUnit
+          + ", and Store "
+          + storeId;
+    }
+    return null;
+  }
+
+  private void collectConstraintViolations(
+      Long productId,
+      String warehouseBusinessUnit,
+      Long storeId,
+      FulfillmentConstraintCounts counts,
+      List<String> violations) {
+    // Validate Constraint 1: Each Product can be fulfilled by max 2 different Warehouses per Store
+    if (counts.warehousesForProductInStore >= MAX_WAREHOUSES_PER_PRODUCT_PER_STORE) {
+      violations.add(
+          "Product "
+              + productId
+              + " already has "
+              + MAX_WAREHOUSES_PER_PRODUCT_PER_STORE
+              + " warehouses fulfilling it for Store "
+              + storeId
+              + ". Maximum allowed is "
+              + MAX_WAREHOUSES_PER_PRODUCT_PER_STORE);
+    }
+
+    // Validate Constraint 2: Each Store can be fulfilled by max 3 different Warehouses
+    // Check if this is a new warehouse for the store
+    if (!counts.warehouseAlreadyServesStore
+        && counts.distinctWarehousesForStore >= MAX_WAREHOUSES_PER_STORE) {
+      violations.add(
+          "Store "
+              + storeId
+              + " already has "
+              + MAX_WAREHOUSES_PER_STORE
+              + " different warehouses fulfilling it. Maximum allowed is "
+              + MAX_WAREHOUSES_PER_STORE);
+    }
+
+    // Validate Constraint 3: Each Warehouse can store max 5 types of Products
+    // Check if this is a new product for the warehouse
+    if (!counts.productAlreadyInWarehouse
+        && counts.distinctProductsInWarehouse >= MAX_PRODUCTS_PER_WAREHOUSE) {
+      violations.add(
+          "Warehouse "
+              + warehouseBusinessUnit
+              + " already has "
+              + MAX_PRODUCTS_PER_WAREHOUSE
+              + " different products. Maximum allowed is "
+              + MAX_PRODUCTS_PER_WAREHOUSE);
+    }
+  }
+
   private boolean productExists(Long productId) {
     return productRepository.findByIdOptional(productId).isPresent();
   }
 
   private boolean warehouseExists(String businessUnitCode) {
     try {
-      return warehouseRepository.find("businessUnitCode", businessUnitCode).count() > 0;
+      // Only the active version of a warehouse can fulfil new associations. Read from the
+      // database, since a cached answer may predate an archive on another instance.
+      return !warehouseRepository.findActiveBusinessUnitCodes(List.of(businessUnitCode)).isEmpty();
     } catch (Exception e) {
       return false;
     }
@@ -168,4 +285,33 @@ public class FulfillmentValidationService {
   private boolean storeExists(Long storeId) {
     return Store.findByIdOptional(storeId).isPresent();
   }
+
+  private static <T> List<List<T>> chunk(Set<T> values) {
+    List<List<T>> chunks = new ArrayList<>();
+    List<T> current = new ArrayList<>(IN_CLAUSE_CHUNK_SIZE);
+    for (T value : values) {
+      current.add(value);
+      if (current.size() == IN_CLAUSE_CHUNK_SIZE) {
+        chunks.add(current);
+        current = new ArrayList<>(IN_CLAUSE_CHUNK_SIZE);
+      }
+    }
+    if (!current.isEmpty()) {
+      chunks.add(current);
+    }
+    return chunks;
+  }
+
+  /** Identifiers of the products, warehouses and stores referenced by a batch that exist. */
+  public static class KnownEntities {
+    final Set<Long> productIds = new HashSet<>();
+    final Set<String> warehouseBusinessUnits = new HashSet<>();
+    final Set<Long> storeIds = new HashSet<>();
+
+    boolean contains(FulfillmentRequest request) {
+      return productIds.contains(request.productId)
+          && warehouseBusinessUnits.contains(request.warehouseBusinessUnit)
+          && storeIds.contains(request.storeId);
+    }
+  }
 }
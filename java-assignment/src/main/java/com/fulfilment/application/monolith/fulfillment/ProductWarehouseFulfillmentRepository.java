@@ -1,14 +1,144 @@
 package com.fulfilment.application.monolith.fulfillment;
 
+import com.fulfilment.application.monolith.exceptions.BusinessValidationException;
+import com.fulfilment.application.monolith.exceptions.ErrorCode;
 import io.quarkus.hibernate.orm.panache.PanacheRepositoryBase;
+import io.quarkus.narayana.jta.runtime.TransactionConfiguration;
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.persistence.PersistenceException;
+import jakarta.transaction.Transactional;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.exception.ConstraintViolationException;
 
+/**
+ * Repository for fulfillment associations.
+ *
+ * <p>Single-entity writes ({@link #persist}, {@link #persistAndFlush}, {@link #delete}, {@link
+ * #deleteById} and {@link #deleteAll}) keep the {@link FulfillmentConstraintIndex}, the
+ * materialized counters of {@link FulfillmentCounterRepository} and the {@link
+ * FulfillmentRoutingService} in sync and are the only supported way of changing fulfillment data.
+ * The constraint counts are read from those counters instead of aggregating over the fulfillment
+ * table.
+ */
 @ApplicationScoped
 public class ProductWarehouseFulfillmentRepository
     implements PanacheRepositoryBase<
         ProductWarehouseFulfillment, ProductWarehouseFulfillmentId> {
 
+  private static final String RESPONSE_QUERY =
+      "SELECT new "
+          + FulfillmentResponse.class.getName()
+          + "(f.productId, p.name, f.warehouseBusinessUnit, f.storeId, s.name, f.createdAt)"
+          + " FROM ProductWarehouseFulfillment f"
+          + " LEFT JOIN f.product p"
+          + " LEFT JOIN f.store s";
+
+  private static final String KEY_ORDER =
+      " ORDER BY f.productId, f.warehouseBusinessUnit, f.storeId";
+
+  private static final int STREAM_TIMEOUT_SECONDS = 3600;
+
+  @Inject FulfillmentConstraintIndex constraintIndex;
+
+  @Inject FulfillmentCounterRepository counterRepository;
+
+  @Inject FulfillmentRoutingService routingService;
+
+  @Override
+  public void persist(ProductWarehouseFulfillment fulfillment) {
+    counterRepository.reserve(
+        fulfillment.getProductId(),
+        fulfillment.getWarehouseBusinessUnit(),
+        fulfillment.getStoreId());
+    PanacheRepositoryBase.super.persist(fulfillment);
+    constraintIndex.recordInsert(
+        fulfillment.getProductId(),
+        fulfillment.getWarehouseBusinessUnit(),
+        fulfillment.getStoreId());
+    routingService.recordInsert(
+        fulfillment.getProductId(),
+        fulfillment.getWarehouseBusinessUnit(),
+        fulfillment.getStoreId());
+  }
+
+  @Override
+  public void persistAndFlush(ProductWarehouseFulfillment fulfillment) {
+    persist(fulfillment);
+    flush();
+  }
+
+  /**
+   * Flush pending inserts. The constraint index only knows the associations written through this
+   * instance, so an insert can still collide with one another instance made; that primary key
+   * conflict is reported like any other duplicate.
+   *
+   * @param duplicateMessage the message to report a conflict with
+   * @throws BusinessValidationException if an inserted association already exists
+   */
+  public void flushInserts(String duplicateMessage) {
+    try {
+      flush();
+    } catch (PersistenceException e) {
+      if (isDuplicate(e)) {
+        throw new BusinessValidationException(ErrorCode.DUPLICATE_RESOURCE, duplicateMessage);
+      }
+      throw e;
+    }
+  }
+
+  static boolean isDuplicate(Throwable e) {
+    for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+      if (cause instanceof ConstraintViolationException violation
+          && violation.getKind() == ConstraintViolationException.ConstraintKind.UNIQUE) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  @Override
+  public void delete(ProductWarehouseFulfillment fulfillment) {
+    PanacheRepositoryBase.super.delete(fulfillment);
+    counterRepository.release(
+        fulfillment.getProductId(),
+        fulfillment.getWarehouseBusinessUnit(),
+        fulfillment.getStoreId());
+    constraintIndex.recordDelete(
+        fulfillment.getProductId(),
+        fulfillment.getWarehouseBusinessUnit(),
+        fulfillment.getStoreId());
+    routingService.recordDelete(
+        fulfillment.getProductId(),
+        fulfillment.getWarehouseBusinessUnit(),
+        fulfillment.getStoreId());
+  }
+
+  @Override
+  public boolean deleteById(ProductWarehouseFulfillmentId id) {
+    ProductWarehouseFulfillment fulfillment = findById(id);
+    if (fulfillment == null) {
+      return false;
+    }
+    delete(fulfillment);
+    return true;
+  }
+
+  @Override
+  public long deleteAll() {
+    routingService.recordDeleteAll(findAllIds());
+    long deleted =
+        getEntityManager().createQuery("DELETE FROM ProductWarehouseFulfillment").executeUpdate();
+    counterRepository.deleteAll();
+    constraintIndex.recordDeleteAll();
+    return deleted;
+  }
+
   /**
    * Find all fulfillment records for a specific store.
    *
@@ -40,6 +170,101 @@ public class ProductWarehouseFulfillmentRepository
     return list("warehouseBusinessUnit", warehouseBusinessUnit);
   }
 
+  /**
+   * Load the fulfillments of a store as responses in one statement.
+   *
+   * @param storeId the store ID
+   * @return list of fulfillment responses
+   */
+  public List<FulfillmentResponse> findResponsesByStoreId(Long storeId) {
+    return findResponses("f.storeId", storeId);
+  }
+
+  /**
+   * Load the fulfillments of a product as responses in one statement.
+   *
+   * @param productId the product ID
+   * @return list of fulfillment responses
+   */
+  public List<FulfillmentResponse> findResponsesByProductId(Long productId) {
+    return findResponses("f.productId", productId);
+  }
+
+  /**
+   * Load the fulfillments of a warehouse as responses in one statement.
+   *
+   * @param warehouseBusinessUnit the warehouse business unit code
+   * @return list of fulfillment responses
+   */
+  public List<FulfillmentResponse> findResponsesByWarehouseBusinessUnit(
+      String warehouseBusinessUnit) {
+    return findResponses("f.warehouseBusinessUnit", warehouseBusinessUnit);
+  }
+
+  /**
+   * Load one page of fulfillments ordered by the composite key.
+   *
+   * @param after the key to continue after, or null for the first page
+   * @param limit the maximum number of rows
+   * @return list of fulfillment responses
+   */
+  public List<FulfillmentResponse> findResponsesPage(
+      ProductWarehouseFulfillmentId after, int limit) {
+    if (after == null) {
+      return getEntityManager()
+          .createQuery(RESPONSE_QUERY + KEY_ORDER, FulfillmentResponse.class)
+          .setMaxResults(limit)
+          .getResultList();
+    }
+    return getEntityManager()
+        .createQuery(
+            RESPONSE_QUERY
+                + " WHERE f.productId > :productId"
+                + " OR (f.productId = :productId AND f.warehouseBusinessUnit > :warehouse)"
+                + " OR (f.productId = :productId AND f.warehouseBusinessUnit = :warehouse"
+                + " AND f.storeId > :storeId)"
+                + KEY_ORDER,
+            FulfillmentResponse.class)
+        .setParameter("productId", after.getProductId())
+        .setParameter("warehouse", after.getWarehouseBusinessUnit())
+        .setParameter("storeId", after.getStoreId())
+        .setMaxResults(limit)
+        .getResultList();
+  }
+
+  /**
+   * Stream every fulfillment in key order from a forward-only cursor.
+   *
+   * <p>Rows are fetched from the database in chunks of {@code fetchSize} and handed to the consumer
+   * one by one, so memory use does not depend on the table size. Runs in its own transaction, which
+   * some drivers (e.g. PostgreSQL) require to honour the fetch size.
+   *
+   * @param fetchSize the JDBC fetch size
+   * @param consumer receives each row
+   */
+  @Transactional(Transactional.TxType.REQUIRES_NEW)
+  @TransactionConfiguration(timeout = STREAM_TIMEOUT_SECONDS)
+  public void streamResponses(int fetchSize, Consumer<FulfillmentResponse> consumer) {
+    try (ScrollableResults<FulfillmentResponse> rows =
+        getSession()
+            .createSelectionQuery(RESPONSE_QUERY + KEY_ORDER, FulfillmentResponse.class)
+            .setFetchSize(fetchSize)
+            .setReadOnly(true)
+            .scroll(ScrollMode.FORWARD_ONLY)) {
+      while (rows.next()) {
+        consumer.accept(rows.get());
+      }
+    }
+  }
+
+  private List<FulfillmentResponse> findResponses(String filterPath, Object filterValue) {
+    return getEntityManager()
+        .createQuery(
+            RESPONSE_QUERY + " WHERE " + filterPath + " = :value", FulfillmentResponse.class)
+        .setParameter("value", filterValue)
+        .getResultList();
+  }
+
   /**
    * Count the number of different warehouses fulfilling a product for a specific store.
    * Constraint 1: Each Product can be fulfilled by max 2 different Warehouses per Store
@@ -49,7 +274,8 @@ public class ProductWarehouseFulfillmentRepository
    * @return count of warehouses
    */
   public long countWarehousesForProductInStore(Long productId, Long storeId) {
-    return count("productId = ?1 and storeId = ?2", productId, storeId);
+    return counterRepository.current(
+        FulfillmentCounter.Scope.PRODUCT_STORE_WAREHOUSES, productId + ":" + storeId);
   }
 
   /**
@@ -60,11 +286,8 @@ public class ProductWarehouseFulfillmentRepository
    * @return count of distinct warehouses
    */
   public long countDistinctWarehousesForStore(Long storeId) {
-    return find(
-            "SELECT COUNT(DISTINCT warehouseBusinessUnit) FROM ProductWarehouseFulfillment WHERE storeId = ?1",
-            storeId)
-        .project(Long.class)
-        .firstResult();
+    return counterRepository.current(
+        FulfillmentCounter.Scope.STORE_WAREHOUSES, storeId.toString());
   }
 
   /**
@@ -75,11 +298,8 @@ public class ProductWarehouseFulfillmentRepository
    * @return count of distinct products
    */
   public long countDistinctProductsInWarehouse(String warehouseBusinessUnit) {
-    return find(
-            "SELECT COUNT(DISTINCT productId) FROM ProductWarehouseFulfillment WHERE warehouseBusinessUnit = ?1",
-            warehouseBusinessUnit)
-        .project(Long.class)
-        .firstResult();
+    return counterRepository.current(
+        FulfillmentCounter.Scope.WAREHOUSE_PRODUCTS, warehouseBusinessUnit);
   }
 
   /**
@@ -106,6 +326,75 @@ public class ProductWarehouseFulfillmentRepository
         .isPresent();
   }
 
+  /**
+   * Load the existence flag and all constraint counters for a candidate association in one query.
+   * The counters are read from their materialized rows and the existence flag by primary key, so
+   * the cost does not depend on how many associations the store or warehouse has.
+   *
+   * @param productId the product ID
+   * @param warehouseBusinessUnit the warehouse business unit code
+   * @param storeId the store ID
+   * @return the constraint counters
+   */
+  public FulfillmentConstraintCounts loadConstraintCounts(
+      Long productId, String warehouseBusinessUnit, Long storeId) {
+    String productStoreKey = productId + ":" + storeId;
+    String storeKey = storeId.toString();
+    String storeWarehouseKey = storeId + ":" + warehouseBusinessUnit;
+    String warehouseProductKey = productId + ":" + warehouseBusinessUnit;
+    // The constraint counters never have pending deltas. An existing association always has its
+    // counters, so the existence flag can ride along on their rows.
+    List<Object[]> rows =
+        getEntityManager()
+            .createQuery(
+                "SELECT c.scope, c.scopeKey, c.currentCount,"
+                    + " (SELECT count(f) FROM ProductWarehouseFulfillment f"
+                    + " WHERE f.productId = ?3 AND f.warehouseBusinessUnit = ?4 AND f.storeId = ?5)"
+                    + " FROM FulfillmentCounter c"
+                    + " WHERE c.scope IN ?1 AND c.scopeKey IN ?2",
+                Object[].class)
+            .setParameter(
+                1,
+                List.of(
+                    FulfillmentCounter.Scope.PRODUCT_STORE_WAREHOUSES,
+                    FulfillmentCounter.Scope.STORE_WAREHOUSES,
+                    FulfillmentCounter.Scope.STORE_WAREHOUSE_ROWS,
+                    FulfillmentCounter.Scope.WAREHOUSE_PRODUCTS,
+                    FulfillmentCounter.Scope.WAREHOUSE_PRODUCT_ROWS))
+            .setParameter(
+                2,
+                List.of(
+                    productStoreKey,
+                    storeKey,
+                    storeWarehouseKey,
+                    warehouseBusinessUnit,
+                    warehouseProductKey))
+            .setParameter(3, productId)
+            .setParameter(4, warehouseBusinessUnit)
+            .setParameter(5, storeId)
+            .getResultList();
+    boolean exists = false;
+    Map<FulfillmentCounter.Key, Integer> counts = new HashMap<>();
+    for (Object[] row : rows) {
+      counts.put(
+          new FulfillmentCounter.Key((FulfillmentCounter.Scope) row[0], (String) row[1]),
+          (Integer) row[2]);
+      exists = (Long) row[3] > 0;
+    }
+    return new FulfillmentConstraintCounts(
+        exists,
+        count(counts, FulfillmentCounter.Scope.PRODUCT_STORE_WAREHOUSES, productStoreKey),
+        count(counts, FulfillmentCounter.Scope.STORE_WAREHOUSES, storeKey),
+        count(counts, FulfillmentCounter.Scope.STORE_WAREHOUSE_ROWS, storeWarehouseKey) > 0,
+        count(counts, FulfillmentCounter.Scope.WAREHOUSE_PRODUCTS, warehouseBusinessUnit),
+        count(counts, FulfillmentCounter.Scope.WAREHOUSE_PRODUCT_ROWS, warehouseProductKey) > 0);
+  }
+
+  private static long count(
+      Map<FulfillmentCounter.Key, Integer> counts, FulfillmentCounter.Scope scope, String key) {
+    return counts.getOrDefault(new FulfillmentCounter.Key(scope, key), 0);
+  }
+
   /**
    * Get the list of warehouse business units that fulfill a product in a specific store.
    *
@@ -121,4 +410,39 @@ public class ProductWarehouseFulfillmentRepository
         .project(String.class)
         .list();
   }
+
+  /**
+   * Load the composite keys of all fulfillment records without materialising entities.
+   *
+   * @return list of fulfillment keys
+   */
+  public List<ProductWarehouseFulfillmentId> findAllIds() {
+    return getEntityManager()
+        .createQuery(
+            "SELECT new "
+                + ProductWarehouseFulfillmentId.class.getName()
+                + "(f.productId, f.warehouseBusinessUnit, f.storeId)"
+                + " FROM ProductWarehouseFulfillment f",
+            ProductWarehouseFulfillmentId.class)
+        .getResultList();
+  }
+
+  /**
+   * Get the ids of all fulfillments whose warehouse is active, that is whose current version is
+   * not archived.
+   */
+  public List<ProductWarehouseFulfillmentId> findRoutableIds() {
+    return getEntityManager()
+        .createQuery(
+            "SELECT new "
+                + ProductWarehouseFulfillmentId.class.getName()
+                + "(f.productId, f.warehouseBusinessUnit, f.storeId)"
+                + " FROM ProductWarehouseFulfillment f"
+                + " WHERE EXISTS (SELECT 1 FROM DbWarehouse w"
+                + " WHERE w.businessUnitCode = f.warehouseBusinessUnit AND w.archivedAt IS NULL"
+                + " AND w.id = (SELECT MAX(v.id) FROM DbWarehouse v"
+                + " WHERE v.businessUnitCode = w.businessUnitCode))",
+            ProductWarehouseFulfillmentId.class)
+        .getResultList();
+  }
 }
@@ -0,0 +1,52 @@
+package com.fulfilment.application.monolith.scheduling;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+/**
+ * Runs the periodic and delayed background jobs of the application on one pool of {@code
+ * background.scheduler.pool-size} daemon threads, which is shut down with the application.
+ *
+ * <p>Jobs share the pool, so a job should be short or hand its work to an executor of its own.
+ */
+@ApplicationScoped
+public class BackgroundScheduler {
+
+  @ConfigProperty(name = "background.scheduler.pool-size", defaultValue = "4")
+  int poolSize;
+
+  private ScheduledExecutorService executor;
+
+  @PostConstruct
+  void init() {
+    executor = Executors.newScheduledThreadPool(poolSize, DaemonThreads.named("background"));
+  }
+
+  @PreDestroy
+  void close() {
+    executor.shutdownNow();
+  }
+
+  /** Runs the job every {@code interval}, counted from the end of the previous run. */
+  public ScheduledFuture<?> scheduleWithFixedDelay(Runnable job, Duration interval) {
+    long millis = interval.toMillis();
+    return executor.scheduleWithFixedDelay(job, millis, millis, TimeUnit.MILLISECONDS);
+  }
+
+  /** Runs the job once, after {@code delay}. */
+  public ScheduledFuture<?> schedule(Runnable job, long delay, TimeUnit unit) {
+    return executor.schedule(job, delay, unit);
+  }
+
+  /** Runs the job once, as soon as a thread is free. */
+  public void execute(Runnable job) {
+    executor.execute(job);
+  }
+}
@@ -0,0 +1,20 @@
+package com.fulfilment.application.monolith.scheduling;
+
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/** Thread factory for background work, which must not keep the application from stopping. */
+public final class DaemonThreads {
+
+  private DaemonThreads() {}
+
+  /** Daemon threads named {@code name-1}, {@code name-2} and so on. */
+  public static ThreadFactory named(String name) {
+    AtomicInteger count = new AtomicInteger();
+    return task -> {
+      Thread thread = new Thread(task, name + "-" + count.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    };
+  }
+}
@@ -0,0 +1,15 @@
+package com.fulfilment.application.monolith.stores;
+
+/**
+ * Counters of the {@link TransactionSyncService}. The queue depth counts transactions waiting for
+ * a thread; the other counters count callbacks. Latency runs from the commit to the end of the
+ * callback, so that it includes the time spent in the queue.
+ */
+public record AfterCommitStats(
+    int queueDepth,
+    long executed,
+    long failed,
+    long timedOut,
+    long rejected,
+    long averageLatencyMicros,
+    long maxLatencyMicros) {}
@@ -0,0 +1,22 @@
+package com.fulfilment.application.monolith.stores;
+
+import java.time.Duration;
+
+/**
+ * Exception thrown when a call to the legacy store manager is not let through, because its
+ * circuit is open or too many calls are running. The call did not reach the legacy system.
+ */
+public class LegacyCallRejectedException extends RuntimeException {
+
+  private final Duration retryAfter;
+
+  public LegacyCallRejectedException(String message, Duration retryAfter) {
+    super(message);
+    this.retryAfter = retryAfter;
+  }
+
+  /** How long the rejection is expected to last. Zero when it cannot be told. */
+  public Duration getRetryAfter() {
+    return retryAfter;
+  }
+}
@@ -0,0 +1,12 @@
+package com.fulfilment.application.monolith.stores;
+
+/**
+ * Exception thrown when a call to the legacy store manager did not return in time. The call may
+ * or may not have reached the legacy system.
+ */
+public class LegacyCallTimeoutException extends RuntimeException {
+
+  public LegacyCallTimeoutException(String message) {
+    super(message);
+  }
+}
@@ -0,0 +1,334 @@
+package com.fulfilment.application.monolith.stores;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only journal of records, kept in segment files of a fixed size.
+ *
+ * <p>Each segment is sized up front and memory-mapped, so an append is a copy into the mapping.
+ * A record is its length and CRC-32, each a 4-byte int, followed by its bytes. The space after
+ * the last record is zero, and a zero length marks the end of a segment. A record that does not
+ * fit into the rest of a segment starts the next one.
+ *
+ * <p>{@link #append} returns once the record is on disk. Appends are forced in groups: the
+ * append that completes a group of {@code forceEveryRecords}, or the first to wait {@code
+ * forceIntervalMillis}, forces every record appended so far, outside the lock, while the others
+ * wait for it.
+ *
+ * <p>On opening, appending continues after the last complete record. If the last segment ends in
+ * a torn or corrupt record, a new segment is started instead, so that no record is ever written
+ * behind unreadable bytes. {@link #replay} reads the complete records back, oldest first.
+ *
+ * <p>An open journal holds an exclusive lock on {@code journal.lock} in its directory, so a second
+ * journal on the same directory, in this process or another, fails to open instead of writing
+ * into the same segments.
+ */
+public final class LegacyStoreJournal implements Closeable {
+
+  static final int HEADER_BYTES = 8;
+
+  private static final String SEGMENT_PREFIX = "journal-";
+  private static final String SEGMENT_SUFFIX = ".log";
+  private static final String LOCK_FILE = "journal.lock";
+
+  private final Path directory;
+  private final int segmentSize;
+  private final int forceEveryRecords;
+  private final long forceIntervalNanos;
+
+  // Holds the directory lock until it is closed
+  private final FileChannel lockChannel;
+
+  private final ReentrantLock lock = new ReentrantLock();
+  private final Condition forcedCondition = lock.newCondition();
+
+  private FileChannel channel;
+  private MappedByteBuffer segment;
+  private long segmentIndex;
+  private int position;
+  private int forcedPosition;
+
+  // Records appended, and how many of them are known to be on disk
+  private long appended;
+  private long forced;
+  private long oldestUnforcedNanos;
+  private boolean forcing;
+  private boolean closed;
+
+  public LegacyStoreJournal(
+      Path directory, int segmentSize, int forceEveryRecords, long forceIntervalMillis)
+      throws IOException {
+    if (segmentSize <= HEADER_BYTES || forceEveryRecords < 1 || forceIntervalMillis < 0) {
+      throw new IllegalArgumentException("Invalid journal settings");
+    }
+    this.directory = directory;
+    this.segmentSize = segmentSize;
+    this.forceEveryRecords = forceEveryRecords;
+    this.forceIntervalNanos = TimeUnit.MILLISECONDS.toNanos(forceIntervalMillis);
+
+    Files.createDirectories(directory);
+    lockChannel = lockDirectory(directory);
+    try {
+      openLastSegment();
+    } catch (IOException | RuntimeException e) {
+      lockChannel.close();
+      throw e;
+    }
+  }
+
+  private static FileChannel lockDirectory(Path directory) throws IOException {
+    FileChannel lockChannel =
+        FileChannel.open(
+            directory.resolve(LOCK_FILE), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+    FileLock directoryLock;
+    try {
+      directoryLock = lockChannel.tryLock();
+    } catch (OverlappingFileLockException e) {
+      // Held through another channel of this process
+      directoryLock = null;
+    } catch (IOException | RuntimeException e) {
+      lockChannel.close();
+      throw e;
+    }
+    if (directoryLock == null) {
+      lockChannel.close();
+      throw new IOException("Journal directory " + directory + " is already in use");
+    }
+    return lockChannel;
+  }
+
+  private void openLastSegment() throws IOException {
+    List<Path> segments = segments(directory);
+    if (segments.isEmpty()) {
+      openSegment(0, 0);
+      return;
+    }
+    Path last = segments.get(segments.size() - 1);
+    long lastIndex = indexOf(last);
+    try (FileChannel lastChannel = FileChannel.open(last, StandardOpenOption.READ)) {
+      MappedByteBuffer buffer =
+          lastChannel.map(FileChannel.MapMode.READ_ONLY, 0, lastChannel.size());
+      int end = scan(buffer, null);
+      boolean clean = end + 4 > buffer.limit() || buffer.getInt(end) == 0;
+      if (clean && lastChannel.size() == segmentSize) {
+        openSegment(lastIndex, end);
+      } else {
+        openSegment(lastIndex + 1, 0);
+      }
+    }
+  }
+
+  /**
+   * Appends a record and waits until it is on disk.
+   *
+   * @throws IllegalArgumentException if the record does not fit into a segment
+   */
+  public void append(byte[] record) throws IOException {
+    if (record.length == 0 || record.length > segmentSize - HEADER_BYTES) {
+      throw new IllegalArgumentException("Record of " + record.length + " bytes does not fit");
+    }
+    CRC32 crc = new CRC32();
+    crc.update(record);
+
+    lock.lock();
+    try {
+      if (closed) {
+        throw new IOException("Journal is closed");
+      }
+      if (position + HEADER_BYTES + record.length > segmentSize) {
+        roll();
+      }
+      segment.putInt(position + 4, (int) crc.getValue());
+      segment.put(position + HEADER_BYTES, record);
+      // The length goes last, so a record is never visible before it is complete
+      segment.putInt(position, record.length);
+      position += HEADER_BYTES + record.length;
+      if (appended == forced) {
+        oldestUnforcedNanos = System.nanoTime();
+      }
+      awaitForced(++appended);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private void awaitForced(long sequence) throws IOException {
+    while (forced < sequence) {
+      if (closed) {
+        throw new IOException("Journal is closed");
+      }
+      long waited = System.nanoTime() - oldestUnforcedNanos;
+      if (!forcing && (appended - forced >= forceEveryRecords || waited >= forceIntervalNanos)) {
+        force();
+      } else {
+        try {
+          forcedCondition.awaitNanos(
+              forcing ? forceIntervalNanos + 1 : forceIntervalNanos - waited);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          throw new InterruptedIOException("Interrupted while waiting for the journal");
+        }
+      }
+    }
+  }
+
+  // Called with the lock held; releases it while the pages are written
+  private void force() {
+    long target = appended;
+    MappedByteBuffer buffer = segment;
+    int from = forcedPosition;
+    int to = position;
+    forcing = true;
+    lock.unlock();
+    try {
+      buffer.force(from, to - from);
+    } finally {
+      lock.lock();
+      forcing = false;
+    }
+    if (target > forced) {
+      forced = target;
+      if (buffer == segment) {
+        forcedPosition = to;
+      }
+    }
+    if (appended > forced) {
+      oldestUnforcedNanos = System.nanoTime();
+    }
+    forcedCondition.signalAll();
+  }
+
+  // Called with the lock held
+  private void roll() throws IOException {
+    segment.force();
+    channel.close();
+    forced = appended;
+    forcedCondition.signalAll();
+    openSegment(segmentIndex + 1, 0);
+  }
+
+  private void openSegment(long index, int start) throws IOException {
+    channel =
+        FileChannel.open(
+            directory.resolve(segmentName(index)),
+            StandardOpenOption.CREATE,
+            StandardOpenOption.READ,
+            StandardOpenOption.WRITE);
+    segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+    segmentIndex = index;
+    position = start;
+    forcedPosition = start;
+  }
+
+  @Override
+  public void close() throws IOException {
+    lock.lock();
+    try {
+      if (closed) {
+        return;
+      }
+      closed = true;
+      try {
+        segment.force();
+        forced = appended;
+        forcedCondition.signalAll();
+        channel.close();
+      } finally {
+        // Releases the directory lock
+        lockChannel.close();
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Reads the complete records of every segment, oldest first. A segment is read up to its first
+   * torn or corrupt record.
+   *
+   * @return the number of records read
+   */
+  public static long replay(Path directory, Consumer<byte[]> consumer) throws IOException {
+    if (!Files.isDirectory(directory)) {
+      return 0;
+    }
+    long[] count = new long[1];
+    Consumer<byte[]> counting =
+        record -> {
+          count[0]++;
+          consumer.accept(record);
+        };
+    for (Path path : segments(directory)) {
+      try (FileChannel segmentChannel = FileChannel.open(path, StandardOpenOption.READ)) {
+        scan(
+            segmentChannel.map(FileChannel.MapMode.READ_ONLY, 0, segmentChannel.size()),
+            counting);
+      }
+    }
+    return count[0];
+  }
+
+  // Passes each complete record to the consumer, if any, and returns the offset after the last
+  private static int scan(MappedByteBuffer buffer, Consumer<byte[]> consumer) {
+    int offset = 0;
+    CRC32 crc = new CRC32();
+    while (offset + HEADER_BYTES <= buffer.limit()) {
+      int length = buffer.getInt(offset);
+      if (length <= 0 || length > buffer.limit() - offset - HEADER_BYTES) {
+        break;
+      }
+      byte[] record = new byte[length];
+      buffer.get(offset + HEADER_BYTES, record);
+      crc.reset();
+      crc.update(record);
+      if ((int) crc.getValue() != buffer.getInt(offset + 4)) {
+        break;
+      }
+      if (consumer != null) {
+        consumer.accept(record);
+      }
+      offset += HEADER_BYTES + length;
+    }
+    return offset;
+  }
+
+  private static List<Path> segments(Path directory) throws IOException {
+    try (Stream<Path> files = Files.list(directory)) {
+      return files
+          .filter(
+              path -> {
+                String name = path.getFileName().toString();
+                return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+              })
+          .sorted()
+          .toList();
+    }
+  }
+
+  private static String segmentName(long index) {
+    // Zero-padded, so that segments sort by name in the order they were written
+    return String.format("%s%019d%s", SEGMENT_PREFIX, index, SEGMENT_SUFFIX);
+  }
+
+  private static long indexOf(Path segment) {
+    String name = segment.getFileName().toString();
+    return Long.parseLong(
+        name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+  }
+}
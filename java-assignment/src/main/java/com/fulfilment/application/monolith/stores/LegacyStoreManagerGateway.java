@@ -1,51 +1,88 @@
 package com.fulfilment.application.monolith.stores;
 
+import io.quarkus.runtime.Startup;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import jakarta.enterprise.context.ApplicationScoped;
-import java.nio.file.Files;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 
+/**
+ * Client of the legacy store manager. Every call carries an idempotency key, so that the legacy
+ * system can drop a change it has already received. A failed call throws, so that the caller can
+ * send it again.
+ *
+ * <p>Calls are appended to a {@link LegacyStoreJournal} in {@code stores.legacy.journal.directory},
+ * one tab-separated line per change: the operation, the idempotency key, the store id, name and
+ * quantity of products in stock. A call returns once its line is on disk.
+ *
+ * <p>The directory has no default and must not be shared: a journal locks its directory, so each
+ * instance needs one of its own. The journal is opened at startup, so that a directory already in
+ * use stops the application from starting rather than failing the first call.
+ */
+@Startup
 @ApplicationScoped
 public class LegacyStoreManagerGateway {
 
-  public void createStoreOnLegacySystem(Store store) {
-    // just to emulate as this would send this to a legacy system, let's write a temp file with the
-    writeToFile(store);
-  }
+  @ConfigProperty(name = "stores.legacy.journal.directory")
+  String journalDirectory;
 
-  public void updateStoreOnLegacySystem(Store store) {
-    // just to emulate as this would send this to a legacy system, let's write a temp file with the
-    writeToFile(store);
-  }
+  @ConfigProperty(name = "stores.legacy.journal.segment-size", defaultValue = "67108864")
+  int segmentSize;
 
-  private void writeToFile(Store store) {
-    try {
-      // Step 1: Create a temporary file
-      Path tempFile;
+  // The outbox sends from at most stores.outbox.parallelism workers at a time
+  @ConfigProperty(name = "stores.legacy.journal.force-every-records", defaultValue = "4")
+  int forceEveryRecords;
 
-      tempFile = Files.createTempFile(store.name, ".txt");
+  @ConfigProperty(name = "stores.legacy.journal.force-interval-millis", defaultValue = "2")
+  long forceIntervalMillis;
 
-      System.out.println("Temporary file created at: " + tempFile.toString());
+  private LegacyStoreJournal journal;
 
-      // Step 2: Write data to the temporary file
-      String content =
-          "Store created. [ name ="
-              + store.name
-              + " ] [ items on stock ="
-              + store.quantityProductsInStock
-              + "]";
-      Files.write(tempFile, content.getBytes());
-      System.out.println("Data written to temporary file.");
+  @PostConstruct
+  void open() {
+    try {
+      journal =
+          new LegacyStoreJournal(
+              Path.of(journalDirectory), segmentSize, forceEveryRecords, forceIntervalMillis);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Cannot open the legacy store journal", e);
+    }
+  }
 
-      // Step 3: Optionally, read the data back to verify
-      String readContent = new String(Files.readAllBytes(tempFile));
-      System.out.println("Data read from temporary file: " + readContent);
+  @PreDestroy
+  void close() throws IOException {
+    journal.close();
+  }
 
-      // Step 4: Delete the temporary file when done
-      Files.delete(tempFile);
-      System.out.println("Temporary file deleted.");
+  public void createStoreOnLegacySystem(Store store, String idempotencyKey) {
+    // just to emulate as this would send this to a legacy system, let's journal the change
+    append("CREATE", store, idempotencyKey);
+  }
 
-    } catch (Exception e) {
-      e.printStackTrace();
+  public void updateStoreOnLegacySystem(Store store, String idempotencyKey) {
+    // just to emulate as this would send this to a legacy system, let's journal the change
+    append("UPDATE", store, idempotencyKey);
+  }
+
+  private void append(String operation, Store store, String idempotencyKey) {
+    String record =
+        operation
+            + '\t'
+            + idempotencyKey
+            + '\t'
+            + store.id
+            + '\t'
+            + store.name
+            + '\t'
+            + store.quantityProductsInStock;
+    try {
+      journal.append(record.getBytes(StandardCharsets.UTF_8));
+    } catch (IOException e) {
+      throw new UncheckedIOException("Legacy store manager call failed for " + store.name, e);
     }
   }
 }
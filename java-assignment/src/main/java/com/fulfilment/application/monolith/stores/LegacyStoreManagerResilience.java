@@ -0,0 +1,289 @@
+package com.fulfilment.application.monolith.stores;
+
+import com.fulfilment.application.monolith.scheduling.DaemonThreads;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import java.time.Duration;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+/**
+ * Guards calls to the legacy store manager.
+ *
+ * <p>A call is tried up to {@code stores.legacy.retry.max-attempts} times, waiting {@code
+ * stores.legacy.retry.initial-backoff-millis} after the first failure and twice as long after each
+ * further one, up to {@code stores.legacy.retry.max-backoff-millis}.
+ *
+ * <p>At most {@code stores.legacy.bulkhead.max-concurrent} calls run at a time. A call waits up to
+ * {@code stores.legacy.bulkhead.max-wait-millis} for its turn and is rejected after that.
+ *
+ * <p>After {@code stores.legacy.circuit.failure-threshold} consecutive failed attempts the circuit
+ * opens: calls are rejected at once, without reaching the legacy system, for {@code
+ * stores.legacy.circuit.open-millis}. Then one trial call is let through, which closes the circuit
+ * again if it succeeds.
+ *
+ * <p>Attempts run on a pool of {@code stores.legacy.bulkhead.max-concurrent} threads. An attempt
+ * still running after {@code stores.legacy.circuit.slow-call-millis} is interrupted and fails with
+ * {@link LegacyCallTimeoutException}, so that a legacy system that hangs is cut off like one that
+ * fails. It keeps its place in the bulkhead until it has actually returned, so that hanging calls
+ * cannot pile up.
+ *
+ * <p>A rejected call throws {@link LegacyCallRejectedException}, and a call that failed every
+ * attempt rethrows the last failure.
+ */
+@ApplicationScoped
+public class LegacyStoreManagerResilience {
+
+  private static final Logger LOG = Logger.getLogger(LegacyStoreManagerResilience.class);
+
+  public enum CircuitState {
+    CLOSED,
+    OPEN,
+    HALF_OPEN
+  }
+
+  @ConfigProperty(name = "stores.legacy.retry.max-attempts", defaultValue = "3")
+  int maxAttempts;
+
+  @ConfigProperty(name = "stores.legacy.retry.initial-backoff-millis", defaultValue = "50")
+  long initialBackoffMillis;
+
+  @ConfigProperty(name = "stores.legacy.retry.max-backoff-millis", defaultValue = "1000")
+  long maxBackoffMillis;
+
+  @ConfigProperty(name = "stores.legacy.bulkhead.max-concurrent", defaultValue = "4")
+  int maxConcurrent;
+
+  @ConfigProperty(name = "stores.legacy.bulkhead.max-wait-millis", defaultValue = "100")
+  long maxWaitMillis;
+
+  @ConfigProperty(name = "stores.legacy.circuit.failure-threshold", defaultValue = "5")
+  int failureThreshold;
+
+  @ConfigProperty(name = "stores.legacy.circuit.open-millis", defaultValue = "30000")
+  long openMillis;
+
+  @ConfigProperty(name = "stores.legacy.circuit.slow-call-millis", defaultValue = "2000")
+  long slowCallMillis;
+
+  LongSupplier nanoClock = System::nanoTime;
+
+  private Semaphore bulkhead;
+
+  private ThreadPoolExecutor callers;
+
+  // Guarded by this
+  private CircuitState state = CircuitState.CLOSED;
+  private int consecutiveFailures;
+  private long openedAtNanos;
+  private boolean trialRunning;
+
+  private final LongAdder succeeded = new LongAdder();
+  private final LongAdder failed = new LongAdder();
+  private final LongAdder retried = new LongAdder();
+  private final LongAdder slow = new LongAdder();
+  private final LongAdder bulkheadRejected = new LongAdder();
+  private final LongAdder shortCircuited = new LongAdder();
+
+  @PostConstruct
+  void init() {
+    bulkhead = new Semaphore(maxConcurrent, true);
+    // The bulkhead keeps the queue to the few calls handed over while a thread is being freed
+    callers =
+        new ThreadPoolExecutor(
+            maxConcurrent,
+            maxConcurrent,
+            1,
+            TimeUnit.MINUTES,
+            new LinkedBlockingQueue<>(),
+            DaemonThreads.named("legacy-store-manager-call"));
+    callers.allowCoreThreadTimeOut(true);
+  }
+
+  @PreDestroy
+  void close() {
+    callers.shutdownNow();
+  }
+
+  /**
+   * Runs the call with retries, within the bulkhead and circuit breaker.
+   *
+   * @throws LegacyCallRejectedException if the call was not let through
+   */
+  public void execute(Runnable call) {
+    for (int attempt = 1; ; attempt++) {
+      try {
+        attempt(call);
+        succeeded.increment();
+        return;
+      } catch (LegacyCallRejectedException e) {
+        throw e;
+      } catch (RuntimeException e) {
+        if (attempt >= maxAttempts) {
+          failed.increment();
+          throw e;
+        }
+        retried.increment();
+        sleep(backoff(attempt));
+      }
+    }
+  }
+
+  private void attempt(Runnable call) {
+    acquirePermission();
+    try {
+      if (!bulkhead.tryAcquire(maxWaitMillis, TimeUnit.MILLISECONDS)) {
+        bulkheadRejected.increment();
+        releasePermission();
+        throw new LegacyCallRejectedException(
+            "Legacy store manager busy, " + maxConcurrent + " calls running", Duration.ZERO);
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      releasePermission();
+      throw new LegacyCallRejectedException(
+          "Interrupted waiting for the legacy store manager", Duration.ZERO);
+    }
+
+    // Taken by the call when it starts, or by the caller giving up on it before that
+    AtomicBoolean claimed = new AtomicBoolean();
+    Future<?> running =
+        callers.submit(
+            () -> {
+              if (!claimed.compareAndSet(false, true)) {
+                return;
+              }
+              try {
+                call.run();
+              } finally {
+                bulkhead.release();
+              }
+            });
+    try {
+      running.get(slowCallMillis, TimeUnit.MILLISECONDS);
+      record(true);
+    } catch (TimeoutException e) {
+      abandon(running, claimed);
+      slow.increment();
+      record(false);
+      throw new LegacyCallTimeoutException(
+          "Legacy store manager did not answer within " + slowCallMillis + " ms");
+    } catch (ExecutionException e) {
+      record(false);
+      if (e.getCause() instanceof RuntimeException failure) {
+        throw failure;
+      }
+      if (e.getCause() instanceof Error error) {
+        throw error;
+      }
+      throw new IllegalStateException("Legacy store manager call failed", e.getCause());
+    } catch (InterruptedException e) {
+      // Not the legacy system's fault, so the circuit does not count it
+      abandon(running, claimed);
+      releasePermission();
+      Thread.currentThread().interrupt();
+      throw new LegacyCallRejectedException(
+          "Interrupted waiting for the legacy store manager", Duration.ZERO);
+    }
+  }
+
+  // Interrupts a running call, which frees its place once it returns, or frees the place at once
+  private void abandon(Future<?> running, AtomicBoolean claimed) {
+    if (claimed.compareAndSet(false, true)) {
+      running.cancel(false);
+      bulkhead.release();
+    } else {
+      running.cancel(true);
+    }
+  }
+
+  // Lets a call through the circuit, or rejects it
+  private synchronized void acquirePermission() {
+    if (state == CircuitState.OPEN) {
+      long openForNanos = nanoClock.getAsLong() - openedAtNanos;
+      if (openForNanos < TimeUnit.MILLISECONDS.toNanos(openMillis)) {
+        shortCircuited.increment();
+        throw new LegacyCallRejectedException(
+            "Legacy store manager circuit is open",
+            Duration.ofMillis(openMillis).minusNanos(openForNanos));
+      }
+      state = CircuitState.HALF_OPEN;
+    }
+    if (state == CircuitState.HALF_OPEN) {
+      if (trialRunning) {
+        shortCircuited.increment();
+        throw new LegacyCallRejectedException(
+            "Legacy store manager circuit is half open, trial call running", Duration.ZERO);
+      }
+      trialRunning = true;
+    }
+  }
+
+  // Gives back a permission taken for a call that never ran
+  private synchronized void releasePermission() {
+    trialRunning = false;
+  }
+
+  private synchronized void record(boolean success) {
+    trialRunning = false;
+    if (success) {
+      consecutiveFailures = 0;
+      if (state == CircuitState.HALF_OPEN) {
+        LOG.info("Legacy store manager circuit closed");
+      }
+      state = CircuitState.CLOSED;
+      return;
+    }
+    consecutiveFailures++;
+    if (state == CircuitState.HALF_OPEN || consecutiveFailures >= failureThreshold) {
+      if (state != CircuitState.OPEN) {
+        LOG.warnf(
+            "Legacy store manager circuit opened after %d failed calls", consecutiveFailures);
+      }
+      state = CircuitState.OPEN;
+      openedAtNanos = nanoClock.getAsLong();
+    }
+  }
+
+  public synchronized CircuitState circuitState() {
+    return state;
+  }
+
+  public LegacyStoreManagerStats stats() {
+    return new LegacyStoreManagerStats(
+        circuitState(),
+        succeeded.sum(),
+        failed.sum(),
+        retried.sum(),
+        slow.sum(),
+        bulkheadRejected.sum(),
+        shortCircuited.sum());
+  }
+
+  /** The initial backoff after the first failed attempt, doubling up to the maximum. */
+  Duration backoff(int attempt) {
+    long delay = initialBackoffMillis << Math.min(attempt - 1, 20);
+    return Duration.ofMillis(Math.min(delay, maxBackoffMillis));
+  }
+
+  private static void sleep(Duration delay) {
+    try {
+      Thread.sleep(delay.toMillis());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new LegacyCallRejectedException(
+          "Interrupted before retrying the legacy store manager", Duration.ZERO);
+    }
+  }
+}
@@ -0,0 +1,14 @@
+package com.fulfilment.application.monolith.stores;
+
+/**
+ * Counters of the {@link LegacyStoreManagerResilience}, per outcome. Succeeded and failed count
+ * calls; retried and slow count attempts. Rejected calls never reached the legacy system.
+ */
+public record LegacyStoreManagerStats(
+    LegacyStoreManagerResilience.CircuitState circuit,
+    long succeeded,
+    long failed,
+    long retried,
+    long slow,
+    long bulkheadRejected,
+    long shortCircuited) {}
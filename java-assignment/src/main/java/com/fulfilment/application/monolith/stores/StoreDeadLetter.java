@@ -0,0 +1,48 @@
+package com.fulfilment.application.monolith.stores;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import java.time.LocalDateTime;
+
+/**
+ * A store change the legacy store manager did not take within {@code stores.outbox.max-attempts}
+ * deliveries. Moved out of the outbox, so that the later changes of the store are sent, and kept
+ * until it is requeued.
+ */
+@Entity
+@Table(name = "store_dead_letter")
+public class StoreDeadLetter {
+
+  @Id @GeneratedValue public Long id;
+
+  @Column(nullable = false, unique = true, length = 36)
+  public String idempotencyKey;
+
+  @Enumerated(EnumType.STRING)
+  @Column(nullable = false, length = 16)
+  public StoreOutboxEvent.Type type;
+
+  @Column(nullable = false)
+  public Long storeId;
+
+  @Column(length = 40)
+  public String storeName;
+
+  public int quantityProductsInStock;
+
+  public LocalDateTime createdAt;
+
+  public LocalDateTime deadLetteredAt;
+
+  public int attempts;
+
+  @Column(length = 500)
+  public String lastError;
+
+  public StoreDeadLetter() {}
+}
@@ -0,0 +1,20 @@
+package com.fulfilment.application.monolith.stores;
+
+import com.fulfilment.application.monolith.exceptions.EntityNotFoundException;
+
+/**
+ * Exception thrown when a store dead letter cannot be found by its ID.
+ */
+public class StoreDeadLetterNotFoundException extends EntityNotFoundException {
+
+  private final Long deadLetterId;
+
+  public StoreDeadLetterNotFoundException(Long deadLetterId) {
+    super("Store dead letter with id of " + deadLetterId + " does not exist.");
+    this.deadLetterId = deadLetterId;
+  }
+
+  public Long getDeadLetterId() {
+    return deadLetterId;
+  }
+}
@@ -0,0 +1,255 @@
+package com.fulfilment.application.monolith.stores;
+
+import com.fulfilment.application.monolith.scheduling.BackgroundScheduler;
+import com.fulfilment.application.monolith.scheduling.DaemonThreads;
+import io.quarkus.runtime.ShutdownEvent;
+import io.quarkus.runtime.StartupEvent;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+/**
+ * Background task sending the store outbox to the legacy store manager.
+ *
+ * <p>Due events are leased in batches of {@code stores.outbox.batch-size}. The events of one store
+ * are sent in order by one worker, while up to {@code stores.outbox.parallelism} stores are sent
+ * at the same time. An event is deleted only after it has been sent, so an event whose delivery
+ * was cut short is sent again once its lease has expired: delivery is at least once, and the
+ * legacy system drops duplicates by their idempotency key. A failed event is retried with
+ * exponential backoff, holding back the later events of its store. After {@code
+ * stores.outbox.max-attempts} it is moved to the dead letters, releasing the store. Calls go
+ * through {@link LegacyStoreManagerResilience}; a call it rejects is postponed without counting an
+ * attempt. A dispatch waits for its batch no longer than the lease, and then interrupts the
+ * workers still sending.
+ *
+ * <p>An update followed by another update of the same store in the same batch is not sent: the
+ * later one carries the newer state. It is removed with the events that were delivered, and
+ * counted as collapsed in {@link #stats}.
+ *
+ * <p>The outbox is polled every {@code stores.outbox.poll-interval-millis}, and {@link #wakeUpAt}
+ * dispatches as soon as a committed store change is due.
+ */
+@ApplicationScoped
+public class StoreOutboxDispatcher {
+
+  private static final Logger LOG = Logger.getLogger(StoreOutboxDispatcher.class);
+
+  static final Duration LEASE = Duration.ofMinutes(1);
+  static final Duration MAX_BACKOFF = Duration.ofMinutes(5);
+
+  @ConfigProperty(name = "stores.outbox.batch-size", defaultValue = "100")
+  int batchSize;
+
+  @ConfigProperty(name = "stores.outbox.parallelism", defaultValue = "4")
+  int parallelism;
+
+  @ConfigProperty(name = "stores.outbox.poll-interval-millis", defaultValue = "1000")
+  long pollIntervalMillis;
+
+  @Inject StoreOutboxRepository outbox;
+
+  @ConfigProperty(name = "stores.outbox.max-attempts", defaultValue = "10")
+  int maxAttempts;
+
+  @Inject LegacyStoreManagerGateway legacyStoreManagerGateway;
+
+  @Inject LegacyStoreManagerResilience resilience;
+
+  @Inject BackgroundScheduler scheduler;
+
+  // How long a dispatch waits for its batch to be sent
+  Duration batchTimeout = LEASE;
+
+  // Set once started; wake-ups before that are served by the first poll
+  volatile ExecutorService workers;
+
+  private final AtomicBoolean wakeUpPending = new AtomicBoolean();
+
+  // Times a dispatch is scheduled for; the updates of one window share theirs
+  private final Set<LocalDateTime> scheduledWakeUps = ConcurrentHashMap.newKeySet();
+
+  private final LongAdder delivered = new LongAdder();
+  private final LongAdder collapsed = new LongAdder();
+  private final LongAdder failed = new LongAdder();
+  private final LongAdder deadLettered = new LongAdder();
+
+  void onStart(@Observes StartupEvent event) {
+    workers =
+        Executors.newFixedThreadPool(parallelism, DaemonThreads.named("store-outbox-worker"));
+    scheduler.scheduleWithFixedDelay(this::drain, Duration.ofMillis(pollIntervalMillis));
+  }
+
+  void onStop(@Observes ShutdownEvent event) {
+    if (workers != null) {
+      workers.shutdownNow();
+    }
+  }
+
+  /** Dispatches soon, without waiting for the next poll. Returns at once. */
+  public void wakeUp() {
+    // Wake-ups arriving while one is queued are served by that one
+    if (workers != null && wakeUpPending.compareAndSet(false, true)) {
+      scheduler.execute(
+          () -> {
+            wakeUpPending.set(false);
+            drain();
+          });
+    }
+  }
+
+  /**
+   * Dispatches once {@code due} has passed, without waiting for the next poll. Returns at once.
+   */
+  public void wakeUpAt(LocalDateTime due) {
+    long delayNanos = Duration.between(LocalDateTime.now(), due).toNanos();
+    if (delayNanos <= 0) {
+      wakeUp();
+    } else if (workers != null && scheduledWakeUps.add(due)) {
+      scheduler.schedule(
+          () -> {
+            scheduledWakeUps.remove(due);
+            drain();
+          },
+          delayNanos,
+          TimeUnit.NANOSECONDS);
+    }
+  }
+
+  public StoreOutboxStats stats() {
+    return new StoreOutboxStats(
+        delivered.sum(), collapsed.sum(), failed.sum(), deadLettered.sum());
+  }
+
+  private void drain() {
+    try {
+      // A full batch suggests more are due
+      while (dispatch(LocalDateTime.now()) == batchSize) {
+        LOG.debug("Store outbox batch full, dispatching the next one");
+      }
+    } catch (RuntimeException e) {
+      LOG.warn("Store outbox dispatch failed, retrying on the next run", e);
+    }
+  }
+
+  /**
+   * Leases one batch of due events, sends it and removes the events that were delivered.
+   *
+   * @return the number of events leased
+   */
+  synchronized int dispatch(LocalDateTime now) {
+    List<StoreOutboxEvent> batch = outbox.claim(batchSize, now, now.plus(LEASE));
+    if (batch.isEmpty()) {
+      return 0;
+    }
+
+    Map<Long, List<StoreOutboxEvent>> byStore = new LinkedHashMap<>();
+    for (StoreOutboxEvent event : batch) {
+      byStore.computeIfAbsent(event.storeId, id -> new ArrayList<>()).add(event);
+    }
+
+    Queue<Long> done = new ConcurrentLinkedQueue<>();
+    List<Future<?>> chains = new ArrayList<>(byStore.size());
+    for (List<StoreOutboxEvent> chain : byStore.values()) {
+      chains.add(workers.submit(() -> deliverInOrder(chain, now, done)));
+    }
+    // Past the lease the events are leased again, so there is no point in waiting longer
+    long deadline = System.nanoTime() + batchTimeout.toNanos();
+    try {
+      for (Future<?> chain : chains) {
+        chain.get(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+      }
+    } catch (InterruptedException e) {
+      chains.forEach(chain -> chain.cancel(true));
+      Thread.currentThread().interrupt();
+    } catch (ExecutionException e) {
+      LOG.warn("Store outbox worker failed", e.getCause());
+    } catch (TimeoutException e) {
+      chains.forEach(chain -> chain.cancel(true));
+      LOG.warnf("Store outbox batch not sent within %s, sending the rest later", batchTimeout);
+    } finally {
+      // Whatever was sent or collapsed is removed; the rest is sent again once its lease expires
+      outbox.delivered(done);
+    }
+    return batch.size();
+  }
+
+  private void deliverInOrder(List<StoreOutboxEvent> chain, LocalDateTime now, Queue<Long> done) {
+    for (int i = 0; i < chain.size(); i++) {
+      StoreOutboxEvent event = chain.get(i);
+      if (isSuperseded(chain, i)) {
+        collapsed.increment();
+        done.add(event.id);
+        continue;
+      }
+      try {
+        resilience.execute(() -> deliver(event));
+        delivered.increment();
+        done.add(event.id);
+      } catch (LegacyCallRejectedException e) {
+        // Never reached the legacy system, so no attempt is counted
+        Duration delay = e.getRetryAfter();
+        outbox.postpone(event.id, now.plus(delay.compareTo(backoff(1)) > 0 ? delay : backoff(1)));
+        return;
+      } catch (RuntimeException e) {
+        failed.increment();
+        int attempt = event.attempts + 1;
+        LOG.warnf(
+            "Sending %s store %d to the legacy system failed (attempt %d): %s",
+            event.type, event.storeId, attempt, e.getMessage());
+        if (attempt >= maxAttempts) {
+          // Out of the way, so that the later events of the store are sent
+          outbox.deadLetter(event, e.toString());
+          deadLettered.increment();
+          continue;
+        }
+        // The later events of the store stay due only after this one
+        outbox.retry(event.id, now.plus(backoff(attempt)), e.toString());
+        return;
+      }
+    }
+  }
+
+  // Only updates are collapsed: a creation is always sent, under its own idempotency key
+  private static boolean isSuperseded(List<StoreOutboxEvent> chain, int index) {
+    return index + 1 < chain.size()
+        && chain.get(index).type == StoreOutboxEvent.Type.UPDATED
+        && chain.get(index + 1).type == StoreOutboxEvent.Type.UPDATED;
+  }
+
+  private void deliver(StoreOutboxEvent event) {
+    Store store = event.toStore();
+    switch (event.type) {
+      case CREATED ->
+          legacyStoreManagerGateway.createStoreOnLegacySystem(store, event.idempotencyKey);
+      case UPDATED ->
+          legacyStoreManagerGateway.updateStoreOnLegacySystem(store, event.idempotencyKey);
+    }
+  }
+
+  /** One second after the first failure, doubling up to {@link #MAX_BACKOFF}. */
+  static Duration backoff(int attempt) {
+    Duration delay = Duration.ofSeconds(1L << Math.min(attempt - 1, 20));
+    return delay.compareTo(MAX_BACKOFF) < 0 ? delay : MAX_BACKOFF;
+  }
+
+}
@@ -0,0 +1,76 @@
+package com.fulfilment.application.monolith.stores;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import java.time.LocalDateTime;
+
+/**
+ * A store change waiting to be sent to the legacy store manager.
+ *
+ * <p>Written in the transaction of the change itself, so an event exists exactly when its change
+ * has committed, and deleted once {@link StoreOutboxDispatcher} has delivered it. The state of the
+ * store is copied in, so that every event sends the store as it was when the event was recorded.
+ */
+@Entity
+@Table(
+    name = "store_outbox",
+    indexes = {
+      // Due events
+      @Index(name = "ix_store_outbox_next_attempt", columnList = "nextAttemptAt"),
+      // Earlier events of the same store
+      @Index(name = "ix_store_outbox_store_id", columnList = "storeId, id")
+    })
+public class StoreOutboxEvent {
+
+  public enum Type {
+    CREATED,
+    UPDATED
+  }
+
+  @Id @GeneratedValue public Long id;
+
+  // Sent along, so that the legacy system can drop a redelivered event
+  @Column(nullable = false, unique = true, length = 36)
+  public String idempotencyKey;
+
+  @Enumerated(EnumType.STRING)
+  @Column(nullable = false, length = 16)
+  public Type type;
+
+  @Column(nullable = false)
+  public Long storeId;
+
+  @Column(length = 40)
+  public String storeName;
+
+  public int quantityProductsInStock;
+
+  public LocalDateTime createdAt;
+
+  // Not claimed before this time: either the event is leased to a dispatcher or waiting to retry
+  public LocalDateTime nextAttemptAt;
+
+  @Column(length = 36)
+  public String leaseOwner;
+
+  public int attempts;
+
+  @Column(length = 500)
+  public String lastError;
+
+  public StoreOutboxEvent() {}
+
+  /** The store as it was when the event was recorded. */
+  public Store toStore() {
+    Store store = new Store(storeName);
+    store.id = storeId;
+    store.quantityProductsInStock = quantityProductsInStock;
+    return store;
+  }
+}
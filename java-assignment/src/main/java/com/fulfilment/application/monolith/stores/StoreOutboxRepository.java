@@ -0,0 +1,186 @@
+package com.fulfilment.application.monolith.stores;
+
+import io.quarkus.hibernate.orm.panache.PanacheRepository;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.transaction.Transactional;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+/**
+ * Repository of the store outbox.
+ *
+ * <p>{@link #enqueue} joins the transaction of the store change. The dispatcher's operations each
+ * run in a transaction of their own, so that no transaction is held open while the legacy system
+ * is called.
+ *
+ * <p>Updates of a store wait for a window of {@code stores.outbox.coalesce-window-millis}, opened
+ * by the first of them: the updates recorded within it become due together, so that the
+ * dispatcher sends only the last of them.
+ */
+@ApplicationScoped
+public class StoreOutboxRepository implements PanacheRepository<StoreOutboxEvent> {
+
+  private static final int MAX_ERROR_LENGTH = 500;
+
+  @ConfigProperty(name = "stores.outbox.coalesce-window-millis", defaultValue = "1000")
+  long coalesceWindowMillis;
+
+  /** Records a change of the store, to be sent once the current transaction has committed. */
+  @Transactional(Transactional.TxType.MANDATORY)
+  public StoreOutboxEvent enqueue(StoreOutboxEvent.Type type, Store store) {
+    StoreOutboxEvent event = new StoreOutboxEvent();
+    event.idempotencyKey = UUID.randomUUID().toString();
+    event.type = type;
+    event.storeId = store.id;
+    event.storeName = store.name;
+    event.quantityProductsInStock = store.quantityProductsInStock;
+    event.createdAt = LocalDateTime.now();
+    event.nextAttemptAt =
+        type == StoreOutboxEvent.Type.UPDATED
+            ? coalesceWindowEnd(store.id, event.createdAt)
+            : event.createdAt;
+    persist(event);
+    return event;
+  }
+
+  // The end of the store's open window, or of a new one
+  private LocalDateTime coalesceWindowEnd(Long storeId, LocalDateTime now) {
+    if (coalesceWindowMillis <= 0) {
+      return now;
+    }
+    LocalDateTime open =
+        getEntityManager()
+            .createQuery(
+                "SELECT MAX(e.nextAttemptAt) FROM StoreOutboxEvent e WHERE e.storeId = ?1"
+                    + " AND e.type = ?2 AND e.attempts = 0 AND e.leaseOwner IS NULL"
+                    + " AND e.nextAttemptAt > ?3",
+                LocalDateTime.class)
+            .setParameter(1, storeId)
+            .setParameter(2, StoreOutboxEvent.Type.UPDATED)
+            .setParameter(3, now)
+            .getSingleResult();
+    // In milliseconds, so that the end read back from the database is the same
+    return open != null
+        ? open
+        : now.plus(Duration.ofMillis(coalesceWindowMillis)).truncatedTo(ChronoUnit.MILLIS);
+  }
+
+  /**
+   * Leases up to {@code limit} due events until {@code leaseUntil}, oldest first. An event is not
+   * due while an earlier event of the same store is leased or waiting to retry, so the events of a
+   * store are delivered in the order they were recorded.
+   *
+   * @return the leased events, in id order
+   */
+  @Transactional(Transactional.TxType.REQUIRES_NEW)
+  public List<StoreOutboxEvent> claim(int limit, LocalDateTime now, LocalDateTime leaseUntil) {
+    List<Long> due =
+        getEntityManager()
+            .createQuery(
+                "SELECT e.id FROM StoreOutboxEvent e WHERE e.nextAttemptAt <= ?1"
+                    + " AND NOT EXISTS (SELECT p.id FROM StoreOutboxEvent p"
+                    + " WHERE p.storeId = e.storeId AND p.id < e.id AND p.nextAttemptAt > ?1)"
+                    + " ORDER BY e.id",
+                Long.class)
+            .setParameter(1, now)
+            .setMaxResults(limit)
+            .getResultList();
+    if (due.isEmpty()) {
+      return List.of();
+    }
+
+    // Conditional, so that an event leased by someone else in the meantime is skipped
+    String owner = UUID.randomUUID().toString();
+    update(
+        "nextAttemptAt = ?1, leaseOwner = ?2 WHERE id IN ?3 AND nextAttemptAt <= ?4",
+        leaseUntil,
+        owner,
+        due,
+        now);
+    return list("leaseOwner = ?1 ORDER BY id", owner);
+  }
+
+  /** Removes delivered events, with one statement. */
+  @Transactional(Transactional.TxType.REQUIRES_NEW)
+  public void delivered(Collection<Long> ids) {
+    if (!ids.isEmpty()) {
+      delete("id IN ?1", ids);
+    }
+  }
+
+  /** Releases the event until {@code retryAt}, without counting an attempt. */
+  @Transactional(Transactional.TxType.REQUIRES_NEW)
+  public void postpone(Long id, LocalDateTime retryAt) {
+    update("nextAttemptAt = ?1, leaseOwner = NULL WHERE id = ?2", retryAt, id);
+  }
+
+  /** Moves an event that failed its last attempt out of the outbox. */
+  @Transactional(Transactional.TxType.REQUIRES_NEW)
+  public void deadLetter(StoreOutboxEvent event, String error) {
+    StoreDeadLetter deadLetter = new StoreDeadLetter();
+    deadLetter.idempotencyKey = event.idempotencyKey;
+    deadLetter.type = event.type;
+    deadLetter.storeId = event.storeId;
+    deadLetter.storeName = event.storeName;
+    deadLetter.quantityProductsInStock = event.quantityProductsInStock;
+    deadLetter.createdAt = event.createdAt;
+    deadLetter.deadLetteredAt = LocalDateTime.now();
+    deadLetter.attempts = event.attempts + 1;
+    deadLetter.lastError = truncate(error);
+    getEntityManager().persist(deadLetter);
+    delete("id", event.id);
+  }
+
+  @Transactional(Transactional.TxType.REQUIRES_NEW)
+  public List<StoreDeadLetter> deadLetters() {
+    return getEntityManager()
+        .createQuery("FROM StoreDeadLetter ORDER BY id", StoreDeadLetter.class)
+        .getResultList();
+  }
+
+  /**
+   * Puts a dead letter back into the outbox, under its idempotency key, due now.
+   *
+   * @return the requeued event, or null if there is no such dead letter
+   */
+  @Transactional(Transactional.TxType.REQUIRES_NEW)
+  public StoreOutboxEvent requeue(Long deadLetterId) {
+    StoreDeadLetter deadLetter = getEntityManager().find(StoreDeadLetter.class, deadLetterId);
+    if (deadLetter == null) {
+      return null;
+    }
+    StoreOutboxEvent event = new StoreOutboxEvent();
+    event.idempotencyKey = deadLetter.idempotencyKey;
+    event.type = deadLetter.type;
+    event.storeId = deadLetter.storeId;
+    event.storeName = deadLetter.storeName;
+    event.quantityProductsInStock = deadLetter.quantityProductsInStock;
+    event.createdAt = deadLetter.createdAt;
+    event.nextAttemptAt = LocalDateTime.now();
+    getEntityManager().remove(deadLetter);
+    persist(event);
+    return event;
+  }
+
+  /** Records a failed delivery and releases the event until {@code retryAt}. */
+  @Transactional(Transactional.TxType.REQUIRES_NEW)
+  public void retry(Long id, LocalDateTime retryAt, String error) {
+    update(
+        "attempts = attempts + 1, nextAttemptAt = ?1, lastError = ?2, leaseOwner = NULL"
+            + " WHERE id = ?3",
+        retryAt,
+        truncate(error),
+        id);
+  }
+
+  private static String truncate(String error) {
+    return error != null && error.length() > MAX_ERROR_LENGTH
+        ? error.substring(0, MAX_ERROR_LENGTH)
+        : error;
+  }
+}
@@ -0,0 +1,67 @@
+package com.fulfilment.application.monolith.stores;
+
+import jakarta.inject.Inject;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.POST;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+import java.util.List;
+
+/**
+ * Operational endpoints of the store outbox: the delivery counters of the outbox, of the
+ * after-commit callbacks that wake it up and of the calls to the legacy store manager, and the
+ * dead letters.
+ *
+ * <p>GET /stores/outbox/stats, GET /stores/outbox/after-commit/stats, GET
+ * /stores/outbox/legacy/stats, GET /stores/outbox/dead-letters, POST
+ * /stores/outbox/dead-letters/{id}/requeue
+ */
+@Path("/stores/outbox")
+@Produces(MediaType.APPLICATION_JSON)
+public class StoreOutboxResource {
+
+  @Inject StoreOutboxDispatcher storeOutboxDispatcher;
+
+  @Inject TransactionSyncService transactionSyncService;
+
+  @Inject LegacyStoreManagerResilience legacyStoreManagerResilience;
+
+  @Inject StoreOutboxRepository storeOutbox;
+
+  @GET
+  @Path("/stats")
+  public StoreOutboxStats getStats() {
+    return storeOutboxDispatcher.stats();
+  }
+
+  @GET
+  @Path("/after-commit/stats")
+  public AfterCommitStats getAfterCommitStats() {
+    return transactionSyncService.stats();
+  }
+
+  @GET
+  @Path("/legacy/stats")
+  public LegacyStoreManagerStats getLegacyStats() {
+    return legacyStoreManagerResilience.stats();
+  }
+
+  @GET
+  @Path("/dead-letters")
+  public List<StoreDeadLetter> getDeadLetters() {
+    return storeOutbox.deadLetters();
+  }
+
+  /** Sends a dead letter again, under its original idempotency key. */
+  @POST
+  @Path("/dead-letters/{id}/requeue")
+  public Response requeue(Long id) {
+    if (storeOutbox.requeue(id) == null) {
+      throw new StoreDeadLetterNotFoundException(id);
+    }
+    storeOutboxDispatcher.wakeUp();
+    return Response.status(202).build();
+  }
+}
@@ -0,0 +1,8 @@
+package com.fulfilment.application.monolith.stores;
+
+/**
+ * Counters of the {@link StoreOutboxDispatcher}. Collapsed events are updates that were not sent
+ * because a later update of the same store was. Failed counts attempts, not events. Dead-lettered
+ * events failed their last attempt.
+ */
+public record StoreOutboxStats(long delivered, long collapsed, long failed, long deadLettered) {}
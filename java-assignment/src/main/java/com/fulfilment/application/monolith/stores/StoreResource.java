@@ -14,6 +14,7 @@ import jakarta.ws.rs.PUT;
 import jakarta.ws.rs.Path;
 import jakarta.ws.rs.Produces;
 import jakarta.ws.rs.core.Response;
+import java.time.LocalDateTime;
 import java.util.List;
 import org.jboss.logging.Logger;
 
@@ -23,7 +24,9 @@ import org.jboss.logging.Logger;
 @Consumes("application/json")
 public class StoreResource {
 
-  @Inject LegacyStoreManagerGateway legacyStoreManagerGateway;
+  @Inject StoreOutboxRepository storeOutbox;
+
+  @Inject StoreOutboxDispatcher storeOutboxDispatcher;
 
   @Inject TransactionSyncService transactionSyncService;
 
@@ -53,9 +56,8 @@ public class StoreResource {
 
     store.persist();
 
-    // Call legacy system only after successful database commit
-    transactionSyncService.executeAfterCommit(
-        () -> legacyStoreManagerGateway.createStoreOnLegacySystem(store));
+    // Sent to the legacy system once this transaction has committed
+    recordChange(StoreOutboxEvent.Type.CREATED, store);
 
     return Response.ok(store).status(201).build();
   }
@@ -77,8 +79,7 @@ public class StoreResource {
     entity.name = updatedStore.name;
     entity.quantityProductsInStock = updatedStore.quantityProductsInStock;
 
-    transactionSyncService.executeAfterCommit(
-        () -> legacyStoreManagerGateway.updateStoreOnLegacySystem(entity));
+    recordChange(StoreOutboxEvent.Type.UPDATED, entity);
 
     return entity;
   }
@@ -105,8 +106,7 @@ public class StoreResource {
       entity.quantityProductsInStock = updatedStore.quantityProductsInStock;
     }
 
-    transactionSyncService.executeAfterCommit(
-        () -> legacyStoreManagerGateway.updateStoreOnLegacySystem(entity));
+    recordChange(StoreOutboxEvent.Type.UPDATED, entity);
 
     return entity;
   }
@@ -122,4 +122,12 @@ public class StoreResource {
     entity.delete();
     return Response.status(204).build();
   }
+
+  // The event commits or rolls back with the change. Delivery is left to the dispatcher, woken
+  // up after the commit for when the event is due, so the response does not wait for the legacy
+  // system.
+  private void recordChange(StoreOutboxEvent.Type type, Store store) {
+    LocalDateTime due = storeOutbox.enqueue(type, store).nextAttemptAt;
+    transactionSyncService.executeAfterCommit(() -> storeOutboxDispatcher.wakeUpAt(due));
+  }
 }
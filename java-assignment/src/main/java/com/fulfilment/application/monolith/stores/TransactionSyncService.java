@@ -1,14 +1,39 @@
 package com.fulfilment.application.monolith.stores;
 
+import com.fulfilment.application.monolith.scheduling.DaemonThreads;
+import io.quarkus.runtime.ShutdownEvent;
+import io.quarkus.runtime.StartupEvent;
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
 import jakarta.inject.Inject;
 import jakarta.transaction.Status;
 import jakarta.transaction.Synchronization;
 import jakarta.transaction.TransactionSynchronizationRegistry;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
 
 /**
  * Service for executing callbacks after successful transaction commits.
  *
+ * <p>The callbacks of a transaction are collected by one {@link Synchronization} and run in the
+ * order they were registered. By default they run on the thread completing the transaction. With
+ * {@code stores.after-commit.async}, they are handed to a pool of {@code
+ * stores.after-commit.pool-size} threads with a queue of {@code stores.after-commit.queue-capacity}
+ * transactions, and run without a transaction context. A callback running longer than {@code
+ * stores.after-commit.timeout-millis} is interrupted. When the queue is full, {@code
+ * stores.after-commit.rejection} either runs the callbacks on the committing thread, slowing
+ * producers down, or drops them.
  *
  * <p><b>Example usage:</b>
  * <pre>{@code
@@ -28,29 +53,213 @@ import jakarta.transaction.TransactionSynchronizationRegistry;
 @ApplicationScoped
 public class TransactionSyncService {
 
+  private static final Logger LOG = Logger.getLogger(TransactionSyncService.class);
+
+  /** What happens to the callbacks of a transaction when the queue is full. */
+  public enum Rejection {
+    CALLER_RUNS,
+    DISCARD
+  }
+
   @Inject TransactionSynchronizationRegistry syncRegistry;
 
+  @ConfigProperty(name = "stores.after-commit.async", defaultValue = "false")
+  boolean async;
+
+  @ConfigProperty(name = "stores.after-commit.pool-size", defaultValue = "4")
+  int poolSize;
+
+  @ConfigProperty(name = "stores.after-commit.queue-capacity", defaultValue = "1000")
+  int queueCapacity;
+
+  @ConfigProperty(name = "stores.after-commit.timeout-millis", defaultValue = "5000")
+  long timeoutMillis;
+
+  @ConfigProperty(name = "stores.after-commit.rejection", defaultValue = "CALLER_RUNS")
+  Rejection rejection;
+
+  private ThreadPoolExecutor executor;
+  // Not the shared scheduler, so that a timeout is not held up by a long background job
+  private ScheduledExecutorService watchdog;
+
+  private final LongAdder executed = new LongAdder();
+  private final LongAdder failed = new LongAdder();
+  private final LongAdder timedOut = new LongAdder();
+  private final LongAdder rejected = new LongAdder();
+  private final LongAdder latencyNanos = new LongAdder();
+  private final LongAccumulator maxLatencyNanos = new LongAccumulator(Math::max, 0);
+
+  void onStart(@Observes StartupEvent event) {
+    if (async) {
+      start();
+    }
+  }
+
+  void start() {
+    executor =
+        new ThreadPoolExecutor(
+            poolSize,
+            poolSize,
+            0,
+            TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(queueCapacity),
+            DaemonThreads.named("after-commit"));
+    watchdog =
+        Executors.newSingleThreadScheduledExecutor(DaemonThreads.named("after-commit-watchdog"));
+  }
+
+  void onStop(@Observes ShutdownEvent event) {
+    if (executor != null) {
+      executor.shutdownNow();
+      watchdog.shutdownNow();
+    }
+  }
+
   /**
    * Executes the given action AFTER the current transaction commits successfully.
-
+   *
    * @param action Callback to execute after successful commit. Should be idempotent and handle its
    *     own exceptions, as failures cannot affect the committed transaction.
    * @throws IllegalStateException if called outside a transactional context
    */
   public void executeAfterCommit(Runnable action) {
-    syncRegistry.registerInterposedSynchronization(
-        new Synchronization() {
-          @Override
-          public void beforeCompletion() {
-            // No action needed before completion
-          }
-
-          @Override
-          public void afterCompletion(int status) {
-            if (status == Status.STATUS_COMMITTED) {
-              action.run();
-            }
-          }
-        });
+    AfterCommit callbacks = (AfterCommit) syncRegistry.getResource(this);
+    if (callbacks == null) {
+      callbacks = new AfterCommit();
+      syncRegistry.registerInterposedSynchronization(callbacks);
+      syncRegistry.putResource(this, callbacks);
+    }
+    callbacks.actions.add(action);
+  }
+
+  public AfterCommitStats stats() {
+    long count = executed.sum();
+    return new AfterCommitStats(
+        executor != null ? executor.getQueue().size() : 0,
+        count,
+        failed.sum(),
+        timedOut.sum(),
+        rejected.sum(),
+        count > 0 ? TimeUnit.NANOSECONDS.toMicros(latencyNanos.sum() / count) : 0,
+        TimeUnit.NANOSECONDS.toMicros(maxLatencyNanos.get()));
   }
+
+  // The callbacks of one transaction
+  private final class AfterCommit implements Synchronization {
+
+    private final List<Runnable> actions = new ArrayList<>(2);
+
+    @Override
+    public void beforeCompletion() {
+      // No action needed before completion
+    }
+
+    @Override
+    public void afterCompletion(int status) {
+      if (status != Status.STATUS_COMMITTED) {
+        return;
+      }
+      if (executor == null) {
+        runAll(actions, System.nanoTime(), false);
+        return;
+      }
+      long committedAt = System.nanoTime();
+      try {
+        executor.execute(() -> runAllLogged(committedAt, true));
+      } catch (RejectedExecutionException e) {
+        rejected.add(actions.size());
+        if (rejection == Rejection.CALLER_RUNS) {
+          // Not timed: the committing thread is not interrupted
+          runAllLogged(committedAt, false);
+        } else {
+          LOG.warnf("After-commit queue full, dropped %d callbacks", actions.size());
+        }
+      }
+    }
+
+    private void runAllLogged(long committedAt, boolean timed) {
+      try {
+        runAll(actions, committedAt, timed);
+      } catch (RuntimeException e) {
+        LOG.warn("After-commit callback failed", e);
+      }
+    }
+  }
+
+  /**
+   * Runs every action, in order, even if one fails. The first failure is rethrown once all have
+   * run.
+   */
+  private void runAll(List<Runnable> actions, long committedAt, boolean timed) {
+    RuntimeException failure = null;
+    for (Runnable action : actions) {
+      try {
+        if (timed) {
+          runTimed(action);
+        } else {
+          action.run();
+        }
+      } catch (RuntimeException e) {
+        failed.increment();
+        if (failure == null) {
+          failure = e;
+        } else {
+          failure.addSuppressed(e);
+        }
+      } finally {
+        // From the commit, so that the time spent in the queue is included
+        long latency = System.nanoTime() - committedAt;
+        executed.increment();
+        latencyNanos.add(latency);
+        maxLatencyNanos.accumulate(latency);
+      }
+    }
+    if (failure != null) {
+      throw failure;
+    }
+  }
+
+  private void runTimed(Runnable action) {
+    Running running = new Running(Thread.currentThread());
+    ScheduledFuture<?> timeout =
+        watchdog.schedule(running::interrupt, timeoutMillis, TimeUnit.MILLISECONDS);
+    try {
+      action.run();
+    } finally {
+      timeout.cancel(false);
+      if (running.finish()) {
+        timedOut.increment();
+        LOG.warnf("After-commit callback interrupted after %d ms", timeoutMillis);
+      }
+    }
+  }
+
+  // Lets the watchdog interrupt a callback only while it is still running
+  private static final class Running {
+
+    private final Thread thread;
+    private boolean finished;
+    private boolean interrupted;
+
+    Running(Thread thread) {
+      this.thread = thread;
+    }
+
+    synchronized void interrupt() {
+      if (!finished) {
+        interrupted = true;
+        thread.interrupt();
+      }
+    }
+
+    // Returns whether the callback was interrupted, clearing the interrupt for the next one
+    synchronized boolean finish() {
+      finished = true;
+      if (interrupted) {
+        Thread.interrupted();
+      }
+      return interrupted;
+    }
+  }
+
 }
@@ -1,17 +1,37 @@
 package com.fulfilment.application.monolith.warehouses.adapters.database;
 
 import com.fulfilment.application.monolith.warehouses.domain.models.Warehouse;
+import com.fulfilment.application.monolith.warehouses.domain.models.WarehouseView;
 import jakarta.persistence.Cacheable;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 import java.time.LocalDateTime;
 
+/**
+ * One version of a warehouse. Replacing a warehouse archives its current version and inserts a
+ * new one under the same business unit code, so each version is valid from {@code createdAt} until
+ * {@code archivedAt}, and the current version is the one with the highest id.
+ *
+ * <p>{@link #version} guards every write against concurrent changes. A new version continues the
+ * count of the one it replaces, so a version number identifies one state of the business unit.
+ *
+ * <p>As a {@link WarehouseView}, a loaded entity can be projected without a domain model copy.
+ */
 @Entity
-@Table(name = "warehouse")
+@Table(
+    name = "warehouse",
+    indexes = {
+      // Current version: first entry of a backward scan
+      @Index(name = "ix_warehouse_bu_id", columnList = "businessUnitCode, id"),
+      // Version valid at a point in time: last entry created up to then
+      @Index(name = "ix_warehouse_bu_created", columnList = "businessUnitCode, createdAt")
+    })
 @Cacheable
-public class DbWarehouse {
+public class DbWarehouse implements WarehouseView {
 
   @Id @GeneratedValue public Long id;
 
@@ -27,16 +47,60 @@ public class DbWarehouse {
 
   public LocalDateTime archivedAt;
 
+  @Version public Long version;
+
   public DbWarehouse() {}
 
   public Warehouse toWarehouse() {
     var warehouse = new Warehouse();
+    warehouse.id = this.id;
     warehouse.businessUnitCode = this.businessUnitCode;
     warehouse.location = this.location;
     warehouse.capacity = this.capacity;
     warehouse.stock = this.stock;
     warehouse.createdAt = this.createdAt;
     warehouse.archivedAt = this.archivedAt;
+    warehouse.version = this.version;
     return warehouse;
   }
+
+  @Override
+  public Long id() {
+    return id;
+  }
+
+  @Override
+  public String businessUnitCode() {
+    return businessUnitCode;
+  }
+
+  @Override
+  public String location() {
+    return location;
+  }
+
+  @Override
+  public Integer capacity() {
+    return capacity;
+  }
+
+  @Override
+  public Integer stock() {
+    return stock;
+  }
+
+  @Override
+  public LocalDateTime createdAt() {
+    return createdAt;
+  }
+
+  @Override
+  public LocalDateTime archivedAt() {
+    return archivedAt;
+  }
+
+  @Override
+  public Long version() {
+    return version;
+  }
 }
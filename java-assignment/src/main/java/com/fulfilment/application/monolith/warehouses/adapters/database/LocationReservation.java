@@ -0,0 +1,29 @@
+package com.fulfilment.application.monolith.warehouses.adapters.database;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import jakarta.persistence.Version;
+
+/**
+ * Reservation ledger row of a location.
+ *
+ * <p>Every transaction that validates or changes warehouses at a location increments the version
+ * of its row through {@link LocationReservationRepository}. Two transactions working on the same
+ * location can therefore not both commit, while transactions on different locations never touch
+ * the same row.
+ */
+@Entity
+@Table(name = "location_reservation")
+public class LocationReservation {
+
+  @Id public String location;
+
+  @Version public Long version;
+
+  public LocationReservation() {}
+
+  public LocationReservation(String location) {
+    this.location = location;
+  }
+}
@@ -0,0 +1,124 @@
+package com.fulfilment.application.monolith.warehouses.adapters.database;
+
+import io.quarkus.hibernate.orm.panache.PanacheRepositoryBase;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.narayana.jta.QuarkusTransactionException;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.LockTimeoutException;
+import jakarta.persistence.OptimisticLockException;
+import jakarta.persistence.PersistenceException;
+import jakarta.persistence.PessimisticLockException;
+import jakarta.transaction.TransactionSynchronizationRegistry;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+import org.hibernate.StaleStateException;
+import org.hibernate.exception.LockAcquisitionException;
+import org.jboss.logging.Logger;
+
+/**
+ * Repository of the per-location reservation ledger.
+ *
+ * <p>A reservation reads the version of the location's row and immediately issues the versioned
+ * {@code UPDATE} that increments it. The row stays locked until the transaction completes, so a
+ * concurrent transaction on the same location either waits for it or, if it read the version
+ * before the commit, fails its version check. {@link #inTransaction} retries such conflicts with
+ * a fresh transaction, which then validates against the committed state.
+ */
+@ApplicationScoped
+public class LocationReservationRepository
+    implements PanacheRepositoryBase<LocationReservation, String> {
+
+  private static final Logger LOG = Logger.getLogger(LocationReservationRepository.class);
+
+  static final int MAX_ATTEMPTS = 10;
+
+  @Inject TransactionSynchronizationRegistry syncRegistry;
+
+  /**
+   * Reserve a location for the current transaction. Reserving it again is a no-op.
+   *
+   * @param location the location identifier
+   */
+  public void reserve(String location) {
+    Set<String> reserved = reservations();
+    if (reserved.contains(location)) {
+      return;
+    }
+    LocationReservation reservation = findById(location);
+    if (reservation == null) {
+      createReservation(location);
+      reservation = findById(location);
+    }
+    // Issued right away so that a conflicting writer fails here rather than at commit
+    getEntityManager().lock(reservation, LockModeType.PESSIMISTIC_FORCE_INCREMENT);
+    reserved.add(location);
+  }
+
+  /** Reserve every known location, for bulk changes. */
+  public void reserveAll() {
+    update("version = version + 1");
+  }
+
+  /**
+   * Run the work in a new transaction, retrying it when it conflicts with a concurrent
+   * reservation of the same location.
+   *
+   * @param work the transactional work
+   * @return the result of the work
+   */
+  public <T> T inTransaction(Supplier<T> work) {
+    for (int attempt = 1; ; attempt++) {
+      try {
+        return QuarkusTransaction.requiringNew().call(work::get);
+      } catch (RuntimeException e) {
+        if (attempt >= MAX_ATTEMPTS || !isConflict(e)) {
+          throw e;
+        }
+        LOG.debugf("Location reservation conflict on attempt %d, retrying", attempt);
+        // Spread out the retries of writers that lost to the same commit
+        try {
+          Thread.sleep(ThreadLocalRandom.current().nextLong(attempt + 1L));
+        } catch (InterruptedException interrupted) {
+          Thread.currentThread().interrupt();
+          throw e;
+        }
+      }
+    }
+  }
+
+  static boolean isConflict(Throwable e) {
+    for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+      if (cause instanceof OptimisticLockException
+          || cause instanceof PessimisticLockException
+          || cause instanceof LockTimeoutException
+          || cause instanceof StaleStateException
+          || cause instanceof LockAcquisitionException) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  @SuppressWarnings("unchecked")
+  private Set<String> reservations() {
+    Set<String> reserved = (Set<String>) syncRegistry.getResource(this);
+    if (reserved == null) {
+      reserved = new HashSet<>();
+      syncRegistry.putResource(this, reserved);
+    }
+    return reserved;
+  }
+
+  private void createReservation(String location) {
+    try {
+      QuarkusTransaction.requiringNew()
+          .run(() -> persistAndFlush(new LocationReservation(location)));
+    } catch (PersistenceException | QuarkusTransactionException e) {
+      LOG.debugf("Location reservation %s created concurrently", location);
+    }
+  }
+}
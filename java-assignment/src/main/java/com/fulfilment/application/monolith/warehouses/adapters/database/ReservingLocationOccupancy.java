@@ -0,0 +1,27 @@
+package com.fulfilment.application.monolith.warehouses.adapters.database;
+
+import com.fulfilment.application.monolith.warehouses.domain.models.Occupancy;
+import com.fulfilment.application.monolith.warehouses.domain.ports.LocationOccupancy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+/**
+ * {@link LocationOccupancy} that reserves the location and then reads its occupancy.
+ *
+ * <p>The reservation through {@link LocationReservationRepository} holds off concurrent changes at
+ * the location until the current transaction completes, so the single aggregate query of {@link
+ * WarehouseRepository#occupancyAt} stays valid for the rest of the transaction.
+ */
+@ApplicationScoped
+public class ReservingLocationOccupancy implements LocationOccupancy {
+
+  @Inject WarehouseRepository warehouseRepository;
+
+  @Inject LocationReservationRepository reservationRepository;
+
+  @Override
+  public Occupancy occupancyAt(String locationId) {
+    reservationRepository.reserve(locationId);
+    return warehouseRepository.occupancyAt(locationId);
+  }
+}
@@ -0,0 +1,135 @@
+package com.fulfilment.application.monolith.warehouses.adapters.database;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Combines concurrent stock deltas for the same warehouse into one write.
+ *
+ * <p>The first caller for a warehouse becomes its writer: it takes the deltas queued for the
+ * warehouse so far, up to {@link #MAX_BATCH}, and hands them to the {@link StockDeltaWriter} in
+ * one call. Callers arriving in the meantime queue up; once the batch is written the lead passes
+ * to the oldest of them, which writes the next batch. A hot warehouse thus takes its row lock once
+ * per batch instead of once per delta, and no caller writes more than one batch.
+ */
+final class StockDeltaBatcher {
+
+  static final int MAX_BATCH = 256;
+
+  /** Writes a batch of deltas for one warehouse. */
+  @FunctionalInterface
+  interface StockDeltaWriter {
+
+    /**
+     * @return for each delta, in order, whether it was applied
+     */
+    boolean[] write(String businessUnitCode, int[] deltas);
+  }
+
+  private final StockDeltaWriter writer;
+
+  private final ConcurrentMap<String, Lane> lanes = new ConcurrentHashMap<>();
+
+  StockDeltaBatcher(StockDeltaWriter writer) {
+    this.writer = writer;
+  }
+
+  /**
+   * Queues a delta and waits until the batch containing it has been written.
+   *
+   * @return whether the delta was applied
+   */
+  boolean submit(String businessUnitCode, int delta) {
+    PendingDelta pending = new PendingDelta(delta);
+    Lane lane = enqueue(businessUnitCode, pending);
+    if (!pending.result.isDone()) {
+      CompletableFuture.anyOf(pending.result, pending.lead).join();
+      if (!pending.result.isDone()) {
+        // Queued first, so the batch written now contains this delta
+        writeBatch(businessUnitCode, lane);
+      }
+    }
+    try {
+      return pending.result.join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException cause) {
+        throw cause;
+      }
+      throw e;
+    }
+  }
+
+  private Lane enqueue(String businessUnitCode, PendingDelta pending) {
+    while (true) {
+      Lane lane = lanes.computeIfAbsent(businessUnitCode, code -> new Lane());
+      synchronized (lane) {
+        if (lane.retired) {
+          // Removed by its last writer after we looked it up
+          continue;
+        }
+        lane.queue.add(pending);
+        if (!lane.writing) {
+          lane.writing = true;
+          pending.lead.complete(null);
+        }
+        return lane;
+      }
+    }
+  }
+
+  private void writeBatch(String businessUnitCode, Lane lane) {
+    List<PendingDelta> batch = new ArrayList<>();
+    synchronized (lane) {
+      while (batch.size() < MAX_BATCH && !lane.queue.isEmpty()) {
+        batch.add(lane.queue.poll());
+      }
+    }
+    try {
+      int[] deltas = new int[batch.size()];
+      for (int i = 0; i < deltas.length; i++) {
+        deltas[i] = batch.get(i).delta;
+      }
+      boolean[] applied = writer.write(businessUnitCode, deltas);
+      for (int i = 0; i < deltas.length; i++) {
+        batch.get(i).result.complete(applied[i]);
+      }
+    } catch (RuntimeException | Error e) {
+      batch.forEach(pending -> pending.result.completeExceptionally(e));
+    } finally {
+      synchronized (lane) {
+        PendingDelta next = lane.queue.peek();
+        if (next != null) {
+          next.lead.complete(null);
+        } else {
+          lane.writing = false;
+          lane.retired = true;
+          lanes.remove(businessUnitCode, lane);
+        }
+      }
+    }
+  }
+
+  /** Deltas queued for one warehouse. Guarded by its own monitor. */
+  private static final class Lane {
+    final Queue<PendingDelta> queue = new ArrayDeque<>();
+    boolean writing;
+    boolean retired;
+  }
+
+  private static final class PendingDelta {
+    final int delta;
+    final CompletableFuture<Boolean> result = new CompletableFuture<>();
+    // Completed when this caller has to write the next batch
+    final CompletableFuture<Void> lead = new CompletableFuture<>();
+
+    PendingDelta(int delta) {
+      this.delta = delta;
+    }
+  }
+}
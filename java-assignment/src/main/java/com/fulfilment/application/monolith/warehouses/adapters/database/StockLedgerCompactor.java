@@ -0,0 +1,114 @@
+package com.fulfilment.application.monolith.warehouses.adapters.database;
+
+import com.fulfilment.application.monolith.scheduling.BackgroundScheduler;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.runtime.StartupEvent;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+/**
+ * Background task folding stock movements into {@link StockSnapshot}s.
+ *
+ * <p>Every {@link #SNAPSHOT_EVERY} movements of a warehouse are folded into a new snapshot, so a
+ * point-in-time lookup never sums more than about that many movements. Movement ids are drawn from
+ * the sequence one at a time, so across all instances they increase in the order the movements
+ * were recorded. Only movements older than {@link #SETTLE_TIME} are folded: a transaction still in
+ * flight may commit a movement with a lower id than one already visible, and folding past it would
+ * leave it out of every snapshot. Compaction runs every {@code
+ * warehouses.stock.compaction-interval-seconds}.
+ */
+@ApplicationScoped
+public class StockLedgerCompactor {
+
+  private static final Logger LOG = Logger.getLogger(StockLedgerCompactor.class);
+
+  static final int SNAPSHOT_EVERY = 500;
+  static final Duration SETTLE_TIME = Duration.ofMinutes(1);
+
+  @ConfigProperty(name = "warehouses.stock.compaction-interval-seconds", defaultValue = "30")
+  long intervalSeconds;
+
+  @Inject StockMovementRepository movements;
+
+  @Inject StockSnapshotRepository snapshots;
+
+  @Inject BackgroundScheduler scheduler;
+
+  // Every movement up to this id has been considered by an earlier run
+  private long watermark;
+
+  void onStart(@Observes StartupEvent event) {
+    scheduler.scheduleWithFixedDelay(this::compactSettled, Duration.ofSeconds(intervalSeconds));
+  }
+
+  private void compactSettled() {
+    try {
+      int written = compact(LocalDateTime.now().minus(SETTLE_TIME), SNAPSHOT_EVERY);
+      if (written > 0) {
+        LOG.debugf("Stock ledger compaction wrote %d snapshots", written);
+      }
+    } catch (RuntimeException e) {
+      LOG.warn("Stock ledger compaction failed, retrying on the next run", e);
+    }
+  }
+
+  /**
+   * Folds the movements recorded before {@code settledBefore} into snapshots, one per {@code
+   * snapshotEvery} movements of a warehouse. Movements that do not fill a snapshot are left for a
+   * later run. Each warehouse is compacted in its own transaction.
+   *
+   * @return the number of snapshots written
+   */
+  synchronized int compact(LocalDateTime settledBefore, int snapshotEvery) {
+    long since = watermark;
+    Long highest = QuarkusTransaction.requiringNew().call(movements::maxId);
+    if (highest == null) {
+      return 0;
+    }
+    List<String> moved = QuarkusTransaction.requiringNew().call(() -> movements.movedSince(since));
+    Long firstUnsettled =
+        QuarkusTransaction.requiringNew().call(() -> movements.firstIdSince(since, settledBefore));
+
+    int written = 0;
+    for (String businessUnitCode : moved) {
+      written +=
+          QuarkusTransaction.requiringNew()
+              .call(() -> compact(businessUnitCode, settledBefore, snapshotEvery));
+    }
+
+    // Warehouses with only a partial tail are looked at again once they have new movements
+    watermark = firstUnsettled != null ? Math.min(firstUnsettled - 1, highest) : highest;
+    return written;
+  }
+
+  private int compact(String businessUnitCode, LocalDateTime settledBefore, int snapshotEvery) {
+    StockSnapshot latest = snapshots.latest(businessUnitCode);
+    int stock = latest != null ? latest.stock : 0;
+    long lastMovementId = latest != null ? latest.lastMovementId : 0;
+    LocalDateTime takenAt = latest != null ? latest.takenAt : null;
+
+    int written = 0;
+    while (true) {
+      List<StockMovement> chunk =
+          movements.after(businessUnitCode, lastMovementId, settledBefore, snapshotEvery);
+      if (chunk.size() < snapshotEvery) {
+        return written;
+      }
+      for (StockMovement movement : chunk) {
+        stock += movement.delta;
+        lastMovementId = movement.id;
+        if (takenAt == null || movement.movedAt.isAfter(takenAt)) {
+          takenAt = movement.movedAt;
+        }
+      }
+      snapshots.persist(new StockSnapshot(businessUnitCode, stock, takenAt, lastMovementId));
+      written++;
+    }
+  }
+}
@@ -0,0 +1,45 @@
+package com.fulfilment.application.monolith.warehouses.adapters.database;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+import java.time.LocalDateTime;
+
+/**
+ * A change to the stock of a warehouse. Movements are only ever appended; the opening stock of a
+ * warehouse is recorded as its first movement.
+ */
+@Entity
+@Table(
+    name = "stock_movement",
+    indexes = @Index(name = "ix_stock_movement_bu_id", columnList = "businessUnitCode, id"))
+public class StockMovement {
+
+  // Sequence generated, so that the inserts of a transaction are sent as one JDBC batch. Ids are
+  // drawn one at a time rather than in pooled blocks per instance, so that they follow the order
+  // the movements were recorded in, which StockLedgerCompactor folds them by.
+  @Id
+  @GeneratedValue(generator = "stock_movement_seq")
+  @SequenceGenerator(
+      name = "stock_movement_seq",
+      sequenceName = "stock_movement_seq",
+      allocationSize = 1)
+  public Long id;
+
+  public String businessUnitCode;
+
+  public int delta;
+
+  public LocalDateTime movedAt;
+
+  public StockMovement() {}
+
+  public StockMovement(String businessUnitCode, int delta, LocalDateTime movedAt) {
+    this.businessUnitCode = businessUnitCode;
+    this.delta = delta;
+    this.movedAt = movedAt;
+  }
+}
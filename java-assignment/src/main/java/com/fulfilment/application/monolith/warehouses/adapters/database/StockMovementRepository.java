@@ -0,0 +1,84 @@
+package com.fulfilment.application.monolith.warehouses.adapters.database;
+
+import com.fulfilment.application.monolith.warehouses.domain.ports.StockHistory;
+import io.quarkus.hibernate.orm.panache.PanacheRepository;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Append-only ledger of stock movements.
+ *
+ * <p>The stock of a warehouse at a point in time is its latest {@link StockSnapshot} up to then
+ * plus the movements recorded after that snapshot. {@link StockLedgerCompactor} keeps that tail
+ * short by folding movements into new snapshots.
+ */
+@ApplicationScoped
+public class StockMovementRepository
+    implements StockHistory, PanacheRepository<StockMovement> {
+
+  @Inject StockSnapshotRepository snapshots;
+
+  /** Appends a movement to the ledger as part of the current transaction. */
+  public void record(String businessUnitCode, int delta, LocalDateTime movedAt) {
+    persist(new StockMovement(businessUnitCode, delta, movedAt));
+  }
+
+  @Override
+  public Integer stockAt(String businessUnitCode, LocalDateTime at) {
+    StockSnapshot snapshot = snapshots.latestAt(businessUnitCode, at);
+    long afterId = snapshot != null ? snapshot.lastMovementId : 0;
+    Object[] tail =
+        getEntityManager()
+            .createQuery(
+                "SELECT count(m), coalesce(sum(m.delta), 0) FROM StockMovement m"
+                    + " WHERE m.businessUnitCode = ?1 AND m.id > ?2 AND m.movedAt <= ?3",
+                Object[].class)
+            .setParameter(1, businessUnitCode)
+            .setParameter(2, afterId)
+            .setParameter(3, at)
+            .getSingleResult();
+    if (snapshot == null && ((Number) tail[0]).longValue() == 0) {
+      return null;
+    }
+    return (snapshot != null ? snapshot.stock : 0) + ((Number) tail[1]).intValue();
+  }
+
+  /** Business unit codes with movements recorded after the given id. */
+  List<String> movedSince(long afterId) {
+    return getEntityManager()
+        .createQuery(
+            "SELECT DISTINCT m.businessUnitCode FROM StockMovement m WHERE m.id > ?1", String.class)
+        .setParameter(1, afterId)
+        .getResultList();
+  }
+
+  /** The lowest id recorded after {@code afterId} at or after {@code from}, if any. */
+  Long firstIdSince(long afterId, LocalDateTime from) {
+    return getEntityManager()
+        .createQuery(
+            "SELECT min(m.id) FROM StockMovement m WHERE m.id > ?1 AND m.movedAt >= ?2", Long.class)
+        .setParameter(1, afterId)
+        .setParameter(2, from)
+        .getSingleResult();
+  }
+
+  /** Up to {@code limit} movements of a warehouse after the given id and before a time, by id. */
+  List<StockMovement> after(
+      String businessUnitCode, long afterId, LocalDateTime before, int limit) {
+    return find(
+            "businessUnitCode = ?1 AND id > ?2 AND movedAt < ?3 ORDER BY id",
+            businessUnitCode,
+            afterId,
+            before)
+        .page(0, limit)
+        .list();
+  }
+
+  Long maxId() {
+    return getEntityManager()
+        .createQuery("SELECT max(m.id) FROM StockMovement m", Long.class)
+        .getSingleResult();
+  }
+}
@@ -0,0 +1,39 @@
+package com.fulfilment.application.monolith.warehouses.adapters.database;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import java.time.LocalDateTime;
+
+/**
+ * Stock of a warehouse after all of its movements up to {@code lastMovementId}, the latest of
+ * which happened at {@code takenAt}.
+ */
+@Entity
+@Table(
+    name = "stock_snapshot",
+    indexes = @Index(name = "ix_stock_snapshot_bu_taken", columnList = "businessUnitCode, takenAt"))
+public class StockSnapshot {
+
+  @Id @GeneratedValue public Long id;
+
+  public String businessUnitCode;
+
+  public int stock;
+
+  public LocalDateTime takenAt;
+
+  public long lastMovementId;
+
+  public StockSnapshot() {}
+
+  public StockSnapshot(
+      String businessUnitCode, int stock, LocalDateTime takenAt, long lastMovementId) {
+    this.businessUnitCode = businessUnitCode;
+    this.stock = stock;
+    this.takenAt = takenAt;
+    this.lastMovementId = lastMovementId;
+  }
+}
@@ -0,0 +1,26 @@
+package com.fulfilment.application.monolith.warehouses.adapters.database;
+
+import io.quarkus.hibernate.orm.panache.PanacheRepository;
+import io.quarkus.panache.common.Sort;
+import jakarta.enterprise.context.ApplicationScoped;
+import java.time.LocalDateTime;
+
+@ApplicationScoped
+public class StockSnapshotRepository implements PanacheRepository<StockSnapshot> {
+
+  /** The most recent snapshot of a warehouse, or {@code null} if it has none. */
+  public StockSnapshot latest(String businessUnitCode) {
+    return find("businessUnitCode", Sort.descending("lastMovementId"), businessUnitCode)
+        .firstResult();
+  }
+
+  /** The most recent snapshot of a warehouse taken at or before {@code at}, if any. */
+  public StockSnapshot latestAt(String businessUnitCode, LocalDateTime at) {
+    return find(
+            "businessUnitCode = ?1 AND takenAt <= ?2",
+            Sort.descending("takenAt", "lastMovementId"),
+            businessUnitCode,
+            at)
+        .firstResult();
+  }
+}
@@ -0,0 +1,192 @@
+package com.fulfilment.application.monolith.warehouses.adapters.database;
+
+import com.fulfilment.application.monolith.warehouses.domain.models.Warehouse;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.transaction.Synchronization;
+import jakarta.transaction.TransactionSynchronizationRegistry;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+/**
+ * Bounded read-through cache of active warehouses by business unit code, used by {@link
+ * WarehouseRepository#findByBusinessUnitCode}.
+ *
+ * <p>Entries are evicted least recently used first once {@link #MAX_ENTRIES} is reached, and
+ * expire {@link #TTL_MILLIS} after they were loaded. Unknown codes are cached as misses too, so
+ * repeated lookups of a code that does not exist stay off the database. Archived warehouses are
+ * returned but never cached.
+ *
+ * <p>A change to a code drops its entry immediately and again once the writing transaction has
+ * completed, so readers on this instance never keep a value that predates a commit. Changes made
+ * by other instances are only seen once the entry has expired, so checks that guard a write query
+ * the database instead. A transaction that has written warehouses reads through to the database
+ * without caching, because what it sees includes its own uncommitted changes.
+ */
+@ApplicationScoped
+public class WarehouseCache {
+
+  static final int MAX_ENTRIES = 10_000;
+
+  static final long TTL_MILLIS = 5_000;
+
+  private static final long TTL_NANOS = TimeUnit.MILLISECONDS.toNanos(TTL_MILLIS);
+
+  // Cached for codes that have no warehouse
+  private static final Warehouse ABSENT = new Warehouse();
+
+  private final Map<String, Entry> warehouses =
+      new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+          if (size() > MAX_ENTRIES) {
+            evictions.increment();
+            return true;
+          }
+          return false;
+        }
+      };
+
+  // Bumped on every invalidation so that loads racing with a write are not cached
+  private final AtomicLong generation = new AtomicLong();
+
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder negativeHits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final LongAdder evictions = new LongAdder();
+  private final LongAdder invalidations = new LongAdder();
+
+  @Inject TransactionSynchronizationRegistry syncRegistry;
+
+  // Nanosecond clock for the expiry, replaced in tests
+  LongSupplier clock = System::nanoTime;
+
+  /**
+   * Returns the warehouse with the given code, loading it on a miss.
+   *
+   * @param businessUnitCode the business unit code
+   * @param loader loads the warehouse from the database, or returns null
+   * @return a copy the caller may modify, or null if there is no such warehouse
+   */
+  public Warehouse get(String businessUnitCode, Function<String, Warehouse> loader) {
+    boolean written = hasWritten();
+    if (!written) {
+      Warehouse cached = null;
+      synchronized (warehouses) {
+        Entry entry = warehouses.get(businessUnitCode);
+        if (entry != null && clock.getAsLong() - entry.loadedAt() < TTL_NANOS) {
+          cached = entry.warehouse();
+        }
+      }
+      if (cached == ABSENT) {
+        negativeHits.increment();
+        return null;
+      }
+      if (cached != null) {
+        hits.increment();
+        return copy(cached);
+      }
+    }
+    misses.increment();
+    long observed = generation.get();
+    long loadedAt = clock.getAsLong();
+    Warehouse loaded = loader.apply(businessUnitCode);
+    if (!written && (loaded == null || loaded.archivedAt == null)) {
+      Entry entry = new Entry(loaded != null ? copy(loaded) : ABSENT, loadedAt);
+      synchronized (warehouses) {
+        if (generation.get() == observed) {
+          warehouses.put(businessUnitCode, entry);
+        }
+      }
+    }
+    return loaded;
+  }
+
+  /** Drops the entry of a code now and when the current transaction completes. */
+  public void invalidate(String businessUnitCode) {
+    invalidations.increment();
+    remove(businessUnitCode);
+    if (syncRegistry.getTransactionKey() != null) {
+      syncRegistry.putResource(this, Boolean.TRUE);
+      syncRegistry.registerInterposedSynchronization(
+          afterCompletion(() -> remove(businessUnitCode)));
+    }
+  }
+
+  /** Drops every entry now and when the current transaction completes. */
+  public void invalidateAll() {
+    invalidations.increment();
+    clear();
+    if (syncRegistry.getTransactionKey() != null) {
+      syncRegistry.putResource(this, Boolean.TRUE);
+      syncRegistry.registerInterposedSynchronization(afterCompletion(this::clear));
+    }
+  }
+
+  public WarehouseCacheStats stats() {
+    int size;
+    synchronized (warehouses) {
+      size = warehouses.size();
+    }
+    return new WarehouseCacheStats(
+        size,
+        MAX_ENTRIES,
+        hits.sum(),
+        negativeHits.sum(),
+        misses.sum(),
+        evictions.sum(),
+        invalidations.sum());
+  }
+
+  private void remove(String businessUnitCode) {
+    generation.incrementAndGet();
+    synchronized (warehouses) {
+      warehouses.remove(businessUnitCode);
+    }
+  }
+
+  private void clear() {
+    generation.incrementAndGet();
+    synchronized (warehouses) {
+      warehouses.clear();
+    }
+  }
+
+  private boolean hasWritten() {
+    return syncRegistry.getTransactionKey() != null && syncRegistry.getResource(this) != null;
+  }
+
+  private static Synchronization afterCompletion(Runnable action) {
+    return new Synchronization() {
+      @Override
+      public void beforeCompletion() {
+        // No action needed before completion
+      }
+
+      @Override
+      public void afterCompletion(int status) {
+        action.run();
+      }
+    };
+  }
+
+  private record Entry(Warehouse warehouse, long loadedAt) {}
+
+  private static Warehouse copy(Warehouse source) {
+    Warehouse warehouse = new Warehouse();
+    warehouse.id = source.id;
+    warehouse.businessUnitCode = source.businessUnitCode;
+    warehouse.location = source.location;
+    warehouse.capacity = source.capacity;
+    warehouse.stock = source.stock;
+    warehouse.createdAt = source.createdAt;
+    warehouse.archivedAt = source.archivedAt;
+    warehouse.version = source.version;
+    return warehouse;
+  }
+}
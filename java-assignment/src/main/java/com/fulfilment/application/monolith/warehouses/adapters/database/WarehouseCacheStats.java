@@ -0,0 +1,14 @@
+package com.fulfilment.application.monolith.warehouses.adapters.database;
+
+/**
+ * Counters of the {@link WarehouseCache}. Negative hits are lookups answered from a cached miss
+ * for an unknown business unit code.
+ */
+public record WarehouseCacheStats(
+    int size,
+    int maxSize,
+    long hits,
+    long negativeHits,
+    long misses,
+    long evictions,
+    long invalidations) {}
@@ -1,37 +1,138 @@
 package com.fulfilment.application.monolith.warehouses.adapters.database;
 
+import com.fulfilment.application.monolith.exceptions.BusinessValidationException;
+import com.fulfilment.application.monolith.exceptions.ErrorCode;
 import com.fulfilment.application.monolith.warehouses.domain.exceptions.WarehouseNotFoundException;
+import com.fulfilment.application.monolith.warehouses.domain.exceptions.WarehouseVersionConflictException;
+import com.fulfilment.application.monolith.warehouses.domain.models.Occupancy;
 import com.fulfilment.application.monolith.warehouses.domain.models.Warehouse;
+import com.fulfilment.application.monolith.warehouses.domain.models.WarehouseFilter;
+import com.fulfilment.application.monolith.warehouses.domain.ports.WarehouseProjection;
 import com.fulfilment.application.monolith.warehouses.domain.ports.WarehouseStore;
 import io.quarkus.hibernate.orm.panache.PanacheRepository;
+import io.quarkus.narayana.jta.QuarkusTransaction;
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.persistence.TypedQuery;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 @ApplicationScoped
 public class WarehouseRepository implements WarehouseStore, PanacheRepository<DbWarehouse> {
 
+  @Inject LocationReservationRepository reservationRepository;
+
+  @Inject WarehouseCache warehouseCache;
+
+  @Inject StockMovementRepository stockMovements;
+
+  private final StockDeltaBatcher stockDeltas = new StockDeltaBatcher(this::writeStockDeltas);
+
   @Override
   public List<Warehouse> getAll() {
     return listAll().stream()
-        .map(this::toDomainWarehouse)
+        .map(DbWarehouse::toWarehouse)
         .toList();
   }
 
+  /**
+   * Lists the matching warehouses in id order with a single projection query, so that rows are
+   * mapped straight into the caller's representation without loading entities or copying them
+   * into domain models.
+   */
+  @Override
+  public <T> List<T> search(WarehouseFilter filter, WarehouseProjection<T> projection) {
+    StringBuilder jpql =
+        new StringBuilder(
+            "SELECT " + WarehouseRow.COLUMNS + " FROM DbWarehouse w");
+    List<String> conditions = new ArrayList<>();
+    Map<String, Object> parameters = new HashMap<>();
+    if (filter.afterId != null) {
+      conditions.add("w.id > :afterId");
+      parameters.put("afterId", filter.afterId);
+    }
+    if (filter.location != null) {
+      conditions.add("w.location = :location");
+      parameters.put("location", filter.location);
+    }
+    if (filter.archived != null) {
+      conditions.add(filter.archived ? "w.archivedAt IS NOT NULL" : "w.archivedAt IS NULL");
+    }
+    if (filter.minCapacity != null) {
+      conditions.add("w.capacity >= :minCapacity");
+      parameters.put("minCapacity", filter.minCapacity);
+    }
+    if (filter.maxCapacity != null) {
+      conditions.add("w.capacity <= :maxCapacity");
+      parameters.put("maxCapacity", filter.maxCapacity);
+    }
+    if (!conditions.isEmpty()) {
+      jpql.append(" WHERE ").append(String.join(" AND ", conditions));
+    }
+    jpql.append(" ORDER BY w.id");
+
+    TypedQuery<Object[]> query =
+        getEntityManager().createQuery(jpql.toString(), Object[].class).setMaxResults(filter.limit);
+    parameters.forEach(query::setParameter);
+
+    return WarehouseRow.project(query.getResultList(), projection);
+  }
+
   @Override
   public void create(Warehouse warehouse) {
     DbWarehouse dbWarehouse = toDbWarehouse(warehouse);
     dbWarehouse.createdAt = LocalDateTime.now();
     persist(dbWarehouse);
+    // Opening stock
+    stockMovements.record(
+        dbWarehouse.businessUnitCode,
+        dbWarehouse.stock != null ? dbWarehouse.stock : 0,
+        dbWarehouse.createdAt);
+  }
+
+  @Override
+  public void createAll(List<Warehouse> warehouses) {
+    LocalDateTime now = LocalDateTime.now();
+    List<DbWarehouse> dbWarehouses = new ArrayList<>(warehouses.size());
+    for (Warehouse warehouse : warehouses) {
+      DbWarehouse dbWarehouse = toDbWarehouse(warehouse);
+      dbWarehouse.createdAt = now;
+      persist(dbWarehouse);
+      dbWarehouses.add(dbWarehouse);
+      warehouse.id = dbWarehouse.id;
+      warehouse.createdAt = now;
+      warehouse.version = dbWarehouse.version;
+    }
+
+    // Recorded after all warehouses, so that the inserts of each table form one JDBC batch
+    for (DbWarehouse dbWarehouse : dbWarehouses) {
+      stockMovements.record(
+          dbWarehouse.businessUnitCode, dbWarehouse.stock != null ? dbWarehouse.stock : 0, now);
+    }
   }
 
   @Override
   public void update(Warehouse warehouse) {
-    DbWarehouse dbWarehouse =
-        find("businessUnitCode", warehouse.businessUnitCode).firstResult();
+    DbWarehouse dbWarehouse = findCurrent(warehouse.businessUnitCode);
     if (dbWarehouse == null) {
       throw new WarehouseNotFoundException(warehouse.businessUnitCode);
     }
+    checkVersion(dbWarehouse, warehouse.version);
+
+    // The warehouse may be moving away from its current location
+    reservationRepository.reserve(dbWarehouse.location);
+
+    if (warehouse.stock != null && !warehouse.stock.equals(dbWarehouse.stock)) {
+      int previous = dbWarehouse.stock != null ? dbWarehouse.stock : 0;
+      stockMovements.record(
+          dbWarehouse.businessUnitCode, warehouse.stock - previous, LocalDateTime.now());
+    }
 
     // Update fields
     dbWarehouse.location = warehouse.location;
@@ -44,41 +145,263 @@ public class WarehouseRepository implements WarehouseStore, PanacheRepository<Db
     persist(dbWarehouse);
   }
 
+  @Override
+  public void archive(Long id, Long expectedVersion, LocalDateTime archivedAt) {
+    // By id, so that an earlier version is never mistaken for the current one
+    DbWarehouse dbWarehouse = findById(id);
+    if (dbWarehouse == null) {
+      throw new WarehouseNotFoundException(id);
+    }
+    checkVersion(dbWarehouse, expectedVersion);
+    if (dbWarehouse.archivedAt != null) {
+      throw alreadyArchived(dbWarehouse);
+    }
+
+    dbWarehouse.archivedAt = archivedAt;
+    persist(dbWarehouse);
+  }
+
   @Override
   public void remove(Warehouse warehouse) {
-    DbWarehouse dbWarehouse =
-        find("businessUnitCode", warehouse.businessUnitCode).firstResult();
-    if (dbWarehouse != null) {
-      delete(dbWarehouse);
+    // Every version
+    list("businessUnitCode", warehouse.businessUnitCode).forEach(this::delete);
+  }
+
+  /**
+   * Archives the current version and persists the new one. Both rows are flushed together, as one
+   * insert and one update.
+   */
+  @Override
+  public void replace(Warehouse newVersion) {
+    DbWarehouse current = findCurrent(newVersion.businessUnitCode);
+    if (current == null) {
+      throw new WarehouseNotFoundException(newVersion.businessUnitCode);
+    }
+    checkVersion(current, newVersion.version);
+    if (current.archivedAt != null) {
+      throw alreadyArchived(current);
+    }
+
+    // The new version takes over at the instant the current one is archived
+    LocalDateTime now = LocalDateTime.now();
+    current.archivedAt = now;
+    persist(current);
+
+    DbWarehouse next = toDbWarehouse(newVersion);
+    next.createdAt = now;
+    next.archivedAt = null;
+    // Past the version the archived row is flushed with, so no earlier ETag matches the new one
+    next.version = current.version + 2;
+    persist(next);
+
+    if (next.stock != null && !next.stock.equals(current.stock)) {
+      int previous = current.stock != null ? current.stock : 0;
+      stockMovements.record(next.businessUnitCode, next.stock - previous, now);
     }
   }
 
+  @Override
+  public boolean adjustStock(String businessUnitCode, int delta) {
+    // Concurrent deltas for the same warehouse are written together
+    return stockDeltas.submit(businessUnitCode, delta);
+  }
+
+  /**
+   * Applies a batch of deltas for one warehouse in a new transaction. Their sum is applied with a
+   * single statement; if that is out of bounds, the deltas are applied one by one in arrival order
+   * so that each one is accepted or rejected on its own. Applied deltas are appended to the stock
+   * movement ledger in the same transaction.
+   */
+  boolean[] writeStockDeltas(String businessUnitCode, int[] deltas) {
+    return QuarkusTransaction.requiringNew()
+        .call(
+            () -> {
+              boolean[] applied = new boolean[deltas.length];
+              long sum = Arrays.stream(deltas).asLongStream().sum();
+              boolean combinable = deltas.length > 1 && sum == (int) sum;
+              if (combinable && updateStock(businessUnitCode, (int) sum)) {
+                Arrays.fill(applied, true);
+              } else {
+                for (int i = 0; i < deltas.length; i++) {
+                  applied[i] = updateStock(businessUnitCode, deltas[i]);
+                }
+              }
+
+              // Each delta is kept in the ledger; the inserts go out as one JDBC batch
+              LocalDateTime movedAt = LocalDateTime.now();
+              for (int i = 0; i < deltas.length; i++) {
+                if (applied[i]) {
+                  stockMovements.record(businessUnitCode, deltas[i], movedAt);
+                }
+              }
+              return applied;
+            });
+  }
+
+  // Bounds are checked in the statement itself, so no read or lock is needed beforehand. The
+  // version is bumped like an entity update, so concurrent replacements see the change.
+  private boolean updateStock(String businessUnitCode, int delta) {
+    int updated =
+        update(
+            "stock = stock + ?1, version = version + 1"
+                + " WHERE businessUnitCode = ?2 AND archivedAt IS NULL"
+                + " AND stock + ?1 BETWEEN 0 AND capacity",
+            delta,
+            businessUnitCode);
+    if (updated == 0) {
+      return false;
+    }
+    warehouseCache.invalidate(businessUnitCode);
+    return true;
+  }
+
   @Override
   public Warehouse findByBusinessUnitCode(String buCode) {
-    DbWarehouse dbWarehouse = find("businessUnitCode", buCode).firstResult();
-    return dbWarehouse != null ? toDomainWarehouse(dbWarehouse) : null;
+    return warehouseCache.get(
+        buCode,
+        code -> {
+          DbWarehouse dbWarehouse = findCurrent(code);
+          return dbWarehouse != null ? dbWarehouse.toWarehouse() : null;
+        });
+  }
+
+  @Override
+  public Set<String> findExistingBusinessUnitCodes(Collection<String> buCodes) {
+    if (buCodes.isEmpty()) {
+      return Set.of();
+    }
+    return Set.copyOf(
+        getEntityManager()
+            .createQuery(
+                "SELECT DISTINCT w.businessUnitCode FROM DbWarehouse w"
+                    + " WHERE w.businessUnitCode IN ?1",
+                String.class)
+            .setParameter(1, buCodes)
+            .getResultList());
+  }
+
+  /** The given business unit codes whose current version is not archived. */
+  public List<String> findActiveBusinessUnitCodes(Collection<String> buCodes) {
+    if (buCodes.isEmpty()) {
+      return List.of();
+    }
+    return getEntityManager()
+        .createQuery(
+            "SELECT w.businessUnitCode FROM DbWarehouse w"
+                + " WHERE w.businessUnitCode IN ?1 AND w.archivedAt IS NULL"
+                + " AND w.id = (SELECT MAX(v.id) FROM DbWarehouse v"
+                + " WHERE v.businessUnitCode = w.businessUnitCode)",
+            String.class)
+        .setParameter(1, buCodes)
+        .getResultList();
+  }
+
+  @Override
+  public <T> T findVersionAt(String buCode, LocalDateTime at, WarehouseProjection<T> projection) {
+    // Versions do not overlap, so only the last one created up to then can be valid at that time
+    List<Object[]> rows =
+        getEntityManager()
+            .createQuery(
+                "SELECT " + WarehouseRow.COLUMNS + " FROM DbWarehouse w"
+                    + " WHERE w.businessUnitCode = ?1 AND w.createdAt <= ?2"
+                    + " ORDER BY w.createdAt DESC, w.id DESC",
+                Object[].class)
+            .setParameter(1, buCode)
+            .setParameter(2, at)
+            .setMaxResults(1)
+            .getResultList();
+    if (rows.isEmpty()) {
+      return null;
+    }
+    LocalDateTime archivedAt = (LocalDateTime) rows.get(0)[6];
+    if (archivedAt != null && !archivedAt.isAfter(at)) {
+      return null;
+    }
+    return WarehouseRow.project(rows.get(0), projection);
+  }
+
+  @Override
+  public <T> List<T> findVersions(String buCode, WarehouseProjection<T> projection) {
+    return WarehouseRow.project(
+        getEntityManager()
+            .createQuery(
+                "SELECT " + WarehouseRow.COLUMNS + " FROM DbWarehouse w"
+                    + " WHERE w.businessUnitCode = ?1 ORDER BY w.id",
+                Object[].class)
+            .setParameter(1, buCode)
+            .getResultList(),
+        projection);
+  }
+
+  // The current version is the most recently inserted one
+  private DbWarehouse findCurrent(String buCode) {
+    return find("businessUnitCode = ?1 ORDER BY id DESC", buCode).firstResult();
+  }
+
+  private static BusinessValidationException alreadyArchived(DbWarehouse dbWarehouse) {
+    return new BusinessValidationException(
+        ErrorCode.INVALID_OPERATION,
+        "Warehouse " + dbWarehouse.businessUnitCode + " (id " + dbWarehouse.id + ") is archived");
+  }
+
+  // A change that was based on an earlier version would silently undo the changes made since. A
+  // concurrent change committed after this check fails the versioned update at flush instead.
+  private static void checkVersion(DbWarehouse current, Long expectedVersion) {
+    if (expectedVersion != null && !expectedVersion.equals(current.version)) {
+      throw new WarehouseVersionConflictException(
+          current.businessUnitCode, expectedVersion, current.version);
+    }
   }
 
   @Override
   public Warehouse findWarehouseById(Long id) {
-    DbWarehouse dbWarehouse = find("id", id).firstResult();
-    return dbWarehouse != null ? toDomainWarehouse(dbWarehouse) : null;
+    // By primary key, so that the second-level cache of DbWarehouse applies
+    DbWarehouse dbWarehouse = findById(id);
+    return dbWarehouse != null ? dbWarehouse.toWarehouse() : null;
   }
 
-  /**
-   * Count non-archived warehouses at a specific location
-   */
-  public long countActiveWarehousesAtLocation(String locationId) {
-    return count("location = ?1 and archivedAt is null", locationId);
+  @Override
+  public <T> T findWarehouseById(Long id, WarehouseProjection<T> projection) {
+    // The entity is its own view, so it is mapped without a domain model copy
+    DbWarehouse dbWarehouse = findById(id);
+    return dbWarehouse != null ? projection.map(dbWarehouse) : null;
+  }
+
+  @Override
+  public void persist(DbWarehouse dbWarehouse) {
+    PanacheRepository.super.persist(dbWarehouse);
+    reservationRepository.reserve(dbWarehouse.location);
+    warehouseCache.invalidate(dbWarehouse.businessUnitCode);
+  }
+
+  @Override
+  public void delete(DbWarehouse dbWarehouse) {
+    PanacheRepository.super.delete(dbWarehouse);
+    reservationRepository.reserve(dbWarehouse.location);
+    warehouseCache.invalidate(dbWarehouse.businessUnitCode);
+  }
+
+  @Override
+  public long deleteAll() {
+    long deleted = PanacheRepository.super.deleteAll();
+    reservationRepository.reserveAll();
+    warehouseCache.invalidateAll();
+    return deleted;
   }
 
   /**
-   * Get total capacity of all non-archived warehouses at a location
+   * Count and total capacity of the non-archived warehouses at a location, in one aggregate query
    */
-  public int getTotalCapacityAtLocation(String locationId) {
-    List<DbWarehouse> warehouses =
-        list("location = ?1 and archivedAt is null", locationId);
-    return warehouses.stream().mapToInt(w -> w.capacity != null ? w.capacity : 0).sum();
+  public Occupancy occupancyAt(String locationId) {
+    Object[] row =
+        getEntityManager()
+            .createQuery(
+                "SELECT count(w), coalesce(sum(w.capacity), 0) FROM DbWarehouse w"
+                    + " WHERE w.location = ?1 AND w.archivedAt IS NULL",
+                Object[].class)
+            .setParameter(1, locationId)
+            .getSingleResult();
+    return new Occupancy(((Number) row[0]).longValue(), ((Number) row[1]).intValue());
   }
 
   // Convert domain model to database entity
@@ -98,23 +421,4 @@ public class WarehouseRepository implements WarehouseStore, PanacheRepository<Db
 
     return dbWarehouse;
   }
-
-  // Convert database entity to domain model
-  private Warehouse toDomainWarehouse(DbWarehouse dbWarehouse) {
-    Warehouse warehouse = new Warehouse();
-    warehouse.id = dbWarehouse.id;
-    warehouse.businessUnitCode = dbWarehouse.businessUnitCode;
-    warehouse.location = dbWarehouse.location;
-    warehouse.capacity = dbWarehouse.capacity;
-    warehouse.stock = dbWarehouse.stock;
-
-    if (dbWarehouse.createdAt != null) {
-      warehouse.createdAt = dbWarehouse.createdAt;
-    }
-    if (dbWarehouse.archivedAt != null) {
-      warehouse.archivedAt = dbWarehouse.archivedAt;
-    }
-
-    return warehouse;
-  }
 }
\ No newline at end of file
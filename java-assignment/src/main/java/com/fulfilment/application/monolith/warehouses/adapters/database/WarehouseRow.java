@@ -0,0 +1,77 @@
+package com.fulfilment.application.monolith.warehouses.adapters.database;
+
+import com.fulfilment.application.monolith.warehouses.domain.models.WarehouseView;
+import com.fulfilment.application.monolith.warehouses.domain.ports.WarehouseProjection;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Flyweight {@link WarehouseView} over the rows of a query that selects {@link #COLUMNS}. One
+ * instance is moved from row to row, so projecting a result allocates nothing besides what the
+ * projection itself builds.
+ */
+final class WarehouseRow implements WarehouseView {
+
+  static final String COLUMNS =
+      "w.id, w.businessUnitCode, w.location, w.capacity, w.stock, w.createdAt, w.archivedAt,"
+          + " w.version";
+
+  private Object[] row;
+
+  static <T> List<T> project(List<Object[]> rows, WarehouseProjection<T> projection) {
+    WarehouseRow view = new WarehouseRow();
+    List<T> result = new ArrayList<>(rows.size());
+    for (Object[] row : rows) {
+      view.row = row;
+      result.add(projection.map(view));
+    }
+    return result;
+  }
+
+  static <T> T project(Object[] row, WarehouseProjection<T> projection) {
+    WarehouseRow view = new WarehouseRow();
+    view.row = row;
+    return projection.map(view);
+  }
+
+  @Override
+  public Long id() {
+    return (Long) row[0];
+  }
+
+  @Override
+  public String businessUnitCode() {
+    return (String) row[1];
+  }
+
+  @Override
+  public String location() {
+    return (String) row[2];
+  }
+
+  @Override
+  public Integer capacity() {
+    return (Integer) row[3];
+  }
+
+  @Override
+  public Integer stock() {
+    return (Integer) row[4];
+  }
+
+  @Override
+  public LocalDateTime createdAt() {
+    return (LocalDateTime) row[5];
+  }
+
+  @Override
+  public LocalDateTime archivedAt() {
+    return (LocalDateTime) row[6];
+  }
+
+  @Override
+  public Long version() {
+    return (Long) row[7];
+  }
+}
@@ -0,0 +1,27 @@
+package com.fulfilment.application.monolith.warehouses.adapters.restapi;
+
+import com.fulfilment.application.monolith.warehouses.adapters.database.WarehouseCache;
+import com.fulfilment.application.monolith.warehouses.adapters.database.WarehouseCacheStats;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.core.MediaType;
+
+/**
+ * Operational endpoint exposing the hit, miss and eviction counters of the warehouse cache.
+ *
+ * <p>GET /warehouse/cache/stats
+ */
+@Path("/warehouse/cache")
+@Produces(MediaType.APPLICATION_JSON)
+public class WarehouseCacheResource {
+
+  @Inject WarehouseCache warehouseCache;
+
+  @GET
+  @Path("/stats")
+  public WarehouseCacheStats getStats() {
+    return warehouseCache.stats();
+  }
+}
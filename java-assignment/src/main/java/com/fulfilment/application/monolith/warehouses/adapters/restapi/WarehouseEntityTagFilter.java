@@ -0,0 +1,53 @@
+package com.fulfilment.application.monolith.warehouses.adapters.restapi;
+
+import com.fulfilment.application.monolith.exceptions.BusinessValidationException;
+import com.fulfilment.application.monolith.exceptions.ErrorCode;
+import com.warehouse.api.beans.Warehouse;
+import jakarta.ws.rs.container.ContainerRequestContext;
+import jakarta.ws.rs.container.ContainerResponseContext;
+import jakarta.ws.rs.container.ContainerResponseFilter;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.ext.Provider;
+
+/**
+ * Sends the version of a single warehouse as its {@code ETag}, so that clients can make their
+ * archive and replace requests conditional on it with {@code If-Match}.
+ *
+ * <p>Versions never repeat within a business unit code, so the tag is the bare version number.
+ */
+@Provider
+public class WarehouseEntityTagFilter implements ContainerResponseFilter {
+
+  @Override
+  public void filter(ContainerRequestContext request, ContainerResponseContext response) {
+    if (response.getEntity() instanceof Warehouse warehouse && warehouse.getVersion() != null) {
+      response.getHeaders().putSingle(HttpHeaders.ETAG, toEntityTag(warehouse.getVersion()));
+    }
+  }
+
+  static String toEntityTag(Long version) {
+    return "\"" + version + "\"";
+  }
+
+  /**
+   * The version an {@code If-Match} header requires, or null if it accepts any version.
+   *
+   * @throws BusinessValidationException if the header is not {@code *} or a single tag sent by
+   *     this API
+   */
+  static Long toExpectedVersion(String ifMatch) {
+    if (ifMatch == null || ifMatch.isBlank() || ifMatch.strip().equals("*")) {
+      return null;
+    }
+    String tag = ifMatch.strip();
+    if (tag.length() > 2 && tag.startsWith("\"") && tag.endsWith("\"")) {
+      try {
+        return Long.parseLong(tag.substring(1, tag.length() - 1));
+      } catch (NumberFormatException e) {
+        // Reported below
+      }
+    }
+    throw new BusinessValidationException(
+        ErrorCode.INVALID_INPUT, "If-Match must be * or a single ETag of a warehouse: " + ifMatch);
+  }
+}
@@ -1,41 +1,108 @@
 package com.fulfilment.application.monolith.warehouses.adapters.restapi;
 
+import com.fulfilment.application.monolith.exceptions.BusinessValidationException;
+import com.fulfilment.application.monolith.exceptions.ErrorCode;
+import com.fulfilment.application.monolith.warehouses.adapters.database.LocationReservationRepository;
 import com.fulfilment.application.monolith.warehouses.domain.exceptions.WarehouseNotFoundException;
+import com.fulfilment.application.monolith.warehouses.domain.models.WarehouseCreationResult;
+import com.fulfilment.application.monolith.warehouses.domain.models.WarehouseFilter;
+import com.fulfilment.application.monolith.warehouses.domain.models.WarehouseView;
+import com.fulfilment.application.monolith.warehouses.domain.ports.AdjustWarehouseStockOperation;
 import com.fulfilment.application.monolith.warehouses.domain.ports.ArchiveWarehouseOperation;
+import com.fulfilment.application.monolith.warehouses.domain.ports.BatchCreateWarehouseOperation;
 import com.fulfilment.application.monolith.warehouses.domain.ports.CreateWarehouseOperation;
 import com.fulfilment.application.monolith.warehouses.domain.ports.ReplaceWarehouseOperation;
+import com.fulfilment.application.monolith.warehouses.domain.ports.StockHistory;
 import com.fulfilment.application.monolith.warehouses.domain.ports.WarehouseStore;
 import com.warehouse.api.WarehouseResource;
+import com.warehouse.api.beans.StockAdjustment;
+import com.warehouse.api.beans.StockLevel;
 import com.warehouse.api.beans.Warehouse;
+import com.warehouse.api.beans.WarehouseBatchResult;
+import com.warehouse.api.beans.WarehouseBatchRowResult;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
 import jakarta.transaction.Transactional;
 import jakarta.validation.constraints.NotNull;
+import java.math.BigInteger;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
 import java.util.List;
 
 @ApplicationScoped
 public class WarehouseResourceImpl implements WarehouseResource {
 
+  static final int MAX_PAGE_SIZE = 1000;
+
+  static final int MAX_BATCH_SIZE = 1000;
+
   @Inject CreateWarehouseOperation createWarehouseOperation;
 
+  @Inject BatchCreateWarehouseOperation batchCreateWarehouseOperation;
+
   @Inject ArchiveWarehouseOperation archiveWarehouseOperation;
 
   @Inject ReplaceWarehouseOperation replaceWarehouseOperation;
 
+  @Inject AdjustWarehouseStockOperation adjustWarehouseStockOperation;
+
   @Inject WarehouseStore warehouseStore;
 
+  @Inject StockHistory stockHistory;
+
+  @Inject LocationReservationRepository locationReservations;
+
   @Override
-  public List<Warehouse> listAllWarehousesUnits() {
-    List<com.fulfilment.application.monolith.warehouses.domain.models.Warehouse> warehouses =
-        warehouseStore.getAll();
-    return warehouses.stream()
-        .map(this::toApiWarehouse)
-        .toList();
+  @Transactional
+  public List<Warehouse> listAllWarehousesUnits(
+      String location,
+      Boolean archived,
+      BigInteger minCapacity,
+      BigInteger maxCapacity,
+      Long afterId,
+      BigInteger limit) {
+    WarehouseFilter filter = new WarehouseFilter();
+    filter.location = location;
+    filter.archived = archived;
+    filter.minCapacity = toInt("minCapacity", minCapacity);
+    filter.maxCapacity = toInt("maxCapacity", maxCapacity);
+    filter.afterId = afterId;
+    filter.limit = limit != null ? toInt("limit", limit) : 100;
+
+    if (filter.limit < 1 || filter.limit > MAX_PAGE_SIZE) {
+      throw new BusinessValidationException(
+          ErrorCode.INVALID_INPUT, "limit must be between 1 and " + MAX_PAGE_SIZE);
+    }
+    if (filter.minCapacity != null
+        && filter.maxCapacity != null
+        && filter.minCapacity > filter.maxCapacity) {
+      throw new BusinessValidationException(
+          ErrorCode.INVALID_INPUT, "minCapacity must not be greater than maxCapacity");
+    }
+
+    // Rows are projected straight into API beans, without entities or domain models
+    return warehouseStore.search(filter, this::toApiWarehouse);
+  }
+
+  private static Integer toInt(String name, BigInteger value) {
+    if (value == null) {
+      return null;
+    }
+    try {
+      return value.intValueExact();
+    } catch (ArithmeticException e) {
+      throw new BusinessValidationException(ErrorCode.INVALID_INPUT, name + " is out of range");
+    }
   }
 
   @Override
-  @Transactional
   public Warehouse createANewWarehouseUnit(@NotNull Warehouse data) {
+    // Retried in a new transaction if a concurrent change hits the same location
+    return locationReservations.inTransaction(() -> createWarehouse(data));
+  }
+
+  private Warehouse createWarehouse(Warehouse data) {
     // Convert API bean to domain model
     com.fulfilment.application.monolith.warehouses.domain.models.Warehouse domainWarehouse =
         toDomainWarehouse(data);
@@ -45,30 +112,88 @@ public class WarehouseResourceImpl implements WarehouseResource {
     createWarehouseOperation.create(domainWarehouse);
 
     // Fetch the created warehouse to get the assigned ID
-    Warehouse createdWarehouse =
+    com.fulfilment.application.monolith.warehouses.domain.models.Warehouse createdWarehouse =
         warehouseStore.findByBusinessUnitCode(data.getBusinessUnitCode());
 
     // Return the created warehouse with ID populated
     return toApiWarehouse(createdWarehouse);
   }
 
+  @Override
+  public WarehouseBatchResult createWarehouseUnitsInBulk(@NotNull List<Warehouse> data) {
+    if (data.isEmpty()) {
+      throw new BusinessValidationException(
+          ErrorCode.INVALID_INPUT, "Batch must contain at least one warehouse");
+    }
+    if (data.size() > MAX_BATCH_SIZE) {
+      throw new BusinessValidationException(
+          ErrorCode.INVALID_INPUT,
+          "Batch contains " + data.size() + " warehouses. Maximum allowed is " + MAX_BATCH_SIZE);
+    }
+    // Retried in a new transaction if a concurrent change hits one of the locations
+    return locationReservations.inTransaction(() -> createWarehouses(data));
+  }
+
+  private WarehouseBatchResult createWarehouses(List<Warehouse> data) {
+    List<com.fulfilment.application.monolith.warehouses.domain.models.Warehouse> candidates =
+        new ArrayList<>(data.size());
+    for (Warehouse apiWarehouse : data) {
+      candidates.add(
+          apiWarehouse != null
+              ? toDomainWarehouse(apiWarehouse)
+              : new com.fulfilment.application.monolith.warehouses.domain.models.Warehouse());
+    }
+
+    // Ids are assigned on persist, so no follow-up lookup is needed
+    List<WarehouseCreationResult> outcomes = batchCreateWarehouseOperation.createAll(candidates);
+
+    WarehouseBatchResult result = new WarehouseBatchResult();
+    List<WarehouseBatchRowResult> rows = new ArrayList<>(outcomes.size());
+    int created = 0;
+    for (int i = 0; i < outcomes.size(); i++) {
+      WarehouseCreationResult outcome = outcomes.get(i);
+      WarehouseBatchRowResult row = new WarehouseBatchRowResult();
+      row.setIndex(i);
+      row.setBusinessUnitCode(outcome.warehouse().businessUnitCode);
+      row.setCreated(outcome.isCreated());
+      if (outcome.isCreated()) {
+        row.setWarehouse(toApiWarehouse(outcome.warehouse()));
+        created++;
+      } else {
+        row.setError(outcome.rejection());
+      }
+      rows.add(row);
+    }
+    result.setCreated(created);
+    result.setRejected(outcomes.size() - created);
+    result.setResults(rows);
+    return result;
+  }
+
   @Override
   @Transactional
   public Warehouse getAWarehouseUnitByID(String id) {
     Long warehouseId = Long.parseLong(id);
-    com.fulfilment.application.monolith.warehouses.domain.models.Warehouse warehouse =
-        warehouseStore.findWarehouseById(warehouseId);
+    Warehouse warehouse = warehouseStore.findWarehouseById(warehouseId, this::toApiWarehouse);
 
     if (warehouse == null) {
       throw new WarehouseNotFoundException(warehouseId);
     }
 
-    return toApiWarehouse(warehouse);
+    return warehouse;
   }
 
   @Override
-  @Transactional
-  public void archiveAWarehouseUnitByID(String id) {
+  public void archiveAWarehouseUnitByID(String id, String ifMatch) {
+    Long expectedVersion = WarehouseEntityTagFilter.toExpectedVersion(ifMatch);
+    locationReservations.inTransaction(
+        () -> {
+          archiveWarehouse(id, expectedVersion);
+          return null;
+        });
+  }
+
+  private void archiveWarehouse(String id, Long expectedVersion) {
     Long warehouseId = Long.parseLong(id);
     com.fulfilment.application.monolith.warehouses.domain.models.Warehouse warehouse =
         warehouseStore.findWarehouseById(warehouseId);
@@ -77,17 +202,30 @@ public class WarehouseResourceImpl implements WarehouseResource {
       throw new WarehouseNotFoundException(warehouseId);
     }
 
-    // WarehouseNotFoundException is handled by ExceptionMapper
+    // Checked when the archived timestamp is written, so a concurrent change cannot slip in between
+    warehouse.version = expectedVersion;
+
+    // WarehouseNotFoundException and WarehouseVersionConflictException are handled by
+    // ExceptionMappers
     archiveWarehouseOperation.archive(warehouse);
   }
 
   @Override
-  @Transactional
-  public Warehouse replaceTheCurrentActiveWarehouse(String businessUnitCode, Warehouse data) {
+  public Warehouse replaceTheCurrentActiveWarehouse(
+      String businessUnitCode, String ifMatch, Warehouse data) {
+    Long expectedVersion = WarehouseEntityTagFilter.toExpectedVersion(ifMatch);
+    // A retry after a conflicting commit sees the new version, so it fails the If-Match check
+    return locationReservations.inTransaction(
+        () -> replaceWarehouse(businessUnitCode, expectedVersion, data));
+  }
+
+  private Warehouse replaceWarehouse(
+      String businessUnitCode, Long expectedVersion, Warehouse data) {
     // Convert API bean to domain model
     com.fulfilment.application.monolith.warehouses.domain.models.Warehouse domainWarehouse =
         toDomainWarehouse(data);
     domainWarehouse.businessUnitCode = businessUnitCode;
+    domainWarehouse.version = expectedVersion;
 
     // Execute replace use case with validations
     // Exceptions (WarehouseNotFoundException, LocationNotFoundException, IllegalArgumentException)
@@ -102,6 +240,59 @@ public class WarehouseResourceImpl implements WarehouseResource {
     return toApiWarehouse(replacedWarehouse);
   }
 
+  @Override
+  public Warehouse adjustTheStockOfAWarehouseUnit(
+      String businessUnitCode, @NotNull StockAdjustment data) {
+    if (data.getDelta() == null) {
+      throw new BusinessValidationException(ErrorCode.INVALID_INPUT, "delta is required");
+    }
+
+    // Applied in a transaction of its own, batched with concurrent adjustments of the warehouse
+    return toApiWarehouse(
+        adjustWarehouseStockOperation.adjustStock(businessUnitCode, data.getDelta()));
+  }
+
+  @Override
+  @Transactional
+  public StockLevel getTheStockOfAWarehouseUnit(String businessUnitCode, String at) {
+    LocalDateTime pointInTime = at != null ? toPointInTime(at) : LocalDateTime.now();
+    Integer stock = stockHistory.stockAt(businessUnitCode, pointInTime);
+    if (stock == null) {
+      throw new WarehouseNotFoundException(businessUnitCode);
+    }
+
+    StockLevel stockLevel = new StockLevel();
+    stockLevel.setBusinessUnitCode(businessUnitCode);
+    stockLevel.setAt(pointInTime.toString());
+    stockLevel.setStock(stock);
+    return stockLevel;
+  }
+
+  @Override
+  @Transactional
+  public List<Warehouse> listTheVersionsOfAWarehouseUnit(String businessUnitCode, String at) {
+    if (at != null) {
+      Warehouse version =
+          warehouseStore.findVersionAt(businessUnitCode, toPointInTime(at), this::toApiWarehouse);
+      return version != null ? List.of(version) : List.of();
+    }
+
+    List<Warehouse> versions = warehouseStore.findVersions(businessUnitCode, this::toApiWarehouse);
+    if (versions.isEmpty()) {
+      throw new WarehouseNotFoundException(businessUnitCode);
+    }
+    return versions;
+  }
+
+  private static LocalDateTime toPointInTime(String at) {
+    try {
+      return LocalDateTime.parse(at);
+    } catch (DateTimeParseException e) {
+      throw new BusinessValidationException(
+          ErrorCode.INVALID_INPUT, "at must be an ISO-8601 local date-time: " + at);
+    }
+  }
+
   // Convert API bean to domain model
   private com.fulfilment.application.monolith.warehouses.domain.models.Warehouse
       toDomainWarehouse(Warehouse apiWarehouse) {
@@ -114,17 +305,23 @@ public class WarehouseResourceImpl implements WarehouseResource {
     return domainWarehouse;
   }
 
-  // Convert domain model to API bean
-  private Warehouse toApiWarehouse(
-      com.fulfilment.application.monolith.warehouses.domain.models.Warehouse domainWarehouse) {
+  // Convert a domain model, entity or query row to API bean
+  private Warehouse toApiWarehouse(WarehouseView view) {
     Warehouse apiWarehouse = new Warehouse();
-    if (domainWarehouse.id != null) {
-      apiWarehouse.setId(String.valueOf(domainWarehouse.id));
+    if (view.id() != null) {
+      apiWarehouse.setId(view.id().toString());
+    }
+    apiWarehouse.setBusinessUnitCode(view.businessUnitCode());
+    apiWarehouse.setLocation(view.location());
+    apiWarehouse.setCapacity(view.capacity());
+    apiWarehouse.setStock(view.stock());
+    if (view.createdAt() != null) {
+      apiWarehouse.setCreatedAt(view.createdAt().toString());
+    }
+    if (view.archivedAt() != null) {
+      apiWarehouse.setArchivedAt(view.archivedAt().toString());
     }
-    apiWarehouse.setBusinessUnitCode(domainWarehouse.businessUnitCode);
-    apiWarehouse.setLocation(domainWarehouse.location);
-    apiWarehouse.setCapacity(domainWarehouse.capacity);
-    apiWarehouse.setStock(domainWarehouse.stock);
+    apiWarehouse.setVersion(view.version());
     return apiWarehouse;
   }
 }
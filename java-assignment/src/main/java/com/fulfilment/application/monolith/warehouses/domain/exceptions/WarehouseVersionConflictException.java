@@ -0,0 +1,27 @@
+package com.fulfilment.application.monolith.warehouses.domain.exceptions;
+
+import com.fulfilment.application.monolith.exceptions.PreconditionFailedException;
+
+/**
+ * Exception thrown when a warehouse is no longer at the version a change was based on.
+ */
+public class WarehouseVersionConflictException extends PreconditionFailedException {
+
+  private final String businessUnitCode;
+
+  public WarehouseVersionConflictException(
+      String businessUnitCode, Long expectedVersion, Long currentVersion) {
+    super(
+        "Warehouse with business unit code "
+            + businessUnitCode
+            + " is at version "
+            + currentVersion
+            + ", not "
+            + expectedVersion);
+    this.businessUnitCode = businessUnitCode;
+  }
+
+  public String getBusinessUnitCode() {
+    return businessUnitCode;
+  }
+}
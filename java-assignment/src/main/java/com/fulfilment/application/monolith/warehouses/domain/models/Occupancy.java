@@ -0,0 +1,7 @@
+package com.fulfilment.application.monolith.warehouses.domain.models;
+
+/**
+ * Current use of a location: the number of non-archived warehouses and the sum of their
+ * capacities.
+ */
+public record Occupancy(long activeWarehouses, int totalCapacity) {}
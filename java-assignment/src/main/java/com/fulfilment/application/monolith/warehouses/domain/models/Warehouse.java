@@ -2,7 +2,7 @@ package com.fulfilment.application.monolith.warehouses.domain.models;
 
 import java.time.LocalDateTime;
 
-public class Warehouse {
+public class Warehouse implements WarehouseView {
 
   // database primary key
   public Long id;
@@ -19,4 +19,48 @@ public class Warehouse {
   public LocalDateTime createdAt;
 
   public LocalDateTime archivedAt;
+
+  // optimistic lock version, increasing across all versions of the business unit code;
+  // when archiving or replacing, the version the change expects the current warehouse to be at
+  public Long version;
+
+  @Override
+  public Long id() {
+    return id;
+  }
+
+  @Override
+  public String businessUnitCode() {
+    return businessUnitCode;
+  }
+
+  @Override
+  public String location() {
+    return location;
+  }
+
+  @Override
+  public Integer capacity() {
+    return capacity;
+  }
+
+  @Override
+  public Integer stock() {
+    return stock;
+  }
+
+  @Override
+  public LocalDateTime createdAt() {
+    return createdAt;
+  }
+
+  @Override
+  public LocalDateTime archivedAt() {
+    return archivedAt;
+  }
+
+  @Override
+  public Long version() {
+    return version;
+  }
 }
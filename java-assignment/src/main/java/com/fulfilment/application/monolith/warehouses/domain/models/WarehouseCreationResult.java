@@ -0,0 +1,19 @@
+package com.fulfilment.application.monolith.warehouses.domain.models;
+
+/**
+ * Outcome of one warehouse of a batch creation: the created warehouse, or why it was rejected.
+ */
+public record WarehouseCreationResult(Warehouse warehouse, String rejection) {
+
+  public static WarehouseCreationResult created(Warehouse warehouse) {
+    return new WarehouseCreationResult(warehouse, null);
+  }
+
+  public static WarehouseCreationResult rejected(Warehouse warehouse, String rejection) {
+    return new WarehouseCreationResult(warehouse, rejection);
+  }
+
+  public boolean isCreated() {
+    return rejection == null;
+  }
+}
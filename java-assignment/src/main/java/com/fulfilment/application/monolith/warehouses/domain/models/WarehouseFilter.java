@@ -0,0 +1,23 @@
+package com.fulfilment.application.monolith.warehouses.domain.models;
+
+/**
+ * Criteria for listing warehouses. Unset ({@code null}) criteria do not restrict the result.
+ *
+ * <p>Results are ordered by id and paginated by keyset: {@code afterId} is the id of the last
+ * warehouse of the previous page and {@code limit} the page size.
+ */
+public class WarehouseFilter {
+
+  public String location;
+
+  // true for archived warehouses only, false for active ones only
+  public Boolean archived;
+
+  public Integer minCapacity;
+
+  public Integer maxCapacity;
+
+  public Long afterId;
+
+  public int limit;
+}
@@ -0,0 +1,26 @@
+package com.fulfilment.application.monolith.warehouses.domain.models;
+
+import java.time.LocalDateTime;
+
+/**
+ * Read-only view of one warehouse version, so that stored warehouses can be mapped into another
+ * representation without first being copied into a {@link Warehouse}.
+ */
+public interface WarehouseView {
+
+  Long id();
+
+  String businessUnitCode();
+
+  String location();
+
+  Integer capacity();
+
+  Integer stock();
+
+  LocalDateTime createdAt();
+
+  LocalDateTime archivedAt();
+
+  Long version();
+}
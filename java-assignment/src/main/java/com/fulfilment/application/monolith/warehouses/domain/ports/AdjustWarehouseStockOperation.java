@@ -0,0 +1,7 @@
+package com.fulfilment.application.monolith.warehouses.domain.ports;
+
+import com.fulfilment.application.monolith.warehouses.domain.models.Warehouse;
+
+public interface AdjustWarehouseStockOperation {
+  Warehouse adjustStock(String businessUnitCode, int delta);
+}
@@ -0,0 +1,12 @@
+package com.fulfilment.application.monolith.warehouses.domain.ports;
+
+import com.fulfilment.application.monolith.warehouses.domain.models.Occupancy;
+
+public interface LocationOccupancy {
+
+  /**
+   * Returns the occupancy of a location to validate a change against. The location stays reserved
+   * for the current transaction, so no concurrent change can commit in between.
+   */
+  Occupancy occupancyAt(String locationId);
+}
@@ -0,0 +1,13 @@
+package com.fulfilment.application.monolith.warehouses.domain.ports;
+
+import java.time.LocalDateTime;
+
+public interface StockHistory {
+
+  /**
+   * Stock of a warehouse at a point in time, from its recorded stock movements.
+   *
+   * @return the stock, or {@code null} if nothing was recorded for the warehouse up to {@code at}
+   */
+  Integer stockAt(String businessUnitCode, LocalDateTime at);
+}
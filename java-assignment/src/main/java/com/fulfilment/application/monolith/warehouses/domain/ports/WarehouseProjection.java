@@ -0,0 +1,14 @@
+package com.fulfilment.application.monolith.warehouses.domain.ports;
+
+import com.fulfilment.application.monolith.warehouses.domain.models.WarehouseView;
+
+/**
+ * Maps a stored warehouse straight into the caller's representation, so that no intermediate
+ * entity or domain model is created per warehouse.
+ *
+ * <p>The view may be moved on to the next row once {@code map} returns, so it must not be kept.
+ */
+@FunctionalInterface
+public interface WarehouseProjection<T> {
+  T map(WarehouseView warehouse);
+}
@@ -1,19 +1,68 @@
 package com.fulfilment.application.monolith.warehouses.domain.ports;
 
 import com.fulfilment.application.monolith.warehouses.domain.models.Warehouse;
+import com.fulfilment.application.monolith.warehouses.domain.models.WarehouseFilter;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Set;
 
 public interface WarehouseStore {
 
   List<Warehouse> getAll();
 
+  <T> List<T> search(WarehouseFilter filter, WarehouseProjection<T> projection);
+
   void create(Warehouse warehouse);
 
+  /** Creates the warehouses together and sets their ids. */
+  void createAll(List<Warehouse> warehouses);
+
+  /**
+   * Updates the current version of the warehouse. If {@code warehouse.version} is set, fails with
+   * a {@code WarehouseVersionConflictException} unless the current version is still at it.
+   */
   void update(Warehouse warehouse);
 
   void remove(Warehouse warehouse);
 
+  /**
+   * Archives the warehouse version with the given id. If {@code expectedVersion} is set, fails with
+   * a {@code WarehouseVersionConflictException} unless the version is still at it. Fails if the
+   * version is already archived.
+   */
+  void archive(Long id, Long expectedVersion, LocalDateTime archivedAt);
+
+  /**
+   * Archives the current version of the warehouse and inserts {@code newVersion} under the same
+   * business unit code. If {@code newVersion.version} is set, fails with a {@code
+   * WarehouseVersionConflictException} unless the current version is still at it. Fails if the
+   * current version is already archived.
+   */
+  void replace(Warehouse newVersion);
+
+  /**
+   * Adds {@code delta} to the stock of the active warehouse, in a transaction of its own, unless
+   * the stock would drop below zero or exceed the capacity.
+   *
+   * @return whether the stock was adjusted
+   */
+  boolean adjustStock(String businessUnitCode, int delta);
+
+  /** The given business unit codes that are already in use. */
+  Set<String> findExistingBusinessUnitCodes(Collection<String> buCodes);
+
+  /** The current version of the warehouse, which is archived if the warehouse is. */
   Warehouse findByBusinessUnitCode(String buCode);
 
+  /** The version of the warehouse valid at a point in time, or {@code null} if there is none. */
+  <T> T findVersionAt(String buCode, LocalDateTime at, WarehouseProjection<T> projection);
+
+  /** Every version of the warehouse, oldest first. */
+  <T> List<T> findVersions(String buCode, WarehouseProjection<T> projection);
+
   Warehouse findWarehouseById(Long id);
+
+  /** The warehouse version with the given id, or {@code null} if there is none. */
+  <T> T findWarehouseById(Long id, WarehouseProjection<T> projection);
 }
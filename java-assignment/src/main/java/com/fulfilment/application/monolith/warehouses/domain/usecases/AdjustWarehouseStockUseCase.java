@@ -0,0 +1,56 @@
+package com.fulfilment.application.monolith.warehouses.domain.usecases;
+
+import com.fulfilment.application.monolith.exceptions.BusinessValidationException;
+import com.fulfilment.application.monolith.exceptions.ErrorCode;
+import com.fulfilment.application.monolith.warehouses.domain.exceptions.WarehouseNotFoundException;
+import com.fulfilment.application.monolith.warehouses.domain.models.Warehouse;
+import com.fulfilment.application.monolith.warehouses.domain.ports.AdjustWarehouseStockOperation;
+import com.fulfilment.application.monolith.warehouses.domain.ports.WarehouseStore;
+import jakarta.enterprise.context.ApplicationScoped;
+import org.jboss.logging.Logger;
+
+@ApplicationScoped
+public class AdjustWarehouseStockUseCase implements AdjustWarehouseStockOperation {
+
+  private static final Logger LOGGER = Logger.getLogger(AdjustWarehouseStockUseCase.class);
+
+  private final WarehouseStore warehouseStore;
+
+  public AdjustWarehouseStockUseCase(WarehouseStore warehouseStore) {
+    this.warehouseStore = warehouseStore;
+  }
+
+  @Override
+  public Warehouse adjustStock(String businessUnitCode, int delta) {
+    if (delta == 0) {
+      throw new BusinessValidationException(
+          ErrorCode.INVALID_INPUT, "Stock adjustment must not be zero");
+    }
+
+    // The bounds are checked by the store in the same statement that applies the delta
+    boolean adjusted = warehouseStore.adjustStock(businessUnitCode, delta);
+    Warehouse existing = warehouseStore.findByBusinessUnitCode(businessUnitCode);
+    if (adjusted && existing != null) {
+      LOGGER.debugf("Adjusted stock of warehouse %s by %d", businessUnitCode, delta);
+      return existing;
+    }
+
+    // Rejected, find out why
+    if (existing == null || existing.archivedAt != null) {
+      LOGGER.warnf(
+          "Stock adjustment failed: No active warehouse with business unit code %s",
+          businessUnitCode);
+      throw new WarehouseNotFoundException(businessUnitCode);
+    }
+    if (delta < 0) {
+      throw new BusinessValidationException(
+          ErrorCode.INVALID_INPUT,
+          "Removing " + -delta + " from warehouse " + businessUnitCode + " would make its stock"
+              + " negative");
+    }
+    throw new BusinessValidationException(
+        ErrorCode.CAPACITY_EXCEEDED,
+        "Adding " + delta + " to warehouse " + businessUnitCode + " would exceed its capacity ("
+            + existing.capacity + ")");
+  }
+}
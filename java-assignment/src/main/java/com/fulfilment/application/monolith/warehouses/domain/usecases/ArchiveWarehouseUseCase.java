@@ -1,5 +1,7 @@
 package com.fulfilment.application.monolith.warehouses.domain.usecases;
 
+import com.fulfilment.application.monolith.exceptions.BusinessValidationException;
+import com.fulfilment.application.monolith.exceptions.ErrorCode;
 import com.fulfilment.application.monolith.warehouses.domain.exceptions.WarehouseNotFoundException;
 import com.fulfilment.application.monolith.warehouses.domain.models.Warehouse;
 import com.fulfilment.application.monolith.warehouses.domain.ports.ArchiveWarehouseOperation;
@@ -23,19 +25,28 @@ public class ArchiveWarehouseUseCase implements ArchiveWarehouseOperation {
   public void archive(Warehouse warehouse) {
     LOGGER.infof("Archiving warehouse with business unit code: %s", warehouse.businessUnitCode);
 
-    // Find the existing warehouse
-    Warehouse existing = warehouseStore.findByBusinessUnitCode(warehouse.businessUnitCode);
+    // Find the version to archive: the one named by id, or else the current one
+    Warehouse existing =
+        warehouse.id != null
+            ? warehouseStore.findWarehouseById(warehouse.id)
+            : warehouseStore.findByBusinessUnitCode(warehouse.businessUnitCode);
     if (existing == null) {
       LOGGER.warnf(
           "Warehouse archival failed: Business unit code %s not found", warehouse.businessUnitCode);
-      throw new WarehouseNotFoundException(warehouse.businessUnitCode);
+      throw warehouse.id != null
+          ? new WarehouseNotFoundException(warehouse.id)
+          : new WarehouseNotFoundException(warehouse.businessUnitCode);
     }
 
-    // Set the archived timestamp
-    existing.archivedAt = LocalDateTime.now();
+    // An archived version stays archived at its original timestamp
+    if (existing.archivedAt != null) {
+      throw new BusinessValidationException(
+          ErrorCode.INVALID_OPERATION,
+          "Warehouse " + existing.businessUnitCode + " is already archived");
+    }
 
-    // Update the warehouse with the archived timestamp
-    warehouseStore.update(existing);
+    // Archive only the version the caller expects, if it named one
+    warehouseStore.archive(existing.id, warehouse.version, LocalDateTime.now());
     LOGGER.infof(
         "Successfully archived warehouse with business unit code: %s", warehouse.businessUnitCode);
   }
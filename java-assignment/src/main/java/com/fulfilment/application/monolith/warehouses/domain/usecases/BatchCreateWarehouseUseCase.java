@@ -0,0 +1,166 @@
+package com.fulfilment.application.monolith.warehouses.domain.usecases;
+
+import com.fulfilment.application.monolith.location.LocationNotFoundException;
+import com.fulfilment.application.monolith.warehouses.domain.models.Location;
+import com.fulfilment.application.monolith.warehouses.domain.models.Occupancy;
+import com.fulfilment.application.monolith.warehouses.domain.models.Warehouse;
+import com.fulfilment.application.monolith.warehouses.domain.models.WarehouseCreationResult;
+import com.fulfilment.application.monolith.warehouses.domain.ports.BatchCreateWarehouseOperation;
+import com.fulfilment.application.monolith.warehouses.domain.ports.LocationOccupancy;
+import com.fulfilment.application.monolith.warehouses.domain.ports.LocationResolver;
+import com.fulfilment.application.monolith.warehouses.domain.ports.WarehouseStore;
+import jakarta.enterprise.context.ApplicationScoped;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import org.jboss.logging.Logger;
+
+/**
+ * Creates many warehouses with the validations of {@link CreateWarehouseUseCase}.
+ *
+ * <p>Existing business unit codes are looked up in one query. Candidates are grouped by location,
+ * and each location is resolved and its occupancy read once. The warehouses of the batch then
+ * draw from their location's remaining count and capacity in request order, so the batch as a
+ * whole never exceeds a limit. Accepted warehouses are stored together.
+ */
+@ApplicationScoped
+public class BatchCreateWarehouseUseCase implements BatchCreateWarehouseOperation {
+
+  private static final Logger LOGGER = Logger.getLogger(BatchCreateWarehouseUseCase.class);
+
+  private final WarehouseStore warehouseStore;
+  private final LocationResolver locationResolver;
+  private final LocationOccupancy locationOccupancy;
+
+  public BatchCreateWarehouseUseCase(
+      WarehouseStore warehouseStore,
+      LocationResolver locationResolver,
+      LocationOccupancy locationOccupancy) {
+    this.warehouseStore = warehouseStore;
+    this.locationResolver = locationResolver;
+    this.locationOccupancy = locationOccupancy;
+  }
+
+  @Override
+  public List<WarehouseCreationResult> createAll(List<Warehouse> warehouses) {
+    LOGGER.infof("Creating batch of %d warehouses", warehouses.size());
+
+    // 1. Business Unit Code Verification - one lookup for the whole batch
+    Set<String> codes = new HashSet<>();
+    for (Warehouse warehouse : warehouses) {
+      if (warehouse.businessUnitCode != null) {
+        codes.add(warehouse.businessUnitCode);
+      }
+    }
+    Set<String> takenCodes = new HashSet<>(warehouseStore.findExistingBusinessUnitCodes(codes));
+
+    // 2. Location Validation - each location resolved once, in a fixed order so that concurrent
+    // batches reserve shared locations in the same order
+    Set<String> locations = new TreeSet<>();
+    for (Warehouse warehouse : warehouses) {
+      if (warehouse.location != null) {
+        locations.add(warehouse.location);
+      }
+    }
+    Map<String, LocationBudget> budgets = new HashMap<>();
+    for (String identifier : locations) {
+      budgets.put(identifier, budget(identifier));
+    }
+
+    // 3. and 4. Feasibility, capacity and stock - cumulative within the batch
+    List<WarehouseCreationResult> results = new ArrayList<>(warehouses.size());
+    List<Warehouse> accepted = new ArrayList<>();
+    for (Warehouse warehouse : warehouses) {
+      String rejection = validate(warehouse, takenCodes, budgets);
+      if (rejection != null) {
+        results.add(WarehouseCreationResult.rejected(warehouse, rejection));
+        continue;
+      }
+      takenCodes.add(warehouse.businessUnitCode);
+      budgets.get(warehouse.location).take(warehouse.capacity);
+      accepted.add(warehouse);
+      results.add(WarehouseCreationResult.created(warehouse));
+    }
+
+    warehouseStore.createAll(accepted);
+    LOGGER.infof(
+        "Warehouse batch processed: %d created, %d rejected",
+        accepted.size(), warehouses.size() - accepted.size());
+    return results;
+  }
+
+  private LocationBudget budget(String identifier) {
+    Location location;
+    try {
+      location = locationResolver.resolveByIdentifier(identifier);
+    } catch (LocationNotFoundException e) {
+      location = null;
+    }
+    if (location == null) {
+      return new LocationBudget(null, new Occupancy(0, 0));
+    }
+    return new LocationBudget(location, locationOccupancy.occupancyAt(identifier));
+  }
+
+  private static String validate(
+      Warehouse warehouse, Set<String> takenCodes, Map<String, LocationBudget> budgets) {
+    if (warehouse.businessUnitCode == null
+        || warehouse.businessUnitCode.isBlank()
+        || warehouse.location == null
+        || warehouse.capacity == null
+        || warehouse.stock == null) {
+      return "Business unit code, location, capacity and stock are required";
+    }
+    if (takenCodes.contains(warehouse.businessUnitCode)) {
+      return "Warehouse with business unit code " + warehouse.businessUnitCode + " already exists";
+    }
+
+    LocationBudget budget = budgets.get(warehouse.location);
+    if (budget.location == null) {
+      return "Location " + warehouse.location + " is not valid";
+    }
+    if (budget.warehouses >= budget.location.maxNumberOfWarehouses) {
+      return "Maximum number of warehouses ("
+          + budget.location.maxNumberOfWarehouses
+          + ") reached for location "
+          + warehouse.location;
+    }
+    int newTotalCapacity = budget.capacity + warehouse.capacity;
+    if (newTotalCapacity > budget.location.maxCapacity) {
+      return "Total capacity "
+          + newTotalCapacity
+          + " would exceed location's maximum capacity of "
+          + budget.location.maxCapacity;
+    }
+    if (warehouse.stock > warehouse.capacity) {
+      return "Warehouse stock ("
+          + warehouse.stock
+          + ") exceeds capacity ("
+          + warehouse.capacity
+          + ")";
+    }
+    return null;
+  }
+
+  /** Use of a location, including the warehouses of the batch accepted so far. */
+  private static final class LocationBudget {
+    final Location location;
+    long warehouses;
+    int capacity;
+
+    LocationBudget(Location location, Occupancy occupancy) {
+      this.location = location;
+      this.warehouses = occupancy.activeWarehouses();
+      this.capacity = occupancy.totalCapacity();
+    }
+
+    void take(int warehouseCapacity) {
+      warehouses++;
+      capacity += warehouseCapacity;
+    }
+  }
+}
@@ -1,13 +1,15 @@
 package com.fulfilment.application.monolith.warehouses.domain.usecases;
 
 import com.fulfilment.application.monolith.exceptions.BusinessValidationException;
-import com.fulfilment.application.monolith.warehouses.adapters.database.WarehouseRepository;
 import com.fulfilment.application.monolith.warehouses.domain.models.Location;
+import com.fulfilment.application.monolith.warehouses.domain.models.Occupancy;
 import com.fulfilment.application.monolith.warehouses.domain.models.Warehouse;
 import com.fulfilment.application.monolith.warehouses.domain.ports.CreateWarehouseOperation;
+import com.fulfilment.application.monolith.warehouses.domain.ports.LocationOccupancy;
 import com.fulfilment.application.monolith.warehouses.domain.ports.LocationResolver;
 import com.fulfilment.application.monolith.warehouses.domain.ports.WarehouseStore;
 import jakarta.enterprise.context.ApplicationScoped;
+import java.util.List;
 import org.jboss.logging.Logger;
 
 @ApplicationScoped
@@ -17,11 +19,15 @@ public class CreateWarehouseUseCase implements CreateWarehouseOperation {
 
   private final WarehouseStore warehouseStore;
   private final LocationResolver locationResolver;
+  private final LocationOccupancy locationOccupancy;
 
   public CreateWarehouseUseCase(
-      WarehouseStore warehouseStore, LocationResolver locationResolver) {
+      WarehouseStore warehouseStore,
+      LocationResolver locationResolver,
+      LocationOccupancy locationOccupancy) {
     this.warehouseStore = warehouseStore;
     this.locationResolver = locationResolver;
+    this.locationOccupancy = locationOccupancy;
   }
 
   @Override
@@ -30,9 +36,10 @@ public class CreateWarehouseUseCase implements CreateWarehouseOperation {
         "Creating warehouse with business unit code: %s at location: %s",
         warehouse.businessUnitCode, warehouse.location);
 
-    // 1. Business Unit Code Verification - must be unique
-    Warehouse existing = warehouseStore.findByBusinessUnitCode(warehouse.businessUnitCode);
-    if (existing != null) {
+    // 1. Business Unit Code Verification - must be unique, checked against the database itself
+    if (!warehouseStore
+        .findExistingBusinessUnitCodes(List.of(warehouse.businessUnitCode))
+        .isEmpty()) {
       LOGGER.warnf(
           "Warehouse creation failed: Business unit code %s already exists",
           warehouse.businessUnitCode);
@@ -47,9 +54,8 @@ public class CreateWarehouseUseCase implements CreateWarehouseOperation {
     }
 
     // 3. Warehouse Creation Feasibility - check max number of warehouses
-    WarehouseRepository repository = (WarehouseRepository) warehouseStore;
-    long warehouseCount = repository.countActiveWarehousesAtLocation(warehouse.location);
-    if (warehouseCount >= location.maxNumberOfWarehouses) {
+    Occupancy occupancy = locationOccupancy.occupancyAt(warehouse.location);
+    if (occupancy.activeWarehouses() >= location.maxNumberOfWarehouses) {
       throw new BusinessValidationException(
           "Maximum number of warehouses ("
               + location.maxNumberOfWarehouses
@@ -59,8 +65,7 @@ public class CreateWarehouseUseCase implements CreateWarehouseOperation {
 
     // 4. Capacity and Stock Validation
     // Validate capacity doesn't exceed location's max capacity
-    int currentTotalCapacity = repository.getTotalCapacityAtLocation(warehouse.location);
-    int newTotalCapacity = currentTotalCapacity + warehouse.capacity;
+    int newTotalCapacity = occupancy.totalCapacity() + warehouse.capacity;
     if (newTotalCapacity > location.maxCapacity) {
       throw new BusinessValidationException(
           "Total capacity "
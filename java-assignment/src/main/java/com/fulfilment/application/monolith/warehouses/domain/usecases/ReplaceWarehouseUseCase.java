@@ -1,10 +1,11 @@
 package com.fulfilment.application.monolith.warehouses.domain.usecases;
 
 import com.fulfilment.application.monolith.exceptions.BusinessValidationException;
-import com.fulfilment.application.monolith.warehouses.adapters.database.WarehouseRepository;
+import com.fulfilment.application.monolith.exceptions.ErrorCode;
 import com.fulfilment.application.monolith.warehouses.domain.exceptions.WarehouseNotFoundException;
 import com.fulfilment.application.monolith.warehouses.domain.models.Location;
 import com.fulfilment.application.monolith.warehouses.domain.models.Warehouse;
+import com.fulfilment.application.monolith.warehouses.domain.ports.LocationOccupancy;
 import com.fulfilment.application.monolith.warehouses.domain.ports.LocationResolver;
 import com.fulfilment.application.monolith.warehouses.domain.ports.ReplaceWarehouseOperation;
 import com.fulfilment.application.monolith.warehouses.domain.ports.WarehouseStore;
@@ -18,11 +19,15 @@ public class ReplaceWarehouseUseCase implements ReplaceWarehouseOperation {
 
   private final WarehouseStore warehouseStore;
   private final LocationResolver locationResolver;
+  private final LocationOccupancy locationOccupancy;
 
   public ReplaceWarehouseUseCase(
-      WarehouseStore warehouseStore, LocationResolver locationResolver) {
+      WarehouseStore warehouseStore,
+      LocationResolver locationResolver,
+      LocationOccupancy locationOccupancy) {
     this.warehouseStore = warehouseStore;
     this.locationResolver = locationResolver;
+    this.locationOccupancy = locationOccupancy;
   }
 
   @Override
@@ -38,6 +43,13 @@ public class ReplaceWarehouseUseCase implements ReplaceWarehouseOperation {
       throw new WarehouseNotFoundException(newWarehouse.businessUnitCode);
     }
 
+    // An archived warehouse is not brought back by replacing it
+    if (oldWarehouse.archivedAt != null) {
+      throw new BusinessValidationException(
+          ErrorCode.INVALID_OPERATION,
+          "Warehouse " + newWarehouse.businessUnitCode + " is archived and cannot be replaced");
+    }
+
     // Location Validation
     Location location = locationResolver.resolveByIdentifier(newWarehouse.location);
     if (location == null) {
@@ -65,8 +77,7 @@ public class ReplaceWarehouseUseCase implements ReplaceWarehouseOperation {
     }
 
     // Capacity validation for location
-    WarehouseRepository repository = (WarehouseRepository) warehouseStore;
-    int currentTotalCapacity = repository.getTotalCapacityAtLocation(newWarehouse.location);
+    int currentTotalCapacity = locationOccupancy.occupancyAt(newWarehouse.location).totalCapacity();
 
     // If staying at same location, subtract old capacity
     if (newWarehouse.location.equals(oldWarehouse.location)) {
@@ -82,8 +93,8 @@ public class ReplaceWarehouseUseCase implements ReplaceWarehouseOperation {
               + location.maxCapacity);
     }
 
-    // All validations passed, update the warehouse
-    warehouseStore.update(newWarehouse);
+    // All validations passed, archive the old warehouse and create the new one in its place
+    warehouseStore.replace(newWarehouse);
 
     LOGGER.infof(
         "Successfully replaced warehouse with business unit code: %s",
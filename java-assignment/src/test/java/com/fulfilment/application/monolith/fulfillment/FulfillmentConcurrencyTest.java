@@ -0,0 +1,149 @@
+package com.fulfilment.application.monolith.fulfillment;
+
+import static io.restassured.RestAssured.given;
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.fulfilment.application.monolith.products.Product;
+import com.fulfilment.application.monolith.products.ProductRepository;
+import com.fulfilment.application.monolith.stores.Store;
+import com.fulfilment.application.monolith.warehouses.adapters.database.DbWarehouse;
+import com.fulfilment.application.monolith.warehouses.adapters.database.WarehouseRepository;
+import io.quarkus.test.junit.QuarkusTest;
+import io.restassured.http.ContentType;
+import jakarta.inject.Inject;
+import jakarta.transaction.Transactional;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Multi-threaded stress test for fulfillment creation.
+ *
+ * <p>Fires every (product, warehouse, store) combination concurrently and verifies that none of
+ * the three business constraints is exceeded in the database afterwards.
+ */
+@QuarkusTest
+public class FulfillmentConcurrencyTest {
+
+  private static final int THREADS = 16;
+  private static final int PRODUCTS = 8;
+  private static final int WAREHOUSES = 6;
+  private static final int STORES = 2;
+
+  @Inject ProductWarehouseFulfillmentRepository fulfillmentRepository;
+
+  @Inject ProductRepository productRepository;
+
+  @Inject WarehouseRepository warehouseRepository;
+
+  @Inject FulfillmentConstraintIndex constraintIndex;
+
+  private final String uniqueSuffix = System.currentTimeMillis() + "-CC";
+
+  private final List<Long> productIds = new ArrayList<>();
+  private final List<String> warehouseCodes = new ArrayList<>();
+  private final List<Long> storeIds = new ArrayList<>();
+
+  @BeforeEach
+  @Transactional
+  public void setupPerTestData() {
+    fulfillmentRepository.deleteAll();
+
+    for (int i = 0; i < PRODUCTS; i++) {
+      Product product = new Product("CC-P" + i + "-" + uniqueSuffix);
+      product.stock = 100;
+      productRepository.persist(product);
+      productIds.add(product.id);
+    }
+
+    for (int i = 0; i < WAREHOUSES; i++) {
+      DbWarehouse warehouse = new DbWarehouse();
+      warehouse.businessUnitCode = "WH-CC-" + i + "-" + uniqueSuffix;
+      warehouse.location = "Concurrency Location";
+      warehouse.capacity = 1000;
+      warehouse.stock = 100;
+      warehouse.createdAt = LocalDateTime.now();
+      warehouseRepository.persist(warehouse);
+      warehouseCodes.add(warehouse.businessUnitCode);
+    }
+
+    for (int i = 0; i < STORES; i++) {
+      Store store = new Store("CC-Store-" + i + "-" + uniqueSuffix);
+      store.persist();
+      storeIds.add(store.id);
+    }
+  }
+
+  @Test
+  @DisplayName("Concurrent creates never exceed any fulfillment constraint")
+  public void testConcurrentCreates_RespectAllConstraints() throws Exception {
+    List<FulfillmentRequest> requests = new ArrayList<>();
+    for (Long storeId : storeIds) {
+      for (Long productId : productIds) {
+        for (String warehouseCode : warehouseCodes) {
+          requests.add(new FulfillmentRequest(productId, warehouseCode, storeId));
+        }
+      }
+    }
+    Collections.shuffle(requests);
+
+    ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+    CountDownLatch start = new CountDownLatch(1);
+    List<Future<Integer>> statuses = new ArrayList<>();
+    try {
+      for (FulfillmentRequest request : requests) {
+        statuses.add(
+            executor.submit(
+                () -> {
+                  start.await();
+                  return given()
+                      .contentType(ContentType.JSON)
+                      .body(request)
+                      .when()
+                      .post("/api/fulfillment")
+                      .then()
+                      .extract()
+                      .statusCode();
+                }));
+      }
+      start.countDown();
+
+      int created = 0;
+      for (Future<Integer> status : statuses) {
+        int code = status.get(60, TimeUnit.SECONDS);
+        assertTrue(code == 201 || code == 400, "Unexpected status " + code);
+        if (code == 201) {
+          created++;
+        }
+      }
+      assertTrue(created > 0);
+    } finally {
+      executor.shutdownNow();
+    }
+
+    for (Long storeId : storeIds) {
+      assertTrue(fulfillmentRepository.countDistinctWarehousesForStore(storeId) <= 3);
+      for (Long productId : productIds) {
+        assertTrue(fulfillmentRepository.countWarehousesForProductInStore(productId, storeId) <= 2);
+      }
+      assertEquals(
+          fulfillmentRepository.countDistinctWarehousesForStore(storeId),
+          constraintIndex.countDistinctWarehousesForStore(storeId));
+    }
+    for (String warehouseCode : warehouseCodes) {
+      assertTrue(fulfillmentRepository.countDistinctProductsInWarehouse(warehouseCode) <= 5);
+      assertEquals(
+          fulfillmentRepository.countDistinctProductsInWarehouse(warehouseCode),
+          constraintIndex.countDistinctProductsInWarehouse(warehouseCode));
+    }
+  }
+}
@@ -0,0 +1,173 @@
+package com.fulfilment.application.monolith.fulfillment;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+import jakarta.transaction.Status;
+import jakarta.transaction.Synchronization;
+import jakarta.transaction.TransactionSynchronizationRegistry;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+/**
+ * Unit tests for FulfillmentConstraintIndex
+ *
+ * <p>Tests cover: - constraint counters for inserts and deletes - rollback compensation of inserts
+ * - deletes deferred until commit - rebuild from persisted keys
+ */
+class FulfillmentConstraintIndexTest {
+
+  private FulfillmentConstraintIndex index;
+  private TransactionSynchronizationRegistry mockRegistry;
+
+  @BeforeEach
+  void setUp() {
+    mockRegistry = mock(TransactionSynchronizationRegistry.class);
+    when(mockRegistry.getTransactionKey()).thenReturn(new Object());
+    index = new FulfillmentConstraintIndex();
+    index.syncRegistry = mockRegistry;
+  }
+
+  @Test
+  @DisplayName("Should track all three constraint counters on insert")
+  void testRecordInsert_UpdatesCounters() {
+    index.recordInsert(1L, "WH-1", 10L);
+    index.recordInsert(1L, "WH-2", 10L);
+    index.recordInsert(2L, "WH-1", 10L);
+
+    assertTrue(index.contains(1L, "WH-1", 10L));
+    assertFalse(index.contains(1L, "WH-1", 11L));
+    assertEquals(2, index.countWarehousesForProductInStore(1L, 10L));
+    assertEquals(1, index.countWarehousesForProductInStore(2L, 10L));
+    assertEquals(2, index.countDistinctWarehousesForStore(10L));
+    assertTrue(index.storeHasWarehouse(10L, "WH-2"));
+    assertEquals(2, index.countDistinctProductsInWarehouse("WH-1"));
+    assertTrue(index.warehouseHasProduct("WH-1", 2L));
+    assertFalse(index.warehouseHasProduct("WH-2", 2L));
+  }
+
+  @Test
+  @DisplayName("Should keep warehouse for store until its last association is deleted")
+  void testRecordDelete_KeepsSharedMembership() {
+    when(mockRegistry.getTransactionKey()).thenReturn(null);
+    index.recordInsert(1L, "WH-1", 10L);
+    index.recordInsert(2L, "WH-1", 10L);
+
+    index.recordDelete(1L, "WH-1", 10L);
+
+    assertTrue(index.storeHasWarehouse(10L, "WH-1"));
+    assertFalse(index.warehouseHasProduct("WH-1", 1L));
+    assertEquals(0, index.countWarehousesForProductInStore(1L, 10L));
+
+    index.recordDelete(2L, "WH-1", 10L);
+
+    assertEquals(0, index.countDistinctWarehousesForStore(10L));
+    assertEquals(0, index.countDistinctProductsInWarehouse("WH-1"));
+  }
+
+  @Test
+  @DisplayName("Should revert insert when transaction rolls back")
+  void testRecordInsert_RevertedOnRollback() {
+    ArgumentCaptor<Synchronization> syncCaptor = ArgumentCaptor.forClass(Synchronization.class);
+
+    index.recordInsert(1L, "WH-1", 10L);
+    verify(mockRegistry).registerInterposedSynchronization(syncCaptor.capture());
+    syncCaptor.getValue().afterCompletion(Status.STATUS_ROLLEDBACK);
+
+    assertFalse(index.contains(1L, "WH-1", 10L));
+    assertEquals(0, index.countDistinctWarehousesForStore(10L));
+  }
+
+  @Test
+  @DisplayName("Should keep insert when transaction commits")
+  void testRecordInsert_KeptOnCommit() {
+    ArgumentCaptor<Synchronization> syncCaptor = ArgumentCaptor.forClass(Synchronization.class);
+
+    index.recordInsert(1L, "WH-1", 10L);
+    verify(mockRegistry).registerInterposedSynchronization(syncCaptor.capture());
+    syncCaptor.getValue().afterCompletion(Status.STATUS_COMMITTED);
+
+    assertTrue(index.contains(1L, "WH-1", 10L));
+  }
+
+  @Test
+  @DisplayName("Should not register compensation for duplicate insert")
+  void testRecordInsert_DuplicateDoesNotRegisterCompensation() {
+    index.recordInsert(1L, "WH-1", 10L);
+    index.recordInsert(1L, "WH-1", 10L);
+
+    verify(mockRegistry, times(1)).registerInterposedSynchronization(any(Synchronization.class));
+    assertEquals(1, index.countWarehousesForProductInStore(1L, 10L));
+  }
+
+  @Test
+  @DisplayName("Should apply delete only when transaction commits")
+  void testRecordDelete_AppliedOnCommit() {
+    index.recordInsert(1L, "WH-1", 10L);
+    ArgumentCaptor<Synchronization> syncCaptor = ArgumentCaptor.forClass(Synchronization.class);
+
+    index.recordDelete(1L, "WH-1", 10L);
+    assertTrue(index.contains(1L, "WH-1", 10L));
+
+    verify(mockRegistry, times(2)).registerInterposedSynchronization(syncCaptor.capture());
+    syncCaptor.getValue().afterCompletion(Status.STATUS_COMMITTED);
+
+    assertFalse(index.contains(1L, "WH-1", 10L));
+  }
+
+  @Test
+  @DisplayName("Should ignore delete when transaction rolls back")
+  void testRecordDelete_IgnoredOnRollback() {
+    index.recordInsert(1L, "WH-1", 10L);
+    ArgumentCaptor<Synchronization> syncCaptor = ArgumentCaptor.forClass(Synchronization.class);
+
+    index.recordDelete(1L, "WH-1", 10L);
+
+    verify(mockRegistry, times(2)).registerInterposedSynchronization(syncCaptor.capture());
+    syncCaptor.getValue().afterCompletion(Status.STATUS_ROLLEDBACK);
+
+    assertTrue(index.contains(1L, "WH-1", 10L));
+  }
+
+  @Test
+  @DisplayName("Should remove only previously known associations when delete-all commits")
+  void testRecordDeleteAll_AppliedOnCommit() {
+    when(mockRegistry.getTransactionKey()).thenReturn(null);
+    index.recordInsert(1L, "WH-1", 10L);
+    index.recordInsert(2L, "WH-2", 11L);
+    when(mockRegistry.getTransactionKey()).thenReturn(new Object());
+    ArgumentCaptor<Synchronization> syncCaptor = ArgumentCaptor.forClass(Synchronization.class);
+
+    index.recordDeleteAll();
+    assertTrue(index.contains(1L, "WH-1", 10L));
+
+    verify(mockRegistry).registerInterposedSynchronization(syncCaptor.capture());
+    // Inserted by a concurrent transaction after the bulk delete was issued
+    when(mockRegistry.getTransactionKey()).thenReturn(null);
+    index.recordInsert(3L, "WH-3", 12L);
+    syncCaptor.getValue().afterCompletion(Status.STATUS_COMMITTED);
+
+    assertFalse(index.contains(1L, "WH-1", 10L));
+    assertFalse(index.contains(2L, "WH-2", 11L));
+    assertTrue(index.contains(3L, "WH-3", 12L));
+  }
+
+  @Test
+  @DisplayName("Should replace content on rebuild")
+  void testRebuild_ReplacesContent() {
+    index.recordInsert(1L, "WH-1", 10L);
+
+    index.rebuild(
+        List.of(
+            new ProductWarehouseFulfillmentId(2L, "WH-2", 10L),
+            new ProductWarehouseFulfillmentId(3L, "WH-2", 10L)));
+
+    assertFalse(index.contains(1L, "WH-1", 10L));
+    assertEquals(1, index.countDistinctWarehousesForStore(10L));
+    assertEquals(2, index.countDistinctProductsInWarehouse("WH-2"));
+  }
+}
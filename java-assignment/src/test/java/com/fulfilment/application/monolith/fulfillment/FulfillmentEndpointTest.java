@@ -5,13 +5,19 @@ import com.fulfilment.application.monolith.products.ProductRepository;
 import com.fulfilment.application.monolith.stores.Store;
 import com.fulfilment.application.monolith.warehouses.adapters.database.DbWarehouse;
 import com.fulfilment.application.monolith.warehouses.adapters.database.WarehouseRepository;
+import io.quarkus.narayana.jta.QuarkusTransaction;
 import io.quarkus.test.junit.QuarkusTest;
 import io.restassured.http.ContentType;
+import io.restassured.response.Response;
 import jakarta.inject.Inject;
 import jakarta.transaction.Transactional;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.*;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
 
 import static io.restassured.RestAssured.given;
 import static org.hamcrest.CoreMatchers.*;
@@ -33,6 +39,8 @@ public class FulfillmentEndpointTest {
   
   @Inject WarehouseRepository warehouseRepository;
 
+  @Inject SessionFactory sessionFactory;
+
   private static Long testProductId1;
   private static Long testProductId2;
   private static Long testProductId3;
@@ -599,4 +607,352 @@ public class FulfillmentEndpointTest {
         .statusCode(200)
         .body("$", hasSize(2));
   }
+
+  @Test
+  @Order(16)
+  public void testCreateFulfillmentBatch_ValidatesRowsAsSet() {
+    List<FulfillmentRequest> batch =
+        List.of(
+            new FulfillmentRequest(testProductId1, "WH-TEST-001", testStoreId1),
+            new FulfillmentRequest(testProductId1, "WH-TEST-002", testStoreId1),
+            // Third warehouse for the same product and store in the same batch
+            new FulfillmentRequest(testProductId1, "WH-TEST-003", testStoreId1),
+            // Duplicate of the first row
+            new FulfillmentRequest(testProductId1, "WH-TEST-001", testStoreId1),
+            new FulfillmentRequest(99999L, "WH-TEST-001", testStoreId1),
+            new FulfillmentRequest(testProductId2, "WH-TEST-003", testStoreId1),
+            // Fourth distinct warehouse for the store
+            new FulfillmentRequest(testProductId3, "WH-TEST-004", testStoreId1));
+
+    given()
+        .contentType(ContentType.JSON)
+        .body(batch)
+        .when()
+        .post("/api/fulfillment/batch")
+        .then()
+        .statusCode(200)
+        .body("created", equalTo(3))
+        .body("rejected", equalTo(4))
+        .body("results", hasSize(7))
+        .body("results[0].created", equalTo(true))
+        .body("results[1].created", equalTo(true))
+        .body("results[2].created", equalTo(false))
+        .body("results[2].error", containsString("already has 2 warehouses"))
+        .body("results[3].error", containsString("already exists"))
+        .body("results[4].error", containsString("does not exist"))
+        .body("results[5].created", equalTo(true))
+        .body("results[6].error", containsString("already has 3 different warehouses"));
+
+    given()
+        .when()
+        .get("/api/fulfillment/store/" + testStoreId1)
+        .then()
+        .statusCode(200)
+        .body("$", hasSize(3));
+  }
+
+  @Test
+  @Order(17)
+  public void testCreateFulfillmentBatch_EmptyBatch() {
+    given()
+        .contentType(ContentType.JSON)
+        .body(List.of())
+        .when()
+        .post("/api/fulfillment/batch")
+        .then()
+        .statusCode(400);
+  }
+
+  @Test
+  @Order(18)
+  public void testGetFulfillments_FixedStatementCountRegardlessOfSize() {
+    // Given: A single fulfillment for store1
+    createFulfillment(testProductId1, "WH-TEST-001", testStoreId1);
+    Statistics statistics = sessionFactory.getStatistics();
+
+    // When: Listing the store's fulfillments
+    statistics.clear();
+    given()
+        .when()
+        .get("/api/fulfillment/store/" + testStoreId1)
+        .then()
+        .statusCode(200)
+        .body("$", hasSize(1))
+        .body("[0].productName", equalTo("EP-P1-" + uniqueSuffix))
+        .body("[0].storeName", notNullValue());
+
+    // Then: Product and store names come from one joined statement
+    Assertions.assertEquals(1, statistics.getPrepareStatementCount());
+
+    // Given: Four more fulfillments with different products
+    createFulfillment(testProductId2, "WH-TEST-001", testStoreId1);
+    createFulfillment(testProductId3, "WH-TEST-002", testStoreId1);
+    createFulfillment(testProductId4, "WH-TEST-002", testStoreId1);
+    createFulfillment(testProductId5, "WH-TEST-003", testStoreId1);
+
+    // When/Then: The statement count does not grow with the result size
+    statistics.clear();
+    given()
+        .when()
+        .get("/api/fulfillment/store/" + testStoreId1)
+        .then()
+        .statusCode(200)
+        .body("$", hasSize(5));
+    Assertions.assertEquals(1, statistics.getPrepareStatementCount());
+
+    statistics.clear();
+    given().when().get("/api/fulfillment").then().statusCode(200).body("$", hasSize(5));
+    Assertions.assertEquals(1, statistics.getPrepareStatementCount());
+  }
+
+  @Test
+  @Order(19)
+  public void testGetAllFulfillments_KeysetPagination() {
+    // Given: Five fulfillments
+    createFulfillment(testProductId1, "WH-TEST-001", testStoreId1);
+    createFulfillment(testProductId1, "WH-TEST-002", testStoreId1);
+    createFulfillment(testProductId2, "WH-TEST-001", testStoreId1);
+    createFulfillment(testProductId2, "WH-TEST-001", testStoreId2);
+    createFulfillment(testProductId3, "WH-TEST-003", testStoreId1);
+
+    // When: Walking the pages with a page size of 2
+    List<String> keys = new ArrayList<>();
+    String cursor = null;
+    int pages = 0;
+    do {
+      Response page =
+          given()
+              .queryParam("limit", 2)
+              .queryParam("cursor", cursor != null ? cursor : "")
+              .when()
+              .get("/api/fulfillment");
+      Assertions.assertEquals(200, page.statusCode());
+      List<Object> productIds = page.jsonPath().getList("productId");
+      List<String> warehouses = page.jsonPath().getList("warehouseBusinessUnit");
+      List<Object> storeIds = page.jsonPath().getList("storeId");
+      for (int i = 0; i < productIds.size(); i++) {
+        keys.add(productIds.get(i) + "/" + warehouses.get(i) + "/" + storeIds.get(i));
+      }
+      cursor = page.header("X-Next-Cursor");
+      pages++;
+    } while (cursor != null);
+
+    // Then: Every row is returned exactly once, in key order
+    Assertions.assertEquals(3, pages);
+    Assertions.assertEquals(
+        List.of(
+            testProductId1 + "/WH-TEST-001/" + testStoreId1,
+            testProductId1 + "/WH-TEST-002/" + testStoreId1,
+            testProductId2 + "/WH-TEST-001/" + testStoreId1,
+            testProductId2 + "/WH-TEST-001/" + testStoreId2,
+            testProductId3 + "/WH-TEST-003/" + testStoreId1),
+        keys);
+  }
+
+  @Test
+  @Order(20)
+  public void testGetAllFulfillments_InvalidCursorOrLimit() {
+    given()
+        .queryParam("cursor", "not-a-cursor")
+        .when()
+        .get("/api/fulfillment")
+        .then()
+        .statusCode(400);
+    given().queryParam("limit", 0).when().get("/api/fulfillment").then().statusCode(400);
+  }
+
+  @Test
+  @Order(21)
+  public void testStreamAllFulfillments_Ndjson() {
+    // Given: Three fulfillments
+    createFulfillment(testProductId1, "WH-TEST-001", testStoreId1);
+    createFulfillment(testProductId2, "WH-TEST-002", testStoreId1);
+    createFulfillment(testProductId3, "WH-TEST-003", testStoreId2);
+
+    // When: Streaming all fulfillments
+    String body =
+        given()
+            .when()
+            .get("/api/fulfillment/stream")
+            .then()
+            .statusCode(200)
+            .contentType(containsString("application/x-ndjson"))
+            .extract()
+            .asString();
+
+    // Then: One JSON object per line, in key order
+    String[] lines = body.strip().split("\n");
+    Assertions.assertEquals(3, lines.length);
+    Assertions.assertTrue(lines[0].contains("\"productName\":\"EP-P1-" + uniqueSuffix + "\""));
+    Assertions.assertTrue(lines[2].contains("\"warehouseBusinessUnit\":\"WH-TEST-003\""));
+  }
+
+  @Test
+  @Order(22)
+  public void testGetBulkStats_ReflectsCreatesAndDeletes() {
+    // Given: Product1 in two stores through WH-TEST-001, product2 in store1 through WH-TEST-002
+    createFulfillment(testProductId1, "WH-TEST-001", testStoreId1);
+    createFulfillment(testProductId1, "WH-TEST-001", testStoreId2);
+    createFulfillment(testProductId2, "WH-TEST-002", testStoreId1);
+    createFulfillment(testProductId2, "WH-TEST-001", testStoreId1);
+    given()
+        .contentType(ContentType.JSON)
+        .body(new FulfillmentRequest(testProductId2, "WH-TEST-001", testStoreId1))
+        .when()
+        .delete("/api/fulfillment")
+        .then()
+        .statusCode(204);
+
+    // When: Requesting stats for both stores, product1 and two warehouses
+    FulfillmentStatsRequest request =
+        new FulfillmentStatsRequest(
+            List.of(testStoreId1, testStoreId2),
+            List.of(testProductId1),
+            List.of("WH-TEST-001", "WH-TEST-002"));
+
+    // Then: Every entry reflects the current data, in request order
+    given()
+        .contentType(ContentType.JSON)
+        .body(request)
+        .when()
+        .post("/api/fulfillment/stats")
+        .then()
+        .statusCode(200)
+        .body("stores", hasSize(2))
+        .body("stores[0].entityId", equalTo(testStoreId1.toString()))
+        .body("stores[0].currentCount", equalTo(2))
+        .body("stores[0].totalFulfillments", equalTo(2))
+        .body("stores[0].maxAllowed", equalTo(3))
+        .body("stores[1].currentCount", equalTo(1))
+        .body("products[0].currentCount", equalTo(1))
+        .body("products[0].totalFulfillments", equalTo(2))
+        .body("products[0].additionalCount", equalTo(2))
+        .body("warehouses[0].entityId", equalTo("WH-TEST-001"))
+        .body("warehouses[0].currentCount", equalTo(1))
+        .body("warehouses[0].totalFulfillments", equalTo(2))
+        .body("warehouses[0].maxAllowed", equalTo(5))
+        .body("warehouses[1].currentCount", equalTo(1))
+        .body("warehouses[1].canAddMore", equalTo(true));
+  }
+
+  @Test
+  @Order(23)
+  public void testGetWarehousesForProductInStore_FollowsChanges() {
+    // Given: Product1 fulfilled for store1 by two warehouses
+    createFulfillment(testProductId1, "WH-TEST-002", testStoreId1);
+    createFulfillment(testProductId1, "WH-TEST-001", testStoreId1);
+
+    // When/Then: Both warehouses are routed, in ascending order
+    String route = "/api/fulfillment/product/" + testProductId1 + "/store/" + testStoreId1;
+    given()
+        .when()
+        .get(route + "/warehouses")
+        .then()
+        .statusCode(200)
+        .body("productId", equalTo(testProductId1.intValue()))
+        .body("warehouseBusinessUnits", equalTo(List.of("WH-TEST-001", "WH-TEST-002")));
+
+    // When: One association is deleted
+    given()
+        .contentType(ContentType.JSON)
+        .body(new FulfillmentRequest(testProductId1, "WH-TEST-001", testStoreId1))
+        .when()
+        .delete("/api/fulfillment")
+        .then()
+        .statusCode(204);
+
+    // Then: Only the remaining warehouse is routed; unknown pairs route nowhere
+    given()
+        .when()
+        .get(route + "/warehouses")
+        .then()
+        .statusCode(200)
+        .body("warehouseBusinessUnits", equalTo(List.of("WH-TEST-002")));
+    given()
+        .when()
+        .get(
+            "/api/fulfillment/product/" + testProductId2 + "/store/" + testStoreId1 + "/warehouses")
+        .then()
+        .statusCode(200)
+        .body("warehouseBusinessUnits", hasSize(0));
+  }
+
+  @Test
+  @Order(24)
+  public void testCreateFulfillment_DuplicateUnknownToIndex_Returns400() {
+    // Given: An association written by another instance, which this instance's index never saw
+    QuarkusTransaction.requiringNew()
+        .run(
+            () ->
+                fulfillmentRepository
+                    .getEntityManager()
+                    .persist(
+                        new ProductWarehouseFulfillment(
+                            testProductId1, "WH-TEST-001", testStoreId1)));
+
+    // When/Then: Creating it again is reported as a duplicate instead of a server error
+    given()
+        .contentType(ContentType.JSON)
+        .body(new FulfillmentRequest(testProductId1, "WH-TEST-001", testStoreId1))
+        .when()
+        .post("/api/fulfillment")
+        .then()
+        .statusCode(400)
+        .body(containsString("already exists"));
+  }
+
+  @Test
+  @Order(25)
+  public void testCreateFulfillment_NullRowsAndArchivedWarehouses_AreRejected() {
+    // Given: A warehouse whose only version is archived
+    String archivedCode = "WH-ARCHIVED-" + uniqueSuffix;
+    QuarkusTransaction.requiringNew()
+        .run(
+            () -> {
+              DbWarehouse archived = new DbWarehouse();
+              archived.businessUnitCode = archivedCode;
+              archived.location = "Archived Location";
+              archived.capacity = 1000;
+              archived.stock = 0;
+              archived.createdAt = LocalDateTime.now().minusDays(1);
+              archived.archivedAt = LocalDateTime.now();
+              warehouseRepository.persist(archived);
+            });
+
+    // When/Then: A single create for the archived warehouse is rejected
+    given()
+        .contentType(ContentType.JSON)
+        .body(new FulfillmentRequest(testProductId1, archivedCode, testStoreId1))
+        .when()
+        .post("/api/fulfillment")
+        .then()
+        .statusCode(404);
+
+    // When/Then: In a batch, the null row and the archived warehouse are rejected per row
+    List<FulfillmentRequest> batch = new ArrayList<>();
+    batch.add(new FulfillmentRequest(testProductId1, "WH-TEST-001", testStoreId1));
+    batch.add(null);
+    batch.add(new FulfillmentRequest(testProductId2, archivedCode, testStoreId1));
+    given()
+        .contentType(ContentType.JSON)
+        .body(batch)
+        .when()
+        .post("/api/fulfillment/batch")
+        .then()
+        .statusCode(200)
+        .body("created", equalTo(1))
+        .body("rejected", equalTo(2))
+        .body("results[1].error", containsString("are required"))
+        .body("results[2].error", containsString("does not exist"));
+  }
+
+  private void createFulfillment(Long productId, String warehouseBusinessUnit, Long storeId) {
+    given()
+        .contentType(ContentType.JSON)
+        .body(new FulfillmentRequest(productId, warehouseBusinessUnit, storeId))
+        .when()
+        .post("/api/fulfillment")
+        .then()
+        .statusCode(201);
+  }
 }
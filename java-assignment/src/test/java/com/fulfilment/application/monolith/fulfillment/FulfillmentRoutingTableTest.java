@@ -0,0 +1,95 @@
+package com.fulfilment.application.monolith.fulfillment;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for FulfillmentRoutingTable
+ *
+ * <p>Tests cover: - sorted warehouse arrays per (product, store) - removal down to an empty pair -
+ * probe chains surviving deletes and resizes
+ */
+class FulfillmentRoutingTableTest {
+
+  private FulfillmentRoutingTable table;
+
+  @BeforeEach
+  void setUp() {
+    table = new FulfillmentRoutingTable();
+  }
+
+  @Test
+  @DisplayName("Should return warehouses sorted and without duplicates")
+  void testAdd_SortedAndDistinct() {
+    table.add(1L, 10L, "WH-B");
+    table.add(1L, 10L, "WH-A");
+    table.add(1L, 10L, "WH-B");
+    table.add(1L, 11L, "WH-C");
+
+    assertArrayEquals(new String[] {"WH-A", "WH-B"}, table.get(1L, 10L));
+    assertArrayEquals(new String[] {"WH-C"}, table.get(1L, 11L));
+    assertEquals(0, table.get(2L, 10L).length);
+    assertEquals(2, table.size());
+  }
+
+  @Test
+  @DisplayName("Should return the same array instance for repeated lookups")
+  void testGet_DoesNotAllocate() {
+    table.add(1L, 10L, "WH-A");
+
+    assertSame(table.get(1L, 10L), table.get(1L, 10L));
+    assertSame(table.get(5L, 5L), table.get(6L, 6L));
+  }
+
+  @Test
+  @DisplayName("Should drop the pair when its last warehouse is removed")
+  void testRemove_LastWarehouseRemovesPair() {
+    table.add(1L, 10L, "WH-A");
+    table.add(1L, 10L, "WH-B");
+
+    table.remove(1L, 10L, "WH-A");
+    assertArrayEquals(new String[] {"WH-B"}, table.get(1L, 10L));
+
+    table.remove(1L, 10L, "WH-B");
+    table.remove(1L, 10L, "WH-B");
+    assertEquals(0, table.get(1L, 10L).length);
+    assertEquals(0, table.size());
+  }
+
+  @Test
+  @DisplayName("Should keep every pair reachable across resizes and deletes")
+  void testManyPairs_ReachableAfterResizeAndDelete() {
+    int pairs = 5_000;
+    for (long i = 0; i < pairs; i++) {
+      table.add(i, i % 7, "WH-" + i);
+    }
+    for (long i = 0; i < pairs; i += 2) {
+      table.remove(i, i % 7, "WH-" + i);
+    }
+
+    assertEquals(pairs / 2, table.size());
+    for (long i = 0; i < pairs; i++) {
+      String[] warehouses = table.get(i, i % 7);
+      if (i % 2 == 0) {
+        assertEquals(0, warehouses.length, "pair " + i);
+      } else {
+        assertArrayEquals(new String[] {"WH-" + i}, warehouses, "pair " + i);
+      }
+    }
+  }
+
+  @Test
+  @DisplayName("Should be empty after clear")
+  void testClear_RemovesEverything() {
+    table.add(1L, 10L, "WH-A");
+    table.add(2L, 10L, "WH-A");
+
+    table.clear();
+
+    assertEquals(0, table.size());
+    assertEquals(0, table.get(1L, 10L).length);
+  }
+}
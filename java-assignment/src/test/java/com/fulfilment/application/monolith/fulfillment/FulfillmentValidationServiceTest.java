@@ -38,6 +38,8 @@ public class FulfillmentValidationServiceTest {
 
   @Inject WarehouseRepository warehouseRepository;
 
+  @Inject FulfillmentConstraintIndex constraintIndex;
+
   private String uniqueSuffix = String.valueOf(System.currentTimeMillis());
   
   private static Long testProductId1;
@@ -545,4 +547,24 @@ public class FulfillmentValidationServiceTest {
       validationService.validateFulfillmentCreation(testProductId1, testWarehouse1, testStoreId1);
     });
   }
+
+  @Test
+  @Order(36)
+  @DisplayName("Edge Case: Stale index entries are confirmed against the database")
+  public void testEdgeCase_StaleIndex_DoesNotReject() {
+    // Given: The index still holds associations that another instance has deleted
+    constraintIndex.add(testProductId1, testWarehouse1, testStoreId1);
+    constraintIndex.add(testProductId1, testWarehouse2, testStoreId1);
+    try {
+      // When: Validating a duplicate and a third warehouse according to the index
+      // Then: Both pass, because the database has neither association
+      assertDoesNotThrow(() -> {
+        validationService.validateFulfillmentCreation(testProductId1, testWarehouse1, testStoreId1);
+        validationService.validateFulfillmentCreation(testProductId1, testWarehouse3, testStoreId1);
+      });
+    } finally {
+      constraintIndex.remove(testProductId1, testWarehouse1, testStoreId1);
+      constraintIndex.remove(testProductId1, testWarehouse2, testStoreId1);
+    }
+  }
 }
@@ -1,13 +1,17 @@
 package com.fulfilment.application.monolith.fulfillment;
 
+import com.fulfilment.application.monolith.exceptions.BusinessValidationException;
+import com.fulfilment.application.monolith.fulfillment.FulfillmentCounter.Scope;
 import com.fulfilment.application.monolith.products.Product;
 import com.fulfilment.application.monolith.products.ProductRepository;
 import com.fulfilment.application.monolith.stores.Store;
+import com.fulfilment.application.monolith.warehouses.adapters.database.DbWarehouse;
 import io.quarkus.test.junit.QuarkusTest;
 import jakarta.inject.Inject;
 import jakarta.transaction.Transactional;
 import org.junit.jupiter.api.*;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -19,6 +23,7 @@ import static org.junit.jupiter.api.Assertions.*;
  * - CRUD operations
  * - Query methods (findByStoreId, findByProductId, etc.)
  * - Constraint checking methods (count methods)
+ * - Routable ids, limited to active warehouses
  * - Edge cases and boundary conditions
  */
 @QuarkusTest
@@ -27,6 +32,8 @@ public class ProductWarehouseFulfillmentRepositoryTest {
 
   @Inject ProductWarehouseFulfillmentRepository repository;
 
+  @Inject FulfillmentCounterRepository counterRepository;
+
   private static Long testProductId1;
   private static Long testProductId2;
   private static Long testProductId3;
@@ -324,12 +331,208 @@ public class ProductWarehouseFulfillmentRepositoryTest {
     assertEquals(3, count);
   }
 
+  @Test
+  @Order(23)
+  @DisplayName("Count: Load all constraint counters from their rows")
+  @Transactional
+  public void testLoadConstraintCounts_ReturnsAllCounters() {
+    // Given: Store1 served by 2 warehouses, WH-AGG-A holds 2 products
+    repository.persist(new ProductWarehouseFulfillment(testProductId1, "WH-AGG-A", testStoreId1));
+    repository.persist(new ProductWarehouseFulfillment(testProductId2, "WH-AGG-A", testStoreId1));
+    repository.persist(new ProductWarehouseFulfillment(testProductId1, "WH-AGG-B", testStoreId1));
+    repository.persist(new ProductWarehouseFulfillment(testProductId3, "WH-AGG-C", testStoreId2));
+
+    // When: Loading counters for product3 in WH-AGG-A for store1
+    FulfillmentConstraintCounts counts =
+        repository.loadConstraintCounts(testProductId3, "WH-AGG-A", testStoreId1);
+
+    // Then: Should reflect store1 and WH-AGG-A only
+    assertFalse(counts.exists);
+    assertEquals(0, counts.warehousesForProductInStore);
+    assertEquals(2, counts.distinctWarehousesForStore);
+    assertTrue(counts.warehouseAlreadyServesStore);
+    assertEquals(2, counts.distinctProductsInWarehouse);
+    assertFalse(counts.productAlreadyInWarehouse);
+  }
+
+  @Test
+  @Order(24)
+  @DisplayName("Count: Constraint counters for an existing association")
+  @Transactional
+  public void testLoadConstraintCounts_ExistingAssociation() {
+    // Given: Product1 served by 2 warehouses in store1
+    repository.persist(new ProductWarehouseFulfillment(testProductId1, "WH-AGG-A", testStoreId1));
+    repository.persist(new ProductWarehouseFulfillment(testProductId1, "WH-AGG-B", testStoreId1));
+
+    // When: Loading counters for an existing association
+    FulfillmentConstraintCounts counts =
+        repository.loadConstraintCounts(testProductId1, "WH-AGG-B", testStoreId1);
+
+    // Then: Should flag existence and count both warehouses
+    assertTrue(counts.exists);
+    assertEquals(2, counts.warehousesForProductInStore);
+    assertTrue(counts.productAlreadyInWarehouse);
+    assertEquals(1, counts.distinctProductsInWarehouse);
+  }
+
+  @Test
+  @Order(25)
+  @DisplayName("Count: Constraint counters with no data")
+  public void testLoadConstraintCounts_NoData_ReturnsZeros() {
+    // When: Loading counters for an empty relation
+    FulfillmentConstraintCounts counts =
+        repository.loadConstraintCounts(testProductId1, "WH-AGG-NONE", testStoreId1);
+
+    // Then: Everything should be zero
+    assertFalse(counts.exists);
+    assertEquals(0, counts.warehousesForProductInStore);
+    assertEquals(0, counts.distinctWarehousesForStore);
+    assertFalse(counts.warehouseAlreadyServesStore);
+    assertEquals(0, counts.distinctProductsInWarehouse);
+    assertFalse(counts.productAlreadyInWarehouse);
+  }
+
+  @Test
+  @Order(26)
+  @DisplayName("Counters: Persist beyond store limit is rejected")
+  @Transactional
+  public void testPersist_StoreWarehouseLimitExceeded_ThrowsException() {
+    // Given: Store1 already served by 3 warehouses
+    repository.persist(new ProductWarehouseFulfillment(testProductId1, "WH-CNT-A", testStoreId1));
+    repository.persist(new ProductWarehouseFulfillment(testProductId2, "WH-CNT-B", testStoreId1));
+    repository.persist(new ProductWarehouseFulfillment(testProductId3, "WH-CNT-C", testStoreId1));
+
+    // When/Then: A fourth warehouse for store1 is rejected
+    assertThrows(
+        BusinessValidationException.class,
+        () ->
+            repository.persist(
+                new ProductWarehouseFulfillment(testProductId3, "WH-CNT-D", testStoreId1)));
+
+    // And: No counter was left reserved by the rejected insert
+    assertEquals(3, repository.countDistinctWarehousesForStore(testStoreId1));
+    assertEquals(1, repository.countWarehousesForProductInStore(testProductId3, testStoreId1));
+    assertEquals(0, repository.countDistinctProductsInWarehouse("WH-CNT-D"));
+  }
+
+  @Test
+  @Order(27)
+  @DisplayName("Counters: Persist beyond product per store limit is rejected")
+  @Transactional
+  public void testPersist_ProductStoreLimitExceeded_ThrowsException() {
+    // Given: Product1 already served by 2 warehouses in store1
+    repository.persist(new ProductWarehouseFulfillment(testProductId1, "WH-CNT-A", testStoreId1));
+    repository.persist(new ProductWarehouseFulfillment(testProductId1, "WH-CNT-B", testStoreId1));
+
+    // When/Then: A third warehouse for product1 in store1 is rejected
+    assertThrows(
+        BusinessValidationException.class,
+        () ->
+            repository.persist(
+                new ProductWarehouseFulfillment(testProductId1, "WH-CNT-C", testStoreId1)));
+    assertEquals(2, repository.countWarehousesForProductInStore(testProductId1, testStoreId1));
+    assertEquals(2, repository.countDistinctWarehousesForStore(testStoreId1));
+  }
+
+  @Test
+  @Order(28)
+  @DisplayName("Counters: Delete releases distinct counts only with the last association")
+  @Transactional
+  public void testDelete_ReleasesCounters() {
+    // Given: WH-CNT-A serves product1 for both stores
+    ProductWarehouseFulfillment first =
+        new ProductWarehouseFulfillment(testProductId1, "WH-CNT-A", testStoreId1);
+    ProductWarehouseFulfillment second =
+        new ProductWarehouseFulfillment(testProductId1, "WH-CNT-A", testStoreId2);
+    repository.persist(first);
+    repository.persist(second);
+
+    // When: Deleting the store1 association
+    repository.delete(first);
+
+    // Then: Product1 still counts for WH-CNT-A, store1 no longer has the warehouse
+    assertEquals(1, repository.countDistinctProductsInWarehouse("WH-CNT-A"));
+    assertEquals(0, repository.countDistinctWarehousesForStore(testStoreId1));
+    assertEquals(0, repository.countWarehousesForProductInStore(testProductId1, testStoreId1));
+
+    // When: Deleting the last association
+    repository.delete(second);
+
+    // Then: The warehouse has no products anymore
+    assertEquals(0, repository.countDistinctProductsInWarehouse("WH-CNT-A"));
+  }
+
+  @Test
+  @Order(30)
+  @DisplayName("Counters: Backfill rebuilds every counter from the fulfillment rows")
+  @Transactional
+  public void testBackfill_RebuildsCounters() {
+    // Given: Associations whose counters were lost
+    repository.persist(new ProductWarehouseFulfillment(testProductId1, "WH-CNT-A", testStoreId1));
+    repository.persist(new ProductWarehouseFulfillment(testProductId1, "WH-CNT-B", testStoreId1));
+    repository.persist(new ProductWarehouseFulfillment(testProductId2, "WH-CNT-A", testStoreId2));
+    repository.flush();
+    counterRepository.deleteAll();
+
+    // When: Backfilling the counters
+    counterRepository.backfill();
+
+    // Then: The constraint and statistics counters match the associations
+    assertEquals(2, repository.countDistinctWarehousesForStore(testStoreId1));
+    assertEquals(2, repository.countWarehousesForProductInStore(testProductId1, testStoreId1));
+    assertEquals(2, repository.countDistinctProductsInWarehouse("WH-CNT-A"));
+    assertEquals(
+        1, counterRepository.current(Scope.STORE_WAREHOUSE_ROWS, testStoreId2 + ":WH-CNT-A"));
+    assertEquals(2, counterRepository.current(Scope.PRODUCT_WAREHOUSES, testProductId1.toString()));
+    assertEquals(1, counterRepository.current(Scope.PRODUCT_STORES, testProductId1.toString()));
+    assertEquals(2, counterRepository.current(Scope.PRODUCT_ROWS, testProductId1.toString()));
+
+    // And: Further writes continue from the rebuilt counts
+    assertThrows(
+        BusinessValidationException.class,
+        () ->
+            repository.persist(
+                new ProductWarehouseFulfillment(testProductId1, "WH-CNT-C", testStoreId1)));
+  }
+
+  @Test
+  @Order(29)
+  @DisplayName("Counters: Statistics deltas fold into their counters")
+  @Transactional
+  public void testFoldDeltas_KeepsStatistics() {
+    // Given: Two associations of store1, recorded as statistics deltas
+    repository.persist(new ProductWarehouseFulfillment(testProductId1, "WH-CNT-A", testStoreId1));
+    repository.persist(new ProductWarehouseFulfillment(testProductId2, "WH-CNT-A", testStoreId1));
+    assertEquals(2, counterRepository.current(Scope.STORE_ROWS, testStoreId1.toString()));
+
+    // When: Folding the deltas
+    int folded = counterRepository.foldDeltas(1000);
+
+    // Then: The statistics are unchanged and no delta is left
+    assertTrue(folded >= 8);
+    assertEquals(
+        0L,
+        counterRepository
+            .getEntityManager()
+            .createQuery("SELECT count(d) FROM FulfillmentCounterDelta d", Long.class)
+            .getSingleResult());
+    assertEquals(2, counterRepository.current(Scope.STORE_ROWS, testStoreId1.toString()));
+    assertEquals(2, counterRepository.current(Scope.WAREHOUSE_ROWS, "WH-CNT-A"));
+    assertEquals(1, counterRepository.current(Scope.PRODUCT_STORES, testProductId1.toString()));
+
+    // When: A later delete appends a new delta on top of the folded counter
+    repository.delete(new ProductWarehouseFulfillment(testProductId2, "WH-CNT-A", testStoreId1));
+
+    // Then: Both are added up
+    assertEquals(1, counterRepository.current(Scope.STORE_ROWS, testStoreId1.toString()));
+  }
+
   // ========================================================================
   // EXISTS METHOD TESTS
   // ========================================================================
 
   @Test
-  @Order(30)
+  @Order(35)
   @DisplayName("Exists: Returns true for existing fulfillment")
   @Transactional
   public void testExists_ExistingFulfillment_ReturnsTrue() {
@@ -345,7 +548,7 @@ public class ProductWarehouseFulfillmentRepositoryTest {
   }
 
   @Test
-  @Order(31)
+  @Order(36)
   @DisplayName("Exists: Returns false for non-existing fulfillment")
   public void testExists_NonExistingFulfillment_ReturnsFalse() {
     // When: Checking for non-existent fulfillment
@@ -355,6 +558,34 @@ public class ProductWarehouseFulfillmentRepositoryTest {
     assertFalse(exists);
   }
 
+  @Test
+  @Order(37)
+  @DisplayName("Routing: Only fulfillments of active warehouses are routable")
+  @Transactional
+  public void testFindRoutableIds_ExcludesArchivedAndUnknownWarehouses() {
+    // Given: Fulfillments of an active, an archived and an unknown warehouse
+    DbWarehouse archived = new DbWarehouse();
+    archived.businessUnitCode = "WH-ARCHIVED-" + uniqueSuffix;
+    archived.location = "Archived Location";
+    archived.capacity = 10;
+    archived.stock = 0;
+    archived.createdAt = LocalDateTime.now().minusDays(1);
+    archived.archivedAt = LocalDateTime.now();
+    repository.getEntityManager().persist(archived);
+    repository.persist(new ProductWarehouseFulfillment(testProductId1, "MWH.001", testStoreId1));
+    repository.persist(
+        new ProductWarehouseFulfillment(testProductId1, archived.businessUnitCode, testStoreId1));
+    repository.persist(new ProductWarehouseFulfillment(testProductId1, "WH-UNKNOWN", testStoreId2));
+
+    // When: Loading the routable ids
+    List<ProductWarehouseFulfillmentId> routable = repository.findRoutableIds();
+
+    // Then: Only the active warehouse is routed to
+    assertEquals(
+        List.of(new ProductWarehouseFulfillmentId(testProductId1, "MWH.001", testStoreId1)),
+        routable);
+  }
+
   // ========================================================================
   // EDGE CASES AND BOUNDARY CONDITIONS
   // ========================================================================
@@ -0,0 +1,42 @@
+package com.fulfilment.application.monolith.stores;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Local stand-in for the legacy store manager, which takes {@link #latencyMillis} per call and
+ * fails the first {@link #failures} calls, or every call while {@link #down}.
+ */
+class FakeLegacyStoreManager extends LegacyStoreManagerGateway {
+
+  volatile long latencyMillis;
+  final AtomicInteger failures = new AtomicInteger();
+  volatile boolean down;
+  final AtomicInteger calls = new AtomicInteger();
+  final AtomicInteger received = new AtomicInteger();
+
+  @Override
+  public void createStoreOnLegacySystem(Store store, String idempotencyKey) {
+    call();
+  }
+
+  @Override
+  public void updateStoreOnLegacySystem(Store store, String idempotencyKey) {
+    call();
+  }
+
+  private void call() {
+    calls.incrementAndGet();
+    if (latencyMillis > 0) {
+      try {
+        Thread.sleep(latencyMillis);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IllegalStateException("interrupted", e);
+      }
+    }
+    if (down || failures.getAndUpdate(left -> Math.max(left - 1, 0)) > 0) {
+      throw new IllegalStateException("legacy system down");
+    }
+    received.incrementAndGet();
+  }
+}
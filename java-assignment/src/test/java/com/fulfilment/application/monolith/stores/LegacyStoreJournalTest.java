@@ -0,0 +1,193 @@
+package com.fulfilment.application.monolith.stores;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Unit tests for LegacyStoreJournal
+ *
+ * <p>Tests cover: - append and replay in order - rollover to a new segment - concurrent appends
+ * with group commit - continuing after a clean reopen - starting a new segment after a torn record
+ * - refusing a second journal on the same directory
+ */
+class LegacyStoreJournalTest {
+
+  private static final int SEGMENT_SIZE = 256;
+
+  @TempDir Path directory;
+
+  @Test
+  @DisplayName("Should replay appended records in order")
+  void testAppend_ReplaysInOrder() throws IOException {
+    // Given
+    try (LegacyStoreJournal journal = new LegacyStoreJournal(directory, SEGMENT_SIZE, 4, 1)) {
+      // When
+      journal.append(bytes("first"));
+      journal.append(bytes("second"));
+    }
+
+    // Then
+    assertEquals(List.of("first", "second"), replay());
+  }
+
+  @Test
+  @DisplayName("Should start a new segment when a record does not fit")
+  void testAppend_RollsOver() throws IOException {
+    // Given - ten records of 40 bytes do not fit into one segment of 256
+    List<String> records = new ArrayList<>();
+    try (LegacyStoreJournal journal = new LegacyStoreJournal(directory, SEGMENT_SIZE, 1, 0)) {
+      // When
+      for (int i = 0; i < 10; i++) {
+        String record = String.format("record-%033d", i);
+        records.add(record);
+        journal.append(bytes(record));
+      }
+    }
+
+    // Then
+    assertTrue(segments().size() > 1);
+    assertEquals(records, replay());
+  }
+
+  @Test
+  @DisplayName("Should keep every record appended concurrently")
+  void testAppend_Concurrently() throws Exception {
+    // Given
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    Set<String> expected = new HashSet<>();
+    try (LegacyStoreJournal journal = new LegacyStoreJournal(directory, 4096, 16, 1)) {
+      // When
+      List<Future<?>> appends = new ArrayList<>();
+      for (int i = 0; i < 400; i++) {
+        String record = "record-" + i;
+        expected.add(record);
+        appends.add(
+            executor.submit(
+                () -> {
+                  journal.append(bytes(record));
+                  return null;
+                }));
+      }
+      for (Future<?> append : appends) {
+        append.get(10, TimeUnit.SECONDS);
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+
+    // Then
+    List<String> replayed = replay();
+    assertEquals(400, replayed.size());
+    assertEquals(expected, new HashSet<>(replayed));
+  }
+
+  @Test
+  @DisplayName("Should continue the last segment after a clean reopen")
+  void testOpen_ContinuesCleanSegment() throws IOException {
+    // Given
+    try (LegacyStoreJournal journal = new LegacyStoreJournal(directory, SEGMENT_SIZE, 1, 0)) {
+      journal.append(bytes("before"));
+    }
+
+    // When
+    try (LegacyStoreJournal journal = new LegacyStoreJournal(directory, SEGMENT_SIZE, 1, 0)) {
+      journal.append(bytes("after"));
+    }
+
+    // Then
+    assertEquals(1, segments().size());
+    assertEquals(List.of("before", "after"), replay());
+  }
+
+  @Test
+  @DisplayName("Should start a new segment after a torn record")
+  void testOpen_SkipsTornTail() throws IOException {
+    // Given - a record whose checksum does not match after the last complete one
+    try (LegacyStoreJournal journal = new LegacyStoreJournal(directory, SEGMENT_SIZE, 1, 0)) {
+      journal.append(bytes("kept"));
+    }
+    int end = LegacyStoreJournal.HEADER_BYTES + "kept".length();
+    try (FileChannel channel = FileChannel.open(segments().get(0), StandardOpenOption.WRITE)) {
+      ByteBuffer torn = ByteBuffer.allocate(LegacyStoreJournal.HEADER_BYTES + 4);
+      torn.putInt(4).putInt(42).put(bytes("torn")).flip();
+      channel.write(torn, end);
+    }
+
+    // When
+    try (LegacyStoreJournal journal = new LegacyStoreJournal(directory, SEGMENT_SIZE, 1, 0)) {
+      journal.append(bytes("next"));
+    }
+
+    // Then
+    assertEquals(2, segments().size());
+    assertEquals(List.of("kept", "next"), replay());
+  }
+
+  @Test
+  @DisplayName("Should refuse a second journal on a directory in use")
+  void testOpen_RejectsDirectoryInUse() throws IOException {
+    // Given
+    try (LegacyStoreJournal journal = new LegacyStoreJournal(directory, SEGMENT_SIZE, 1, 0)) {
+      journal.append(bytes("first"));
+
+      // When / Then - the second journal fails before touching a segment
+      IOException exception =
+          assertThrows(
+              IOException.class, () -> new LegacyStoreJournal(directory, SEGMENT_SIZE, 1, 0));
+      assertTrue(exception.getMessage().contains("already in use"));
+    }
+
+    // Then - the directory is free again once the first journal is closed
+    try (LegacyStoreJournal journal = new LegacyStoreJournal(directory, SEGMENT_SIZE, 1, 0)) {
+      journal.append(bytes("second"));
+    }
+    assertEquals(1, segments().size());
+    assertEquals(List.of("first", "second"), replay());
+  }
+
+  @Test
+  @DisplayName("Should reject a record larger than a segment")
+  void testAppend_RejectsOversizedRecord() throws IOException {
+    try (LegacyStoreJournal journal = new LegacyStoreJournal(directory, SEGMENT_SIZE, 1, 0)) {
+      assertThrows(
+          IllegalArgumentException.class, () -> journal.append(new byte[SEGMENT_SIZE]));
+    }
+  }
+
+  private List<String> replay() throws IOException {
+    List<String> records = Collections.synchronizedList(new ArrayList<>());
+    LegacyStoreJournal.replay(
+        directory, record -> records.add(new String(record, StandardCharsets.UTF_8)));
+    return records;
+  }
+
+  private List<Path> segments() throws IOException {
+    try (Stream<Path> files = Files.list(directory)) {
+      return files.filter(path -> path.toString().endsWith(".log")).sorted().toList();
+    }
+  }
+
+  private static byte[] bytes(String value) {
+    return value.getBytes(StandardCharsets.UTF_8);
+  }
+}
@@ -0,0 +1,252 @@
+package com.fulfilment.application.monolith.stores;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for LegacyStoreManagerResilience, against a {@link FakeLegacyStoreManager}
+ *
+ * <p>Tests cover: - retry with backoff until success - rethrowing after the last attempt - opening
+ * the circuit and failing fast - closing it after a successful trial call - reopening it after a
+ * failed one - slow calls cut off and opening the circuit - a cut off call keeping its bulkhead
+ * place until it returns - bulkhead rejection - backoff growth and cap
+ */
+class LegacyStoreManagerResilienceTest {
+
+  private static final Store STORE = new Store("Resilient store");
+
+  private LegacyStoreManagerResilience resilience;
+  private FakeLegacyStoreManager legacy;
+  private final AtomicLong nanos = new AtomicLong();
+  private ExecutorService executor;
+
+  @BeforeEach
+  void setUp() {
+    legacy = new FakeLegacyStoreManager();
+    resilience = new LegacyStoreManagerResilience();
+    resilience.maxAttempts = 3;
+    resilience.initialBackoffMillis = 1;
+    resilience.maxBackoffMillis = 4;
+    resilience.maxConcurrent = 1;
+    resilience.maxWaitMillis = 10;
+    resilience.failureThreshold = 3;
+    resilience.openMillis = 1000;
+    resilience.slowCallMillis = 50;
+    resilience.init();
+    executor = Executors.newSingleThreadExecutor();
+  }
+
+  @AfterEach
+  void tearDown() {
+    executor.shutdownNow();
+    resilience.close();
+  }
+
+  @Test
+  @DisplayName("Should retry a failed call until it succeeds")
+  void testExecute_RetriesUntilSuccess() {
+    // Given
+    legacy.failures.set(2);
+
+    // When
+    resilience.execute(this::send);
+
+    // Then
+    assertEquals(3, legacy.calls.get());
+    assertEquals(1, legacy.received.get());
+    LegacyStoreManagerStats stats = resilience.stats();
+    assertEquals(1, stats.succeeded());
+    assertEquals(2, stats.retried());
+    assertEquals(LegacyStoreManagerResilience.CircuitState.CLOSED, stats.circuit());
+  }
+
+  @Test
+  @DisplayName("Should rethrow the failure of the last attempt")
+  void testExecute_GivesUp() {
+    // Given
+    legacy.down = true;
+    resilience.failureThreshold = 10;
+
+    // When/Then
+    IllegalStateException failure =
+        assertThrows(IllegalStateException.class, () -> resilience.execute(this::send));
+    assertEquals("legacy system down", failure.getMessage());
+    assertEquals(3, legacy.calls.get());
+    assertEquals(1, resilience.stats().failed());
+  }
+
+  @Test
+  @DisplayName("Should open the circuit after consecutive failures and then fail fast")
+  void testExecute_OpensCircuit() {
+    // Given - three failed attempts reach the threshold
+    useManualClock();
+    legacy.down = true;
+    assertThrows(IllegalStateException.class, () -> resilience.execute(this::send));
+    assertEquals(LegacyStoreManagerResilience.CircuitState.OPEN, resilience.circuitState());
+
+    // When
+    nanos.addAndGet(TimeUnit.MILLISECONDS.toNanos(400));
+    LegacyCallRejectedException rejected =
+        assertThrows(LegacyCallRejectedException.class, () -> resilience.execute(this::send));
+
+    // Then - the legacy system is not called, and the rest of the open period is reported
+    assertEquals(3, legacy.calls.get());
+    assertEquals(Duration.ofMillis(600), rejected.getRetryAfter());
+    assertEquals(1, resilience.stats().shortCircuited());
+  }
+
+  @Test
+  @DisplayName("Should close the circuit after a successful trial call")
+  void testExecute_ClosesAfterTrial() {
+    // Given
+    useManualClock();
+    legacy.down = true;
+    assertThrows(IllegalStateException.class, () -> resilience.execute(this::send));
+
+    // When - the open period has passed and the legacy system is back
+    nanos.addAndGet(TimeUnit.MILLISECONDS.toNanos(1000));
+    legacy.down = false;
+    resilience.execute(this::send);
+
+    // Then
+    assertEquals(LegacyStoreManagerResilience.CircuitState.CLOSED, resilience.circuitState());
+    assertEquals(1, legacy.received.get());
+  }
+
+  @Test
+  @DisplayName("Should open the circuit again when the trial call fails")
+  void testExecute_ReopensAfterFailedTrial() {
+    // Given
+    useManualClock();
+    legacy.down = true;
+    assertThrows(IllegalStateException.class, () -> resilience.execute(this::send));
+
+    // When - the trial fails, and its retry finds the circuit open again
+    nanos.addAndGet(TimeUnit.MILLISECONDS.toNanos(1000));
+    assertThrows(LegacyCallRejectedException.class, () -> resilience.execute(this::send));
+
+    // Then
+    assertEquals(4, legacy.calls.get());
+    assertEquals(LegacyStoreManagerResilience.CircuitState.OPEN, resilience.circuitState());
+  }
+
+  @Test
+  @DisplayName("Should cut off slow calls and count them as failures for the circuit")
+  void testExecute_SlowCallsOpenCircuit() {
+    // Given - a legacy system that would answer, but slower than the threshold
+    legacy.latencyMillis = 5000;
+
+    // When
+    assertThrows(LegacyCallTimeoutException.class, () -> resilience.execute(this::send));
+
+    // Then - every attempt was interrupted before the legacy system answered
+    assertEquals(3, legacy.calls.get());
+    assertEquals(0, legacy.received.get());
+    assertEquals(3, resilience.stats().slow());
+    assertEquals(LegacyStoreManagerResilience.CircuitState.OPEN, resilience.circuitState());
+  }
+
+  @Test
+  @DisplayName("Should keep the bulkhead place of a cut off call until it returns")
+  void testExecute_CutOffCallHoldsBulkhead() {
+    // Given - a call that ignores being interrupted
+    resilience.maxAttempts = 1;
+    CountDownLatch release = new CountDownLatch(1);
+    assertThrows(
+        LegacyCallTimeoutException.class,
+        () -> resilience.execute(() -> awaitUninterruptibly(release)));
+
+    // When/Then - it still holds the only place
+    assertThrows(LegacyCallRejectedException.class, () -> resilience.execute(this::send));
+    assertEquals(1, resilience.stats().bulkheadRejected());
+
+    // And once it returns, calls go through again
+    release.countDown();
+    assertTimeoutPreemptively(
+        Duration.ofSeconds(5),
+        () -> {
+          while (true) {
+            try {
+              resilience.execute(this::send);
+              return;
+            } catch (LegacyCallRejectedException e) {
+              Thread.sleep(10);
+            }
+          }
+        });
+    assertEquals(1, legacy.received.get());
+  }
+
+  @Test
+  @DisplayName("Should reject a call when the bulkhead is full")
+  void testExecute_BulkheadFull() throws Exception {
+    // Given - the only permit is held by a call that does not return
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    Future<?> running =
+        executor.submit(
+            () ->
+                resilience.execute(
+                    () -> {
+                      started.countDown();
+                      awaitQuietly(release);
+                    }));
+    assertTrue(started.await(5, TimeUnit.SECONDS));
+
+    // When/Then
+    assertThrows(LegacyCallRejectedException.class, () -> resilience.execute(this::send));
+    assertEquals(0, legacy.calls.get());
+    assertEquals(1, resilience.stats().bulkheadRejected());
+    release.countDown();
+    running.get(5, TimeUnit.SECONDS);
+  }
+
+  @Test
+  @DisplayName("Should double the backoff up to its maximum")
+  void testBackoff_Capped() {
+    assertEquals(Duration.ofMillis(1), resilience.backoff(1));
+    assertEquals(Duration.ofMillis(2), resilience.backoff(2));
+    assertEquals(Duration.ofMillis(4), resilience.backoff(10));
+  }
+
+  private void send() {
+    legacy.updateStoreOnLegacySystem(STORE, "key");
+  }
+
+  private void useManualClock() {
+    resilience.nanoClock = nanos::get;
+  }
+
+  private static void awaitUninterruptibly(CountDownLatch latch) {
+    boolean interrupted = false;
+    while (latch.getCount() > 0) {
+      try {
+        latch.await();
+      } catch (InterruptedException e) {
+        interrupted = true;
+      }
+    }
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private static void awaitQuietly(CountDownLatch latch) {
+    try {
+      latch.await(10, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
@@ -11,8 +11,8 @@ import org.junit.jupiter.api.*;
 /**
  * Integration tests for Store REST API endpoints.
  *
- * <p>Tests CRUD operations with post-commit transaction callbacks via TransactionSyncService.
- * Verifies that legacy system integration happens only after successful database commits.
+ * <p>Tests CRUD operations. Changes reach the legacy system through the store outbox, which is
+ * covered by StoreOutboxTest.
  */
 @QuarkusTest
 @TestMethodOrder(MethodOrderer.OrderAnnotation.class)
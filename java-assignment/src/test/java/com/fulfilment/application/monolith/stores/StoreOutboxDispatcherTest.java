@@ -0,0 +1,238 @@
+package com.fulfilment.application.monolith.stores;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Executors;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.InOrder;
+import org.mockito.MockitoAnnotations;
+
+/**
+ * Unit tests for StoreOutboxDispatcher
+ *
+ * <p>Tests cover: - delivery in order per store - removal of delivered events - retry with backoff
+ * holding back later events of the store - collapsing of consecutive updates - postponing calls
+ * rejected by the resilience layer - dead-lettering after the last attempt - giving up on a batch
+ * that is not sent in time - backoff growth and cap
+ */
+class StoreOutboxDispatcherTest {
+
+  private static final LocalDateTime NOW = LocalDateTime.of(2025, 1, 1, 12, 0);
+
+  private StoreOutboxDispatcher dispatcher;
+  private StoreOutboxRepository mockOutbox;
+  private LegacyStoreManagerGateway mockGateway;
+
+  @Captor private ArgumentCaptor<Collection<Long>> deliveredCaptor;
+
+  @BeforeEach
+  void setUp() {
+    MockitoAnnotations.openMocks(this);
+    mockOutbox = mock(StoreOutboxRepository.class);
+    mockGateway = mock(LegacyStoreManagerGateway.class);
+    dispatcher = new StoreOutboxDispatcher();
+    dispatcher.outbox = mockOutbox;
+    dispatcher.legacyStoreManagerGateway = mockGateway;
+    dispatcher.batchSize = 10;
+    dispatcher.maxAttempts = 10;
+    dispatcher.resilience = passThrough();
+    dispatcher.workers = Executors.newFixedThreadPool(2);
+  }
+
+  @AfterEach
+  void tearDown() {
+    dispatcher.workers.shutdownNow();
+  }
+
+  @Test
+  @DisplayName("Should deliver the events of each store in order and remove them")
+  void testDispatch_DeliversInOrder() {
+    // Given
+    StoreOutboxEvent first = event(1L, 10L, StoreOutboxEvent.Type.CREATED);
+    StoreOutboxEvent other = event(2L, 20L, StoreOutboxEvent.Type.CREATED);
+    StoreOutboxEvent second = event(3L, 10L, StoreOutboxEvent.Type.UPDATED);
+    when(mockOutbox.claim(10, NOW, NOW.plus(StoreOutboxDispatcher.LEASE)))
+        .thenReturn(List.of(first, other, second));
+
+    // When
+    int claimed = dispatcher.dispatch(NOW);
+
+    // Then
+    assertEquals(3, claimed);
+    InOrder storeOrder = inOrder(mockGateway);
+    storeOrder.verify(mockGateway).createStoreOnLegacySystem(any(Store.class), eq("key-1"));
+    storeOrder.verify(mockGateway).updateStoreOnLegacySystem(any(Store.class), eq("key-3"));
+    verify(mockGateway).createStoreOnLegacySystem(any(Store.class), eq("key-2"));
+    assertEquals(List.of(1L, 2L, 3L), deliveredIds().stream().sorted().toList());
+    verify(mockOutbox, never()).retry(any(), any(), any());
+  }
+
+  @Test
+  @DisplayName("Should retry a failed event later and hold back the rest of its store")
+  void testDispatch_RetriesFailedEvent() {
+    // Given - the first event of store 10 fails
+    StoreOutboxEvent failing = event(1L, 10L, StoreOutboxEvent.Type.CREATED);
+    failing.attempts = 2;
+    StoreOutboxEvent other = event(2L, 20L, StoreOutboxEvent.Type.CREATED);
+    StoreOutboxEvent heldBack = event(3L, 10L, StoreOutboxEvent.Type.UPDATED);
+    when(mockOutbox.claim(anyInt(), any(), any())).thenReturn(List.of(failing, other, heldBack));
+    doThrow(new IllegalStateException("legacy system down"))
+        .when(mockGateway)
+        .createStoreOnLegacySystem(any(Store.class), eq("key-1"));
+
+    // When
+    dispatcher.dispatch(NOW);
+
+    // Then - third attempt retried after four seconds, the other store is unaffected
+    verify(mockOutbox).retry(eq(1L), eq(NOW.plusSeconds(4)), contains("legacy system down"));
+    verify(mockGateway, never()).updateStoreOnLegacySystem(any(), any());
+    assertEquals(List.of(2L), List.copyOf(deliveredIds()));
+  }
+
+  @Test
+  @DisplayName("Should send only the last of consecutive updates of a store")
+  void testDispatch_CollapsesUpdates() {
+    // Given - a creation followed by three updates of store 10
+    StoreOutboxEvent created = event(1L, 10L, StoreOutboxEvent.Type.CREATED);
+    StoreOutboxEvent first = event(2L, 10L, StoreOutboxEvent.Type.UPDATED);
+    StoreOutboxEvent second = event(3L, 10L, StoreOutboxEvent.Type.UPDATED);
+    StoreOutboxEvent last = event(4L, 10L, StoreOutboxEvent.Type.UPDATED);
+    last.quantityProductsInStock = 7;
+    when(mockOutbox.claim(anyInt(), any(), any()))
+        .thenReturn(List.of(created, first, second, last));
+
+    // When
+    dispatcher.dispatch(NOW);
+
+    // Then - the creation and the last update are sent, all four are removed
+    ArgumentCaptor<Store> sent = ArgumentCaptor.forClass(Store.class);
+    verify(mockGateway).createStoreOnLegacySystem(any(Store.class), eq("key-1"));
+    verify(mockGateway).updateStoreOnLegacySystem(sent.capture(), eq("key-4"));
+    verifyNoMoreInteractions(mockGateway);
+    assertEquals(7, sent.getValue().quantityProductsInStock);
+    assertEquals(List.of(1L, 2L, 3L, 4L), deliveredIds().stream().sorted().toList());
+    assertEquals(new StoreOutboxStats(2, 2, 0, 0), dispatcher.stats());
+  }
+
+  @Test
+  @DisplayName("Should postpone a call the circuit rejects without counting an attempt")
+  void testDispatch_PostponesRejectedCall() {
+    // Given - the circuit is open, with 20 seconds to go
+    StoreOutboxEvent event = event(1L, 10L, StoreOutboxEvent.Type.CREATED);
+    when(mockOutbox.claim(anyInt(), any(), any())).thenReturn(List.of(event));
+    dispatcher.resilience = mock(LegacyStoreManagerResilience.class);
+    doThrow(new LegacyCallRejectedException("circuit is open", Duration.ofSeconds(20)))
+        .when(dispatcher.resilience)
+        .execute(any());
+
+    // When
+    dispatcher.dispatch(NOW);
+
+    // Then
+    verify(mockOutbox).postpone(1L, NOW.plusSeconds(20));
+    verify(mockOutbox, never()).retry(any(), any(), any());
+    assertTrue(deliveredIds().isEmpty());
+  }
+
+  @Test
+  @DisplayName("Should dead-letter an event failing its last attempt and send the next one")
+  void testDispatch_DeadLetters() {
+    // Given - the first event of store 10 fails for the tenth time
+    StoreOutboxEvent failing = event(1L, 10L, StoreOutboxEvent.Type.CREATED);
+    failing.attempts = 9;
+    StoreOutboxEvent next = event(2L, 10L, StoreOutboxEvent.Type.UPDATED);
+    when(mockOutbox.claim(anyInt(), any(), any())).thenReturn(List.of(failing, next));
+    doThrow(new IllegalStateException("legacy system down"))
+        .when(mockGateway)
+        .createStoreOnLegacySystem(any(Store.class), eq("key-1"));
+
+    // When
+    dispatcher.dispatch(NOW);
+
+    // Then
+    verify(mockOutbox).deadLetter(eq(failing), contains("legacy system down"));
+    verify(mockOutbox, never()).retry(any(), any(), any());
+    verify(mockGateway).updateStoreOnLegacySystem(any(Store.class), eq("key-2"));
+    assertEquals(List.of(2L), List.copyOf(deliveredIds()));
+    assertEquals(1, dispatcher.stats().deadLettered());
+  }
+
+  @Test
+  @DisplayName("Should stop waiting for a batch that is not sent in time")
+  void testDispatch_BatchTimeout() throws Exception {
+    // Given - the legacy system hangs on one store but answers for the other
+    StoreOutboxEvent hanging = event(1L, 10L, StoreOutboxEvent.Type.CREATED);
+    StoreOutboxEvent answered = event(2L, 20L, StoreOutboxEvent.Type.CREATED);
+    when(mockOutbox.claim(anyInt(), any(), any())).thenReturn(List.of(hanging, answered));
+    doAnswer(
+            invocation -> {
+              Thread.sleep(10_000);
+              return null;
+            })
+        .when(mockGateway)
+        .createStoreOnLegacySystem(any(), eq("key-1"));
+    dispatcher.batchTimeout = Duration.ofMillis(200);
+
+    // When
+    assertTimeoutPreemptively(Duration.ofSeconds(5), () -> dispatcher.dispatch(NOW));
+
+    // Then - only the answered event is removed; the other is sent again later
+    assertEquals(List.of(2L), List.copyOf(deliveredIds()));
+  }
+
+  @Test
+  @DisplayName("Should do nothing when no event is due")
+  void testDispatch_NothingDue() {
+    when(mockOutbox.claim(anyInt(), any(), any())).thenReturn(List.of());
+
+    assertEquals(0, dispatcher.dispatch(NOW));
+
+    verifyNoInteractions(mockGateway);
+    verify(mockOutbox, never()).delivered(any());
+  }
+
+  @Test
+  @DisplayName("Should double the backoff up to its maximum")
+  void testBackoff_Capped() {
+    assertEquals(Duration.ofSeconds(1), StoreOutboxDispatcher.backoff(1));
+    assertEquals(Duration.ofSeconds(8), StoreOutboxDispatcher.backoff(4));
+    assertEquals(StoreOutboxDispatcher.MAX_BACKOFF, StoreOutboxDispatcher.backoff(30));
+  }
+
+  // One attempt per call and a circuit that never opens
+  private static LegacyStoreManagerResilience passThrough() {
+    LegacyStoreManagerResilience resilience = new LegacyStoreManagerResilience();
+    resilience.maxAttempts = 1;
+    resilience.maxConcurrent = Integer.MAX_VALUE;
+    resilience.failureThreshold = Integer.MAX_VALUE;
+    resilience.slowCallMillis = Long.MAX_VALUE;
+    resilience.init();
+    return resilience;
+  }
+
+  private Collection<Long> deliveredIds() {
+    verify(mockOutbox).delivered(deliveredCaptor.capture());
+    return deliveredCaptor.getValue();
+  }
+
+  private static StoreOutboxEvent event(Long id, Long storeId, StoreOutboxEvent.Type type) {
+    StoreOutboxEvent event = new StoreOutboxEvent();
+    event.id = id;
+    event.idempotencyKey = "key-" + id;
+    event.type = type;
+    event.storeId = storeId;
+    event.storeName = "Store " + storeId;
+    return event;
+  }
+}
@@ -0,0 +1,255 @@
+package com.fulfilment.application.monolith.stores;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.not;
+import static org.junit.jupiter.api.Assertions.*;
+
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.test.junit.QuarkusTest;
+import io.restassured.http.ContentType;
+import jakarta.inject.Inject;
+import java.time.LocalDateTime;
+import java.util.List;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Integration tests for the store outbox
+ *
+ * <p>Tests cover: - events delivered and removed after the change commits - no event for a rolled
+ * back change - later events of a store held back while an earlier one waits - expired leases
+ * claimed again - updates of a store sharing one coalescing window, and collapsed on delivery -
+ * dead letters listed and requeued under their idempotency key
+ */
+@QuarkusTest
+class StoreOutboxTest {
+
+  // Far enough ahead that the background dispatcher never finds these events due
+  private static final LocalDateTime LATER = LocalDateTime.of(2100, 1, 1, 0, 0);
+
+  @Inject StoreOutboxRepository outbox;
+
+  @Inject StoreOutboxDispatcher dispatcher;
+
+  @Test
+  @DisplayName("Should deliver a store change once it has committed")
+  void testCreateStore_DeliveredAfterCommit() throws InterruptedException {
+    // When
+    long storeId =
+        given()
+            .contentType(ContentType.JSON)
+            .body("{\"name\": \"Outbox " + System.nanoTime() % 1_000_000_000 + "\"}")
+            .when()
+            .post("/stores")
+            .then()
+            .statusCode(201)
+            .extract()
+            .jsonPath()
+            .getLong("id");
+
+    // Then - the dispatcher removes the event once the legacy system has it
+    long pending = pendingFor(storeId);
+    for (int i = 0; i < 100 && pending > 0; i++) {
+      Thread.sleep(100);
+      pending = pendingFor(storeId);
+    }
+    assertEquals(0, pending);
+    // And the dispatcher was woken up by an after-commit callback
+    given()
+        .when()
+        .get("/stores/outbox/after-commit/stats")
+        .then()
+        .statusCode(200)
+        .body("executed", greaterThanOrEqualTo(1));
+  }
+
+  @Test
+  @DisplayName("Should make the updates of a store due together at the end of one window")
+  void testEnqueue_UpdatesShareWindow() {
+    // Given
+    Store store = new Store("Outbox window");
+    store.id = -System.nanoTime();
+
+    // When - an update opens a window, held open until LATER, and another follows
+    StoreOutboxEvent first =
+        QuarkusTransaction.requiringNew()
+            .call(
+                () -> {
+                  StoreOutboxEvent event = outbox.enqueue(StoreOutboxEvent.Type.UPDATED, store);
+                  assertTrue(event.nextAttemptAt.isAfter(event.createdAt));
+                  event.nextAttemptAt = LATER;
+                  return event;
+                });
+    StoreOutboxEvent second =
+        QuarkusTransaction.requiringNew()
+            .call(() -> outbox.enqueue(StoreOutboxEvent.Type.UPDATED, store));
+
+    // Then - the second joins the window the first opened
+    assertEquals(LATER, second.nextAttemptAt);
+    outbox.delivered(List.of(first.id, second.id));
+  }
+
+  @Test
+  @DisplayName("Should send only the last of the updates made within the window")
+  void testUpdateStore_Collapsed() throws InterruptedException {
+    // Given
+    String name = "Outbox " + System.nanoTime() % 1_000_000_000;
+    long storeId =
+        given()
+            .contentType(ContentType.JSON)
+            .body("{\"name\": \"" + name + "\"}")
+            .when()
+            .post("/stores")
+            .then()
+            .statusCode(201)
+            .extract()
+            .jsonPath()
+            .getLong("id");
+    long collapsedBefore = dispatcher.stats().collapsed();
+
+    // When - an operator edits the store three times in a row
+    for (int stock = 1; stock <= 3; stock++) {
+      given()
+          .contentType(ContentType.JSON)
+          .body("{\"name\": \"" + name + "\", \"quantityProductsInStock\": " + stock + "}")
+          .when()
+          .put("/stores/" + storeId)
+          .then()
+          .statusCode(200);
+    }
+
+    // Then - all are removed once the window has passed, only the last update was sent
+    long pending = pendingFor(storeId);
+    for (int i = 0; i < 100 && pending > 0; i++) {
+      Thread.sleep(100);
+      pending = pendingFor(storeId);
+    }
+    assertEquals(0, pending);
+    assertTrue(dispatcher.stats().collapsed() >= collapsedBefore + 2);
+    given()
+        .when()
+        .get("/stores/outbox/stats")
+        .then()
+        .statusCode(200)
+        .body("collapsed", greaterThanOrEqualTo((int) collapsedBefore + 2));
+  }
+
+  @Test
+  @DisplayName("Should list a dead letter and send it again once requeued")
+  void testDeadLetter_Requeued() throws InterruptedException {
+    // Given - an event that failed its last attempt
+    long storeId = -System.nanoTime();
+    Long eventId = enqueueDueAtLater(StoreOutboxEvent.Type.CREATED, storeId);
+    StoreOutboxEvent event =
+        QuarkusTransaction.requiringNew().call(() -> outbox.findById(eventId));
+    outbox.deadLetter(event, "legacy system down");
+    assertEquals(0, pendingFor(storeId));
+    Long deadLetterId =
+        outbox.deadLetters().stream()
+            .filter(deadLetter -> deadLetter.storeId == storeId)
+            .findFirst()
+            .orElseThrow()
+            .id;
+    given()
+        .when()
+        .get("/stores/outbox/dead-letters")
+        .then()
+        .statusCode(200)
+        .body("idempotencyKey", hasItem(event.idempotencyKey));
+
+    // When
+    given()
+        .when()
+        .post("/stores/outbox/dead-letters/" + deadLetterId + "/requeue")
+        .then()
+        .statusCode(202);
+
+    // Then - it leaves the dead letters and is delivered from the outbox
+    given()
+        .when()
+        .get("/stores/outbox/dead-letters")
+        .then()
+        .statusCode(200)
+        .body("idempotencyKey", not(hasItem(event.idempotencyKey)));
+    long pending = pendingFor(storeId);
+    for (int i = 0; i < 100 && pending > 0; i++) {
+      Thread.sleep(100);
+      pending = pendingFor(storeId);
+    }
+    assertEquals(0, pending);
+    given()
+        .when()
+        .post("/stores/outbox/dead-letters/" + deadLetterId + "/requeue")
+        .then()
+        .statusCode(404);
+  }
+
+  @Test
+  @DisplayName("Should not keep an event of a rolled back change")
+  void testEnqueue_RolledBack() {
+    Store store = new Store("Rolled back");
+    store.id = -System.nanoTime();
+
+    assertThrows(
+        IllegalStateException.class,
+        () ->
+            QuarkusTransaction.requiringNew()
+                .run(
+                    () -> {
+                      outbox.enqueue(StoreOutboxEvent.Type.CREATED, store);
+                      throw new IllegalStateException("store change failed");
+                    }));
+
+    assertEquals(0, pendingFor(store.id));
+  }
+
+  @Test
+  @DisplayName("Should hold back later events of a store until the earlier one is delivered")
+  void testClaim_InStoreOrder() {
+    // Given - two events of one store and one of another, all due at LATER
+    long storeId = -System.nanoTime();
+    long otherStoreId = storeId - 1;
+    Long first = enqueueDueAtLater(StoreOutboxEvent.Type.CREATED, storeId);
+    Long second = enqueueDueAtLater(StoreOutboxEvent.Type.UPDATED, storeId);
+    Long other = enqueueDueAtLater(StoreOutboxEvent.Type.CREATED, otherStoreId);
+
+    // When - all three are leased, then the first fails
+    List<Long> claimed = ids(outbox.claim(1000, LATER, LATER.plusMinutes(1)));
+    assertTrue(claimed.containsAll(List.of(first, second, other)));
+    outbox.retry(first, LATER.plusMinutes(10), "legacy system down");
+
+    // Then - after the leases expire, only the other store's event is due again
+    List<Long> reclaimed = ids(outbox.claim(1000, LATER.plusMinutes(2), LATER.plusMinutes(3)));
+    assertTrue(reclaimed.contains(other));
+    assertFalse(reclaimed.contains(first));
+    assertFalse(reclaimed.contains(second));
+
+    // And once the first is due again, the store's events follow it in order
+    outbox.delivered(List.of(other));
+    List<Long> retried = ids(outbox.claim(1000, LATER.plusMinutes(10), LATER.plusMinutes(11)));
+    assertTrue(retried.indexOf(first) >= 0 && retried.indexOf(first) < retried.indexOf(second));
+    outbox.delivered(List.of(first, second));
+  }
+
+  private Long enqueueDueAtLater(StoreOutboxEvent.Type type, long storeId) {
+    Store store = new Store("Outbox store " + storeId);
+    store.id = storeId;
+    return QuarkusTransaction.requiringNew()
+        .call(
+            () -> {
+              StoreOutboxEvent event = outbox.enqueue(type, store);
+              event.nextAttemptAt = LATER;
+              return event.id;
+            });
+  }
+
+  private long pendingFor(long storeId) {
+    return QuarkusTransaction.requiringNew().call(() -> outbox.count("storeId", storeId));
+  }
+
+  private static List<Long> ids(List<StoreOutboxEvent> events) {
+    return events.stream().map(event -> event.id).toList();
+  }
+}
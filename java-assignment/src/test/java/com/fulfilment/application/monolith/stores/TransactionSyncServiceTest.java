@@ -7,6 +7,13 @@ import static org.mockito.Mockito.*;
 import jakarta.transaction.Status;
 import jakarta.transaction.Synchronization;
 import jakarta.transaction.TransactionSynchronizationRegistry;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -16,7 +23,8 @@ import org.mockito.ArgumentCaptor;
  * Unit tests for TransactionSyncService
  *
  * <p>Tests the service's behavior in coordinating transaction callbacks with the JTA transaction
- * manager.
+ * manager, inline and on the async executor: one synchronization per transaction, ordering,
+ * timeouts, rejection policies and counters.
  */
 class TransactionSyncServiceTest {
 
@@ -30,6 +38,11 @@ class TransactionSyncServiceTest {
     service.syncRegistry = mockRegistry;
   }
 
+  @AfterEach
+  void tearDown() {
+    service.onStop(null);
+  }
+
   @Test
   @DisplayName("Should register synchronization callback when executeAfterCommit is called")
   void testExecuteAfterCommit_RegistersCallback() {
@@ -141,4 +154,141 @@ class TransactionSyncServiceTest {
     Synchronization capturedSync = syncCaptor.getValue();
     assertThrows(RuntimeException.class, () -> capturedSync.afterCompletion(Status.STATUS_COMMITTED));
   }
+
+  @Test
+  @DisplayName("Should register one synchronization per transaction and run callbacks in order")
+  void testExecuteAfterCommit_OneSynchronizationPerTransaction() {
+    // Given - a registry keeping resources, as within one transaction
+    Map<Object, Object> resources = new HashMap<>();
+    doAnswer(invocation -> resources.put(invocation.getArgument(0), invocation.getArgument(1)))
+        .when(mockRegistry)
+        .putResource(any(), any());
+    when(mockRegistry.getResource(any()))
+        .thenAnswer(invocation -> resources.get(invocation.getArgument(0)));
+    List<String> order = new ArrayList<>();
+
+    // When
+    service.executeAfterCommit(() -> order.add("first"));
+    service.executeAfterCommit(() -> order.add("second"));
+
+    // Then
+    ArgumentCaptor<Synchronization> syncCaptor = ArgumentCaptor.forClass(Synchronization.class);
+    verify(mockRegistry).registerInterposedSynchronization(syncCaptor.capture());
+    syncCaptor.getValue().afterCompletion(Status.STATUS_COMMITTED);
+    assertEquals(List.of("first", "second"), order);
+    assertEquals(2, service.stats().executed());
+  }
+
+  @Test
+  @DisplayName("Should run callbacks on the executor in async mode")
+  void testExecuteAfterCommit_Async() throws InterruptedException {
+    // Given
+    startAsync(TransactionSyncService.Rejection.CALLER_RUNS);
+    CountDownLatch ran = new CountDownLatch(1);
+    String[] threadName = new String[1];
+
+    // When
+    commit(
+        () -> {
+          threadName[0] = Thread.currentThread().getName();
+          ran.countDown();
+        });
+
+    // Then
+    assertTrue(ran.await(5, TimeUnit.SECONDS));
+    assertTrue(threadName[0].startsWith("after-commit-"));
+  }
+
+  @Test
+  @DisplayName("Should interrupt a callback exceeding its timeout and run the next one")
+  void testExecuteAfterCommit_TimedOut() throws InterruptedException {
+    // Given
+    startAsync(TransactionSyncService.Rejection.CALLER_RUNS);
+    CountDownLatch next = new CountDownLatch(1);
+
+    // When - a callback that would block far longer than the timeout
+    commit(
+        () -> {
+          try {
+            Thread.sleep(60_000);
+          } catch (InterruptedException e) {
+            throw new IllegalStateException("interrupted", e);
+          }
+        },
+        next::countDown);
+
+    // Then
+    assertTrue(next.await(5, TimeUnit.SECONDS));
+    assertEquals(1, service.stats().timedOut());
+    assertEquals(1, service.stats().failed());
+  }
+
+  @Test
+  @DisplayName("Should drop the callbacks when the queue is full and the policy discards")
+  void testExecuteAfterCommit_Discarded() {
+    // Given - the only thread is busy and the queue of one is full
+    startAsync(TransactionSyncService.Rejection.DISCARD);
+    CountDownLatch release = new CountDownLatch(1);
+    commit(() -> awaitQuietly(release));
+    commit(() -> {});
+    Runnable dropped = mock(Runnable.class);
+
+    // When
+    commit(dropped);
+
+    // Then
+    verify(dropped, never()).run();
+    assertEquals(1, service.stats().rejected());
+    assertEquals(1, service.stats().queueDepth());
+    release.countDown();
+  }
+
+  @Test
+  @DisplayName("Should run the callbacks on the committing thread when the queue is full")
+  void testExecuteAfterCommit_CallerRuns() {
+    // Given - the only thread is busy and the queue of one is full
+    startAsync(TransactionSyncService.Rejection.CALLER_RUNS);
+    CountDownLatch release = new CountDownLatch(1);
+    commit(() -> awaitQuietly(release));
+    commit(() -> {});
+    String[] threadName = new String[1];
+
+    // When
+    commit(() -> threadName[0] = Thread.currentThread().getName());
+
+    // Then
+    assertEquals(Thread.currentThread().getName(), threadName[0]);
+    assertEquals(1, service.stats().rejected());
+    release.countDown();
+  }
+
+  private void startAsync(TransactionSyncService.Rejection rejection) {
+    service.poolSize = 1;
+    service.queueCapacity = 1;
+    service.timeoutMillis = 200;
+    service.rejection = rejection;
+    service.start();
+  }
+
+  // Registers the actions in a transaction of their own and commits it
+  private void commit(Runnable... actions) {
+    reset(mockRegistry);
+    for (Runnable action : actions) {
+      service.executeAfterCommit(action);
+    }
+    ArgumentCaptor<Synchronization> syncCaptor = ArgumentCaptor.forClass(Synchronization.class);
+    verify(mockRegistry, atLeastOnce()).registerInterposedSynchronization(syncCaptor.capture());
+    // Without resources kept by the mock, each action has its own synchronization
+    for (Synchronization sync : syncCaptor.getAllValues()) {
+      sync.afterCompletion(Status.STATUS_COMMITTED);
+    }
+  }
+
+  private static void awaitQuietly(CountDownLatch latch) {
+    try {
+      latch.await(10, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
 }
@@ -0,0 +1,64 @@
+package com.fulfilment.application.monolith.warehouses.adapters.database;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import com.fulfilment.application.monolith.warehouses.domain.models.Occupancy;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+
+/**
+ * Unit tests for ReservingLocationOccupancy
+ *
+ * <p>Tests cover: - reservation of the location before its occupancy is read - one aggregate
+ * query per lookup, with nothing cached
+ */
+class ReservingLocationOccupancyTest {
+
+  private ReservingLocationOccupancy occupancy;
+  private WarehouseRepository mockRepository;
+  private LocationReservationRepository mockReservations;
+
+  @BeforeEach
+  void setUp() {
+    mockRepository = mock(WarehouseRepository.class);
+    mockReservations = mock(LocationReservationRepository.class);
+    occupancy = new ReservingLocationOccupancy();
+    occupancy.warehouseRepository = mockRepository;
+    occupancy.reservationRepository = mockReservations;
+  }
+
+  @Test
+  @DisplayName("Should reserve the location before reading its occupancy")
+  void testOccupancyAt_ReservesBeforeReading() {
+    // Given: Two warehouses at the location
+    when(mockRepository.occupancyAt("AMSTERDAM-001")).thenReturn(new Occupancy(2, 40));
+
+    // When: Looking up the occupancy
+    Occupancy result = occupancy.occupancyAt("AMSTERDAM-001");
+
+    // Then: The location was reserved first
+    assertEquals(new Occupancy(2, 40), result);
+    InOrder inOrder = inOrder(mockReservations, mockRepository);
+    inOrder.verify(mockReservations).reserve("AMSTERDAM-001");
+    inOrder.verify(mockRepository).occupancyAt("AMSTERDAM-001");
+  }
+
+  @Test
+  @DisplayName("Should read the occupancy from the database on every lookup")
+  void testOccupancyAt_ReadsThrough() {
+    // Given: A location whose occupancy changes between lookups
+    when(mockRepository.occupancyAt("AMSTERDAM-001"))
+        .thenReturn(new Occupancy(2, 40), new Occupancy(3, 70));
+
+    // When: Looking it up twice
+    occupancy.occupancyAt("AMSTERDAM-001");
+    Occupancy second = occupancy.occupancyAt("AMSTERDAM-001");
+
+    // Then: The second lookup sees the change
+    assertEquals(new Occupancy(3, 70), second);
+    verify(mockRepository, times(2)).occupancyAt("AMSTERDAM-001");
+  }
+}
@@ -0,0 +1,152 @@
+package com.fulfilment.application.monolith.warehouses.adapters.database;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for StockDeltaBatcher
+ *
+ * <p>Tests cover: - single delta written alone - deltas queued behind a write combined into the
+ * next batch - per-delta results - writer failures reported to every caller of the batch -
+ * warehouses written independently
+ */
+class StockDeltaBatcherTest {
+
+  private final List<int[]> batches = Collections.synchronizedList(new ArrayList<>());
+  private final ExecutorService executor = Executors.newCachedThreadPool();
+
+  @AfterEach
+  void tearDown() {
+    executor.shutdownNow();
+  }
+
+  @Test
+  @DisplayName("Should write a lone delta as a batch of one")
+  void testSubmit_SingleDelta() {
+    StockDeltaBatcher batcher = new StockDeltaBatcher(this::acceptAll);
+
+    assertTrue(batcher.submit("MWH.001", 5));
+
+    assertEquals(1, batches.size());
+    assertArrayEquals(new int[] {5}, batches.get(0));
+  }
+
+  @Test
+  @DisplayName("Should combine deltas queued during a write into the next batch")
+  void testSubmit_CombinesQueuedDeltas() throws Exception {
+    // Given - the first write blocks until the other deltas are queued
+    CountDownLatch writing = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    StockDeltaBatcher batcher =
+        new StockDeltaBatcher(
+            (code, deltas) -> {
+              if (batches.isEmpty()) {
+                writing.countDown();
+                await(release);
+              }
+              return acceptAll(code, deltas);
+            });
+    Future<Boolean> first = executor.submit(() -> batcher.submit("MWH.001", 1));
+    assertTrue(writing.await(5, TimeUnit.SECONDS));
+
+    // When
+    List<Future<Boolean>> queued = new ArrayList<>();
+    for (int i = 0; i < 5; i++) {
+      queued.add(executor.submit(() -> batcher.submit("MWH.001", 2)));
+    }
+    Thread.sleep(200);
+    release.countDown();
+
+    // Then
+    assertTrue(first.get(5, TimeUnit.SECONDS));
+    for (Future<Boolean> result : queued) {
+      assertTrue(result.get(5, TimeUnit.SECONDS));
+    }
+    assertEquals(2, batches.size());
+    assertArrayEquals(new int[] {2, 2, 2, 2, 2}, batches.get(1));
+  }
+
+  @Test
+  @DisplayName("Should report the writer's result of each delta to its caller")
+  void testSubmit_ReportsPerDeltaResult() {
+    StockDeltaBatcher batcher =
+        new StockDeltaBatcher(
+            (code, deltas) -> {
+              boolean[] applied = new boolean[deltas.length];
+              for (int i = 0; i < deltas.length; i++) {
+                applied[i] = deltas[i] > 0;
+              }
+              return applied;
+            });
+
+    assertTrue(batcher.submit("MWH.001", 3));
+    assertFalse(batcher.submit("MWH.001", -3));
+  }
+
+  @Test
+  @DisplayName("Should rethrow a writer failure and keep accepting deltas afterwards")
+  void testSubmit_WriterFailure() {
+    StockDeltaBatcher batcher =
+        new StockDeltaBatcher(
+            (code, deltas) -> {
+              if (batches.isEmpty()) {
+                batches.add(deltas);
+                throw new IllegalStateException("database down");
+              }
+              return acceptAll(code, deltas);
+            });
+
+    IllegalStateException exception =
+        assertThrows(IllegalStateException.class, () -> batcher.submit("MWH.001", 1));
+    assertEquals("database down", exception.getMessage());
+    assertTrue(batcher.submit("MWH.001", 1));
+  }
+
+  @Test
+  @DisplayName("Should not hold back a warehouse while another one is being written")
+  void testSubmit_IndependentWarehouses() throws Exception {
+    CountDownLatch release = new CountDownLatch(1);
+    StockDeltaBatcher batcher =
+        new StockDeltaBatcher(
+            (code, deltas) -> {
+              if (code.equals("MWH.001")) {
+                await(release);
+              }
+              return acceptAll(code, deltas);
+            });
+    Future<Boolean> blocked = executor.submit(() -> batcher.submit("MWH.001", 1));
+
+    assertTrue(batcher.submit("MWH.012", 1));
+
+    release.countDown();
+    assertTrue(blocked.get(5, TimeUnit.SECONDS));
+  }
+
+  private synchronized boolean[] acceptAll(String businessUnitCode, int[] deltas) {
+    batches.add(deltas);
+    boolean[] applied = new boolean[deltas.length];
+    Arrays.fill(applied, true);
+    return applied;
+  }
+
+  private static void await(CountDownLatch latch) {
+    try {
+      assertTrue(latch.await(5, TimeUnit.SECONDS));
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException(e);
+    }
+  }
+}
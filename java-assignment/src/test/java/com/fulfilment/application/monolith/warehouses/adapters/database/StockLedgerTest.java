@@ -0,0 +1,119 @@
+package com.fulfilment.application.monolith.warehouses.adapters.database;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import java.time.LocalDateTime;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Integration tests for the stock movement ledger
+ *
+ * <p>Tests cover: - stock at a point in time from movements alone - no history before the first
+ * movement - compaction into snapshots every N settled movements - lookups unchanged by compaction
+ * - unsettled movements left out of snapshots
+ */
+@QuarkusTest
+class StockLedgerTest {
+
+  private static final LocalDateTime START = LocalDateTime.of(2025, 1, 1, 0, 0);
+
+  @Inject StockMovementRepository movements;
+
+  @Inject StockSnapshotRepository snapshots;
+
+  @Inject StockLedgerCompactor compactor;
+
+  private String businessUnitCode;
+
+  @BeforeEach
+  void setUp() {
+    businessUnitCode = "LEDGER-" + System.nanoTime();
+  }
+
+  @Test
+  @DisplayName("Should sum the movements up to the requested time")
+  void testStockAt_FromMovements() {
+    // Given - opening stock of 10, then +5 and -3 an hour apart
+    record(10, 5, -3);
+
+    // Then
+    assertNull(stockAt(START.minusMinutes(1)));
+    assertEquals(10, stockAt(START));
+    assertEquals(15, stockAt(START.plusMinutes(90)));
+    assertEquals(12, stockAt(START.plusHours(5)));
+  }
+
+  @Test
+  @DisplayName("Should fold every N settled movements into a snapshot")
+  void testCompact_WritesSnapshots() {
+    // Given - seven movements of +1
+    record(1, 1, 1, 1, 1, 1, 1);
+
+    // When - snapshots every three movements
+    compactor.compact(START.plusDays(1), 3);
+
+    // Then - two full snapshots, the seventh movement stays in the tail
+    StockSnapshot latest = QuarkusTransaction.requiringNew().call(() -> latestSnapshot());
+    assertNotNull(latest);
+    assertEquals(6, latest.stock);
+    assertEquals(START.plusHours(5), latest.takenAt);
+    assertEquals(
+        2L,
+        QuarkusTransaction.requiringNew()
+            .call(() -> snapshots.count("businessUnitCode", businessUnitCode)));
+
+    // And lookups give the same answers as before
+    assertNull(stockAt(START.minusMinutes(1)));
+    assertEquals(2, stockAt(START.plusHours(1)));
+    assertEquals(4, stockAt(START.plusHours(3)));
+    assertEquals(7, stockAt(START.plusHours(6)));
+  }
+
+  @Test
+  @DisplayName("Should leave movements newer than the settle time out of snapshots")
+  void testCompact_SkipsUnsettledMovements() {
+    // Given
+    record(1, 1, 1, 1);
+
+    // When - only the first two movements are settled
+    compactor.compact(START.plusMinutes(90), 2);
+
+    // Then
+    StockSnapshot latest = QuarkusTransaction.requiringNew().call(() -> latestSnapshot());
+    assertEquals(2, latest.stock);
+    assertEquals(4, stockAt(START.plusHours(3)));
+
+    // When - all of them have settled
+    compactor.compact(START.plusDays(1), 2);
+
+    // Then
+    latest = QuarkusTransaction.requiringNew().call(() -> latestSnapshot());
+    assertEquals(4, latest.stock);
+    assertEquals(4, stockAt(START.plusHours(3)));
+  }
+
+  // Records the deltas an hour apart, starting at START
+  private void record(int... deltas) {
+    QuarkusTransaction.requiringNew()
+        .run(
+            () -> {
+              for (int i = 0; i < deltas.length; i++) {
+                movements.record(businessUnitCode, deltas[i], START.plusHours(i));
+              }
+            });
+  }
+
+  private Integer stockAt(LocalDateTime at) {
+    return QuarkusTransaction.requiringNew()
+        .call(() -> movements.stockAt(businessUnitCode, at));
+  }
+
+  private StockSnapshot latestSnapshot() {
+    return snapshots.latest(businessUnitCode);
+  }
+}
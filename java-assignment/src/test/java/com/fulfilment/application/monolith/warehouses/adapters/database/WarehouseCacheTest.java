@@ -0,0 +1,184 @@
+package com.fulfilment.application.monolith.warehouses.adapters.database;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+import com.fulfilment.application.monolith.warehouses.domain.models.Warehouse;
+import jakarta.transaction.Status;
+import jakarta.transaction.Synchronization;
+import jakarta.transaction.TransactionSynchronizationRegistry;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+/**
+ * Unit tests for WarehouseCache
+ *
+ * <p>Tests cover: - hits, misses and negative caching - archived warehouses not cached - copies
+ * isolated from the cache - invalidation now and after completion - read-through in a writing
+ * transaction - least recently used eviction - expiry after the time to live
+ */
+class WarehouseCacheTest {
+
+  private WarehouseCache cache;
+  private TransactionSynchronizationRegistry mockRegistry;
+  private final Map<Object, Object> resources = new HashMap<>();
+  private final AtomicInteger loads = new AtomicInteger();
+
+  @BeforeEach
+  void setUp() {
+    mockRegistry = mock(TransactionSynchronizationRegistry.class);
+    when(mockRegistry.getResource(any())).thenAnswer(call -> resources.get(call.getArgument(0)));
+    doAnswer(call -> resources.put(call.getArgument(0), call.getArgument(1)))
+        .when(mockRegistry)
+        .putResource(any(), any());
+    cache = new WarehouseCache();
+    cache.syncRegistry = mockRegistry;
+  }
+
+  @Test
+  @DisplayName("Should load a code once and serve later lookups from the cache")
+  void testGet_CachesLoadedWarehouse() {
+    Warehouse first = cache.get("MWH.001", loader(warehouse("MWH.001", null)));
+    Warehouse second = cache.get("MWH.001", loader(warehouse("MWH.001", null)));
+
+    assertEquals("MWH.001", second.businessUnitCode);
+    assertNotSame(first, second);
+    assertEquals(1, loads.get());
+    WarehouseCacheStats stats = cache.stats();
+    assertEquals(1, stats.hits());
+    assertEquals(1, stats.misses());
+    assertEquals(1, stats.size());
+  }
+
+  @Test
+  @DisplayName("Should cache unknown codes as misses")
+  void testGet_NegativeCaching() {
+    assertNull(cache.get("UNKNOWN", loader(null)));
+    assertNull(cache.get("UNKNOWN", loader(null)));
+
+    assertEquals(1, loads.get());
+    assertEquals(1, cache.stats().negativeHits());
+  }
+
+  @Test
+  @DisplayName("Should not cache archived warehouses")
+  void testGet_ArchivedNotCached() {
+    Warehouse archived = warehouse("MWH.001", LocalDateTime.now());
+
+    cache.get("MWH.001", loader(archived));
+    cache.get("MWH.001", loader(archived));
+
+    assertEquals(2, loads.get());
+  }
+
+  @Test
+  @DisplayName("Should keep the cached value intact when the caller modifies its copy")
+  void testGet_ReturnsCopies() {
+    cache.get("MWH.001", loader(warehouse("MWH.001", null))).stock = 99;
+
+    assertEquals(10, cache.get("MWH.001", loader(null)).stock);
+  }
+
+  @Test
+  @DisplayName("Should drop an invalidated code now and when the transaction completes")
+  void testInvalidate_DropsEntryTwice() {
+    cache.get("MWH.001", loader(warehouse("MWH.001", null)));
+    when(mockRegistry.getTransactionKey()).thenReturn(new Object());
+    ArgumentCaptor<Synchronization> syncCaptor = ArgumentCaptor.forClass(Synchronization.class);
+
+    cache.invalidate("MWH.001");
+    verify(mockRegistry).registerInterposedSynchronization(syncCaptor.capture());
+
+    // Another transaction caches the value committed before the write
+    when(mockRegistry.getTransactionKey()).thenReturn(null);
+    cache.get("MWH.001", loader(warehouse("MWH.001", null)));
+    syncCaptor.getValue().afterCompletion(Status.STATUS_COMMITTED);
+    cache.get("MWH.001", loader(warehouse("MWH.001", null)));
+
+    assertEquals(3, loads.get());
+    assertEquals(1, cache.stats().invalidations());
+  }
+
+  @Test
+  @DisplayName("Should read through without caching inside a transaction that wrote warehouses")
+  void testGet_ReadsThroughInWritingTransaction() {
+    cache.get("MWH.001", loader(warehouse("MWH.001", null)));
+    when(mockRegistry.getTransactionKey()).thenReturn(new Object());
+
+    cache.invalidate("MWH.002");
+    cache.get("MWH.001", loader(warehouse("MWH.001", null)));
+    cache.get("MWH.003", loader(null));
+    resources.clear();
+    cache.get("MWH.003", loader(null));
+
+    assertEquals(4, loads.get());
+  }
+
+  @Test
+  @DisplayName("Should evict the least recently used code when full")
+  void testGet_EvictsLeastRecentlyUsed() {
+    for (int i = 0; i < WarehouseCache.MAX_ENTRIES; i++) {
+      cache.get("MWH." + i, loader(null));
+    }
+    // Touch the eldest entry so that the next one is evicted instead
+    cache.get("MWH.0", loader(null));
+
+    cache.get("MWH.NEW", loader(null));
+
+    assertEquals(WarehouseCache.MAX_ENTRIES, cache.stats().size());
+    assertEquals(1, cache.stats().evictions());
+    int loadsBefore = loads.get();
+    cache.get("MWH.0", loader(null));
+    cache.get("MWH.1", loader(null));
+    assertEquals(loadsBefore + 1, loads.get());
+  }
+
+  @Test
+  @DisplayName("Should reload a code, including a cached miss, once its entry has expired")
+  void testGet_ExpiresAfterTimeToLive() {
+    AtomicLong now = new AtomicLong();
+    cache.clock = now::get;
+    cache.get("MWH.001", loader(warehouse("MWH.001", null)));
+    cache.get("UNKNOWN", loader(null));
+
+    // Still fresh just before the time to live has passed
+    now.set(TimeUnit.MILLISECONDS.toNanos(WarehouseCache.TTL_MILLIS) - 1);
+    cache.get("MWH.001", loader(warehouse("MWH.001", null)));
+    cache.get("UNKNOWN", loader(null));
+    assertEquals(2, loads.get());
+
+    // Another instance created UNKNOWN in the meantime
+    now.set(TimeUnit.MILLISECONDS.toNanos(WarehouseCache.TTL_MILLIS));
+    cache.get("MWH.001", loader(warehouse("MWH.001", null)));
+    assertNotNull(cache.get("UNKNOWN", loader(warehouse("UNKNOWN", null))));
+    assertEquals(4, loads.get());
+  }
+
+  private Function<String, Warehouse> loader(Warehouse result) {
+    return code -> {
+      loads.incrementAndGet();
+      return result;
+    };
+  }
+
+  private static Warehouse warehouse(String businessUnitCode, LocalDateTime archivedAt) {
+    Warehouse warehouse = new Warehouse();
+    warehouse.id = 1L;
+    warehouse.businessUnitCode = businessUnitCode;
+    warehouse.location = "AMSTERDAM-001";
+    warehouse.capacity = 50;
+    warehouse.stock = 10;
+    warehouse.archivedAt = archivedAt;
+    return warehouse;
+  }
+}
@@ -0,0 +1,226 @@
+package com.fulfilment.application.monolith.warehouses.adapters.restapi;
+
+import static io.restassured.RestAssured.given;
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.fulfilment.application.monolith.warehouses.adapters.database.DbWarehouse;
+import com.fulfilment.application.monolith.warehouses.adapters.database.WarehouseRepository;
+import com.fulfilment.application.monolith.warehouses.domain.models.Occupancy;
+import io.quarkus.test.junit.QuarkusTest;
+import io.restassured.http.ContentType;
+import jakarta.inject.Inject;
+import jakarta.transaction.Transactional;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Multi-threaded stress test for warehouse creation and stock adjustment.
+ *
+ * <p>Fires more creates at one location than it can hold, singly and in batches, and more stock
+ * than a warehouse can hold, and verifies that exactly as many succeed as the limits allow.
+ */
+@QuarkusTest
+public class WarehouseConcurrencyTest {
+
+  // AMSTERDAM-002 has maxNumberOfWarehouses of 3 and maxCapacity of 75
+  private static final String LOCATION = "AMSTERDAM-002";
+  private static final int CAPACITY = 20;
+  private static final int REQUESTS = 10;
+
+  @Inject WarehouseRepository warehouseRepository;
+
+  private final String uniqueSuffix = System.currentTimeMillis() + "-WC";
+
+  @BeforeEach
+  @AfterEach
+  @Transactional
+  public void archiveWarehousesAtLocation() {
+    for (DbWarehouse warehouse :
+        warehouseRepository.list("location = ?1 and archivedAt is null", LOCATION)) {
+      warehouse.archivedAt = LocalDateTime.now();
+      warehouseRepository.persist(warehouse);
+    }
+  }
+
+  @Test
+  @DisplayName("Concurrent creates at one location never exceed its limits")
+  public void testConcurrentCreates_RespectLocationLimits() throws Exception {
+    ExecutorService executor = Executors.newFixedThreadPool(REQUESTS);
+    CountDownLatch start = new CountDownLatch(1);
+    List<Future<Integer>> statuses = new ArrayList<>();
+    try {
+      for (int i = 0; i < REQUESTS; i++) {
+        String requestBody =
+            "{"
+                + "\"businessUnitCode\": \"WC-"
+                + i
+                + "-"
+                + uniqueSuffix
+                + "\","
+                + "\"location\": \""
+                + LOCATION
+                + "\","
+                + "\"capacity\": "
+                + CAPACITY
+                + ","
+                + "\"stock\": 5"
+                + "}";
+        statuses.add(
+            executor.submit(
+                () -> {
+                  start.await();
+                  return given()
+                      .contentType(ContentType.JSON)
+                      .body(requestBody)
+                      .when()
+                      .post("/warehouse")
+                      .then()
+                      .extract()
+                      .statusCode();
+                }));
+      }
+      start.countDown();
+
+      int created = 0;
+      for (Future<Integer> status : statuses) {
+        int code = status.get(60, TimeUnit.SECONDS);
+        assertTrue(code == 200 || code == 400, "Unexpected status " + code);
+        if (code == 200) {
+          created++;
+        }
+      }
+      assertEquals(3, created);
+    } finally {
+      executor.shutdownNow();
+    }
+
+    Occupancy occupancy = warehouseRepository.occupancyAt(LOCATION);
+    assertEquals(3, occupancy.activeWarehouses());
+    assertEquals(3 * CAPACITY, occupancy.totalCapacity());
+  }
+
+  @Test
+  @DisplayName("Concurrent batch creates at one location never exceed its limits")
+  public void testConcurrentBatchCreates_RespectLocationLimits() throws Exception {
+    int batches = 4;
+    ExecutorService executor = Executors.newFixedThreadPool(batches);
+    CountDownLatch start = new CountDownLatch(1);
+    List<Future<Integer>> createdCounts = new ArrayList<>();
+    try {
+      for (int b = 0; b < batches; b++) {
+        // Two warehouses per batch, so that no batch alone fills the location
+        String requestBody =
+            "["
+                + batchWarehouse("WCB-" + b + "-0-" + uniqueSuffix)
+                + ","
+                + batchWarehouse("WCB-" + b + "-1-" + uniqueSuffix)
+                + "]";
+        createdCounts.add(
+            executor.submit(
+                () -> {
+                  start.await();
+                  return given()
+                      .contentType(ContentType.JSON)
+                      .body(requestBody)
+                      .when()
+                      .post("/warehouse/batch")
+                      .then()
+                      .statusCode(200)
+                      .extract()
+                      .jsonPath()
+                      .getInt("created");
+                }));
+      }
+      start.countDown();
+
+      int created = 0;
+      for (Future<Integer> count : createdCounts) {
+        created += count.get(60, TimeUnit.SECONDS);
+      }
+      assertEquals(3, created);
+    } finally {
+      executor.shutdownNow();
+    }
+
+    Occupancy occupancy = warehouseRepository.occupancyAt(LOCATION);
+    assertEquals(3, occupancy.activeWarehouses());
+    assertEquals(3 * CAPACITY, occupancy.totalCapacity());
+  }
+
+  private static String batchWarehouse(String businessUnitCode) {
+    return "{\"businessUnitCode\": \""
+        + businessUnitCode
+        + "\", \"location\": \""
+        + LOCATION
+        + "\", \"capacity\": "
+        + CAPACITY
+        + ", \"stock\": 5}";
+  }
+
+  @Test
+  @DisplayName("Concurrent stock adjustments never exceed the warehouse capacity")
+  public void testConcurrentStockAdjustments_RespectCapacity() throws Exception {
+    String businessUnitCode = "WC-STOCK-" + uniqueSuffix;
+    given()
+        .contentType(ContentType.JSON)
+        .body(
+            "{\"businessUnitCode\": \""
+                + businessUnitCode
+                + "\", \"location\": \""
+                + LOCATION
+                + "\", \"capacity\": "
+                + CAPACITY
+                + ", \"stock\": 0}")
+        .when()
+        .post("/warehouse")
+        .then()
+        .statusCode(200);
+
+    int adjustments = CAPACITY * 3;
+    ExecutorService executor = Executors.newFixedThreadPool(16);
+    CountDownLatch start = new CountDownLatch(1);
+    List<Future<Integer>> statuses = new ArrayList<>();
+    try {
+      for (int i = 0; i < adjustments; i++) {
+        statuses.add(
+            executor.submit(
+                () -> {
+                  start.await();
+                  return given()
+                      .contentType(ContentType.JSON)
+                      .body("{\"delta\": 1}")
+                      .when()
+                      .post("/warehouse/" + businessUnitCode + "/stock")
+                      .then()
+                      .extract()
+                      .statusCode();
+                }));
+      }
+      start.countDown();
+
+      int applied = 0;
+      for (Future<Integer> status : statuses) {
+        int code = status.get(60, TimeUnit.SECONDS);
+        assertTrue(code == 200 || code == 400, "Unexpected status " + code);
+        if (code == 200) {
+          applied++;
+        }
+      }
+      assertEquals(CAPACITY, applied);
+    } finally {
+      executor.shutdownNow();
+    }
+
+    assertEquals(CAPACITY, warehouseRepository.findByBusinessUnitCode(businessUnitCode).stock);
+  }
+}
@@ -7,6 +7,7 @@ import static org.hamcrest.Matchers.*;
 import io.quarkus.test.junit.QuarkusTest;
 import io.restassured.http.ContentType;
 import io.restassured.response.Response;
+import java.util.List;
 import org.junit.jupiter.api.*;
 
 /**
@@ -21,6 +22,8 @@ class WarehouseEndpointTest {
   private static final String TEST_BUSINESS_UNIT = "TEST-WH-" + System.currentTimeMillis();
   private static final String TEST_BUSINESS_UNIT_2 = "TEST-WH2-" + System.currentTimeMillis();
   private static String createdWarehouseId;
+  private static String replacedBusinessUnit;
+  private static String conditionallyReplacedId;
 
   @Test
   @Order(1)
@@ -275,6 +278,7 @@ class WarehouseEndpointTest {
   void testReplaceWarehouse_Success() {
     // Create initial warehouse
     String buCode = "REPLACE-TEST-" + System.currentTimeMillis();
+    replacedBusinessUnit = buCode;
     String createBody =
         "{"
             + "\"businessUnitCode\": \""
@@ -499,4 +503,551 @@ class WarehouseEndpointTest {
         .statusCode(404)
         .body(containsString("not found"));
   }
+
+  @Test
+  @Order(17)
+  @DisplayName("Should serve repeated lookups of an unknown code from the cache")
+  void testWarehouseCache_NegativeHits() {
+    String replaceBody =
+        "{"
+            + "\"businessUnitCode\": \"NONEXISTENT-999\","
+            + "\"location\": \"AMSTERDAM-001\","
+            + "\"capacity\": 30,"
+            + "\"stock\": 10"
+            + "}";
+    long negativeHitsBefore =
+        given()
+            .when()
+            .get(WAREHOUSE_ENDPOINT + "/cache/stats")
+            .then()
+            .statusCode(200)
+            .extract()
+            .jsonPath()
+            .getLong("negativeHits");
+
+    // The previous test already looked this code up
+    given()
+        .contentType(ContentType.JSON)
+        .body(replaceBody)
+        .when()
+        .post(WAREHOUSE_ENDPOINT + "/NONEXISTENT-999/replacement")
+        .then()
+        .statusCode(404);
+
+    given()
+        .when()
+        .get(WAREHOUSE_ENDPOINT + "/cache/stats")
+        .then()
+        .statusCode(200)
+        .body("negativeHits", greaterThan((int) negativeHitsBefore))
+        .body("maxSize", is(10000));
+  }
+
+  @Test
+  @Order(18)
+  @DisplayName("Should list only active warehouses at the given location")
+  void testListWarehouses_FilterByLocation() {
+    given()
+        .queryParam("location", "ZWOLLE-001")
+        .queryParam("archived", false)
+        .when()
+        .get(WAREHOUSE_ENDPOINT)
+        .then()
+        .statusCode(200)
+        .body("$", not(empty()))
+        .body("location", everyItem(is("ZWOLLE-001")));
+  }
+
+  @Test
+  @Order(19)
+  @DisplayName("Should list archived warehouses when requested")
+  void testListWarehouses_FilterArchived() {
+    // testArchiveWarehouse_Success archived a warehouse at VETSBY-001
+    given()
+        .queryParam("location", "VETSBY-001")
+        .queryParam("archived", true)
+        .when()
+        .get(WAREHOUSE_ENDPOINT)
+        .then()
+        .statusCode(200)
+        .body("$", not(empty()))
+        .body("location", everyItem(is("VETSBY-001")));
+  }
+
+  @Test
+  @Order(20)
+  @DisplayName("Should list capacities within the requested range")
+  void testListWarehouses_FilterByCapacity() {
+    given()
+        .queryParam("minCapacity", 40)
+        .queryParam("maxCapacity", 60)
+        .when()
+        .get(WAREHOUSE_ENDPOINT)
+        .then()
+        .statusCode(200)
+        .body("$", not(empty()))
+        .body("capacity", everyItem(allOf(greaterThanOrEqualTo(40), lessThanOrEqualTo(60))));
+  }
+
+  @Test
+  @Order(21)
+  @DisplayName("Should page through warehouses in id order")
+  void testListWarehouses_KeysetPagination() {
+    // Given - the first page
+    List<String> firstPage =
+        given()
+            .queryParam("limit", 2)
+            .when()
+            .get(WAREHOUSE_ENDPOINT)
+            .then()
+            .statusCode(200)
+            .body("$", hasSize(2))
+            .body("createdAt", everyItem(notNullValue()))
+            .body("version", everyItem(notNullValue()))
+            .extract()
+            .jsonPath()
+            .getList("id", String.class);
+    long lastId = Long.parseLong(firstPage.get(1));
+    Assertions.assertTrue(Long.parseLong(firstPage.get(0)) < lastId);
+
+    // When - the next page is requested after the last id
+    List<String> nextPage =
+        given()
+            .queryParam("afterId", lastId)
+            .queryParam("limit", 2)
+            .when()
+            .get(WAREHOUSE_ENDPOINT)
+            .then()
+            .statusCode(200)
+            .body("$", hasSize(lessThanOrEqualTo(2)))
+            .extract()
+            .jsonPath()
+            .getList("id", String.class);
+
+    // Then
+    nextPage.forEach(id -> Assertions.assertTrue(Long.parseLong(id) > lastId));
+  }
+
+  @Test
+  @Order(22)
+  @DisplayName("Should reject invalid list parameters")
+  void testListWarehouses_InvalidParameters() {
+    given().queryParam("limit", 0).when().get(WAREHOUSE_ENDPOINT).then().statusCode(400);
+
+    given().queryParam("limit", 1001).when().get(WAREHOUSE_ENDPOINT).then().statusCode(400);
+
+    given()
+        .queryParam("minCapacity", 60)
+        .queryParam("maxCapacity", 40)
+        .when()
+        .get(WAREHOUSE_ENDPOINT)
+        .then()
+        .statusCode(400)
+        .body(containsString("minCapacity"));
+  }
+
+  @Test
+  @Order(23)
+  @DisplayName("Should adjust stock within the warehouse capacity")
+  void testAdjustStock_Success() {
+    // Given
+    String buCode = "STOCK-TEST-" + System.currentTimeMillis();
+    String requestBody =
+        "{"
+            + "\"businessUnitCode\": \""
+            + buCode
+            + "\","
+            + "\"location\": \"EINDHOVEN-001\","
+            + "\"capacity\": 20,"
+            + "\"stock\": 10"
+            + "}";
+    given()
+        .contentType(ContentType.JSON)
+        .body(requestBody)
+        .when()
+        .post(WAREHOUSE_ENDPOINT)
+        .then()
+        .statusCode(200);
+
+    // When / Then - add and remove stock
+    given()
+        .contentType(ContentType.JSON)
+        .body("{\"delta\": 10}")
+        .when()
+        .post(WAREHOUSE_ENDPOINT + "/" + buCode + "/stock")
+        .then()
+        .statusCode(200)
+        .body("businessUnitCode", is(buCode))
+        .body("stock", is(20));
+
+    given()
+        .contentType(ContentType.JSON)
+        .body("{\"delta\": -20}")
+        .when()
+        .post(WAREHOUSE_ENDPOINT + "/" + buCode + "/stock")
+        .then()
+        .statusCode(200)
+        .body("stock", is(0));
+
+    // Then - the bounds are enforced
+    given()
+        .contentType(ContentType.JSON)
+        .body("{\"delta\": -1}")
+        .when()
+        .post(WAREHOUSE_ENDPOINT + "/" + buCode + "/stock")
+        .then()
+        .statusCode(400)
+        .body(containsString("negative"));
+
+    given()
+        .contentType(ContentType.JSON)
+        .body("{\"delta\": 21}")
+        .when()
+        .post(WAREHOUSE_ENDPOINT + "/" + buCode + "/stock")
+        .then()
+        .statusCode(400)
+        .body(containsString("capacity"));
+
+    // The listing reflects the committed stock
+    given()
+        .queryParam("location", "EINDHOVEN-001")
+        .when()
+        .get(WAREHOUSE_ENDPOINT)
+        .then()
+        .statusCode(200)
+        .body("find { it.businessUnitCode == '" + buCode + "' }.stock", is(0));
+
+    // And so does the stock movement ledger
+    given()
+        .when()
+        .get(WAREHOUSE_ENDPOINT + "/" + buCode + "/stock")
+        .then()
+        .statusCode(200)
+        .body("stock", is(0));
+  }
+
+  @Test
+  @Order(24)
+  @DisplayName("Should fail to adjust stock of non-existent warehouse")
+  void testAdjustStock_NotFound() {
+    given()
+        .contentType(ContentType.JSON)
+        .body("{\"delta\": 1}")
+        .when()
+        .post(WAREHOUSE_ENDPOINT + "/NONEXISTENT-999/stock")
+        .then()
+        .statusCode(404)
+        .body(containsString("not found"));
+  }
+
+  @Test
+  @Order(25)
+  @DisplayName("Should reject a missing or zero stock delta")
+  void testAdjustStock_InvalidDelta() {
+    given()
+        .contentType(ContentType.JSON)
+        .body("{}")
+        .when()
+        .post(WAREHOUSE_ENDPOINT + "/MWH.001/stock")
+        .then()
+        .statusCode(400);
+
+    given()
+        .contentType(ContentType.JSON)
+        .body("{\"delta\": 0}")
+        .when()
+        .post(WAREHOUSE_ENDPOINT + "/MWH.001/stock")
+        .then()
+        .statusCode(400);
+  }
+
+  @Test
+  @Order(26)
+  @DisplayName("Should return the stock of a warehouse at a point in time")
+  void testGetStock_AtPointInTime() {
+    // MWH.023 was seeded with a stock of 27 on 2021-02-01
+    given()
+        .queryParam("at", "2022-01-01T00:00:00")
+        .when()
+        .get(WAREHOUSE_ENDPOINT + "/MWH.023/stock")
+        .then()
+        .statusCode(200)
+        .body("businessUnitCode", is("MWH.023"))
+        .body("stock", is(27))
+        .body("at", is("2022-01-01T00:00"));
+
+    given()
+        .queryParam("at", "2020-01-01T00:00:00")
+        .when()
+        .get(WAREHOUSE_ENDPOINT + "/MWH.023/stock")
+        .then()
+        .statusCode(404);
+  }
+
+  @Test
+  @Order(27)
+  @DisplayName("Should reject a malformed point in time")
+  void testGetStock_InvalidTime() {
+    given()
+        .queryParam("at", "yesterday")
+        .when()
+        .get(WAREHOUSE_ENDPOINT + "/MWH.023/stock")
+        .then()
+        .statusCode(400);
+  }
+
+  @Test
+  @Order(28)
+  @DisplayName("Should keep the replaced warehouse as an archived version")
+  void testListVersions_AfterReplacement() {
+    // Given - the warehouse replaced in testReplaceWarehouse_Success
+    Response response =
+        given()
+            .when()
+            .get(WAREHOUSE_ENDPOINT + "/" + replacedBusinessUnit + "/versions")
+            .then()
+            .statusCode(200)
+            .body("$", hasSize(2))
+            .body("[0].location", is("EINDHOVEN-001"))
+            .body("[0].archivedAt", notNullValue())
+            .body("[1].location", is("ZWOLLE-002"))
+            .body("[1].archivedAt", nullValue())
+            .extract()
+            .response();
+    String firstCreatedAt = response.jsonPath().getString("[0].createdAt");
+    String replacedAt = response.jsonPath().getString("[1].createdAt");
+
+    // Then - each version is found at the times it was active
+    given()
+        .queryParam("at", firstCreatedAt)
+        .when()
+        .get(WAREHOUSE_ENDPOINT + "/" + replacedBusinessUnit + "/versions")
+        .then()
+        .statusCode(200)
+        .body("location", contains("EINDHOVEN-001"));
+
+    given()
+        .queryParam("at", replacedAt)
+        .when()
+        .get(WAREHOUSE_ENDPOINT + "/" + replacedBusinessUnit + "/versions")
+        .then()
+        .statusCode(200)
+        .body("location", contains("ZWOLLE-002"));
+
+    given()
+        .queryParam("at", "2000-01-01T00:00:00")
+        .when()
+        .get(WAREHOUSE_ENDPOINT + "/" + replacedBusinessUnit + "/versions")
+        .then()
+        .statusCode(200)
+        .body("$", empty());
+  }
+
+  @Test
+  @Order(29)
+  @DisplayName("Should fail to list versions of non-existent warehouse")
+  void testListVersions_NotFound() {
+    given()
+        .when()
+        .get(WAREHOUSE_ENDPOINT + "/NONEXISTENT-999/versions")
+        .then()
+        .statusCode(404);
+  }
+
+  @Test
+  @Order(30)
+  @DisplayName("Should report each rejected warehouse of a batch")
+  void testCreateBatch_ReportsRejections() {
+    String requestBody =
+        "["
+            + "{\"businessUnitCode\": \"MWH.001\", \"location\": \"ZWOLLE-001\","
+            + " \"capacity\": 10, \"stock\": 5},"
+            + "{\"businessUnitCode\": \"BATCH-INVALID-LOC\", \"location\": \"INVALID-999\","
+            + " \"capacity\": 10, \"stock\": 5},"
+            + "{\"businessUnitCode\": \"BATCH-NO-CAPACITY\", \"location\": \"ZWOLLE-001\"}"
+            + "]";
+
+    given()
+        .contentType(ContentType.JSON)
+        .body(requestBody)
+        .when()
+        .post(WAREHOUSE_ENDPOINT + "/batch")
+        .then()
+        .statusCode(200)
+        .body("created", is(0))
+        .body("rejected", is(3))
+        .body("results.index", contains(0, 1, 2))
+        .body("results[0].error", containsString("already exists"))
+        .body("results[1].error", containsString("is not valid"))
+        .body("results[2].error", containsString("required"));
+  }
+
+  @Test
+  @Order(31)
+  @DisplayName("Should reject an empty batch")
+  void testCreateBatch_Empty() {
+    given()
+        .contentType(ContentType.JSON)
+        .body("[]")
+        .when()
+        .post(WAREHOUSE_ENDPOINT + "/batch")
+        .then()
+        .statusCode(400);
+  }
+
+  @Test
+  @Order(32)
+  @DisplayName("Should replace only the version named in If-Match")
+  void testReplaceWarehouse_IfMatch() {
+    // Given - MWH.023 (id 3) as seeded, then changed by a stock adjustment
+    given()
+        .when()
+        .get(WAREHOUSE_ENDPOINT + "/3")
+        .then()
+        .statusCode(200)
+        .header("ETag", is("\"0\""))
+        .body("version", is(0));
+
+    given()
+        .contentType(ContentType.JSON)
+        .body("{\"delta\": 1}")
+        .when()
+        .post(WAREHOUSE_ENDPOINT + "/MWH.023/stock")
+        .then()
+        .statusCode(200)
+        .header("ETag", is("\"1\""));
+
+    String replaceBody =
+        "{"
+            + "\"location\": \"TILBURG-001\","
+            + "\"capacity\": 30,"
+            + "\"stock\": 28"
+            + "}";
+
+    // When / Then - a replacement based on the version read before the adjustment is refused
+    given()
+        .contentType(ContentType.JSON)
+        .header("If-Match", "\"0\"")
+        .body(replaceBody)
+        .when()
+        .post(WAREHOUSE_ENDPOINT + "/MWH.023/replacement")
+        .then()
+        .statusCode(412)
+        .body(containsString("PRECONDITION_FAILED"));
+
+    // Then - one based on the current version goes through
+    conditionallyReplacedId =
+        given()
+            .contentType(ContentType.JSON)
+            .header("If-Match", "\"1\"")
+            .body(replaceBody)
+            .when()
+            .post(WAREHOUSE_ENDPOINT + "/MWH.023/replacement")
+            .then()
+            .statusCode(200)
+            .header("ETag", is("\"3\""))
+            .body("stock", is(28))
+            .extract()
+            .path("id");
+
+    // And the archived version keeps a tag of its own
+    given()
+        .when()
+        .get(WAREHOUSE_ENDPOINT + "/3")
+        .then()
+        .statusCode(200)
+        .header("ETag", is("\"2\""))
+        .body("archivedAt", notNullValue());
+
+    given()
+        .contentType(ContentType.JSON)
+        .header("If-Match", "\"1\"")
+        .body(replaceBody)
+        .when()
+        .post(WAREHOUSE_ENDPOINT + "/MWH.023/replacement")
+        .then()
+        .statusCode(412);
+  }
+
+  @Test
+  @Order(33)
+  @DisplayName("Should archive only the version named in If-Match")
+  void testArchiveWarehouse_IfMatch() {
+    given()
+        .header("If-Match", "not-an-etag")
+        .when()
+        .delete(WAREHOUSE_ENDPOINT + "/" + conditionallyReplacedId)
+        .then()
+        .statusCode(400);
+
+    // The archived version's tag is not the current one
+    given()
+        .header("If-Match", "\"2\"")
+        .when()
+        .delete(WAREHOUSE_ENDPOINT + "/" + conditionallyReplacedId)
+        .then()
+        .statusCode(412);
+
+    given()
+        .header("If-Match", "\"3\"")
+        .when()
+        .delete(WAREHOUSE_ENDPOINT + "/" + conditionallyReplacedId)
+        .then()
+        .statusCode(204);
+
+    given()
+        .when()
+        .get(WAREHOUSE_ENDPOINT + "/" + conditionallyReplacedId)
+        .then()
+        .statusCode(200)
+        .header("ETag", is("\"4\""))
+        .body("archivedAt", notNullValue());
+  }
+
+  @Test
+  @Order(34)
+  @DisplayName("Should leave an archived warehouse archived")
+  void testArchivedWarehouse_StaysArchived() {
+    // Given - both versions of MWH.023 were archived above
+
+    // When / Then - neither version is archived a second time
+    given()
+        .when()
+        .delete(WAREHOUSE_ENDPOINT + "/3")
+        .then()
+        .statusCode(400)
+        .body(containsString("already archived"));
+
+    given()
+        .when()
+        .delete(WAREHOUSE_ENDPOINT + "/" + conditionallyReplacedId)
+        .then()
+        .statusCode(400)
+        .body(containsString("already archived"));
+
+    // And the warehouse is not brought back by a replacement
+    String replaceBody =
+        "{"
+            + "\"location\": \"TILBURG-001\","
+            + "\"capacity\": 30,"
+            + "\"stock\": 28"
+            + "}";
+
+    given()
+        .contentType(ContentType.JSON)
+        .body(replaceBody)
+        .when()
+        .post(WAREHOUSE_ENDPOINT + "/MWH.023/replacement")
+        .then()
+        .statusCode(400)
+        .body(containsString("is archived"));
+
+    given()
+        .when()
+        .get(WAREHOUSE_ENDPOINT + "/" + conditionallyReplacedId)
+        .then()
+        .statusCode(200)
+        .header("ETag", is("\"4\""))
+        .body("archivedAt", notNullValue());
+  }
 }
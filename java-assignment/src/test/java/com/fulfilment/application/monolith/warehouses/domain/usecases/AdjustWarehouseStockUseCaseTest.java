@@ -0,0 +1,132 @@
+package com.fulfilment.application.monolith.warehouses.domain.usecases;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+import com.fulfilment.application.monolith.exceptions.BusinessValidationException;
+import com.fulfilment.application.monolith.exceptions.ErrorCode;
+import com.fulfilment.application.monolith.warehouses.domain.exceptions.WarehouseNotFoundException;
+import com.fulfilment.application.monolith.warehouses.domain.models.Warehouse;
+import com.fulfilment.application.monolith.warehouses.domain.ports.WarehouseStore;
+import java.time.LocalDateTime;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+/**
+ * Unit tests for AdjustWarehouseStockUseCase
+ *
+ * <p>Tests cover: - Positive scenario: adjusted warehouse returned - Negative scenarios: zero
+ * delta, warehouse not found or archived, stock dropping below zero, capacity exceeded
+ */
+class AdjustWarehouseStockUseCaseTest {
+
+  @Mock private WarehouseStore warehouseStore;
+
+  private AdjustWarehouseStockUseCase adjustWarehouseStockUseCase;
+
+  @BeforeEach
+  void setUp() {
+    MockitoAnnotations.openMocks(this);
+    adjustWarehouseStockUseCase = new AdjustWarehouseStockUseCase(warehouseStore);
+  }
+
+  @Test
+  @DisplayName("Should return the warehouse after adjusting its stock")
+  void testAdjustStock_Success() {
+    // Given
+    Warehouse adjusted = warehouse(null);
+    adjusted.stock = 15;
+    when(warehouseStore.adjustStock("MWH.001", 5)).thenReturn(true);
+    when(warehouseStore.findByBusinessUnitCode("MWH.001")).thenReturn(adjusted);
+
+    // When
+    Warehouse result = adjustWarehouseStockUseCase.adjustStock("MWH.001", 5);
+
+    // Then
+    assertEquals(15, result.stock);
+    verify(warehouseStore).adjustStock("MWH.001", 5);
+  }
+
+  @Test
+  @DisplayName("Should reject a zero delta without touching the store")
+  void testAdjustStock_ZeroDelta() {
+    BusinessValidationException exception =
+        assertThrows(
+            BusinessValidationException.class,
+            () -> adjustWarehouseStockUseCase.adjustStock("MWH.001", 0));
+
+    assertEquals(ErrorCode.INVALID_INPUT, exception.getErrorCode());
+    verify(warehouseStore, never()).adjustStock(anyString(), anyInt());
+  }
+
+  @Test
+  @DisplayName("Should throw not found when the warehouse does not exist")
+  void testAdjustStock_WarehouseNotFound() {
+    when(warehouseStore.adjustStock("MWH.999", 5)).thenReturn(false);
+    when(warehouseStore.findByBusinessUnitCode("MWH.999")).thenReturn(null);
+
+    WarehouseNotFoundException exception =
+        assertThrows(
+            WarehouseNotFoundException.class,
+            () -> adjustWarehouseStockUseCase.adjustStock("MWH.999", 5));
+
+    assertEquals("MWH.999", exception.getIdentifier());
+  }
+
+  @Test
+  @DisplayName("Should throw not found when the warehouse is archived")
+  void testAdjustStock_WarehouseArchived() {
+    when(warehouseStore.adjustStock("MWH.001", 5)).thenReturn(false);
+    when(warehouseStore.findByBusinessUnitCode("MWH.001"))
+        .thenReturn(warehouse(LocalDateTime.now()));
+
+    assertThrows(
+        WarehouseNotFoundException.class,
+        () -> adjustWarehouseStockUseCase.adjustStock("MWH.001", 5));
+  }
+
+  @Test
+  @DisplayName("Should reject removing more than the stock")
+  void testAdjustStock_StockBelowZero() {
+    when(warehouseStore.adjustStock("MWH.001", -11)).thenReturn(false);
+    when(warehouseStore.findByBusinessUnitCode("MWH.001")).thenReturn(warehouse(null));
+
+    BusinessValidationException exception =
+        assertThrows(
+            BusinessValidationException.class,
+            () -> adjustWarehouseStockUseCase.adjustStock("MWH.001", -11));
+
+    assertEquals(ErrorCode.INVALID_INPUT, exception.getErrorCode());
+    assertTrue(exception.getMessage().contains("negative"));
+  }
+
+  @Test
+  @DisplayName("Should reject adding more than the capacity allows")
+  void testAdjustStock_CapacityExceeded() {
+    when(warehouseStore.adjustStock("MWH.001", 95)).thenReturn(false);
+    when(warehouseStore.findByBusinessUnitCode("MWH.001")).thenReturn(warehouse(null));
+
+    BusinessValidationException exception =
+        assertThrows(
+            BusinessValidationException.class,
+            () -> adjustWarehouseStockUseCase.adjustStock("MWH.001", 95));
+
+    assertEquals(ErrorCode.CAPACITY_EXCEEDED, exception.getErrorCode());
+    assertTrue(exception.getMessage().contains("capacity (100)"));
+  }
+
+  private static Warehouse warehouse(LocalDateTime archivedAt) {
+    Warehouse warehouse = new Warehouse();
+    warehouse.businessUnitCode = "MWH.001";
+    warehouse.location = "ZWOLLE-001";
+    warehouse.capacity = 100;
+    warehouse.stock = 10;
+    warehouse.archivedAt = archivedAt;
+    return warehouse;
+  }
+}
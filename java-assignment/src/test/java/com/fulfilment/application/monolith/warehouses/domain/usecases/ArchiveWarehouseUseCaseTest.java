@@ -2,14 +2,20 @@ package com.fulfilment.application.monolith.warehouses.domain.usecases;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.*;
 
+import com.fulfilment.application.monolith.exceptions.BusinessValidationException;
+import com.fulfilment.application.monolith.exceptions.ErrorCode;
 import com.fulfilment.application.monolith.warehouses.domain.exceptions.WarehouseNotFoundException;
 import com.fulfilment.application.monolith.warehouses.domain.models.Warehouse;
 import com.fulfilment.application.monolith.warehouses.domain.ports.WarehouseStore;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
+import java.time.LocalDateTime;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
@@ -18,7 +24,8 @@ import org.mockito.MockitoAnnotations;
  * Unit tests for ArchiveWarehouseUseCase
  *
  * <p>Tests cover: - Positive scenario: successful warehouse archival - Negative scenario: warehouse
- * not found
+ * not found - Archival of the version named by id - Rejection of an archived version - Expected
+ * version handed to the store
  */
 class ArchiveWarehouseUseCaseTest {
 
@@ -39,24 +46,16 @@ class ArchiveWarehouseUseCaseTest {
     Warehouse warehouse = new Warehouse();
     warehouse.businessUnitCode = "MWH.100";
 
-    Warehouse existingWarehouse = new Warehouse();
-    existingWarehouse.businessUnitCode = "MWH.100";
-    existingWarehouse.location = "AMSTERDAM-001";
-    existingWarehouse.capacity = 30;
-    existingWarehouse.stock = 10;
-
+    Warehouse existingWarehouse = existingWarehouse(7L);
     when(warehouseStore.findByBusinessUnitCode("MWH.100")).thenReturn(existingWarehouse);
 
     // When
     archiveWarehouseUseCase.archive(warehouse);
 
     // Then
-    ArgumentCaptor<Warehouse> captor = ArgumentCaptor.forClass(Warehouse.class);
-    verify(warehouseStore).update(captor.capture());
-
-    Warehouse updatedWarehouse = captor.getValue();
-    assertNotNull(updatedWarehouse.archivedAt);
-    assertEquals("MWH.100", updatedWarehouse.businessUnitCode);
+    ArgumentCaptor<LocalDateTime> captor = ArgumentCaptor.forClass(LocalDateTime.class);
+    verify(warehouseStore).archive(eq(7L), isNull(), captor.capture());
+    assertNotNull(captor.getValue());
   }
 
   @Test
@@ -76,35 +75,76 @@ class ArchiveWarehouseUseCaseTest {
     assertEquals(
         "Warehouse with business unit code MWH.999 not found", exception.getMessage());
     assertEquals("MWH.999", exception.getIdentifier());
-    verify(warehouseStore, never()).update(any());
+    verify(warehouseStore, never()).archive(anyLong(), any(), any());
   }
 
   @Test
-  @DisplayName("Should preserve warehouse data when archiving")
-  void testArchiveWarehouse_PreservesData() {
+  @DisplayName("Should archive the version named by id, not the current one")
+  void testArchiveWarehouse_ByIdArchivesThatVersion() {
+    // Given - the caller names an earlier version of the business unit
+    Warehouse warehouse = new Warehouse();
+    warehouse.id = 3L;
+    warehouse.businessUnitCode = "MWH.100";
+
+    when(warehouseStore.findWarehouseById(3L)).thenReturn(existingWarehouse(3L));
+
+    // When
+    archiveWarehouseUseCase.archive(warehouse);
+
+    // Then - the current version is not looked up
+    verify(warehouseStore).archive(eq(3L), isNull(), any());
+    verify(warehouseStore, never()).findByBusinessUnitCode(any());
+  }
+
+  @Test
+  @DisplayName("Should reject archiving an archived version")
+  void testArchiveWarehouse_AlreadyArchived() {
     // Given
     Warehouse warehouse = new Warehouse();
+    warehouse.id = 3L;
     warehouse.businessUnitCode = "MWH.100";
 
-    Warehouse existingWarehouse = new Warehouse();
-    existingWarehouse.businessUnitCode = "MWH.100";
-    existingWarehouse.location = "AMSTERDAM-001";
-    existingWarehouse.capacity = 50;
-    existingWarehouse.stock = 25;
+    Warehouse archivedWarehouse = existingWarehouse(3L);
+    archivedWarehouse.archivedAt = LocalDateTime.now().minusDays(1);
+    when(warehouseStore.findWarehouseById(3L)).thenReturn(archivedWarehouse);
 
-    when(warehouseStore.findByBusinessUnitCode("MWH.100")).thenReturn(existingWarehouse);
+    // When & Then - the original archival timestamp is kept
+    BusinessValidationException exception =
+        assertThrows(
+            BusinessValidationException.class, () -> archiveWarehouseUseCase.archive(warehouse));
+
+    assertEquals(ErrorCode.INVALID_OPERATION, exception.getErrorCode());
+    assertTrue(exception.getMessage().contains("already archived"));
+    verify(warehouseStore, never()).archive(anyLong(), any(), any());
+  }
+
+  @Test
+  @DisplayName("Should archive only the version the caller expects")
+  void testArchiveWarehouse_PassesExpectedVersion() {
+    // Given - the warehouse that was read carries its own version
+    Warehouse warehouse = new Warehouse();
+    warehouse.id = 7L;
+    warehouse.businessUnitCode = "MWH.100";
+    warehouse.version = 3L;
+
+    Warehouse existingWarehouse = existingWarehouse(7L);
+    existingWarehouse.version = 4L;
+    when(warehouseStore.findWarehouseById(7L)).thenReturn(existingWarehouse);
 
     // When
     archiveWarehouseUseCase.archive(warehouse);
 
-    // Then
-    ArgumentCaptor<Warehouse> captor = ArgumentCaptor.forClass(Warehouse.class);
-    verify(warehouseStore).update(captor.capture());
-
-    Warehouse updatedWarehouse = captor.getValue();
-    assertEquals("AMSTERDAM-001", updatedWarehouse.location);
-    assertEquals(50, updatedWarehouse.capacity);
-    assertEquals(25, updatedWarehouse.stock);
-    assertNotNull(updatedWarehouse.archivedAt);
+    // Then - the store checks the caller's version, not the one that was read
+    verify(warehouseStore).archive(eq(7L), eq(3L), any());
+  }
+
+  private static Warehouse existingWarehouse(Long id) {
+    Warehouse existingWarehouse = new Warehouse();
+    existingWarehouse.id = id;
+    existingWarehouse.businessUnitCode = "MWH.100";
+    existingWarehouse.location = "AMSTERDAM-001";
+    existingWarehouse.capacity = 30;
+    existingWarehouse.stock = 10;
+    return existingWarehouse;
   }
 }
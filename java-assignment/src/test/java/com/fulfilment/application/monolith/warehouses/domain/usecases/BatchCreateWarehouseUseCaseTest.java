@@ -0,0 +1,168 @@
+package com.fulfilment.application.monolith.warehouses.domain.usecases;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+import com.fulfilment.application.monolith.location.LocationNotFoundException;
+import com.fulfilment.application.monolith.warehouses.domain.models.Location;
+import com.fulfilment.application.monolith.warehouses.domain.models.Occupancy;
+import com.fulfilment.application.monolith.warehouses.domain.models.Warehouse;
+import com.fulfilment.application.monolith.warehouses.domain.models.WarehouseCreationResult;
+import com.fulfilment.application.monolith.warehouses.domain.ports.LocationOccupancy;
+import com.fulfilment.application.monolith.warehouses.domain.ports.LocationResolver;
+import com.fulfilment.application.monolith.warehouses.domain.ports.WarehouseStore;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+/**
+ * Unit tests for BatchCreateWarehouseUseCase
+ *
+ * <p>Tests cover: - Positive scenario: all warehouses created with one lookup per location -
+ * Negative scenarios: cumulative warehouse count and capacity limits, business unit code
+ * duplicated in the store or within the batch, invalid location, missing fields, stock exceeding
+ * capacity
+ */
+class BatchCreateWarehouseUseCaseTest {
+
+  @Mock private WarehouseStore warehouseStore;
+
+  @Mock private LocationResolver locationResolver;
+
+  @Mock private LocationOccupancy locationOccupancy;
+
+  @Captor private ArgumentCaptor<List<Warehouse>> warehousesCaptor;
+
+  private BatchCreateWarehouseUseCase batchCreateWarehouseUseCase;
+
+  @BeforeEach
+  void setUp() {
+    MockitoAnnotations.openMocks(this);
+    batchCreateWarehouseUseCase =
+        new BatchCreateWarehouseUseCase(warehouseStore, locationResolver, locationOccupancy);
+    when(warehouseStore.findExistingBusinessUnitCodes(any())).thenReturn(Set.of());
+    when(locationResolver.resolveByIdentifier("AMSTERDAM-001"))
+        .thenReturn(new Location("AMSTERDAM-001", 5, 100));
+    when(locationResolver.resolveByIdentifier("ZWOLLE-001"))
+        .thenReturn(new Location("ZWOLLE-001", 1, 40));
+    when(locationOccupancy.occupancyAt("AMSTERDAM-001")).thenReturn(new Occupancy(2L, 40));
+    when(locationOccupancy.occupancyAt("ZWOLLE-001")).thenReturn(new Occupancy(0L, 0));
+  }
+
+  @Test
+  @DisplayName("Should create every valid warehouse, resolving each location once")
+  void testCreateAll_Success() {
+    // Given
+    List<Warehouse> warehouses =
+        List.of(
+            warehouse("MWH.100", "AMSTERDAM-001", 20, 5),
+            warehouse("MWH.101", "ZWOLLE-001", 30, 5),
+            warehouse("MWH.102", "AMSTERDAM-001", 20, 5));
+
+    // When
+    List<WarehouseCreationResult> results = batchCreateWarehouseUseCase.createAll(warehouses);
+
+    // Then
+    assertTrue(results.stream().allMatch(WarehouseCreationResult::isCreated));
+    verify(locationResolver, times(1)).resolveByIdentifier("AMSTERDAM-001");
+    verify(locationOccupancy, times(1)).occupancyAt("AMSTERDAM-001");
+    verify(warehouseStore).findExistingBusinessUnitCodes(any());
+    verify(warehouseStore).createAll(warehouses);
+    verify(warehouseStore, never()).findByBusinessUnitCode(any());
+  }
+
+  @Test
+  @DisplayName("Should count warehouses accepted earlier in the batch towards location limits")
+  void testCreateAll_CumulativeLimits() {
+    // Given - AMSTERDAM-001 has room for 3 more warehouses and 60 more capacity
+    List<Warehouse> warehouses =
+        List.of(
+            warehouse("MWH.100", "AMSTERDAM-001", 30, 5),
+            warehouse("MWH.101", "AMSTERDAM-001", 40, 5),
+            warehouse("MWH.102", "AMSTERDAM-001", 30, 5),
+            warehouse("MWH.103", "ZWOLLE-001", 10, 5),
+            warehouse("MWH.104", "ZWOLLE-001", 10, 5));
+
+    // When
+    List<WarehouseCreationResult> results = batchCreateWarehouseUseCase.createAll(warehouses);
+
+    // Then
+    assertTrue(results.get(0).isCreated());
+    assertEquals(
+        "Total capacity 110 would exceed location's maximum capacity of 100",
+        results.get(1).rejection());
+    assertTrue(results.get(2).isCreated());
+    assertTrue(results.get(3).isCreated());
+    assertEquals(
+        "Maximum number of warehouses (1) reached for location ZWOLLE-001",
+        results.get(4).rejection());
+    verify(warehouseStore)
+        .createAll(List.of(warehouses.get(0), warehouses.get(2), warehouses.get(3)));
+  }
+
+  @Test
+  @DisplayName("Should reject codes already in use or repeated within the batch")
+  void testCreateAll_DuplicateCodes() {
+    // Given
+    when(warehouseStore.findExistingBusinessUnitCodes(any())).thenReturn(Set.of("MWH.001"));
+    List<Warehouse> warehouses =
+        List.of(
+            warehouse("MWH.001", "AMSTERDAM-001", 10, 5),
+            warehouse("MWH.100", "AMSTERDAM-001", 10, 5),
+            warehouse("MWH.100", "AMSTERDAM-001", 10, 5));
+
+    // When
+    List<WarehouseCreationResult> results = batchCreateWarehouseUseCase.createAll(warehouses);
+
+    // Then
+    assertEquals(
+        "Warehouse with business unit code MWH.001 already exists", results.get(0).rejection());
+    assertTrue(results.get(1).isCreated());
+    assertEquals(
+        "Warehouse with business unit code MWH.100 already exists", results.get(2).rejection());
+  }
+
+  @Test
+  @DisplayName("Should reject invalid locations, missing fields and stock over capacity")
+  void testCreateAll_InvalidWarehouses() {
+    // Given
+    when(locationResolver.resolveByIdentifier("INVALID-001"))
+        .thenThrow(new LocationNotFoundException("INVALID-001"));
+    List<Warehouse> warehouses =
+        List.of(
+            warehouse("MWH.100", "INVALID-001", 10, 5),
+            warehouse("MWH.101", "AMSTERDAM-001", null, 5),
+            warehouse("MWH.102", "AMSTERDAM-001", 10, 15));
+
+    // When
+    List<WarehouseCreationResult> results = batchCreateWarehouseUseCase.createAll(warehouses);
+
+    // Then
+    assertEquals("Location INVALID-001 is not valid", results.get(0).rejection());
+    assertEquals(
+        "Business unit code, location, capacity and stock are required",
+        results.get(1).rejection());
+    assertEquals("Warehouse stock (15) exceeds capacity (10)", results.get(2).rejection());
+    verify(locationOccupancy, never()).occupancyAt("INVALID-001");
+
+    verify(warehouseStore).createAll(warehousesCaptor.capture());
+    assertTrue(warehousesCaptor.getValue().isEmpty());
+  }
+
+  private static Warehouse warehouse(
+      String businessUnitCode, String location, Integer capacity, Integer stock) {
+    Warehouse warehouse = new Warehouse();
+    warehouse.businessUnitCode = businessUnitCode;
+    warehouse.location = location;
+    warehouse.capacity = capacity;
+    warehouse.stock = stock;
+    return warehouse;
+  }
+}
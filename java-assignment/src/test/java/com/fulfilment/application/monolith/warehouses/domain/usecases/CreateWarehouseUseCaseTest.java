@@ -8,8 +8,12 @@ import com.fulfilment.application.monolith.exceptions.BusinessValidationExceptio
 import com.fulfilment.application.monolith.location.LocationNotFoundException;
 import com.fulfilment.application.monolith.warehouses.adapters.database.WarehouseRepository;
 import com.fulfilment.application.monolith.warehouses.domain.models.Location;
+import com.fulfilment.application.monolith.warehouses.domain.models.Occupancy;
 import com.fulfilment.application.monolith.warehouses.domain.models.Warehouse;
+import com.fulfilment.application.monolith.warehouses.domain.ports.LocationOccupancy;
 import com.fulfilment.application.monolith.warehouses.domain.ports.LocationResolver;
+import java.util.List;
+import java.util.Set;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -29,12 +33,15 @@ class CreateWarehouseUseCaseTest {
 
   @Mock private LocationResolver locationResolver;
 
+  @Mock private LocationOccupancy locationOccupancy;
+
   private CreateWarehouseUseCase createWarehouseUseCase;
 
   @BeforeEach
   void setUp() {
     MockitoAnnotations.openMocks(this);
-    createWarehouseUseCase = new CreateWarehouseUseCase(warehouseRepository, locationResolver);
+    createWarehouseUseCase =
+        new CreateWarehouseUseCase(warehouseRepository, locationResolver, locationOccupancy);
   }
 
   @Test
@@ -44,10 +51,11 @@ class CreateWarehouseUseCaseTest {
     Warehouse warehouse = createValidWarehouse();
     Location location = new Location("AMSTERDAM-001", 5, 100);
 
-    when(warehouseRepository.findByBusinessUnitCode("MWH.100")).thenReturn(null);
+    when(warehouseRepository.findExistingBusinessUnitCodes(List.of("MWH.100")))
+        .thenReturn(Set.of());
     when(locationResolver.resolveByIdentifier("AMSTERDAM-001")).thenReturn(location);
-    when(warehouseRepository.countActiveWarehousesAtLocation("AMSTERDAM-001")).thenReturn(2L);
-    when(warehouseRepository.getTotalCapacityAtLocation("AMSTERDAM-001")).thenReturn(40);
+    when(locationOccupancy.occupancyAt("AMSTERDAM-001"))
+        .thenReturn(new Occupancy(2L, 40));
 
     // When
     createWarehouseUseCase.create(warehouse);
@@ -61,10 +69,8 @@ class CreateWarehouseUseCaseTest {
   void testCreateWarehouse_DuplicateBusinessUnitCode() {
     // Given
     Warehouse warehouse = createValidWarehouse();
-    Warehouse existingWarehouse = new Warehouse();
-    existingWarehouse.businessUnitCode = "MWH.100";
-
-    when(warehouseRepository.findByBusinessUnitCode("MWH.100")).thenReturn(existingWarehouse);
+    when(warehouseRepository.findExistingBusinessUnitCodes(List.of("MWH.100")))
+        .thenReturn(Set.of("MWH.100"));
 
     // When & Then
     BusinessValidationException exception =
@@ -81,7 +87,8 @@ class CreateWarehouseUseCaseTest {
     // Given
     Warehouse warehouse = createValidWarehouse();
 
-    when(warehouseRepository.findByBusinessUnitCode("MWH.100")).thenReturn(null);
+    when(warehouseRepository.findExistingBusinessUnitCodes(List.of("MWH.100")))
+        .thenReturn(Set.of());
     when(locationResolver.resolveByIdentifier("AMSTERDAM-001"))
         .thenThrow(new LocationNotFoundException("AMSTERDAM-001"));
 
@@ -101,9 +108,11 @@ class CreateWarehouseUseCaseTest {
     Warehouse warehouse = createValidWarehouse();
     Location location = new Location("AMSTERDAM-001", 3, 100);
 
-    when(warehouseRepository.findByBusinessUnitCode("MWH.100")).thenReturn(null);
+    when(warehouseRepository.findExistingBusinessUnitCodes(List.of("MWH.100")))
+        .thenReturn(Set.of());
     when(locationResolver.resolveByIdentifier("AMSTERDAM-001")).thenReturn(location);
-    when(warehouseRepository.countActiveWarehousesAtLocation("AMSTERDAM-001")).thenReturn(3L);
+    when(locationOccupancy.occupancyAt("AMSTERDAM-001"))
+        .thenReturn(new Occupancy(3L, 0));
 
     // When & Then
     BusinessValidationException exception =
@@ -123,10 +132,11 @@ class CreateWarehouseUseCaseTest {
     warehouse.capacity = 60;
     Location location = new Location("AMSTERDAM-001", 5, 100);
 
-    when(warehouseRepository.findByBusinessUnitCode("MWH.100")).thenReturn(null);
+    when(warehouseRepository.findExistingBusinessUnitCodes(List.of("MWH.100")))
+        .thenReturn(Set.of());
     when(locationResolver.resolveByIdentifier("AMSTERDAM-001")).thenReturn(location);
-    when(warehouseRepository.countActiveWarehousesAtLocation("AMSTERDAM-001")).thenReturn(2L);
-    when(warehouseRepository.getTotalCapacityAtLocation("AMSTERDAM-001")).thenReturn(50);
+    when(locationOccupancy.occupancyAt("AMSTERDAM-001"))
+        .thenReturn(new Occupancy(2L, 50));
 
     // When & Then
     BusinessValidationException exception =
@@ -147,10 +157,11 @@ class CreateWarehouseUseCaseTest {
     warehouse.stock = 30;
     Location location = new Location("AMSTERDAM-001", 5, 100);
 
-    when(warehouseRepository.findByBusinessUnitCode("MWH.100")).thenReturn(null);
+    when(warehouseRepository.findExistingBusinessUnitCodes(List.of("MWH.100")))
+        .thenReturn(Set.of());
     when(locationResolver.resolveByIdentifier("AMSTERDAM-001")).thenReturn(location);
-    when(warehouseRepository.countActiveWarehousesAtLocation("AMSTERDAM-001")).thenReturn(2L);
-    when(warehouseRepository.getTotalCapacityAtLocation("AMSTERDAM-001")).thenReturn(40);
+    when(locationOccupancy.occupancyAt("AMSTERDAM-001"))
+        .thenReturn(new Occupancy(2L, 40));
 
     // When & Then
     BusinessValidationException exception =
@@ -168,10 +179,11 @@ class CreateWarehouseUseCaseTest {
     warehouse.capacity = 60;
     Location location = new Location("AMSTERDAM-001", 5, 100);
 
-    when(warehouseRepository.findByBusinessUnitCode("MWH.100")).thenReturn(null);
+    when(warehouseRepository.findExistingBusinessUnitCodes(List.of("MWH.100")))
+        .thenReturn(Set.of());
     when(locationResolver.resolveByIdentifier("AMSTERDAM-001")).thenReturn(location);
-    when(warehouseRepository.countActiveWarehousesAtLocation("AMSTERDAM-001")).thenReturn(2L);
-    when(warehouseRepository.getTotalCapacityAtLocation("AMSTERDAM-001")).thenReturn(40);
+    when(locationOccupancy.occupancyAt("AMSTERDAM-001"))
+        .thenReturn(new Occupancy(2L, 40));
 
     // When
     createWarehouseUseCase.create(warehouse);
@@ -187,10 +199,11 @@ class CreateWarehouseUseCaseTest {
     Warehouse warehouse = createValidWarehouse();
     Location location = new Location("AMSTERDAM-001", 5, 100);
 
-    when(warehouseRepository.findByBusinessUnitCode("MWH.100")).thenReturn(null);
+    when(warehouseRepository.findExistingBusinessUnitCodes(List.of("MWH.100")))
+        .thenReturn(Set.of());
     when(locationResolver.resolveByIdentifier("AMSTERDAM-001")).thenReturn(location);
-    when(warehouseRepository.countActiveWarehousesAtLocation("AMSTERDAM-001")).thenReturn(4L);
-    when(warehouseRepository.getTotalCapacityAtLocation("AMSTERDAM-001")).thenReturn(40);
+    when(locationOccupancy.occupancyAt("AMSTERDAM-001"))
+        .thenReturn(new Occupancy(4L, 40));
 
     // When
     createWarehouseUseCase.create(warehouse);
@@ -5,12 +5,16 @@ import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 
 import com.fulfilment.application.monolith.exceptions.BusinessValidationException;
+import com.fulfilment.application.monolith.exceptions.ErrorCode;
 import com.fulfilment.application.monolith.location.LocationNotFoundException;
 import com.fulfilment.application.monolith.warehouses.adapters.database.WarehouseRepository;
 import com.fulfilment.application.monolith.warehouses.domain.exceptions.WarehouseNotFoundException;
 import com.fulfilment.application.monolith.warehouses.domain.models.Location;
+import com.fulfilment.application.monolith.warehouses.domain.models.Occupancy;
 import com.fulfilment.application.monolith.warehouses.domain.models.Warehouse;
+import com.fulfilment.application.monolith.warehouses.domain.ports.LocationOccupancy;
 import com.fulfilment.application.monolith.warehouses.domain.ports.LocationResolver;
+import java.time.LocalDateTime;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -21,8 +25,8 @@ import org.mockito.MockitoAnnotations;
  * Unit tests for ReplaceWarehouseUseCase
  *
  * <p>Tests cover: - Positive scenario: successful warehouse replacement - Negative scenarios:
- * warehouse not found, invalid location, stock mismatch, insufficient capacity, location capacity
- * exceeded
+ * warehouse not found, warehouse archived, invalid location, stock mismatch, insufficient
+ * capacity, location capacity exceeded
  */
 class ReplaceWarehouseUseCaseTest {
 
@@ -30,12 +34,15 @@ class ReplaceWarehouseUseCaseTest {
 
   @Mock private LocationResolver locationResolver;
 
+  @Mock private LocationOccupancy locationOccupancy;
+
   private ReplaceWarehouseUseCase replaceWarehouseUseCase;
 
   @BeforeEach
   void setUp() {
     MockitoAnnotations.openMocks(this);
-    replaceWarehouseUseCase = new ReplaceWarehouseUseCase(warehouseRepository, locationResolver);
+    replaceWarehouseUseCase =
+        new ReplaceWarehouseUseCase(warehouseRepository, locationResolver, locationOccupancy);
   }
 
   @Test
@@ -48,13 +55,14 @@ class ReplaceWarehouseUseCaseTest {
 
     when(warehouseRepository.findByBusinessUnitCode("MWH.100")).thenReturn(oldWarehouse);
     when(locationResolver.resolveByIdentifier("AMSTERDAM-002")).thenReturn(location);
-    when(warehouseRepository.getTotalCapacityAtLocation("AMSTERDAM-002")).thenReturn(40);
+    when(locationOccupancy.occupancyAt("AMSTERDAM-002"))
+        .thenReturn(new Occupancy(2L, 40));
 
     // When
     replaceWarehouseUseCase.replace(newWarehouse);
 
     // Then
-    verify(warehouseRepository).update(newWarehouse);
+    verify(warehouseRepository).replace(newWarehouse);
   }
 
   @Test
@@ -73,7 +81,28 @@ class ReplaceWarehouseUseCaseTest {
     assertEquals(
         "Warehouse with business unit code MWH.100 not found", exception.getMessage());
     assertEquals("MWH.100", exception.getIdentifier());
-    verify(warehouseRepository, never()).update(any());
+    verify(warehouseRepository, never()).replace(any());
+  }
+
+  @Test
+  @DisplayName("Should throw exception when warehouse is archived")
+  void testReplaceWarehouse_WarehouseArchived() {
+    // Given - the current version of the business unit has been archived
+    Warehouse oldWarehouse = createOldWarehouse();
+    oldWarehouse.archivedAt = LocalDateTime.now().minusDays(1);
+    Warehouse newWarehouse = createNewWarehouse();
+
+    when(warehouseRepository.findByBusinessUnitCode("MWH.100")).thenReturn(oldWarehouse);
+
+    // When & Then - an archived warehouse is not brought back, nor its capacity discounted
+    BusinessValidationException exception =
+        assertThrows(
+            BusinessValidationException.class, () -> replaceWarehouseUseCase.replace(newWarehouse));
+
+    assertEquals(ErrorCode.INVALID_OPERATION, exception.getErrorCode());
+    assertTrue(exception.getMessage().contains("is archived"));
+    verify(locationOccupancy, never()).occupancyAt(any());
+    verify(warehouseRepository, never()).replace(any());
   }
 
   @Test
@@ -94,7 +123,7 @@ class ReplaceWarehouseUseCaseTest {
 
     assertTrue(exception.getMessage().contains("Location with identifier AMSTERDAM-002 not found"));
     assertEquals("AMSTERDAM-002", exception.getIdentifier());
-    verify(warehouseRepository, never()).update(any());
+    verify(warehouseRepository, never()).replace(any());
   }
 
   @Test
@@ -116,7 +145,7 @@ class ReplaceWarehouseUseCaseTest {
 
     assertEquals(
         "New warehouse stock (20) must match old warehouse stock (10)", exception.getMessage());
-    verify(warehouseRepository, never()).update(any());
+    verify(warehouseRepository, never()).replace(any());
   }
 
   @Test
@@ -138,7 +167,7 @@ class ReplaceWarehouseUseCaseTest {
 
     assertEquals(
         "New warehouse capacity (5) cannot accommodate stock (10)", exception.getMessage());
-    verify(warehouseRepository, never()).update(any());
+    verify(warehouseRepository, never()).replace(any());
   }
 
   @Test
@@ -152,7 +181,8 @@ class ReplaceWarehouseUseCaseTest {
 
     when(warehouseRepository.findByBusinessUnitCode("MWH.100")).thenReturn(oldWarehouse);
     when(locationResolver.resolveByIdentifier("AMSTERDAM-002")).thenReturn(location);
-    when(warehouseRepository.getTotalCapacityAtLocation("AMSTERDAM-002")).thenReturn(50);
+    when(locationOccupancy.occupancyAt("AMSTERDAM-002"))
+        .thenReturn(new Occupancy(2L, 50));
 
     // When & Then
     BusinessValidationException exception =
@@ -162,7 +192,7 @@ class ReplaceWarehouseUseCaseTest {
     assertEquals(
         "Total capacity 120 would exceed location's maximum capacity of 100",
         exception.getMessage());
-    verify(warehouseRepository, never()).update(any());
+    verify(warehouseRepository, never()).replace(any());
   }
 
   @Test
@@ -178,13 +208,14 @@ class ReplaceWarehouseUseCaseTest {
 
     when(warehouseRepository.findByBusinessUnitCode("MWH.100")).thenReturn(oldWarehouse);
     when(locationResolver.resolveByIdentifier("AMSTERDAM-001")).thenReturn(location);
-    when(warehouseRepository.getTotalCapacityAtLocation("AMSTERDAM-001")).thenReturn(60);
+    when(locationOccupancy.occupancyAt("AMSTERDAM-001"))
+        .thenReturn(new Occupancy(2L, 60));
 
     // When
     replaceWarehouseUseCase.replace(newWarehouse);
 
     // Then (60 - 30 + 40 = 70, which is less than 100)
-    verify(warehouseRepository).update(newWarehouse);
+    verify(warehouseRepository).replace(newWarehouse);
   }
 
   @Test
@@ -198,13 +229,14 @@ class ReplaceWarehouseUseCaseTest {
 
     when(warehouseRepository.findByBusinessUnitCode("MWH.100")).thenReturn(oldWarehouse);
     when(locationResolver.resolveByIdentifier("AMSTERDAM-002")).thenReturn(location);
-    when(warehouseRepository.getTotalCapacityAtLocation("AMSTERDAM-002")).thenReturn(40);
+    when(locationOccupancy.occupancyAt("AMSTERDAM-002"))
+        .thenReturn(new Occupancy(2L, 40));
 
     // When
     replaceWarehouseUseCase.replace(newWarehouse);
 
     // Then (40 + 60 = 100, which equals max capacity)
-    verify(warehouseRepository).update(newWarehouse);
+    verify(warehouseRepository).replace(newWarehouse);
   }
 
   // Helper methods